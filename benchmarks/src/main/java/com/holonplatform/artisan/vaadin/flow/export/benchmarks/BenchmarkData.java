@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.benchmarks;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellBorder;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSColor;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.core.i18n.Caption;
+import com.holonplatform.core.property.BooleanProperty;
+import com.holonplatform.core.property.NumericProperty;
+import com.holonplatform.core.property.PathProperty;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.property.TemporalProperty;
+import com.vaadin.flow.data.provider.DataProvider;
+
+/**
+ * The data sets and the exporter setups shared by the export benchmarks.
+ */
+public final class BenchmarkData {
+
+	/**
+	 * Enum with captions.
+	 */
+	public enum Status {
+
+		@Caption("Active")
+		ACTIVE,
+
+		@Caption("Suspended")
+		SUSPENDED,
+
+		@Caption("Closed")
+		CLOSED;
+
+	}
+
+	public static final NumericProperty<Long> ID = NumericProperty.longType("id");
+	public static final NumericProperty<Double> AMOUNT = NumericProperty.doubleType("amount");
+	public static final NumericProperty<Integer> QUANTITY = NumericProperty.integerType("quantity");
+	public static final TemporalProperty<LocalDate> DATE = TemporalProperty.localDate("date");
+	public static final TemporalProperty<LocalDate> DUE_DATE = TemporalProperty.localDate("dueDate");
+	public static final PathProperty<Status> STATUS = PathProperty.create("status", Status.class);
+	public static final PathProperty<Status> PREVIOUS_STATUS = PathProperty.create("previousStatus", Status.class);
+	public static final BooleanProperty ENABLED = BooleanProperty.create("enabled");
+	public static final BooleanProperty VERIFIED = BooleanProperty.create("verified");
+
+	/**
+	 * The exported columns type mix.
+	 */
+	public enum ColumnMix {
+
+		NUMERIC(ID, AMOUNT, QUANTITY),
+
+		LOCAL_DATE(ID, DATE, DUE_DATE),
+
+		ENUM(ID, STATUS, PREVIOUS_STATUS),
+
+		BOOLEAN_TEXT(ID, ENABLED, VERIFIED),
+
+		MIXED(ID, AMOUNT, QUANTITY, DATE, DUE_DATE, STATUS, PREVIOUS_STATUS, ENABLED, VERIFIED);
+
+		private final Property<?>[] properties;
+
+		private ColumnMix(Property<?>... properties) {
+			this.properties = properties;
+		}
+
+		public Property<?>[] getProperties() {
+			return properties;
+		}
+
+		public PropertySet<?> getPropertySet() {
+			return PropertySet.builderOf(properties).withIdentifier(ID).build();
+		}
+
+	}
+
+	/**
+	 * The workbook format and export engine.
+	 */
+	public enum Format {
+
+		/**
+		 * XLS file, using a HSSF workbook.
+		 */
+		HSSF,
+
+		/**
+		 * XLSX file, using the default streaming workbook based on SXSSF.
+		 */
+		SXSSF,
+
+		/**
+		 * XLSX file, using the streaming export engine.
+		 */
+		STREAMING;
+
+	}
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Generate the benchmark rows. The same seed is used at each invocation, so that the data sets are the same
+	 * across the runs.
+	 * @param columns The column mix
+	 * @param rows The number of rows
+	 * @return The rows
+	 */
+	public static List<PropertyBox> rows(ColumnMix columns, int rows) {
+		final PropertySet<?> set = columns.getPropertySet();
+		final Random random = new Random(42);
+		final Status[] statuses = Status.values();
+		final LocalDate start = LocalDate.of(2020, 1, 1);
+		final List<PropertyBox> data = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			final PropertyBox row = PropertyBox.create(set);
+			row.setValue(ID, (long) i);
+			if (set.contains(AMOUNT)) {
+				row.setValue(AMOUNT, random.nextInt(10000000) / 100d);
+				row.setValue(QUANTITY, random.nextInt(1000));
+			}
+			if (set.contains(DATE)) {
+				row.setValue(DATE, start.plusDays(random.nextInt(2000)));
+				row.setValue(DUE_DATE, (i % 5 == 0) ? null : start.plusDays(random.nextInt(2000)));
+			}
+			if (set.contains(STATUS)) {
+				row.setValue(STATUS, statuses[random.nextInt(statuses.length)]);
+				row.setValue(PREVIOUS_STATUS, (i % 3 == 0) ? null : statuses[random.nextInt(statuses.length)]);
+			}
+			if (set.contains(ENABLED)) {
+				row.setValue(ENABLED, random.nextBoolean());
+				row.setValue(VERIFIED, (i % 4 == 0) ? null : random.nextBoolean());
+			}
+			data.add(row);
+		}
+		return data;
+	}
+
+	/**
+	 * Build the export configuration. Booleans are always exported as text.
+	 * @param format The workbook format
+	 * @param columns The column mix
+	 * @param styled Whether to configure a custom cell style for each column
+	 * @return The export configuration
+	 */
+	public static XLSConfiguration configuration(Format format, ColumnMix columns, boolean styled) {
+		final XLSConfiguration.Builder builder = XLSConfiguration.builder()
+				.fileVersion((format == Format.HSSF) ? XLSFileVersion.XLS : XLSFileVersion.XLSX)
+				.defaultBooleanExportMode(BooleanExportMode.TEXT);
+		if (styled) {
+			final XLSCellConfiguration cell = XLSCellConfiguration.builder().bold(true)
+					.backgroundColor(XLSColor.LIGHT_TURQUOISE).borderBottom(XLSCellBorder.THIN)
+					.borderBottomColor(XLSColor.BLUE).build();
+			for (Property<?> property : columns.getProperties()) {
+				builder.propertyConfiguration(property,
+						XLSPropertyConfiguration.builder().cellConfiguration(cell).build());
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Build an exporter.
+	 * @param format The workbook format
+	 * @param columns The column mix
+	 * @param styled Whether to configure a custom cell style for each column
+	 * @param rows The number of rows
+	 * @return The exporter
+	 */
+	public static XLSExporter exporter(Format format, ColumnMix columns, boolean styled, int rows) {
+		final XLSExporter.Builder builder = XLSExporter
+				.builder(DataProvider.ofCollection(rows(columns, rows)), columns.getPropertySet())
+				.configuration(configuration(format, columns, styled))
+				.registry(PropertyXLSValueProviderRegistry.create(true));
+		if (format == Format.STREAMING) {
+			builder.engine(XLSExportEngine.streaming());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * An {@link OutputStream} which discards the data, counting the written bytes.
+	 */
+	public static final class CountingOutputStream extends OutputStream {
+
+		private long count = 0;
+
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+
+	}
+
+}
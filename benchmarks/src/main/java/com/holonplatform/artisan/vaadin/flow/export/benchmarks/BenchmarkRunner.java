@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks launcher, which accepts the standard JMH command line options and enables the GC profiler by default,
+ * to report the allocated bytes per operation (<code>gc.alloc.rate.norm</code>).
+ * <p>
+ * Usage:
+ * </p>
+ * 
+ * <pre>
+ * mvn -P benchmarks package -pl benchmarks -am
+ * java -jar benchmarks/target/benchmarks.jar                      # all the benchmarks
+ * java -jar benchmarks/target/benchmarks.jar XLSExportBenchmark -p format=SXSSF -p columns=MIXED
+ * java -Dnogc=true -jar benchmarks/target/benchmarks.jar          # without the GC profiler
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!Boolean.getBoolean("nogc")) {
+			options.addProfiler(GCProfiler.class);
+		}
+		new Runner(options.build()).run();
+	}
+
+}
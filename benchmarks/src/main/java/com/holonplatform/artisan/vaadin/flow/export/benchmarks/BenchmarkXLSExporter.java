@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.benchmarks;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.DefaultXLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.XLSExportSession;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.XLSStyleKey;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.vaadin.flow.data.provider.DataProvider;
+
+/**
+ * A {@link DefaultXLSExporter} which exposes the export steps measured by the microbenchmarks.
+ */
+public class BenchmarkXLSExporter extends DefaultXLSExporter {
+
+	public BenchmarkXLSExporter(DataProvider<PropertyBox, ?> dataSource, PropertySet<?> propertySet,
+			XLSConfiguration configuration) {
+		super(dataSource, propertySet);
+		setConfiguration(configuration);
+	}
+
+	public Workbook newWorkbook(XLSConfiguration configuration) {
+		return createWorkbook(configuration);
+	}
+
+	public CellStyle style(XLSExportSession session, Property<?> property, XLSConfiguration configuration,
+			XLSStyleKey styleKey) {
+		return getOrCreateStyle(session, property, configuration, styleKey);
+	}
+
+	public CellStyle style(XLSExportSession session, Property<?> property, XLSConfiguration configuration,
+			int styleId) {
+		return getOrCreateStyle(session, property, configuration, styleId);
+	}
+
+	public CellType cellValue(Cell cell, XLSValue<?> xlsValue, XLSConfiguration configuration,
+			XLSPropertyConfiguration propertyConfiguration) {
+		return setCellValue(cell, xlsValue, configuration, propertyConfiguration);
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.holonplatform.artisan.vaadin.flow.export.benchmarks.BenchmarkData.ColumnMix;
+import com.holonplatform.artisan.vaadin.flow.export.benchmarks.BenchmarkData.CountingOutputStream;
+import com.holonplatform.artisan.vaadin.flow.export.benchmarks.BenchmarkData.Format;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+
+/**
+ * End to end XLS export benchmark.
+ * <p>
+ * Each operation is a data row, so the throughput is expressed in rows per second and, using the GC profiler, the
+ * <code>gc.alloc.rate.norm</code> metric is the number of bytes allocated per row.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XLSExportBenchmark {
+
+	/**
+	 * Exported rows for each invocation.
+	 */
+	public static final int ROWS = 10000;
+
+	@Param({ "HSSF", "SXSSF", "STREAMING" })
+	public Format format;
+
+	@Param({ "NUMERIC", "LOCAL_DATE", "ENUM", "BOOLEAN_TEXT", "MIXED" })
+	public ColumnMix columns;
+
+	@Param({ "false", "true" })
+	public boolean styled;
+
+	private XLSExporter exporter;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		exporter = BenchmarkData.exporter(format, columns, styled, ROWS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long export() {
+		final CountingOutputStream os = new CountingOutputStream();
+		exporter.export(os);
+		return os.getCount();
+	}
+
+}
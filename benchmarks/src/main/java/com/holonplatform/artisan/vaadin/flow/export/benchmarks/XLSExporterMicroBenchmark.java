@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.benchmarks;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.benchmarks.BenchmarkData.ColumnMix;
+import com.holonplatform.artisan.vaadin.flow.export.benchmarks.BenchmarkData.Format;
+import com.holonplatform.artisan.vaadin.flow.export.benchmarks.BenchmarkData.Status;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellBorder;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSColor;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.XLSExportSession;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.XLSStyleKey;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.vaadin.flow.data.provider.DataProvider;
+
+/**
+ * Isolated benchmarks of the per cell export steps: value provider lookup, cell style lookup and cell value setting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XLSExporterMicroBenchmark {
+
+	/**
+	 * The exported value type, for the cell value benchmark.
+	 */
+	public enum ValueType {
+
+		NUMERIC, LOCAL_DATE, ENUM, BOOLEAN_TEXT, STRING;
+
+	}
+
+	private static final Property<?>[] PROPERTIES = ColumnMix.MIXED.getProperties();
+
+	@Param({ "HSSF", "SXSSF" })
+	public Format format;
+
+	private PropertyXLSValueProviderRegistry registry;
+
+	private BenchmarkXLSExporter exporter;
+	private XLSConfiguration configuration;
+	private XLSPropertyConfiguration propertyConfiguration;
+	private Workbook workbook;
+	private XLSExportSession session;
+	private XLSStyleKey styleKey;
+	private int styleId;
+	private Cell cell;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		registry = PropertyXLSValueProviderRegistry.create(true);
+
+		configuration = BenchmarkData.configuration(format, ColumnMix.MIXED, false);
+		propertyConfiguration = XLSPropertyConfiguration.builder().booleanExportMode(BooleanExportMode.TEXT).build();
+
+		exporter = new BenchmarkXLSExporter(DataProvider.ofCollection(Collections.<PropertyBox>emptyList()),
+				ColumnMix.MIXED.getPropertySet(), configuration);
+		workbook = exporter.newWorkbook(configuration);
+		session = new XLSExportSession(workbook, exporter.getExportPlan());
+
+		// the style is created once, then the benchmarks measure the lookup
+		styleKey = new XLSStyleKey(XLSCellConfiguration.builder().bold(true).backgroundColor(XLSColor.LIGHT_TURQUOISE)
+				.borderBottom(XLSCellBorder.THIN).build(), "0.00");
+		styleId = session.getStyleTable().getStyleId(styleKey);
+		exporter.style(session, BenchmarkData.AMOUNT, configuration, styleId);
+
+		cell = workbook.createSheet().createRow(0).createCell(0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		workbook.close();
+	}
+
+	/**
+	 * The value to set, only used by the cell value benchmark.
+	 */
+	@State(Scope.Thread)
+	public static class ValueState {
+
+		@Param({ "NUMERIC", "LOCAL_DATE", "ENUM", "BOOLEAN_TEXT", "STRING" })
+		public ValueType valueType;
+
+		XLSValue<?> value;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			switch (valueType) {
+			case NUMERIC:
+				value = XLSValue.numericValue(Double.class, 12345.67d);
+				break;
+			case LOCAL_DATE:
+				value = XLSValue.localDateValue(LocalDate.of(2020, 2, 29));
+				break;
+			case ENUM:
+				value = XLSValue.enumValue(Status.class, Status.SUSPENDED);
+				break;
+			case BOOLEAN_TEXT:
+				value = XLSValue.booleanValue(Boolean.TRUE);
+				break;
+			case STRING:
+			default:
+				value = XLSValue.stringValue("A sample text value");
+				break;
+			}
+		}
+
+	}
+
+	// one operation for each property of the MIXED column mix
+	@Benchmark
+	@OperationsPerInvocation(9)
+	public void getProvider(Blackhole blackhole) {
+		for (Property<?> property : PROPERTIES) {
+			blackhole.consume(registry.getProvider(property));
+		}
+	}
+
+	@Benchmark
+	public Object getOrCreateStyleByKey() {
+		return exporter.style(session, BenchmarkData.AMOUNT, configuration, styleKey);
+	}
+
+	@Benchmark
+	public Object getOrCreateStyleById() {
+		return exporter.style(session, BenchmarkData.AMOUNT, configuration, styleId);
+	}
+
+	@Benchmark
+	public Object setCellValue(ValueState state) {
+		return exporter.cellValue(cell, state.value, configuration, propertyConfiguration);
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+import java.util.function.BooleanSupplier;
+
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+
+/**
+ * An {@link OperationProgressCallback} which provides a cheap abort check.
+ * <p>
+ * The exporters check {@link #isAborted()} at each data row, even when the progress notifications are throttled and
+ * the {@link #onProgress(int, int)} method is not invoked, so that an abort request is detected at the next data row.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface AbortableProgressCallback extends OperationProgressCallback {
+
+	/**
+	 * Get whether the operation abort was requested. This method is invoked at each operation step, so it should
+	 * return quickly.
+	 * @return <code>true</code> if the operation abort was requested
+	 */
+	boolean isAborted();
+
+	/**
+	 * Get whether the operation abort was requested through given progress callback.
+	 * @param callback The progress callback
+	 * @return <code>true</code> if the callback is an {@link AbortableProgressCallback} and the operation abort was
+	 *         requested
+	 */
+	static boolean isAborted(OperationProgressCallback callback) {
+		return callback instanceof AbortableProgressCallback && ((AbortableProgressCallback) callback).isAborted();
+	}
+
+	/**
+	 * Create an {@link AbortableProgressCallback} which forwards the progress notifications to given callback and
+	 * which is aborted when given abort check returns <code>true</code>.
+	 * <p>
+	 * If the concrete callback is an {@link AbortableProgressCallback}, its abort check is also used.
+	 * </p>
+	 * @param callback The concrete progress callback (not null)
+	 * @param abortCheck The abort check (not null)
+	 * @return A new {@link AbortableProgressCallback}
+	 */
+	static AbortableProgressCallback create(OperationProgressCallback callback, BooleanSupplier abortCheck) {
+		Obj.argumentNotNull(callback, "The progress callback must be not null");
+		Obj.argumentNotNull(abortCheck, "The abort check must be not null");
+		return new AbortableProgressCallback() {
+
+			@Override
+			public boolean isAborted() {
+				return abortCheck.getAsBoolean() || AbortableProgressCallback.isAborted(callback);
+			}
+
+			@Override
+			public OperationProgress onProgress(int totalSteps, int completedSteps) {
+				return isAborted() ? OperationProgress.ABORT : callback.onProgress(totalSteps, completedSteps);
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.internal.DefaultExportCache;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+
+/**
+ * A disk-backed cache of the exported files, which are stored in a spool directory and identified by an
+ * {@link ExportCacheKey}.
+ * <p>
+ * The least recently used entries are evicted when the total size of the cached files exceeds the configured
+ * maximum size, and the entries expire after the configured time to live. Concurrent exports with the same key are
+ * performed only once.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface ExportCache {
+
+	/**
+	 * Default maximum total size of the cached files: 1 GiB.
+	 */
+	public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+	/**
+	 * Default entries time to live: 1 hour.
+	 */
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(1);
+
+	/**
+	 * Write the exported data bound to given key to the provided {@link OutputStream}, using the cached file if
+	 * available or performing the export and caching its output otherwise.
+	 * @param key The cache key (not null)
+	 * @param exporter The exporter to use when the cached file is not available (not null)
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @return The export result. When served from the cache, the elapsed time is the time taken to copy the file
+	 * @throws ExportException If an error occurred
+	 */
+	default ExportResult export(ExportCacheKey key, XLSExporter exporter, OutputStream outputStream)
+			throws ExportException {
+		return export(key, exporter, outputStream, (total, completed) -> OperationProgress.PROCEED);
+	}
+
+	/**
+	 * Write the exported data bound to given key to the provided {@link OutputStream}, using the cached file if
+	 * available or performing the export and caching its output otherwise.
+	 * @param key The cache key (not null)
+	 * @param exporter The exporter to use when the cached file is not available (not null)
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @return The export result. When served from the cache, the elapsed time is the time taken to copy the file
+	 * @throws ExportException If an error occurred
+	 */
+	ExportResult export(ExportCacheKey key, XLSExporter exporter, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) throws ExportException;
+
+	/**
+	 * Write the exported data bound to given key to the provided {@link OutputStream}, using the cached file if
+	 * available or performing the export and caching its output otherwise.
+	 * @param key The cache key (not null)
+	 * @param exporter The exporter to use when the cached file is not available (not null)
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @return The export result. When served from the cache, the elapsed time is the time taken to copy the file
+	 * @throws ExportException If an error occurred
+	 */
+	default ExportResult export(ExportCacheKey key, CSVExporter exporter, OutputStream outputStream)
+			throws ExportException {
+		return export(key, exporter, outputStream, (total, completed) -> OperationProgress.PROCEED);
+	}
+
+	/**
+	 * Write the exported data bound to given key to the provided {@link OutputStream}, using the cached file if
+	 * available or performing the export and caching its output otherwise.
+	 * @param key The cache key (not null)
+	 * @param exporter The exporter to use when the cached file is not available (not null)
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @return The export result. When served from the cache, the elapsed time is the time taken to copy the file
+	 * @throws ExportException If an error occurred
+	 */
+	ExportResult export(ExportCacheKey key, CSVExporter exporter, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) throws ExportException;
+
+	/**
+	 * Open the cached file bound to given key, if available.
+	 * <p>
+	 * The returned stream reads the cached file directly: the file is not deleted, even if evicted, until the stream
+	 * is closed.
+	 * </p>
+	 * @param key The cache key (not null)
+	 * @return Optional cached file stream, empty if not available
+	 * @throws ExportException If the cached file cannot be opened
+	 */
+	Optional<InputStream> open(ExportCacheKey key) throws ExportException;
+
+	/**
+	 * Remove the entry bound to given key.
+	 * @param key The cache key (not null)
+	 * @return <code>true</code> if the entry was available and it was removed
+	 */
+	boolean invalidate(ExportCacheKey key);
+
+	/**
+	 * Remove all the cache entries.
+	 */
+	void clear();
+
+	/**
+	 * Get the number of cache entries.
+	 * @return The cache entries count
+	 */
+	int getEntryCount();
+
+	/**
+	 * Get the total size of the cached files.
+	 * @return The cached files size in bytes
+	 */
+	long getSize();
+
+	/**
+	 * Get the number of exports served from the cache.
+	 * @return The cache hits count
+	 */
+	long getHitCount();
+
+	/**
+	 * Get the number of exports which were actually performed.
+	 * @return The cache misses count
+	 */
+	long getMissCount();
+
+	/**
+	 * Get a builder to create a new {@link ExportCache}.
+	 * @param directory The spool directory in which to store the cached files (not null). The directory is created
+	 *        if it does not exist, and the files of a previous cache using the same directory are reused
+	 * @return A new {@link ExportCache} builder
+	 */
+	static Builder builder(Path directory) {
+		return new DefaultExportCache.DefaultBuilder(directory);
+	}
+
+	/**
+	 * {@link ExportCache} builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the maximum total size of the cached files.
+		 * @param bytes The maximum size in bytes, must be greater than 0
+		 * @return this
+		 * @see ExportCache#DEFAULT_MAX_SIZE
+		 */
+		Builder maxSize(long bytes);
+
+		/**
+		 * Set the entries time to live.
+		 * @param timeToLive The entries time to live, <code>null</code> or zero to never expire the entries
+		 * @return this
+		 * @see ExportCache#DEFAULT_TIME_TO_LIVE
+		 */
+		Builder timeToLive(Duration timeToLive);
+
+		/**
+		 * Build the cache.
+		 * @return A new {@link ExportCache}
+		 * @throws ExportException If the spool directory cannot be initialized
+		 */
+		ExportCache build();
+
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.holonplatform.artisan.vaadin.flow.export.internal.DefaultExportCacheKey;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.core.property.Property;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+/**
+ * The key of an {@link ExportCache} entry: a fingerprint of everything which determines the exported file content.
+ * <p>
+ * The key components are fingerprinted using a canonical description of their values, which can be plain values
+ * (strings, numbers, enums, temporals and so on), properties (described by name, type and caption), lists, sets and
+ * the XLS and CSV export configurations (described by their configuration fields). Any other key component, for
+ * example a query filter, must be provided as a canonical description, for example a String (see
+ * {@link Builder#filter(String)}). Anything else which affects the export output, for example the value providers
+ * registry, is not fingerprinted and should be reflected in the {@link Builder#version(String)} value.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface ExportCacheKey {
+
+	/**
+	 * Get the key fingerprint, an hexadecimal string.
+	 * @return The key fingerprint
+	 */
+	String getFingerprint();
+
+	/**
+	 * Get a builder to create a new {@link ExportCacheKey}.
+	 * @return A new {@link ExportCacheKey} builder
+	 */
+	static Builder builder() {
+		return new DefaultExportCacheKey.DefaultBuilder();
+	}
+
+	/**
+	 * Get a builder to create a new {@link ExportCacheKey}, initialized with the properties and the configuration of
+	 * the {@link XLSExportPlan} of given exporter.
+	 * @param exporter The exporter (not null)
+	 * @return A new {@link ExportCacheKey} builder
+	 */
+	static Builder builder(XLSExporter exporter) {
+		final XLSExportPlan plan = exporter.getExportPlan();
+		return builder().properties(plan.getProperties()).configuration(plan.getConfiguration());
+	}
+
+	/**
+	 * {@link ExportCacheKey} builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the exported properties.
+		 * @param properties The exported properties
+		 * @return this
+		 */
+		Builder properties(List<? extends Property<?>> properties);
+
+		/**
+		 * Set the export configuration.
+		 * @param configuration The export configuration, for example a
+		 *        {@link com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration}
+		 * @return this
+		 */
+		Builder configuration(Object configuration);
+
+		/**
+		 * Set the data query filter, using a canonical description of it.
+		 * <p>
+		 * A query filter object, for example a {@link com.holonplatform.core.query.QueryFilter} or a Vaadin
+		 * <code>SerializablePredicate</code>, cannot be reliably fingerprinted: the description must identify the
+		 * filter conditions and values, so that two equivalent filters produce the same description, for example
+		 * <code>"status=ACTIVE;year=2019"</code>.
+		 * </p>
+		 * @param filter The query filter description
+		 * @return this
+		 */
+		Builder filter(String filter);
+
+		/**
+		 * Set the data query sorts.
+		 * @param sorts The query sorts
+		 * @return this
+		 */
+		Builder sorts(List<QuerySortOrder> sorts);
+
+		/**
+		 * Set the locale used to format the exported values and the column headers.
+		 * @param locale The locale
+		 * @return this
+		 */
+		Builder locale(Locale locale);
+
+		/**
+		 * Set the data version, for example an ETag or a last modification timestamp of the exported data.
+		 * @param version The data version
+		 * @return this
+		 */
+		Builder version(String version);
+
+		/**
+		 * Add a further key component.
+		 * @param name The component name (not null)
+		 * @param value The component value
+		 * @return this
+		 */
+		Builder with(String name, Object value);
+
+		/**
+		 * Build the key.
+		 * @return A new {@link ExportCacheKey}
+		 * @throws IllegalArgumentException If a key component cannot be fingerprinted
+		 */
+		ExportCacheKey build();
+
+	}
+
+}
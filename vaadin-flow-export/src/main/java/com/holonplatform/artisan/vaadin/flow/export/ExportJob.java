@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+
+/**
+ * An export job submitted to an {@link ExportScheduler}.
+ *
+ * @since 3.0.2
+ */
+public interface ExportJob {
+
+	/**
+	 * Export job status.
+	 */
+	public enum Status {
+
+		/**
+		 * The job is waiting to be admitted by the scheduler.
+		 */
+		QUEUED,
+
+		/**
+		 * The export is running.
+		 */
+		RUNNING,
+
+		/**
+		 * The export completed successfully.
+		 */
+		COMPLETED,
+
+		/**
+		 * The export failed.
+		 */
+		FAILED,
+
+		/**
+		 * The job was cancelled.
+		 */
+		CANCELLED;
+
+	}
+
+	/**
+	 * Get the job id, unique within the scheduler which created the job.
+	 * @return The job id
+	 */
+	String getId();
+
+	/**
+	 * Get the id of the user who submitted the job, if available.
+	 * @return Optional user id
+	 */
+	Optional<String> getUser();
+
+	/**
+	 * Get the id of the session from which the job was submitted, if available.
+	 * @return Optional session id
+	 */
+	Optional<String> getSession();
+
+	/**
+	 * Get the job priority. Jobs with a higher priority are admitted first.
+	 * @return The job priority
+	 */
+	int getPriority();
+
+	/**
+	 * Get the estimated heap memory, in bytes, reserved for the job while it is running.
+	 * @return The memory estimate
+	 */
+	long getMemoryEstimate();
+
+	/**
+	 * Get the estimated temporary disk space, in bytes, reserved for the job while it is running.
+	 * @return The temporary disk space estimate
+	 */
+	long getTempDiskEstimate();
+
+	/**
+	 * Get the current job status.
+	 * @return The job status
+	 */
+	Status getStatus();
+
+	/**
+	 * Get the {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is completed.
+	 * <p>
+	 * Cancelling the future is equivalent to invoke {@link #cancel()}.
+	 * </p>
+	 * @return The job result future
+	 */
+	CompletableFuture<ExportResult> getResult();
+
+	/**
+	 * Cancel the job.
+	 * <p>
+	 * A queued job is removed from the scheduler queue. A running export is aborted at the next exported data row,
+	 * regardless of the progress notifications throttling, and its scheduler resources are released as soon as the
+	 * export actually stops.
+	 * </p>
+	 * @return <code>true</code> if the job was cancelled, <code>false</code> if it was already completed
+	 */
+	boolean cancel();
+
+	/**
+	 * Wait for the job completion.
+	 * @return The export result
+	 * @throws ExportException If the export failed or the waiting thread was interrupted
+	 * @throws CancellationException If the job was cancelled
+	 */
+	ExportResult await() throws ExportException;
+
+	/**
+	 * Wait for the job completion, at most for given timeout.
+	 * @param timeout The maximum time to wait (not null)
+	 * @return The export result, or an empty Optional if the job was not completed within the timeout
+	 * @throws ExportException If the export failed or the waiting thread was interrupted
+	 * @throws CancellationException If the job was cancelled
+	 */
+	Optional<ExportResult> await(Duration timeout) throws ExportException;
+
+}
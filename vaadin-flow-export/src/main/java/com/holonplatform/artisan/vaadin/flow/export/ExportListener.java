@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+/**
+ * A listener which is notified of the phases and of the outcome of an export, to be used for example to collect the
+ * export performance metrics.
+ * <p>
+ * The listener methods are invoked by the thread which performs the export, so they should return quickly. Any
+ * exception thrown by a listener is logged and ignored.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface ExportListener {
+
+	/**
+	 * Invoked when an export phase is completed.
+	 * @param phase The export phase
+	 * @param durationNanos The phase duration, in nanoseconds
+	 * @param rows The number of data rows involved in the phase, for example the fetched batch size for the
+	 *        {@link ExportPhase#FETCH} phase, <code>0</code> if not applicable
+	 */
+	default void onPhase(ExportPhase phase, long durationNanos, int rows) {
+	}
+
+	/**
+	 * Invoked when an export is successfully completed.
+	 * @param metrics The export metrics
+	 */
+	default void onCompleted(ExportMetrics metrics) {
+	}
+
+	/**
+	 * Invoked when an export failed.
+	 * @param error The export error
+	 * @param metrics The export metrics collected until the failure
+	 */
+	default void onFailed(Throwable error, ExportMetrics metrics) {
+	}
+
+}
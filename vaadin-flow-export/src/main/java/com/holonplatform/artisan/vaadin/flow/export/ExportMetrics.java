@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+/**
+ * The metrics of an export, collected while the export is running.
+ *
+ * @since 3.0.2
+ */
+public interface ExportMetrics {
+
+	/**
+	 * Get the number of exported data rows.
+	 * @return The exported data rows count
+	 */
+	long getRows();
+
+	/**
+	 * Get the number of exported data cells, i.e. the data rows count multiplied by the export columns count.
+	 * @return The exported data cells count
+	 */
+	long getCells();
+
+	/**
+	 * Get the number of cell styles created by the export.
+	 * @return The created cell styles count
+	 */
+	int getStylesCreated();
+
+	/**
+	 * Get the number of fonts created by the export.
+	 * @return The created fonts count
+	 */
+	int getFontsCreated();
+
+	/**
+	 * Get the number of bytes written to the export output stream.
+	 * @return The written bytes count
+	 */
+	long getBytesWritten();
+
+	/**
+	 * Get the number of bytes spilled to temporary files by the export.
+	 * @return The temporary files size, <code>0</code> if no temporary file was used
+	 */
+	long getTempBytesWritten();
+
+	/**
+	 * Get the export elapsed time.
+	 * @return The elapsed time in nanoseconds
+	 */
+	long getElapsedNanos();
+
+	/**
+	 * Get the total duration of given export phase.
+	 * @param phase The export phase (not null)
+	 * @return The sum of the durations of the phase, in nanoseconds
+	 */
+	long getPhaseNanos(ExportPhase phase);
+
+	/**
+	 * Get how many times given export phase occurred, for example the number of data fetches or the number of sheets
+	 * for which the header row was created.
+	 * @param phase The export phase (not null)
+	 * @return The phase occurrences count
+	 */
+	int getPhaseCount(ExportPhase phase);
+
+}
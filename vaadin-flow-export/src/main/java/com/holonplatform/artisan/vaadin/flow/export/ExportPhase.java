@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+/**
+ * The phases of an export, notified to the {@link ExportListener}s with their duration.
+ *
+ * @since 3.0.2
+ */
+public enum ExportPhase {
+
+	/**
+	 * The export data size estimation, for example the data source items count.
+	 */
+	COUNT,
+
+	/**
+	 * The title row creation.
+	 */
+	TITLE,
+
+	/**
+	 * The column headers row creation.
+	 */
+	HEADER,
+
+	/**
+	 * The fetch of a batch of data rows from the data source. This phase is notified once for each fetched batch, the
+	 * final fetch which returns no data rows is not notified.
+	 */
+	FETCH,
+
+	/**
+	 * The data rows export, including the data fetches.
+	 */
+	DATA,
+
+	/**
+	 * The total footer row creation.
+	 */
+	TOTALS,
+
+	/**
+	 * The write of the export document to the output stream.
+	 */
+	WRITE;
+
+}
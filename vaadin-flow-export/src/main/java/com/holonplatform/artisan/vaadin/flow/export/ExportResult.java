@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+import java.time.Duration;
+
+/**
+ * The result of a completed export.
+ *
+ * @since 3.0.2
+ */
+public interface ExportResult {
+
+	/**
+	 * Get the number of exported data rows.
+	 * @return The exported data rows count, <code>-1</code> if not available
+	 */
+	long getRows();
+
+	/**
+	 * Get the number of bytes written to the export output stream.
+	 * @return The written bytes count
+	 */
+	long getBytes();
+
+	/**
+	 * Get the export elapsed time.
+	 * @return The export elapsed time
+	 */
+	Duration getElapsedTime();
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.internal.DefaultExportScheduler;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+
+/**
+ * A server-wide export jobs scheduler, which coordinates the concurrent exports to keep the overall resources usage
+ * under control.
+ * <p>
+ * The scheduler runs at most a configured number of exports at the same time, optionally limiting the concurrent
+ * exports of each user and of each session, and keeps the other jobs in a bounded queue. Queued jobs are admitted
+ * by priority and, with the same priority, giving precedence to the users and sessions which have fewer running
+ * exports and which were served less recently.
+ * </p>
+ * <p>
+ * Each job reserves its estimated heap memory and temporary disk space while it is running: a job is admitted only
+ * when its reservation fits the configured budgets. The queued job which comes first is never overtaken because of
+ * the budgets, so large exports are not starved by smaller ones. A job which exceeds the budgets on its own is run
+ * when no other export is running.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface ExportScheduler {
+
+	/**
+	 * Default maximum number of concurrent exports.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_EXPORTS = 4;
+
+	/**
+	 * Default maximum number of queued jobs.
+	 */
+	public static final int DEFAULT_MAX_QUEUED_EXPORTS = 100;
+
+	/**
+	 * Default job heap memory estimate: 64 MiB.
+	 */
+	public static final long DEFAULT_MEMORY_ESTIMATE = 64L * 1024 * 1024;
+
+	/**
+	 * Default job temporary disk space estimate: 128 MiB.
+	 */
+	public static final long DEFAULT_TEMP_DISK_ESTIMATE = 128L * 1024 * 1024;
+
+	/**
+	 * Create a new job which runs given {@link XLSExporter}.
+	 * @param exporter The exporter (not null)
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @return The job builder, to configure and submit the job
+	 */
+	JobBuilder job(XLSExporter exporter, OutputStream outputStream);
+
+	/**
+	 * Create a new job which runs given {@link CSVExporter}.
+	 * @param exporter The exporter (not null)
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @return The job builder, to configure and submit the job
+	 */
+	JobBuilder job(CSVExporter exporter, OutputStream outputStream);
+
+	/**
+	 * Get a queued or running job by id.
+	 * @param id The job id
+	 * @return Optional job, empty if a queued or running job with given id is not available
+	 */
+	Optional<ExportJob> getJob(String id);
+
+	/**
+	 * Get the queued and running jobs.
+	 * @return The queued and running jobs, the running ones first
+	 */
+	List<ExportJob> getJobs();
+
+	/**
+	 * Get the queued and running jobs of given user.
+	 * @param user The user id (not null)
+	 * @return The queued and running jobs of the user
+	 */
+	List<ExportJob> getJobs(String user);
+
+	/**
+	 * Get the number of running exports.
+	 * @return The running exports count
+	 */
+	int getRunningCount();
+
+	/**
+	 * Get the number of queued jobs.
+	 * @return The queued jobs count
+	 */
+	int getQueuedCount();
+
+	/**
+	 * Cancel a queued or running job.
+	 * @param id The job id
+	 * @return <code>true</code> if the job was cancelled, <code>false</code> if a queued or running job with given id
+	 *         is not available
+	 * @see ExportJob#cancel()
+	 */
+	boolean cancel(String id);
+
+	/**
+	 * Shutdown the scheduler: the queued jobs are cancelled and no more jobs are accepted, while the running exports
+	 * are left to complete.
+	 */
+	void shutdown();
+
+	/**
+	 * Get a builder to create a new {@link ExportScheduler}.
+	 * @return A new {@link ExportScheduler} builder
+	 */
+	static Builder builder() {
+		return new DefaultExportScheduler.DefaultBuilder();
+	}
+
+	/**
+	 * Create a new {@link ExportScheduler} using the default settings.
+	 * @return A new {@link ExportScheduler}
+	 */
+	static ExportScheduler create() {
+		return builder().build();
+	}
+
+	/**
+	 * Export job builder.
+	 */
+	public interface JobBuilder {
+
+		/**
+		 * Set the id of the user who submits the job.
+		 * <p>
+		 * A job without a user id is not subject to the per user concurrent exports limit and it is not considered in
+		 * the users fair scheduling: the anonymous jobs are not accounted as if they belong to the same user.
+		 * </p>
+		 * @param user The user id, <code>null</code> for none
+		 * @return this
+		 */
+		JobBuilder user(String user);
+
+		/**
+		 * Set the id of the session from which the job is submitted.
+		 * <p>
+		 * A job without a session id is not subject to the per session concurrent exports limit and it is not
+		 * considered in the sessions fair scheduling.
+		 * </p>
+		 * @param session The session id, <code>null</code> for none
+		 * @return this
+		 */
+		JobBuilder session(String session);
+
+		/**
+		 * Set the job priority. Jobs with a higher priority are admitted first. Default is <code>0</code>.
+		 * @param priority The job priority
+		 * @return this
+		 */
+		JobBuilder priority(int priority);
+
+		/**
+		 * Set the estimated heap memory, in bytes, to reserve for the job while it is running.
+		 * <p>
+		 * If not specified, the scheduler default memory estimate is used.
+		 * </p>
+		 * @param bytes The memory estimate
+		 * @return this
+		 */
+		JobBuilder memoryEstimate(long bytes);
+
+		/**
+		 * Set the estimated temporary disk space, in bytes, to reserve for the job while it is running.
+		 * <p>
+		 * If not specified, the scheduler default temporary disk space estimate is used.
+		 * </p>
+		 * @param bytes The temporary disk space estimate
+		 * @return this
+		 */
+		JobBuilder tempDiskEstimate(long bytes);
+
+		/**
+		 * Set the callback function to invoke when the export progress changes.
+		 * @param exportProgressCallback The export progress callback
+		 * @return this
+		 */
+		JobBuilder progressCallback(OperationProgressCallback exportProgressCallback);
+
+		/**
+		 * Submit the job to the scheduler.
+		 * @return The submitted job
+		 * @throws ExportException If the scheduler queue is full or the scheduler was shut down
+		 */
+		ExportJob submit() throws ExportException;
+
+	}
+
+	/**
+	 * {@link ExportScheduler} builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the maximum number of concurrent exports.
+		 * @param maxConcurrentExports The maximum number of concurrent exports, must be greater than 0
+		 * @return this
+		 */
+		Builder maxConcurrentExports(int maxConcurrentExports);
+
+		/**
+		 * Set the maximum number of concurrent exports for each user.
+		 * @param maxConcurrentExports The maximum number of concurrent exports for each user, <code>0</code> for no
+		 *        limit other than the overall one
+		 * @return this
+		 */
+		Builder maxConcurrentExportsPerUser(int maxConcurrentExports);
+
+		/**
+		 * Set the maximum number of concurrent exports for each session.
+		 * @param maxConcurrentExports The maximum number of concurrent exports for each session, <code>0</code> for
+		 *        no limit other than the overall one
+		 * @return this
+		 */
+		Builder maxConcurrentExportsPerSession(int maxConcurrentExports);
+
+		/**
+		 * Set the maximum number of queued jobs. When the queue is full, a job submission fails.
+		 * @param maxQueuedExports The maximum number of queued jobs, <code>0</code> to not queue the jobs at all
+		 * @return this
+		 */
+		Builder maxQueuedExports(int maxQueuedExports);
+
+		/**
+		 * Set the overall heap memory budget, in bytes, of the running exports.
+		 * @param bytes The memory budget, <code>0</code> for no budget
+		 * @return this
+		 */
+		Builder memoryBudget(long bytes);
+
+		/**
+		 * Set the overall temporary disk space budget, in bytes, of the running exports.
+		 * @param bytes The temporary disk space budget, <code>0</code> for no budget
+		 * @return this
+		 */
+		Builder tempDiskBudget(long bytes);
+
+		/**
+		 * Set the heap memory estimate to use for the jobs which do not declare one.
+		 * @param bytes The default memory estimate
+		 * @return this
+		 * @see #DEFAULT_MEMORY_ESTIMATE
+		 */
+		Builder defaultMemoryEstimate(long bytes);
+
+		/**
+		 * Set the temporary disk space estimate to use for the jobs which do not declare one.
+		 * @param bytes The default temporary disk space estimate
+		 * @return this
+		 * @see #DEFAULT_TEMP_DISK_ESTIMATE
+		 */
+		Builder defaultTempDiskEstimate(long bytes);
+
+		/**
+		 * Set the executor to use to run the exports.
+		 * <p>
+		 * By default, the same executor of {@link XLSExporter#exportAsync(OutputStream)} is used.
+		 * </p>
+		 * @param executor The executor to set
+		 * @return this
+		 */
+		Builder executor(Executor executor);
+
+		/**
+		 * Build the {@link ExportScheduler}.
+		 * @return A new {@link ExportScheduler}
+		 */
+		ExportScheduler build();
+
+	}
+
+}
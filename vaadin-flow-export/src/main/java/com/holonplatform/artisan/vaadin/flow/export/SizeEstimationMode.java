@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export;
+
+/**
+ * Export data size estimation modes, used to compute the export progress.
+ *
+ * @since 3.0.2
+ */
+public enum SizeEstimationMode {
+
+	/**
+	 * Count the data source items before starting the export.
+	 */
+	COUNT,
+
+	/**
+	 * Count the data source items concurrently with the first data fetches: the export progress is indeterminate
+	 * until the count is available.
+	 */
+	CONCURRENT_COUNT,
+
+	/**
+	 * Do not estimate the export data size: the export progress is indeterminate.
+	 */
+	NONE;
+
+}
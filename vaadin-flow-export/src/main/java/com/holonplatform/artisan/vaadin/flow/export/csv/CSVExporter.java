@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.csv;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import com.holonplatform.artisan.core.exceptions.InterruptedOperationException;
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.SizeEstimationMode;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.csv.internal.DefaultCSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AdaptiveBatchSizeStrategy;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AsyncExportTask;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.KeysetExportDataPager;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.PrefetchExportPageSource;
+import com.holonplatform.core.i18n.LocalizationContext;
+import com.holonplatform.core.property.PathProperty;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+/**
+ * CSV (and other delimiter separated values formats, such as TSV) data exporter.
+ * <p>
+ * The exporter uses a {@link PropertyBox} item type {@link DataProvider} as data source. The {@link CSVConfiguration}
+ * type can be used to provide the export configuration.
+ * </p>
+ * <p>
+ * The property values are obtained using the same {@link PropertyXLSValueProvider}s of the XLS export, resolved
+ * through the {@link PropertyXLSValueProviderRegistry}, and then formatted as text according to the export
+ * configuration.
+ * </p>
+ * <p>
+ * A built exporter can be shared and used to perform more than one export, also concurrently from different threads.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface CSVExporter {
+
+	/**
+	 * Export the data to the provided {@link OutputStream}.
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @throws InterruptedOperationException If the export was interrupted
+	 * @throws ExportException If an error occurred
+	 */
+	default void export(OutputStream outputStream) throws ExportException {
+		export(outputStream, (total, completed) -> OperationProgress.PROCEED);
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream}.
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @throws InterruptedOperationException If the export was interrupted
+	 * @throws ExportException If an error occurred
+	 */
+	void export(OutputStream outputStream, OperationProgressCallback exportProgressCallback) throws ExportException;
+
+	/**
+	 * Export the data to the provided {@link OutputStream} asynchronously, using the default executor.
+	 * <p>
+	 * The default executor runs each export in a new virtual thread when the Java runtime supports virtual threads,
+	 * or in a pooled daemon thread otherwise.
+	 * </p>
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @return The {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is
+	 *         completed
+	 * @see #exportAsync(OutputStream, OperationProgressCallback, Executor)
+	 * @since 3.0.2
+	 */
+	default CompletableFuture<ExportResult> exportAsync(OutputStream outputStream) {
+		return exportAsync(outputStream, AsyncExportTask.getDefaultExecutor());
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream} asynchronously, using given {@link Executor}.
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param executor The executor to use to perform the export (not null)
+	 * @return The {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is
+	 *         completed
+	 * @see #exportAsync(OutputStream, OperationProgressCallback, Executor)
+	 * @since 3.0.2
+	 */
+	default CompletableFuture<ExportResult> exportAsync(OutputStream outputStream, Executor executor) {
+		return exportAsync(outputStream, (total, completed) -> OperationProgress.PROCEED, executor);
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream} asynchronously, using given {@link Executor}.
+	 * <p>
+	 * The returned future is completed exceptionally with an {@link ExportException} if the export fails. The export
+	 * can be cancelled using {@link CompletableFuture#cancel(boolean)}: the export is aborted at the next exported
+	 * data row, regardless of the progress notifications throttling, and the data written to the output stream up to
+	 * that point are left as they are.
+	 * </p>
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @param executor The executor to use to perform the export (not null)
+	 * @return The {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is
+	 *         completed
+	 * @since 3.0.2
+	 */
+	default CompletableFuture<ExportResult> exportAsync(OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback, Executor executor) {
+		return AsyncExportTask.submit(outputStream, exportProgressCallback, executor, (os, callback) -> {
+			export(os, callback);
+			return -1;
+		});
+	}
+
+	/**
+	 * Get a {@link CSVExporter} using given {@link DataProvider} as export data source.
+	 * @param dataSource The export data source (not null)
+	 * @param propertySet The property set to use (not null)
+	 * @return A new {@link CSVExporter} builder
+	 */
+	static Builder builder(DataProvider<PropertyBox, ?> dataSource, PropertySet<?> propertySet) {
+		return new DefaultCSVExporter.DefaultBuilder(dataSource, propertySet);
+	}
+
+	/**
+	 * CSVExporter builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the CSV configuration.
+		 * @param configuration The configuration to set
+		 * @return this
+		 */
+		Builder configuration(CSVConfiguration configuration);
+
+		/**
+		 * Set the function to use to obtain the header text for a property.
+		 * @param columnHeaderProvider The column header provider function.
+		 * @return this
+		 */
+		Builder columnHeaderProvider(Function<Property<?>, Optional<String>> columnHeaderProvider);
+
+		/**
+		 * Set the {@link PropertyXLSValueProviderRegistry} to use to obtain the property values.
+		 * @param registry The registry to set
+		 * @return this
+		 */
+		Builder registry(PropertyXLSValueProviderRegistry registry);
+
+		/**
+		 * Set the {@link LocalizationContext} to use.
+		 * @param localizationContext The {@link LocalizationContext} to set
+		 * @return this
+		 */
+		Builder localizationContext(LocalizationContext localizationContext);
+
+		/**
+		 * Set an additional query sorts provider.
+		 * @param querySortsProvider The query sorts provider to set
+		 * @return this
+		 */
+		Builder querySortsProvider(Supplier<List<QuerySortOrder>> querySortsProvider);
+
+		/**
+		 * Set the number of items to fetch from the data source for each data page.
+		 * @param batchSize The batch size (must be greater than 0)
+		 * @return this
+		 */
+		Builder batchSize(int batchSize);
+
+		/**
+		 * Adapt the number of items to fetch from the data source for each data page to the measured fetch latency
+		 * and to the estimated memory footprint of the fetched items, within given bounds.
+		 * @param minBatchSize The minimum batch size (must be greater than 0)
+		 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#adaptiveBatchSize(int, int)
+		 */
+		default Builder adaptiveBatchSize(int minBatchSize, int maxBatchSize) {
+			return adaptiveBatchSize(minBatchSize, maxBatchSize,
+					AdaptiveBatchSizeStrategy.DEFAULT_TARGET_FETCH_TIME_MILLIS,
+					AdaptiveBatchSizeStrategy.DEFAULT_MAX_PAGE_MEMORY);
+		}
+
+		/**
+		 * Adapt the number of items to fetch from the data source for each data page to the measured fetch latency
+		 * and to the estimated memory footprint of the fetched items, within given bounds.
+		 * @param minBatchSize The minimum batch size (must be greater than 0)
+		 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+		 * @param targetFetchTimeMillis The target time to spend for each data page fetch, in milliseconds
+		 * @param maxPageMemory The maximum estimated memory footprint of a data page, in bytes
+		 * @return this
+		 */
+		Builder adaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis, long maxPageMemory);
+
+		/**
+		 * Set how the number of the data rows to export is estimated, in order to compute the export progress.
+		 * @param mode The size estimation mode (not null)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#sizeEstimation(SizeEstimationMode)
+		 */
+		Builder sizeEstimation(SizeEstimationMode mode);
+
+		/**
+		 * Use the estimated number of data rows provided by given supplier to compute the export progress, without
+		 * counting the data source items.
+		 * @param estimatedSize The estimated size supplier (not null)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#estimatedSize(IntSupplier)
+		 */
+		Builder estimatedSize(IntSupplier estimatedSize);
+
+		/**
+		 * Limit the progress notifications sent to the export progress callback.
+		 * @param intervalMillis The minimum interval in milliseconds between two progress notifications,
+		 *        <code>0</code> to ignore the elapsed time
+		 * @param percentageStep The completion percentage increase which triggers a progress notification regardless
+		 *        of the elapsed time (between 0 and 100), <code>0</code> to ignore the completion percentage
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#progressThrottling(long, int)
+		 */
+		Builder progressThrottling(long intervalMillis, int percentageStep);
+
+		/**
+		 * Enable the background prefetch of the export data pages.
+		 * @param queueDepth The maximum number of data pages to fetch in advance (must be greater than 0)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#prefetch(int)
+		 */
+		default Builder prefetch(int queueDepth) {
+			return prefetch(queueDepth, PrefetchExportPageSource.DEFAULT_THREAD_FACTORY);
+		}
+
+		/**
+		 * Enable the background prefetch of the export data pages, using given {@link ThreadFactory} to create the
+		 * producer thread.
+		 * @param queueDepth The maximum number of data pages to fetch in advance (must be greater than 0)
+		 * @param threadFactory The factory to use to create the producer thread (not null)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#prefetch(int, ThreadFactory)
+		 */
+		Builder prefetch(int queueDepth, ThreadFactory threadFactory);
+
+		/**
+		 * Use the keyset (seek) pagination to fetch the export data, instead of the default offset based pagination.
+		 * @param keyProperties The unique key properties which define the data order (not null, not empty)
+		 * @param seekFilterProvider The function to obtain the filter to fetch the items which follow a given item
+		 *        (not null)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#keysetPagination(List, Function)
+		 */
+		Builder keysetPagination(List<Property<?>> keyProperties, Function<PropertyBox, ?> seekFilterProvider);
+
+		/**
+		 * Use the keyset (seek) pagination to fetch the export data, instead of the default offset based pagination,
+		 * using a <code>QueryFilter</code> type seek filter.
+		 * @param keyProperties The unique key properties which define the data order (not null, not empty)
+		 * @return this
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#keysetPagination(PathProperty...)
+		 */
+		default Builder keysetPagination(PathProperty<?>... keyProperties) {
+			final List<PathProperty<?>> keys = Arrays.asList(keyProperties);
+			return keysetPagination(new ArrayList<>(keys), KeysetExportDataPager.querySeekFilter(keys));
+		}
+
+		/**
+		 * Build the exporter.
+		 * @return The {@link CSVExporter}
+		 */
+		CSVExporter build();
+
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.csv.config;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.csv.internal.config.DefaultCSVConfiguration;
+import com.holonplatform.core.property.Property;
+
+/**
+ * CSV export configuration.
+ *
+ * @since 3.0.2
+ */
+public interface CSVConfiguration extends Serializable {
+
+	/**
+	 * Default values delimiter
+	 */
+	static final char DEFAULT_DELIMITER = ',';
+
+	/**
+	 * Default quote character
+	 */
+	static final char DEFAULT_QUOTE_CHAR = '"';
+
+	/**
+	 * Default line separator
+	 */
+	static final String DEFAULT_LINE_SEPARATOR = "\r\n";
+
+	/**
+	 * Default date pattern
+	 */
+	static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+
+	/**
+	 * Default time pattern
+	 */
+	static final String DEFAULT_TIME_PATTERN = "HH:mm:ss";
+
+	/**
+	 * Default date and time pattern
+	 */
+	static final String DEFAULT_DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+
+	/**
+	 * Get the properties to export and their order.
+	 * @return The properties to export, if empty all the exporter property set properties are exported
+	 */
+	List<Property<?>> getProperties();
+
+	/**
+	 * Get the values delimiter.
+	 * @return The values delimiter
+	 */
+	char getDelimiter();
+
+	/**
+	 * Get the character to use to quote the values.
+	 * @return The quote character
+	 */
+	char getQuoteChar();
+
+	/**
+	 * Get the values quoting mode.
+	 * @return The quoting mode
+	 */
+	CSVQuoteMode getQuoteMode();
+
+	/**
+	 * Get the line separator.
+	 * @return The line separator
+	 */
+	String getLineSeparator();
+
+	/**
+	 * Get the charset to use to encode the text.
+	 * @return The charset
+	 */
+	Charset getCharset();
+
+	/**
+	 * Get whether to write the header line with the column names.
+	 * @return Whether to write the header line
+	 */
+	boolean isIncludeHeader();
+
+	/**
+	 * Get the decimal separator to use for the decimal numbers.
+	 * @return The decimal separator
+	 */
+	char getDecimalSeparator();
+
+	/**
+	 * Get the pattern to use to format the date values.
+	 * @return The date pattern, using the {@link java.time.format.DateTimeFormatter} syntax
+	 */
+	String getDatePattern();
+
+	/**
+	 * Get the pattern to use to format the time values.
+	 * @return The time pattern, using the {@link java.time.format.DateTimeFormatter} syntax
+	 */
+	String getTimePattern();
+
+	/**
+	 * Get the pattern to use to format the date and time values.
+	 * @return The date and time pattern, using the {@link java.time.format.DateTimeFormatter} syntax
+	 */
+	String getDateTimePattern();
+
+	/**
+	 * Get the boolean values export mode.
+	 * @return the boolean values export mode
+	 */
+	BooleanExportMode getBooleanExportMode();
+
+	/**
+	 * Get whether to neutralize the text values which could be interpreted as formulas by a spreadsheet application,
+	 * i.e. the values which start with <code>=</code>, <code>+</code>, <code>-</code>, <code>@</code>, a tab or a
+	 * carriage return character, prefixing them with a single quote.
+	 * <p>
+	 * When enabled, formula values are written as neutralized text too. Numeric values are never escaped.
+	 * </p>
+	 * @return Whether to neutralize the formula-like text values
+	 */
+	boolean isEscapeFormulas();
+
+	/**
+	 * Get a builder to create a new {@link CSVConfiguration}.
+	 * @return A {@link CSVConfiguration} builder
+	 */
+	static Builder builder() {
+		return new DefaultCSVConfiguration.DefaultBuilder();
+	}
+
+	/**
+	 * CSVConfiguration builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the properties to export and their order.
+		 * @param properties The properties to export
+		 * @return this
+		 */
+		Builder properties(List<Property<?>> properties);
+
+		/**
+		 * Set the properties to export and their order.
+		 * @param properties The properties to export
+		 * @return this
+		 */
+		default Builder properties(Property<?>... properties) {
+			return properties((properties != null) ? Arrays.asList(properties) : null);
+		}
+
+		/**
+		 * Set the values delimiter. Default is {@link CSVConfiguration#DEFAULT_DELIMITER}.
+		 * @param delimiter The values delimiter
+		 * @return this
+		 */
+		Builder delimiter(char delimiter);
+
+		/**
+		 * Set the character to use to quote the values. Default is {@link CSVConfiguration#DEFAULT_QUOTE_CHAR}.
+		 * @param quoteChar The quote character
+		 * @return this
+		 */
+		Builder quoteChar(char quoteChar);
+
+		/**
+		 * Set the values quoting mode. Default is {@link CSVQuoteMode#MINIMAL}.
+		 * @param quoteMode The quoting mode
+		 * @return this
+		 */
+		Builder quoteMode(CSVQuoteMode quoteMode);
+
+		/**
+		 * Set the line separator. Default is {@link CSVConfiguration#DEFAULT_LINE_SEPARATOR}.
+		 * @param lineSeparator The line separator
+		 * @return this
+		 */
+		Builder lineSeparator(String lineSeparator);
+
+		/**
+		 * Set the charset to use to encode the text. Default is <code>UTF-8</code>.
+		 * @param charset The charset
+		 * @return this
+		 */
+		Builder charset(Charset charset);
+
+		/**
+		 * Set whether to write the header line with the column names. Default is <code>true</code>.
+		 * @param includeHeader Whether to write the header line
+		 * @return this
+		 */
+		Builder includeHeader(boolean includeHeader);
+
+		/**
+		 * Set the decimal separator to use for the decimal numbers. Default is <code>.</code>.
+		 * @param decimalSeparator The decimal separator
+		 * @return this
+		 */
+		Builder decimalSeparator(char decimalSeparator);
+
+		/**
+		 * Set the pattern to use to format the date values. Default is {@link CSVConfiguration#DEFAULT_DATE_PATTERN}.
+		 * @param datePattern The date pattern, using the {@link java.time.format.DateTimeFormatter} syntax
+		 * @return this
+		 */
+		Builder datePattern(String datePattern);
+
+		/**
+		 * Set the pattern to use to format the time values. Default is {@link CSVConfiguration#DEFAULT_TIME_PATTERN}.
+		 * @param timePattern The time pattern, using the {@link java.time.format.DateTimeFormatter} syntax
+		 * @return this
+		 */
+		Builder timePattern(String timePattern);
+
+		/**
+		 * Set the pattern to use to format the date and time values. Default is
+		 * {@link CSVConfiguration#DEFAULT_DATE_TIME_PATTERN}.
+		 * @param dateTimePattern The date and time pattern, using the {@link java.time.format.DateTimeFormatter}
+		 *        syntax
+		 * @return this
+		 */
+		Builder dateTimePattern(String dateTimePattern);
+
+		/**
+		 * Set the boolean values export mode.
+		 * @param booleanExportMode the boolean values export mode
+		 * @return this
+		 */
+		Builder booleanExportMode(BooleanExportMode booleanExportMode);
+
+		/**
+		 * Set whether to neutralize the text values which could be interpreted as formulas by a spreadsheet
+		 * application, prefixing them with a single quote. Default is <code>true</code>.
+		 * <p>
+		 * When disabled, formula values are written with a leading <code>=</code> and the text values are written as
+		 * they are: this should only be done when the exported data is trusted.
+		 * </p>
+		 * @param escapeFormulas Whether to neutralize the formula-like text values
+		 * @return this
+		 * @see CSVConfiguration#isEscapeFormulas()
+		 */
+		Builder escapeFormulas(boolean escapeFormulas);
+
+		/**
+		 * Build the {@link CSVConfiguration}.
+		 * @return The {@link CSVConfiguration} instance
+		 */
+		CSVConfiguration build();
+
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.csv.config;
+
+/**
+ * CSV values quoting modes.
+ *
+ * @since 3.0.2
+ */
+public enum CSVQuoteMode {
+
+	/**
+	 * Quote only the values which contain the delimiter, the quote character or a line break.
+	 */
+	MINIMAL,
+
+	/**
+	 * Quote all the non empty values.
+	 */
+	ALL,
+
+	/**
+	 * Quote all the non empty values which are not numbers.
+	 */
+	NON_NUMERIC,
+
+	/**
+	 * Never quote the values.
+	 */
+	NONE;
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.csv.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVQuoteMode;
+
+/**
+ * Writes delimiter separated records to a {@link Writer}, quoting the values according to a {@link CSVConfiguration}.
+ * <p>
+ * This class is not thread-safe: a new instance has to be used for each export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class CSVRecordWriter {
+
+	private final Writer writer;
+
+	private final char delimiter;
+	private final char quoteChar;
+	private final CSVQuoteMode quoteMode;
+	private final String lineSeparator;
+
+	private boolean firstField = true;
+
+	/**
+	 * Constructor.
+	 * @param writer The writer to use (not null)
+	 * @param configuration The export configuration (not null)
+	 */
+	public CSVRecordWriter(Writer writer, CSVConfiguration configuration) {
+		super();
+		Obj.argumentNotNull(writer, "The writer must be not null");
+		Obj.argumentNotNull(configuration, "The configuration must be not null");
+		this.writer = writer;
+		this.delimiter = configuration.getDelimiter();
+		this.quoteChar = configuration.getQuoteChar();
+		this.quoteMode = configuration.getQuoteMode();
+		this.lineSeparator = configuration.getLineSeparator();
+	}
+
+	/**
+	 * Write a record field.
+	 * @param value The field value (may be null)
+	 * @param numeric Whether the value is a number
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeField(String value, boolean numeric) throws IOException {
+		if (firstField) {
+			firstField = false;
+		} else {
+			writer.write(delimiter);
+		}
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		if (isQuoteRequired(value, numeric)) {
+			writer.write(quoteChar);
+			int start = 0;
+			for (int i = 0; i < value.length(); i++) {
+				if (value.charAt(i) == quoteChar) {
+					// escape the quote char doubling it
+					writer.write(value, start, i - start + 1);
+					writer.write(quoteChar);
+					start = i + 1;
+				}
+			}
+			writer.write(value, start, value.length() - start);
+			writer.write(quoteChar);
+		} else {
+			writer.write(value);
+		}
+	}
+
+	/**
+	 * Terminate the current record.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void endRecord() throws IOException {
+		writer.write(lineSeparator);
+		firstField = true;
+	}
+
+	/**
+	 * Flush the concrete writer.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	/**
+	 * Checks whether given value has to be quoted according to the quoting mode.
+	 * @param value The value (not empty)
+	 * @param numeric Whether the value is a number
+	 * @return Whether the value has to be quoted
+	 */
+	private boolean isQuoteRequired(String value, boolean numeric) {
+		switch (quoteMode) {
+		case ALL:
+			return true;
+		case NON_NUMERIC:
+			return !numeric || requiresQuoting(value);
+		case NONE:
+			return false;
+		case MINIMAL:
+		default:
+			return requiresQuoting(value);
+		}
+	}
+
+	/**
+	 * Checks whether given value contains the delimiter, the quote character or a line break.
+	 * @param value The value to check
+	 * @return Whether the value contains a character which requires quoting
+	 */
+	private boolean requiresQuoting(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == delimiter || c == quoteChar || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
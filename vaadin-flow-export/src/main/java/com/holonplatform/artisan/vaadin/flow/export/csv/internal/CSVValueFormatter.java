@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.csv.internal;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.function.Function;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSDataType;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.core.temporal.TemporalType;
+
+/**
+ * Formats the {@link XLSValue}s provided by the property value providers as CSV text values.
+ * <p>
+ * The formatter instances are immutable and can be shared.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class CSVValueFormatter {
+
+	private final DateTimeFormatter dateFormatter;
+	private final DateTimeFormatter timeFormatter;
+	private final DateTimeFormatter dateTimeFormatter;
+
+	private final char decimalSeparator;
+
+	private final String trueText;
+	private final String falseText;
+
+	private final Function<Enum<?>, String> enumTextProvider;
+
+	private final boolean escapeFormulas;
+
+	/**
+	 * Constructor.
+	 * @param configuration The export configuration (not null)
+	 * @param trueText The text to use for the <code>true</code> boolean values (not null)
+	 * @param falseText The text to use for the <code>false</code> boolean values (not null)
+	 * @param enumTextProvider The function to use to obtain the text of the enumeration values (not null)
+	 */
+	public CSVValueFormatter(CSVConfiguration configuration, String trueText, String falseText,
+			Function<Enum<?>, String> enumTextProvider) {
+		super();
+		Obj.argumentNotNull(configuration, "The configuration must be not null");
+		Obj.argumentNotNull(trueText, "The true text must be not null");
+		Obj.argumentNotNull(falseText, "The false text must be not null");
+		Obj.argumentNotNull(enumTextProvider, "The enum text provider must be not null");
+		this.dateFormatter = DateTimeFormatter.ofPattern(configuration.getDatePattern());
+		this.timeFormatter = DateTimeFormatter.ofPattern(configuration.getTimePattern());
+		this.dateTimeFormatter = DateTimeFormatter.ofPattern(configuration.getDateTimePattern());
+		this.decimalSeparator = configuration.getDecimalSeparator();
+		this.trueText = trueText;
+		this.falseText = falseText;
+		this.enumTextProvider = enumTextProvider;
+		this.escapeFormulas = configuration.isEscapeFormulas();
+	}
+
+	/**
+	 * Format given value.
+	 * <p>
+	 * When the formula escaping is enabled, the non numeric values which could be interpreted as formulas by a
+	 * spreadsheet application are prefixed with a single quote.
+	 * </p>
+	 * @param xlsValue The value to format (may be null)
+	 * @return The formatted value, <code>null</code> if the value is not available
+	 */
+	public String format(XLSValue<?> xlsValue) {
+		if (xlsValue == null) {
+			return null;
+		}
+		final Object value = xlsValue.getValue().orElse(null);
+		if (value == null) {
+			return null;
+		}
+		switch (xlsValue.getDataType()) {
+		case BOOLEAN:
+			return ((Boolean) value).booleanValue() ? trueText : falseText;
+		case NUMERIC:
+			return formatNumber((Number) value);
+		case DATE:
+			return formatDate(value, xlsValue.getTemporalType().orElse(TemporalType.DATE_TIME));
+		case ENUM:
+			return escape((value instanceof Enum) ? enumTextProvider.apply((Enum<?>) value) : String.valueOf(value));
+		case FORMULA:
+			return escape("=" + value);
+		case STRING:
+		default:
+			return escape(String.valueOf(value));
+		}
+	}
+
+	/**
+	 * Neutralize given text value if it could be interpreted as a formula and the formula escaping is enabled.
+	 * @param text The text value
+	 * @return The text value, prefixed with a single quote if escaped
+	 */
+	protected String escape(String text) {
+		if (escapeFormulas && isFormulaLike(text)) {
+			return "'" + text;
+		}
+		return text;
+	}
+
+	/**
+	 * Checks whether given text could be interpreted as a formula by a spreadsheet application.
+	 * @param text The text to check
+	 * @return <code>true</code> if the text starts with a formula trigger character
+	 */
+	public static boolean isFormulaLike(String text) {
+		if (text == null || text.isEmpty()) {
+			return false;
+		}
+		switch (text.charAt(0)) {
+		case '=':
+		case '+':
+		case '-':
+		case '@':
+		case '\t':
+		case '\r':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Checks whether given value is a number.
+	 * @param xlsValue The value to check
+	 * @return Whether the value is a number
+	 */
+	public static boolean isNumeric(XLSValue<?> xlsValue) {
+		return xlsValue != null && XLSDataType.NUMERIC == xlsValue.getDataType();
+	}
+
+	/**
+	 * Format a number, avoiding the scientific notation.
+	 * @param value The number to format
+	 * @return The formatted number
+	 */
+	protected String formatNumber(Number value) {
+		final String text;
+		if (value instanceof BigDecimal) {
+			text = ((BigDecimal) value).toPlainString();
+		} else if (value instanceof Double || value instanceof Float) {
+			final double d = value.doubleValue();
+			if (Double.isNaN(d) || Double.isInfinite(d)) {
+				return String.valueOf(d);
+			}
+			// use the shortest decimal representation of the value
+			text = new BigDecimal(value.toString()).toPlainString();
+		} else {
+			return value.toString();
+		}
+		return (decimalSeparator != '.') ? text.replace('.', decimalSeparator) : text;
+	}
+
+	/**
+	 * Format a date or time value.
+	 * @param value The value to format
+	 * @param temporalType The value temporal type
+	 * @return The formatted value
+	 */
+	protected String formatDate(Object value, TemporalType temporalType) {
+		if (value instanceof LocalDate) {
+			return dateFormatter.format((LocalDate) value);
+		}
+		if (value instanceof LocalTime) {
+			return timeFormatter.format((LocalTime) value);
+		}
+		if (value instanceof LocalDateTime) {
+			return dateTimeFormatter.format((LocalDateTime) value);
+		}
+		final TemporalAccessor temporal;
+		if (value instanceof Calendar) {
+			final Calendar calendar = (Calendar) value;
+			temporal = LocalDateTime.ofInstant(calendar.toInstant(), calendar.getTimeZone().toZoneId());
+		} else if (value instanceof Date) {
+			temporal = LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault());
+		} else {
+			return String.valueOf(value);
+		}
+		switch (temporalType) {
+		case DATE:
+			return dateFormatter.format(temporal);
+		case TIME:
+			return timeFormatter.format(temporal);
+		case DATE_TIME:
+		default:
+			return dateTimeFormatter.format(temporal);
+		}
+	}
+
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.csv.internal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.SizeEstimationMode;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AbstractDataExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AsyncExportTask;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.BatchSizeStrategy;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.DefaultPropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportSizeEstimate;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.ReusableXLSPropertyValueContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.XLSBatchValues;
+import com.holonplatform.core.i18n.Localizable;
+import com.holonplatform.core.i18n.LocalizationContext;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.property.VirtualProperty;
+import com.holonplatform.vaadin.flow.components.Components;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+/**
+ * Default {@link CSVExporter} implementation.
+ * <p>
+ * The exporter configuration is not modified by the export operations, so a built exporter can be used concurrently
+ * by more than one thread. The export state is confined to the thread which performs the export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class DefaultCSVExporter extends AbstractDataExporter implements CSVExporter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CSVExporter.class);
+
+	/**
+	 * Writer buffer size
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final XLSPropertyConfiguration DEFAULT_PROPERTY_CONFIGURATION = XLSPropertyConfiguration.builder()
+			.build();
+
+	private CSVConfiguration configuration;
+
+	private PropertyXLSValueProviderRegistry propertyXLSValueProviderRegistry;
+
+	/**
+	 * Constructor.
+	 * @param dataSource The {@link DataProvider} to use as data source (not null)
+	 * @param propertySet The property set to use (not null)
+	 */
+	public DefaultCSVExporter(DataProvider<PropertyBox, ?> dataSource, PropertySet<?> propertySet) {
+		super(Obj.argumentNotNull(dataSource, "The DataProvider must be not null"), propertySet);
+	}
+
+	/**
+	 * Get the export configuration.
+	 * @return The export configuration, a default configuration if not configured
+	 */
+	protected CSVConfiguration getConfiguration() {
+		return (configuration != null) ? configuration : CSVConfiguration.builder().build();
+	}
+
+	/**
+	 * Set the {@link CSVConfiguration} to use
+	 * @param configuration The configuration to set
+	 */
+	protected void setConfiguration(CSVConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Get the {@link PropertyXLSValueProviderRegistry} to use.
+	 * @return The registry, the current one if not configured
+	 */
+	protected PropertyXLSValueProviderRegistry getPropertyXLSValueProviderRegistry() {
+		return (propertyXLSValueProviderRegistry != null) ? propertyXLSValueProviderRegistry
+				: PropertyXLSValueProviderRegistry.get();
+	}
+
+	/**
+	 * Set the {@link PropertyXLSValueProviderRegistry} to use.
+	 * @param registry the registry to set
+	 */
+	protected void setPropertyXLSValueProviderRegistry(PropertyXLSValueProviderRegistry registry) {
+		this.propertyXLSValueProviderRegistry = registry;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter#export(java.io.OutputStream,
+	 * com.holonplatform.artisan.core.operation.OperationProgressCallback)
+	 */
+	@Override
+	public void export(OutputStream outputStream, OperationProgressCallback exportProgressCallback)
+			throws ExportException {
+		exportData(outputStream, exportProgressCallback);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter#exportAsync(java.io.OutputStream,
+	 * com.holonplatform.artisan.core.operation.OperationProgressCallback, java.util.concurrent.Executor)
+	 */
+	@Override
+	public CompletableFuture<ExportResult> exportAsync(OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback, Executor executor) {
+		return AsyncExportTask.submit(outputStream, exportProgressCallback, executor, this::exportData);
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream}.
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @return The number of exported data rows
+	 * @throws ExportException If an error occurred
+	 */
+	@SuppressWarnings("unchecked")
+	protected int exportData(OutputStream outputStream, OperationProgressCallback exportProgressCallback)
+			throws ExportException {
+		Obj.argumentNotNull(outputStream, "The data output stream must be not null");
+		Obj.argumentNotNull(exportProgressCallback, "The export progres callback must be not null");
+
+		// progress notifications throttling
+		final OperationProgressCallback progressCallback = getProgressCallback(exportProgressCallback);
+
+		LOGGER.debug("Start CSV export...");
+
+		final CSVConfiguration configuration = getConfiguration();
+
+		// export properties and value providers
+		final List<Property<?>> properties = getExportProperties(configuration);
+		if (properties.isEmpty()) {
+			throw new ExportException("No property to export");
+		}
+		final PropertyXLSValueProviderRegistry registry = getPropertyXLSValueProviderRegistry();
+		final int columns = properties.size();
+		final Property<Object>[] columnProperties = new Property[columns];
+		final PropertyXLSValueProvider<Object>[] providers = new PropertyXLSValueProvider[columns];
+		for (int i = 0; i < columns; i++) {
+			columnProperties[i] = (Property<Object>) properties.get(i);
+			providers[i] = registry.getProvider(columnProperties[i])
+					.orElseGet(() -> new DefaultPropertyXLSValueProvider<>());
+		}
+
+		// data size estimation
+		try (ExportSizeEstimate sizeEstimate = createSizeEstimate()) {
+			final IntSupplier totalSteps = () -> sizeEstimate.getTotalSteps(2);
+
+			LOGGER.debug("CSV export estimated row count: " + sizeEstimate.getSize());
+
+			updateExportProgress(progressCallback, totalSteps.getAsInt(), 0);
+
+			try {
+				final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, configuration.getCharset()),
+						BUFFER_SIZE);
+				final CSVRecordWriter csv = new CSVRecordWriter(writer, configuration);
+				final CSVValueFormatter formatter = createValueFormatter(configuration);
+
+				// header
+				if (configuration.isIncludeHeader()) {
+					for (Property<Object> property : columnProperties) {
+						csv.writeField(getColumnHeader(property), false);
+					}
+					csv.endRecord();
+				}
+				updateExportProgress(progressCallback, totalSteps.getAsInt(), 1);
+
+				// data
+				final ReusableXLSPropertyValueContext<Object> context = new ReusableXLSPropertyValueContext<>();
+				final XLSBatchValues batchValues = createBatchValues(columnProperties, providers);
+				final boolean batch = !batchValues.isEmpty();
+				final int rows = forEachDataRow(row -> {
+					if (batch) {
+						batchValues.next();
+					}
+					try {
+						for (int i = 0; i < columns; i++) {
+							XLSValue<?> value = batch ? batchValues.get(i, row) : null;
+							if (value == null) {
+								value = providers[i].provide(
+										context.set(columnProperties[i], DEFAULT_PROPERTY_CONFIGURATION, row),
+										getValue(columnProperties[i], row));
+							}
+							csv.writeField(formatter.format(value), CSVValueFormatter.isNumeric(value));
+						}
+						csv.endRecord();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, progressCallback, totalSteps, 1, batch ? (page, fetchStart) -> batchValues.load(page) : null);
+
+				csv.flush();
+				completeExportProgress(progressCallback, totalSteps);
+				return rows;
+
+			} catch (Exception e) {
+				throw new ExportException("Export failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Create the {@link XLSBatchValues} to use to obtain the values of the columns which use a
+	 * {@link com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueBatchProvider} once for each data page.
+	 * @param columnProperties The export column properties
+	 * @param providers The export column value providers
+	 * @return A new {@link XLSBatchValues}
+	 */
+	protected XLSBatchValues createBatchValues(Property<Object>[] columnProperties,
+			PropertyXLSValueProvider<Object>[] providers) {
+		return new XLSBatchValues(new XLSBatchValues.Columns() {
+
+			@Override
+			public int getColumnCount() {
+				return columnProperties.length;
+			}
+
+			@Override
+			public Property<Object> getProperty(int columnIndex) {
+				return columnProperties[columnIndex];
+			}
+
+			@Override
+			public XLSPropertyConfiguration getPropertyConfiguration(int columnIndex) {
+				return DEFAULT_PROPERTY_CONFIGURATION;
+			}
+
+			@Override
+			public PropertyXLSValueProvider<Object> getProvider(int columnIndex) {
+				return providers[columnIndex];
+			}
+
+			@Override
+			public Object getValue(int columnIndex, PropertyBox row) {
+				return DefaultCSVExporter.this.getValue(columnProperties[columnIndex], row);
+			}
+
+		});
+	}
+
+	/**
+	 * Get the properties to export.
+	 * @param configuration Export configuration
+	 * @return The ordered properties to export
+	 */
+	protected List<Property<?>> getExportProperties(CSVConfiguration configuration) {
+		final List<Property<?>> properties = new LinkedList<>();
+		if (!configuration.getProperties().isEmpty()) {
+			configuration.getProperties().stream().filter(p -> getPropertySet().contains(p))
+					.forEach(property -> properties.add(property));
+		} else {
+			for (Property<?> property : getPropertySet()) {
+				properties.add(property);
+			}
+		}
+		// exclude components
+		properties.removeIf(property -> Components.class.isAssignableFrom(property.getType()));
+		return properties;
+	}
+
+	/**
+	 * Create the {@link CSVValueFormatter} to use for an export.
+	 * <p>
+	 * The enumeration values are exported using their localized caption, in the same way of the XLS export.
+	 * </p>
+	 * @param configuration Export configuration
+	 * @return A new {@link CSVValueFormatter}
+	 */
+	protected CSVValueFormatter createValueFormatter(CSVConfiguration configuration) {
+		if (BooleanExportMode.TEXT == configuration.getBooleanExportMode()) {
+			return new CSVValueFormatter(configuration,
+					localize(Localizable.of(BooleanExportMode.DEFAULT_TRUE_TEXT,
+							BooleanExportMode.DEFAULT_TRUE_TEXT_MESSAGE_CODE), BooleanExportMode.DEFAULT_TRUE_TEXT),
+					localize(Localizable.of(BooleanExportMode.DEFAULT_FALSE_TEXT,
+							BooleanExportMode.DEFAULT_FALSE_TEXT_MESSAGE_CODE), BooleanExportMode.DEFAULT_FALSE_TEXT),
+					this::getEnumText);
+		}
+		return new CSVValueFormatter(configuration, Boolean.TRUE.toString(), Boolean.FALSE.toString(),
+				this::getEnumText);
+	}
+
+	/**
+	 * Get the header text of given property column.
+	 * @param property The property
+	 * @return The column header text
+	 */
+	protected String getColumnHeader(Property<?> property) {
+		return getColumnHeaderProvider().flatMap(chp -> chp.apply(property))
+				.orElseGet(() -> localize(property, property.getName()));
+	}
+
+	/**
+	 * Get the value of given property from given row.
+	 * @param property The property
+	 * @param row The row
+	 * @return The property value, <code>null</code> if not available
+	 */
+	@SuppressWarnings("unchecked")
+	protected Object getValue(Property<Object> property, PropertyBox row) {
+		if (row.contains(property)) {
+			return row.getValue(property);
+		}
+		if (property instanceof VirtualProperty) {
+			return ((VirtualProperty<Object>) property).getValueProvider().getPropertyValue(row);
+		}
+		return null;
+	}
+
+	// ------- Builder
+
+	/**
+	 * Default {@link Builder} implementation.
+	 */
+	public static class DefaultBuilder implements Builder {
+
+		private final DefaultCSVExporter exporter;
+
+		/**
+		 * Constructor.
+		 * @param dataSource The {@link DataProvider} to use as data source (not null)
+		 * @param propertySet The property set to use (not null)
+		 */
+		public DefaultBuilder(DataProvider<PropertyBox, ?> dataSource, PropertySet<?> propertySet) {
+			super();
+			this.exporter = new DefaultCSVExporter(dataSource, propertySet);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#configuration(com.holonplatform.artisan.
+		 * vaadin.flow.export.csv.config.CSVConfiguration)
+		 */
+		@Override
+		public Builder configuration(CSVConfiguration configuration) {
+			this.exporter.setConfiguration(configuration);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#columnHeaderProvider(java.util.function.
+		 * Function)
+		 */
+		@Override
+		public Builder columnHeaderProvider(Function<Property<?>, Optional<String>> columnHeaderProvider) {
+			this.exporter.setColumnHeaderProvider(columnHeaderProvider);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#registry(com.holonplatform.artisan.
+		 * vaadin.flow.export.xls.PropertyXLSValueProviderRegistry)
+		 */
+		@Override
+		public Builder registry(PropertyXLSValueProviderRegistry registry) {
+			this.exporter.setPropertyXLSValueProviderRegistry(registry);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#localizationContext(com.holonplatform.
+		 * core.i18n.LocalizationContext)
+		 */
+		@Override
+		public Builder localizationContext(LocalizationContext localizationContext) {
+			this.exporter.setLocalizationContext(localizationContext);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#querySortsProvider(java.util.function.
+		 * Supplier)
+		 */
+		@Override
+		public Builder querySortsProvider(Supplier<List<QuerySortOrder>> querySortsProvider) {
+			this.exporter.setQuerySortsProvider(querySortsProvider);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#batchSize(int)
+		 */
+		@Override
+		public Builder batchSize(int batchSize) {
+			final BatchSizeStrategy strategy = BatchSizeStrategy.fixed(batchSize);
+			this.exporter.setBatchSizeStrategy(() -> strategy);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#adaptiveBatchSize(int, int, long,
+		 * long)
+		 */
+		@Override
+		public Builder adaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis,
+				long maxPageMemory) {
+			this.exporter.setAdaptiveBatchSize(minBatchSize, maxBatchSize, targetFetchTimeMillis, maxPageMemory);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#sizeEstimation(com.holonplatform.
+		 * artisan.vaadin.flow.export.SizeEstimationMode)
+		 */
+		@Override
+		public Builder sizeEstimation(SizeEstimationMode mode) {
+			this.exporter.setSizeEstimationMode(mode);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#estimatedSize(java.util.function.
+		 * IntSupplier)
+		 */
+		@Override
+		public Builder estimatedSize(IntSupplier estimatedSize) {
+			this.exporter.setSizeEstimateSupplier(estimatedSize);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#progressThrottling(long, int)
+		 */
+		@Override
+		public Builder progressThrottling(long intervalMillis, int percentageStep) {
+			this.exporter.setProgressThrottling(intervalMillis, percentageStep);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#prefetch(int,
+		 * java.util.concurrent.ThreadFactory)
+		 */
+		@Override
+		public Builder prefetch(int queueDepth, ThreadFactory threadFactory) {
+			this.exporter.setPrefetch(queueDepth, threadFactory);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#keysetPagination(java.util.List,
+		 * java.util.function.Function)
+		 */
+		@Override
+		public Builder keysetPagination(List<Property<?>> keyProperties, Function<PropertyBox, ?> seekFilterProvider) {
+			this.exporter.setKeysetPagination(keyProperties, seekFilterProvider);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter.Builder#build()
+		 */
+		@Override
+		public CSVExporter build() {
+			return this.exporter;
+		}
+
+	}
+
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */package com.holonplatform.artisan.vaadin.flow.export.csv.internal.config;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+
+import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVQuoteMode;
+import com.holonplatform.core.property.Property;
+
+/**
+ * Default {@link CSVConfiguration} implementation.
+ *
+ * @since 3.0.2
+ */
+public class DefaultCSVConfiguration implements CSVConfiguration {
+
+	private static final long serialVersionUID = -2871552934126021865L;
+
+	private List<Property<?>> properties = Collections.emptyList();
+	private char delimiter = DEFAULT_DELIMITER;
+	private char quoteChar = DEFAULT_QUOTE_CHAR;
+	private CSVQuoteMode quoteMode = CSVQuoteMode.MINIMAL;
+	private String lineSeparator = DEFAULT_LINE_SEPARATOR;
+	private boolean includeHeader = true;
+	private char decimalSeparator = '.';
+	private String datePattern = DEFAULT_DATE_PATTERN;
+	private String timePattern = DEFAULT_TIME_PATTERN;
+	private String dateTimePattern = DEFAULT_DATE_TIME_PATTERN;
+	private BooleanExportMode booleanExportMode = BooleanExportMode.DEFAULT;
+	private String charsetName = StandardCharsets.UTF_8.name();
+	private boolean escapeFormulas = true;
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getProperties()
+	 */
+	@Override
+	public List<Property<?>> getProperties() {
+		return properties;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getDelimiter()
+	 */
+	@Override
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getQuoteChar()
+	 */
+	@Override
+	public char getQuoteChar() {
+		return quoteChar;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getQuoteMode()
+	 */
+	@Override
+	public CSVQuoteMode getQuoteMode() {
+		return quoteMode;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getLineSeparator()
+	 */
+	@Override
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#isIncludeHeader()
+	 */
+	@Override
+	public boolean isIncludeHeader() {
+		return includeHeader;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getDecimalSeparator()
+	 */
+	@Override
+	public char getDecimalSeparator() {
+		return decimalSeparator;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getDatePattern()
+	 */
+	@Override
+	public String getDatePattern() {
+		return datePattern;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getTimePattern()
+	 */
+	@Override
+	public String getTimePattern() {
+		return timePattern;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getDateTimePattern()
+	 */
+	@Override
+	public String getDateTimePattern() {
+		return dateTimePattern;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getBooleanExportMode()
+	 */
+	@Override
+	public BooleanExportMode getBooleanExportMode() {
+		return booleanExportMode;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#isEscapeFormulas()
+	 */
+	@Override
+	public boolean isEscapeFormulas() {
+		return escapeFormulas;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration#getCharset()
+	 */
+	@Override
+	public Charset getCharset() {
+		return Charset.forName(charsetName);
+	}
+
+	/**
+	 * Set the properties to export and their order.
+	 * @param properties the properties to set
+	 */
+	protected void setProperties(List<Property<?>> properties) {
+		this.properties = (properties != null) ? properties : Collections.emptyList();
+	}
+
+	/**
+	 * Set the values delimiter.
+	 * @param delimiter the values delimiter to set
+	 */
+	protected void setDelimiter(char delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Set the quote character.
+	 * @param quoteChar the quote character to set
+	 */
+	protected void setQuoteChar(char quoteChar) {
+		this.quoteChar = quoteChar;
+	}
+
+	/**
+	 * Set the quoting mode.
+	 * @param quoteMode the quoting mode to set
+	 */
+	protected void setQuoteMode(CSVQuoteMode quoteMode) {
+		this.quoteMode = (quoteMode != null) ? quoteMode : CSVQuoteMode.MINIMAL;
+	}
+
+	/**
+	 * Set the line separator.
+	 * @param lineSeparator the line separator to set
+	 */
+	protected void setLineSeparator(String lineSeparator) {
+		this.lineSeparator = (lineSeparator != null) ? lineSeparator : DEFAULT_LINE_SEPARATOR;
+	}
+
+	/**
+	 * Set whether to write the header line.
+	 * @param includeHeader whether to write the header line to set
+	 */
+	protected void setIncludeHeader(boolean includeHeader) {
+		this.includeHeader = includeHeader;
+	}
+
+	/**
+	 * Set the decimal separator.
+	 * @param decimalSeparator the decimal separator to set
+	 */
+	protected void setDecimalSeparator(char decimalSeparator) {
+		this.decimalSeparator = decimalSeparator;
+	}
+
+	/**
+	 * Set the date pattern.
+	 * @param datePattern the date pattern to set
+	 */
+	protected void setDatePattern(String datePattern) {
+		this.datePattern = checkPattern(datePattern, DEFAULT_DATE_PATTERN);
+	}
+
+	/**
+	 * Set the time pattern.
+	 * @param timePattern the time pattern to set
+	 */
+	protected void setTimePattern(String timePattern) {
+		this.timePattern = checkPattern(timePattern, DEFAULT_TIME_PATTERN);
+	}
+
+	/**
+	 * Set the date and time pattern.
+	 * @param dateTimePattern the date and time pattern to set
+	 */
+	protected void setDateTimePattern(String dateTimePattern) {
+		this.dateTimePattern = checkPattern(dateTimePattern, DEFAULT_DATE_TIME_PATTERN);
+	}
+
+	/**
+	 * Set the boolean values export mode.
+	 * @param booleanExportMode the boolean values export mode to set
+	 */
+	protected void setBooleanExportMode(BooleanExportMode booleanExportMode) {
+		this.booleanExportMode = (booleanExportMode != null) ? booleanExportMode : BooleanExportMode.DEFAULT;
+	}
+
+	/**
+	 * Set the charset.
+	 * @param charset the charset to set
+	 */
+	protected void setCharset(Charset charset) {
+		this.charsetName = (charset != null) ? charset.name() : StandardCharsets.UTF_8.name();
+	}
+
+	/**
+	 * Set whether to neutralize the formula-like text values.
+	 * @param escapeFormulas whether to neutralize the formula-like text values
+	 */
+	protected void setEscapeFormulas(boolean escapeFormulas) {
+		this.escapeFormulas = escapeFormulas;
+	}
+
+	/**
+	 * Check the validity of given date/time pattern.
+	 * @param pattern The pattern to check
+	 * @param defaultPattern The default pattern to use if the pattern is <code>null</code>
+	 * @return The valid pattern
+	 * @throws IllegalArgumentException If the pattern is not valid
+	 */
+	private static String checkPattern(String pattern, String defaultPattern) {
+		if (pattern == null) {
+			return defaultPattern;
+		}
+		DateTimeFormatter.ofPattern(pattern);
+		return pattern;
+	}
+
+	public static class DefaultBuilder implements Builder {
+
+		private final DefaultCSVConfiguration configuration = new DefaultCSVConfiguration();
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#properties(java.util.
+		 * List)
+		 */
+		@Override
+		public Builder properties(List<Property<?>> properties) {
+			this.configuration.setProperties(properties);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#delimiter(char)
+		 */
+		@Override
+		public Builder delimiter(char delimiter) {
+			this.configuration.setDelimiter(delimiter);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#quoteChar(char)
+		 */
+		@Override
+		public Builder quoteChar(char quoteChar) {
+			this.configuration.setQuoteChar(quoteChar);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#quoteMode(com.
+		 * holonplatform.artisan.vaadin.flow.export.csv.config.CSVQuoteMode)
+		 */
+		@Override
+		public Builder quoteMode(CSVQuoteMode quoteMode) {
+			this.configuration.setQuoteMode(quoteMode);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#lineSeparator(java.
+		 * lang.String)
+		 */
+		@Override
+		public Builder lineSeparator(String lineSeparator) {
+			this.configuration.setLineSeparator(lineSeparator);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#charset(java.nio.
+		 * charset.Charset)
+		 */
+		@Override
+		public Builder charset(Charset charset) {
+			this.configuration.setCharset(charset);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#includeHeader(boolean)
+		 */
+		@Override
+		public Builder includeHeader(boolean includeHeader) {
+			this.configuration.setIncludeHeader(includeHeader);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#decimalSeparator(char)
+		 */
+		@Override
+		public Builder decimalSeparator(char decimalSeparator) {
+			this.configuration.setDecimalSeparator(decimalSeparator);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#datePattern(java.lang.
+		 * String)
+		 */
+		@Override
+		public Builder datePattern(String datePattern) {
+			this.configuration.setDatePattern(datePattern);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#timePattern(java.lang.
+		 * String)
+		 */
+		@Override
+		public Builder timePattern(String timePattern) {
+			this.configuration.setTimePattern(timePattern);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#dateTimePattern(java.
+		 * lang.String)
+		 */
+		@Override
+		public Builder dateTimePattern(String dateTimePattern) {
+			this.configuration.setDateTimePattern(dateTimePattern);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#booleanExportMode(com.
+		 * holonplatform.artisan.vaadin.flow.export.BooleanExportMode)
+		 */
+		@Override
+		public Builder booleanExportMode(BooleanExportMode booleanExportMode) {
+			this.configuration.setBooleanExportMode(booleanExportMode);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#escapeFormulas(boolean)
+		 */
+		@Override
+		public Builder escapeFormulas(boolean escapeFormulas) {
+			this.configuration.setEscapeFormulas(escapeFormulas);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration.Builder#build()
+		 */
+		@Override
+		public CSVConfiguration build() {
+			return configuration;
+		}
+
+	}
+
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.ExportCache;
+import com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.DefaultExportResult;
+
+/**
+ * Default {@link ExportCache} implementation.
+ * <p>
+ * Each cached file is named using the key fingerprint, the exported rows count and a sequence number, so that the
+ * entries can be restored when a new cache is created using the same spool directory. The exports are written to a
+ * temporary file of the spool directory, which is then moved to its final name.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class DefaultExportCache implements ExportCache {
+
+	/**
+	 * Logger
+	 */
+	protected static final Logger LOGGER = LoggerFactory.getLogger(ExportCache.class);
+
+	private static final String FILE_SUFFIX = ".export";
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private final Path directory;
+
+	private long maxSize = DEFAULT_MAX_SIZE;
+	private long timeToLive = DEFAULT_TIME_TO_LIVE.toMillis();
+
+	private final Object lock = new Object();
+
+	// access ordered, the least recently used entry first
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, CompletableFuture<Void>> pending = new HashMap<>();
+	private long size = 0;
+
+	private final AtomicLong fileSequence = new AtomicLong(System.currentTimeMillis());
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong misses = new AtomicLong(0);
+
+	/**
+	 * Constructor.
+	 * @param directory The spool directory (not null)
+	 */
+	public DefaultExportCache(Path directory) {
+		super();
+		Obj.argumentNotNull(directory, "The cache directory must be not null");
+		this.directory = directory;
+	}
+
+	/**
+	 * Set the maximum total size of the cached files.
+	 * @param maxSize The maximum size in bytes (greater than 0)
+	 */
+	protected void setMaxSize(long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("The cache maximum size must be greater than 0");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Set the entries time to live.
+	 * @param timeToLive The entries time to live, <code>null</code> or zero to never expire the entries
+	 */
+	protected void setTimeToLive(Duration timeToLive) {
+		if (timeToLive != null && timeToLive.isNegative()) {
+			throw new IllegalArgumentException("The cache time to live must be not negative");
+		}
+		this.timeToLive = (timeToLive != null) ? timeToLive.toMillis() : 0;
+	}
+
+	/**
+	 * Initialize the spool directory, restoring the entries of the cached files it contains.
+	 * @throws ExportException If the spool directory cannot be initialized
+	 */
+	protected void init() {
+		final List<Entry> restored = new ArrayList<>();
+		try {
+			Files.createDirectories(directory);
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path file : files) {
+					final String name = file.getFileName().toString();
+					if (name.endsWith(TEMP_FILE_SUFFIX)) {
+						// left by an interrupted export
+						delete(file);
+					} else if (name.endsWith(FILE_SUFFIX)) {
+						final String[] parts = name.substring(0, name.length() - FILE_SUFFIX.length()).split("_");
+						if (parts.length == 3) {
+							try {
+								restored.add(new Entry(parts[0], file, Long.parseLong(parts[1]), Files.size(file),
+										Files.getLastModifiedTime(file).toMillis()));
+							} catch (NumberFormatException e) {
+								LOGGER.debug("Ignoring spool directory file [" + file + "]");
+							}
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new ExportException("Failed to initialize the export cache directory [" + directory + "]", e);
+		}
+		restored.sort((e1, e2) -> Long.compare(e1.created, e2.created));
+		synchronized (lock) {
+			for (Entry entry : restored) {
+				put(entry);
+			}
+			evict();
+		}
+		LOGGER.debug("Export cache initialized in [" + directory + "]: " + entries.size() + " entries restored");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#export(com.holonplatform.artisan.vaadin.flow.
+	 * export.
+	 * ExportCacheKey, com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter, java.io.OutputStream,
+	 * com.holonplatform.artisan.core.operation.OperationProgressCallback)
+	 */
+	@Override
+	public ExportResult export(ExportCacheKey key, XLSExporter exporter, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) throws ExportException {
+		Obj.argumentNotNull(exporter, "The exporter must be not null");
+		return exportCached(key, exporter::exportAsync, outputStream, exportProgressCallback);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#export(com.holonplatform.artisan.vaadin.flow.
+	 * export.
+	 * ExportCacheKey, com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter, java.io.OutputStream,
+	 * com.holonplatform.artisan.core.operation.OperationProgressCallback)
+	 */
+	@Override
+	public ExportResult export(ExportCacheKey key, CSVExporter exporter, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) throws ExportException {
+		Obj.argumentNotNull(exporter, "The exporter must be not null");
+		return exportCached(key, exporter::exportAsync, outputStream, exportProgressCallback);
+	}
+
+	/**
+	 * Serve the cached file bound to given key, or perform the export and cache its output. Concurrent exports with
+	 * the same key wait for the first one to complete.
+	 * @param key The cache key
+	 * @param task The export operation
+	 * @param outputStream The output stream
+	 * @param exportProgressCallback The progress callback
+	 * @return The export result
+	 */
+	private ExportResult exportCached(ExportCacheKey key, ExportTask task, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) {
+		Obj.argumentNotNull(key, "The cache key must be not null");
+		Obj.argumentNotNull(outputStream, "The data output stream must be not null");
+		Obj.argumentNotNull(exportProgressCallback, "The export progres callback must be not null");
+		final String fingerprint = key.getFingerprint();
+		while (true) {
+			final Entry entry;
+			CompletableFuture<Void> running = null;
+			CompletableFuture<Void> export = null;
+			synchronized (lock) {
+				entry = acquire(fingerprint);
+				if (entry == null) {
+					running = pending.get(fingerprint);
+					if (running == null) {
+						export = new CompletableFuture<>();
+						pending.put(fingerprint, export);
+					}
+				}
+			}
+			if (entry != null) {
+				hits.incrementAndGet();
+				return serve(entry, outputStream);
+			}
+			if (export != null) {
+				misses.incrementAndGet();
+				try {
+					return generate(fingerprint, task, outputStream, exportProgressCallback);
+				} finally {
+					synchronized (lock) {
+						pending.remove(fingerprint);
+					}
+					export.complete(null);
+				}
+			}
+			// wait for the concurrent export with the same key, then retry
+			try {
+				running.join();
+			} catch (CompletionException | CancellationException e) {
+				// retry
+			}
+		}
+	}
+
+	/**
+	 * Perform the export, caching its output if it fits the cache maximum size.
+	 * @param fingerprint The key fingerprint
+	 * @param task The export operation
+	 * @param outputStream The output stream
+	 * @param exportProgressCallback The progress callback
+	 * @return The export result
+	 */
+	private ExportResult generate(String fingerprint, ExportTask task, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) {
+		final long start = System.nanoTime();
+		final long sequence = fileSequence.incrementAndGet();
+		final Path temp = directory.resolve(fingerprint + "_" + sequence + TEMP_FILE_SUFFIX);
+		try {
+			final ExportResult result;
+			try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				result = run(task, os, exportProgressCallback);
+			}
+			final long fileSize = Files.size(temp);
+			if (fileSize > maxSize) {
+				LOGGER.debug("Export of [" + fingerprint + "] exceeds the cache maximum size and it is not cached");
+				Files.copy(temp, outputStream);
+			} else {
+				final Path file = directory.resolve(fingerprint + "_" + result.getRows() + "_" + sequence + FILE_SUFFIX);
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+				final Entry entry = new Entry(fingerprint, file, result.getRows(), fileSize,
+						System.currentTimeMillis());
+				synchronized (lock) {
+					put(entry);
+					entry.readers++;
+					evict();
+				}
+				try {
+					Files.copy(file, outputStream);
+				} finally {
+					release(entry);
+				}
+			}
+			return new DefaultExportResult(result.getRows(), fileSize, Duration.ofNanos(System.nanoTime() - start));
+		} catch (IOException e) {
+			throw new ExportException("Export failed", e);
+		} finally {
+			delete(temp);
+		}
+	}
+
+	/**
+	 * Write a cached file to given output stream.
+	 * @param entry The acquired cache entry
+	 * @param outputStream The output stream
+	 * @return The export result
+	 */
+	private ExportResult serve(Entry entry, OutputStream outputStream) {
+		final long start = System.nanoTime();
+		try {
+			Files.copy(entry.file, outputStream);
+		} catch (IOException e) {
+			throw new ExportException("Export failed", e);
+		} finally {
+			release(entry);
+		}
+		return new DefaultExportResult(entry.rows, entry.size, Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	/**
+	 * Run an export operation in the current thread.
+	 * @param task The export operation
+	 * @param outputStream The output stream
+	 * @param exportProgressCallback The progress callback
+	 * @return The export result
+	 */
+	private static ExportResult run(ExportTask task, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback) {
+		try {
+			return task.export(outputStream, exportProgressCallback, Runnable::run).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExportException("Export interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ExportException) {
+				throw (ExportException) e.getCause();
+			}
+			throw new ExportException("Export failed", e.getCause());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#open(com.holonplatform.artisan.vaadin.flow.export.
+	 * ExportCacheKey)
+	 */
+	@Override
+	public Optional<InputStream> open(ExportCacheKey key) throws ExportException {
+		Obj.argumentNotNull(key, "The cache key must be not null");
+		final Entry entry;
+		synchronized (lock) {
+			entry = acquire(key.getFingerprint());
+		}
+		if (entry == null) {
+			return Optional.empty();
+		}
+		hits.incrementAndGet();
+		try {
+			return Optional.of(new EntryInputStream(Files.newInputStream(entry.file), entry));
+		} catch (IOException e) {
+			release(entry);
+			throw new ExportException("Failed to open the cached export file [" + entry.file + "]", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#invalidate(com.holonplatform.artisan.vaadin.flow.
+	 * export.ExportCacheKey)
+	 */
+	@Override
+	public boolean invalidate(ExportCacheKey key) {
+		Obj.argumentNotNull(key, "The cache key must be not null");
+		synchronized (lock) {
+			final Entry entry = entries.get(key.getFingerprint());
+			if (entry != null) {
+				remove(entry);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#clear()
+	 */
+	@Override
+	public void clear() {
+		synchronized (lock) {
+			for (Entry entry : new ArrayList<>(entries.values())) {
+				remove(entry);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#getEntryCount()
+	 */
+	@Override
+	public int getEntryCount() {
+		synchronized (lock) {
+			return entries.size();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#getSize()
+	 */
+	@Override
+	public long getSize() {
+		synchronized (lock) {
+			return size;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#getHitCount()
+	 */
+	@Override
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache#getMissCount()
+	 */
+	@Override
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Get the valid entry bound to given fingerprint, marking it as in use. Must be invoked holding the cache lock.
+	 * @param fingerprint The key fingerprint
+	 * @return The entry, <code>null</code> if not available or expired
+	 */
+	private Entry acquire(String fingerprint) {
+		final Entry entry = entries.get(fingerprint);
+		if (entry != null) {
+			if (isExpired(entry)) {
+				remove(entry);
+				return null;
+			}
+			entry.readers++;
+		}
+		return entry;
+	}
+
+	/**
+	 * Release an entry acquired using {@link #acquire(String)}, deleting its file if it was removed in the meantime.
+	 * @param entry The entry
+	 */
+	private void release(Entry entry) {
+		final boolean delete;
+		synchronized (lock) {
+			entry.readers--;
+			delete = entry.removed && entry.readers == 0;
+		}
+		if (delete) {
+			delete(entry.file);
+		}
+	}
+
+	/**
+	 * Add an entry, replacing any previous entry with the same fingerprint. Must be invoked holding the cache lock.
+	 * @param entry The entry to add
+	 */
+	private void put(Entry entry) {
+		final Entry previous = entries.get(entry.fingerprint);
+		if (previous != null) {
+			remove(previous);
+		}
+		entries.put(entry.fingerprint, entry);
+		size += entry.size;
+	}
+
+	/**
+	 * Remove an entry, deleting its file if not in use. Must be invoked holding the cache lock.
+	 * @param entry The entry to remove
+	 */
+	private void remove(Entry entry) {
+		if (entries.remove(entry.fingerprint, entry)) {
+			size -= entry.size;
+			entry.removed = true;
+			if (entry.readers == 0) {
+				delete(entry.file);
+			}
+		}
+	}
+
+	/**
+	 * Remove the expired entries and then the least recently used ones, until the cache size fits the maximum size.
+	 * Must be invoked holding the cache lock.
+	 */
+	private void evict() {
+		final List<Entry> evicted = new ArrayList<>();
+		long remaining = size;
+		for (Entry entry : entries.values()) {
+			if (remaining > maxSize || isExpired(entry)) {
+				evicted.add(entry);
+				remaining -= entry.size;
+			}
+		}
+		for (Entry entry : evicted) {
+			remove(entry);
+		}
+	}
+
+	private boolean isExpired(Entry entry) {
+		return timeToLive > 0 && (System.currentTimeMillis() - entry.created) > timeToLive;
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to delete the export cache file [" + file + "]", e);
+		}
+	}
+
+	/**
+	 * A cache entry.
+	 */
+	private static final class Entry {
+
+		final String fingerprint;
+		final Path file;
+		final long rows;
+		final long size;
+		final long created;
+
+		int readers = 0;
+		boolean removed = false;
+
+		Entry(String fingerprint, Path file, long rows, long size, long created) {
+			super();
+			this.fingerprint = fingerprint;
+			this.file = file;
+			this.rows = rows;
+			this.size = size;
+			this.created = created;
+		}
+
+	}
+
+	/**
+	 * A cached file {@link InputStream} which releases the cache entry when closed.
+	 */
+	private final class EntryInputStream extends FilterInputStream {
+
+		private final Entry entry;
+		private final AtomicBoolean closed = new AtomicBoolean(false);
+
+		EntryInputStream(InputStream in, Entry entry) {
+			super(in);
+			this.entry = entry;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed.compareAndSet(false, true)) {
+				try {
+					super.close();
+				} finally {
+					release(entry);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Default {@link Builder} implementation.
+	 */
+	public static class DefaultBuilder implements Builder {
+
+		private final DefaultExportCache cache;
+
+		/**
+		 * Constructor.
+		 * @param directory The spool directory (not null)
+		 */
+		public DefaultBuilder(Path directory) {
+			super();
+			this.cache = new DefaultExportCache(directory);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache.Builder#maxSize(long)
+		 */
+		@Override
+		public Builder maxSize(long bytes) {
+			this.cache.setMaxSize(bytes);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache.Builder#timeToLive(java.time.Duration)
+		 */
+		@Override
+		public Builder timeToLive(Duration timeToLive) {
+			this.cache.setTimeToLive(timeToLive);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCache.Builder#build()
+		 */
+		@Override
+		public ExportCache build() {
+			this.cache.init();
+			return cache;
+		}
+
+	}
+
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.internal;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.config.DefaultXLSConfiguration;
+import com.holonplatform.core.i18n.Localizable;
+import com.holonplatform.core.property.Property;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+/**
+ * Default {@link ExportCacheKey} implementation, using a SHA-256 digest of a canonical description of the key
+ * components as fingerprint.
+ *
+ * @since 3.0.2
+ */
+public class DefaultExportCacheKey implements ExportCacheKey {
+
+	private final String fingerprint;
+
+	/**
+	 * Constructor.
+	 * @param fingerprint The key fingerprint (not null)
+	 */
+	public DefaultExportCacheKey(String fingerprint) {
+		super();
+		Obj.argumentNotNull(fingerprint, "The key fingerprint must be not null");
+		this.fingerprint = fingerprint;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey#getFingerprint()
+	 */
+	@Override
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	@Override
+	public int hashCode() {
+		return fingerprint.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ExportCacheKey)) {
+			return false;
+		}
+		return fingerprint.equals(((ExportCacheKey) obj).getFingerprint());
+	}
+
+	@Override
+	public String toString() {
+		return "ExportCacheKey [" + fingerprint + "]";
+	}
+
+	/**
+	 * Default {@link Builder} implementation.
+	 */
+	public static class DefaultBuilder implements Builder {
+
+		private final List<String> names = new ArrayList<>(8);
+		private final List<Object> values = new ArrayList<>(8);
+
+		/**
+		 * Constructor.
+		 */
+		public DefaultBuilder() {
+			super();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#properties(java.util.List)
+		 */
+		@Override
+		public Builder properties(List<? extends Property<?>> properties) {
+			return with("properties", (properties != null) ? new ArrayList<>(properties) : null);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#configuration(java.lang.Object)
+		 */
+		@Override
+		public Builder configuration(Object configuration) {
+			return with("configuration", configuration);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#filter(java.lang.String)
+		 */
+		@Override
+		public Builder filter(String filter) {
+			return with("filter", filter);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#sorts(java.util.List)
+		 */
+		@Override
+		public Builder sorts(List<QuerySortOrder> sorts) {
+			final StringBuilder sb = new StringBuilder();
+			if (sorts != null) {
+				for (QuerySortOrder sort : sorts) {
+					sb.append(sort.getSorted()).append(' ').append(sort.getDirection()).append(';');
+				}
+			}
+			return with("sorts", sb.toString());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#locale(java.util.Locale)
+		 */
+		@Override
+		public Builder locale(Locale locale) {
+			return with("locale", locale);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#version(java.lang.String)
+		 */
+		@Override
+		public Builder version(String version) {
+			return with("version", version);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#with(java.lang.String,
+		 * java.lang.Object)
+		 */
+		@Override
+		public Builder with(String name, Object value) {
+			Obj.argumentNotNull(name, "The key component name must be not null");
+			final int index = names.indexOf(name);
+			if (index < 0) {
+				names.add(name);
+				values.add(value);
+			} else {
+				values.set(index, value);
+			}
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey.Builder#build()
+		 */
+		@Override
+		public ExportCacheKey build() {
+			final MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 digest not available", e);
+			}
+			// components are described in name order, so the order in which they are set is not relevant
+			final List<String> sorted = new ArrayList<>(names);
+			sorted.sort(null);
+			final StringBuilder description = new StringBuilder();
+			for (String name : sorted) {
+				description.append(quote(name)).append('=');
+				describe(description, name, values.get(names.indexOf(name)));
+				description.append(';');
+			}
+			final StringBuilder sb = new StringBuilder(64);
+			for (byte b : digest.digest(description.toString().getBytes(StandardCharsets.UTF_8))) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(b & 0xF, 16));
+			}
+			return new DefaultExportCacheKey(sb.toString());
+		}
+
+		/**
+		 * Append the canonical description of a key component value to given builder.
+		 * @param sb The description builder
+		 * @param name The key component name
+		 * @param value The value to describe
+		 * @throws IllegalArgumentException If the value cannot be described
+		 */
+		private static void describe(StringBuilder sb, String name, Object value) {
+			if (value == null) {
+				sb.append("null");
+			} else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+					|| value instanceof Character || value instanceof Enum || value instanceof TemporalAccessor
+					|| value instanceof Locale || value instanceof Charset || value instanceof File) {
+				sb.append(value.getClass().getName()).append(':').append(quote(value.toString()));
+			} else if (value instanceof Optional) {
+				describe(sb, name, ((Optional<?>) value).orElse(null));
+			} else if (value instanceof Property) {
+				final Property<?> property = (Property<?>) value;
+				sb.append("property(").append(quote(property.getName())).append(',')
+						.append(property.getType().getName()).append(',');
+				describeLocalizable(sb, name, property);
+				sb.append(')');
+			} else if (value instanceof Localizable) {
+				sb.append("localizable(");
+				describeLocalizable(sb, name, (Localizable) value);
+				sb.append(')');
+			} else if (value instanceof List) {
+				sb.append('[');
+				for (Object element : (List<?>) value) {
+					describe(sb, name, element);
+					sb.append(',');
+				}
+				sb.append(']');
+			} else if (value instanceof Set) {
+				// sets are described in element description order
+				final List<String> elements = new ArrayList<>(((Set<?>) value).size());
+				for (Object element : (Set<?>) value) {
+					final StringBuilder esb = new StringBuilder();
+					describe(esb, name, element);
+					elements.add(esb.toString());
+				}
+				elements.sort(null);
+				sb.append('{').append(String.join(",", elements)).append('}');
+			} else if (value instanceof XLSConfiguration) {
+				describeConfiguration(sb, name, (XLSConfiguration) value);
+			} else if (value instanceof XLSPropertyConfiguration) {
+				final XLSPropertyConfiguration configuration = (XLSPropertyConfiguration) value;
+				sb.append("XLSPropertyConfiguration(");
+				field(sb, name, "header", configuration.getHeader());
+				field(sb, name, "headerConfiguration", configuration.getHeaderConfiguration());
+				field(sb, name, "cellConfiguration", configuration.getCellConfiguration());
+				field(sb, name, "booleanExportMode", configuration.getBooleanExportMode());
+				field(sb, name, "booleanTextForTrue", configuration.getBooleanTextForTrue());
+				field(sb, name, "booleanTextForFalse", configuration.getBooleanTextForFalse());
+				field(sb, name, "numberGroupSeparator", configuration.getNumberGroupSeparator());
+				field(sb, name, "numberDecimals", configuration.getNumberDecimals());
+				field(sb, name, "decodableMode", configuration.getDecodableMode());
+				field(sb, name, "autoWidth", configuration.getAutoWidth());
+				sb.append(')');
+			} else if (value instanceof XLSCellConfiguration) {
+				final XLSCellConfiguration configuration = (XLSCellConfiguration) value;
+				sb.append("XLSCellConfiguration(");
+				field(sb, name, "bold", configuration.isBold());
+				field(sb, name, "italic", configuration.isItalic());
+				field(sb, name, "underline", configuration.isUnderline());
+				field(sb, name, "strikeOut", configuration.isStrikeOut());
+				field(sb, name, "wrap", configuration.isWrap());
+				field(sb, name, "shrinkToFit", configuration.isShrinkToFit());
+				field(sb, name, "fontSize", configuration.getFontSize());
+				field(sb, name, "fontColor", configuration.getFontColor());
+				field(sb, name, "backgroundColor", configuration.getBackgroundColor());
+				field(sb, name, "alignment", configuration.getAlignment());
+				field(sb, name, "verticalAlignment", configuration.getVerticalAlignment());
+				field(sb, name, "rotation", configuration.getRotation());
+				field(sb, name, "borderTop", configuration.getBorderTop());
+				field(sb, name, "borderRight", configuration.getBorderRight());
+				field(sb, name, "borderBottom", configuration.getBorderBottom());
+				field(sb, name, "borderLeft", configuration.getBorderLeft());
+				field(sb, name, "borderTopColor", configuration.getBorderTopColor());
+				field(sb, name, "borderRightColor", configuration.getBorderRightColor());
+				field(sb, name, "borderBottomColor", configuration.getBorderBottomColor());
+				field(sb, name, "borderLeftColor", configuration.getBorderLeftColor());
+				sb.append(')');
+			} else if (value instanceof XLSStreamingOptions) {
+				final XLSStreamingOptions options = (XLSStreamingOptions) value;
+				sb.append("XLSStreamingOptions(");
+				field(sb, name, "rowAccessWindowSize", options.getRowAccessWindowSize());
+				field(sb, name, "compressTempFiles", options.isCompressTempFiles());
+				field(sb, name, "useSharedStringsTable", options.isUseSharedStringsTable());
+				field(sb, name, "compressionLevel", options.getCompressionLevel());
+				sb.append(')');
+			} else if (value instanceof XLSEnginePolicy) {
+				final XLSEnginePolicy policy = (XLSEnginePolicy) value;
+				sb.append("XLSEnginePolicy(");
+				field(sb, name, "action", policy.getAction());
+				field(sb, name, "heapBudget", policy.getHeapBudget());
+				field(sb, name, "bytesPerCell", policy.getBytesPerCell());
+				sb.append(')');
+			} else if (value instanceof CSVConfiguration) {
+				final CSVConfiguration configuration = (CSVConfiguration) value;
+				sb.append("CSVConfiguration(");
+				field(sb, name, "properties", configuration.getProperties());
+				field(sb, name, "delimiter", configuration.getDelimiter());
+				field(sb, name, "quoteChar", configuration.getQuoteChar());
+				field(sb, name, "quoteMode", configuration.getQuoteMode());
+				field(sb, name, "lineSeparator", configuration.getLineSeparator());
+				field(sb, name, "charset", configuration.getCharset());
+				field(sb, name, "includeHeader", configuration.isIncludeHeader());
+				field(sb, name, "decimalSeparator", configuration.getDecimalSeparator());
+				field(sb, name, "datePattern", configuration.getDatePattern());
+				field(sb, name, "timePattern", configuration.getTimePattern());
+				field(sb, name, "dateTimePattern", configuration.getDateTimePattern());
+				field(sb, name, "booleanExportMode", configuration.getBooleanExportMode());
+				field(sb, name, "escapeFormulas", configuration.isEscapeFormulas());
+				sb.append(')');
+			} else {
+				throw new IllegalArgumentException("The export cache key component [" + name
+						+ "] cannot be fingerprinted, use a canonical description of it, for example a String: "
+						+ value.getClass().getName());
+			}
+		}
+
+		/**
+		 * Append the canonical description of a {@link XLSConfiguration}, including the configuration of each
+		 * exported, total and group by property.
+		 * @param sb The description builder
+		 * @param name The key component name
+		 * @param configuration The configuration to describe
+		 */
+		private static void describeConfiguration(StringBuilder sb, String name, XLSConfiguration configuration) {
+			sb.append("XLSConfiguration(");
+			field(sb, name, "properties", configuration.getProperties());
+			field(sb, name, "totalFooterProperties", configuration.getTotalFooterProperties());
+			field(sb, name, "totalFormulas", configuration.isTotalFormulas());
+			field(sb, name, "groupByProperties", configuration.getGroupByProperties());
+			field(sb, name, "fileVersion", configuration.getFileVersion());
+			field(sb, name, "maxRowsPerSheet", configuration.getMaxRowsPerSheet());
+			field(sb, name, "sheetName", configuration.getSheetName());
+			field(sb, name, "title", configuration.getTitle());
+			field(sb, name, "titleFontSize", configuration.getTitleFontSize());
+			field(sb, name, "titleFontColor", configuration.getTitleFontColor());
+			field(sb, name, "defaultFontSize", configuration.getDefaultFontSize());
+			field(sb, name, "wrapByDefault", configuration.isWrapByDefault());
+			field(sb, name, "shrinkToFitByDefault", configuration.isShrinkToFitByDefault());
+			field(sb, name, "defaultBooleanExportMode", configuration.getDefaultBooleanExportMode());
+			field(sb, name, "headerConfiguration", configuration.getHeaderConfiguration());
+			field(sb, name, "totalConfiguration", configuration.getTotalConfiguration());
+			field(sb, name, "streamingOptions", configuration.getStreamingOptions());
+			field(sb, name, "enginePolicy", configuration.getEnginePolicy());
+			field(sb, name, "autoWidth", configuration.isAutoWidth());
+			field(sb, name, "autoWidthSampleRows", configuration.getAutoWidthSampleRows());
+			// per property configuration, in description order
+			final Set<Property<?>> properties = new LinkedHashSet<>(configuration.getProperties());
+			properties.addAll(configuration.getTotalFooterProperties());
+			properties.addAll(configuration.getGroupByProperties());
+			if (configuration instanceof DefaultXLSConfiguration) {
+				properties.addAll(((DefaultXLSConfiguration) configuration).getConfiguredProperties());
+			}
+			final List<String> propertyConfigurations = new ArrayList<>(properties.size());
+			for (Property<?> property : properties) {
+				final StringBuilder psb = new StringBuilder();
+				describe(psb, name, property);
+				psb.append(':');
+				describe(psb, name, configuration.getPropertyConfiguration(property));
+				psb.append(':');
+				describe(psb, name, configuration.getTotalFunction(property));
+				propertyConfigurations.add(psb.toString());
+			}
+			propertyConfigurations.sort(null);
+			sb.append("propertyConfigurations=[").append(String.join(",", propertyConfigurations)).append("])");
+		}
+
+		private static void describeLocalizable(StringBuilder sb, String name, Localizable localizable) {
+			describe(sb, name, localizable.getMessage());
+			sb.append(',');
+			describe(sb, name, localizable.getMessageCode());
+			final Object[] arguments = localizable.getMessageArguments();
+			if (arguments != null) {
+				describe(sb, name, Arrays.asList(arguments));
+			}
+		}
+
+		private static void field(StringBuilder sb, String name, String field, Object value) {
+			sb.append(field).append('=');
+			describe(sb, name, value);
+			sb.append(',');
+		}
+
+		private static String quote(String value) {
+			return value.length() + "'" + value + "'";
+		}
+
+	}
+
+}
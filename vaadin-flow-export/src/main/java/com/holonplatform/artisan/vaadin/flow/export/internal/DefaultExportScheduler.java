@@ -0,0 +1,898 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.internal;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.AbortableProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.ExportJob;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.ExportScheduler;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AsyncExportTask;
+
+/**
+ * Default {@link ExportScheduler} implementation.
+ * <p>
+ * The jobs without a user (or session) id are not subject to the per user (or per session) concurrent exports limit
+ * and they are not considered in the users (or sessions) fair scheduling.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class DefaultExportScheduler implements ExportScheduler {
+
+	/**
+	 * Logger
+	 */
+	protected static final Logger LOGGER = LoggerFactory.getLogger(ExportScheduler.class);
+
+	private final AtomicLong jobSequence = new AtomicLong(0);
+
+	private final Object lock = new Object();
+
+	private final List<DefaultExportJob> queued = new ArrayList<>();
+	private final List<DefaultExportJob> running = new ArrayList<>();
+
+	private final Map<String, Client> users = new HashMap<>();
+	private final Map<String, Client> sessions = new HashMap<>();
+
+	private long admissionSequence = 0;
+	private long reservedMemory = 0;
+	private long reservedTempDisk = 0;
+	private boolean shutdown = false;
+
+	private int maxConcurrentExports = DEFAULT_MAX_CONCURRENT_EXPORTS;
+	private int maxConcurrentExportsPerUser = 0;
+	private int maxConcurrentExportsPerSession = 0;
+	private int maxQueuedExports = DEFAULT_MAX_QUEUED_EXPORTS;
+	private long memoryBudget = 0;
+	private long tempDiskBudget = 0;
+	private long defaultMemoryEstimate = DEFAULT_MEMORY_ESTIMATE;
+	private long defaultTempDiskEstimate = DEFAULT_TEMP_DISK_ESTIMATE;
+	private Executor executor;
+
+	/**
+	 * Constructor.
+	 */
+	public DefaultExportScheduler() {
+		super();
+	}
+
+	/**
+	 * Set the maximum number of concurrent exports.
+	 * @param maxConcurrentExports The maximum number of concurrent exports (greater than 0)
+	 */
+	protected void setMaxConcurrentExports(int maxConcurrentExports) {
+		if (maxConcurrentExports < 1) {
+			throw new IllegalArgumentException("The maximum number of concurrent exports must be greater than 0");
+		}
+		this.maxConcurrentExports = maxConcurrentExports;
+	}
+
+	/**
+	 * Set the maximum number of concurrent exports for each user.
+	 * @param maxConcurrentExports The maximum number of concurrent exports for each user, <code>0</code> for no limit
+	 */
+	protected void setMaxConcurrentExportsPerUser(int maxConcurrentExports) {
+		if (maxConcurrentExports < 0) {
+			throw new IllegalArgumentException(
+					"The maximum number of concurrent exports per user must be greater than or equal to 0");
+		}
+		this.maxConcurrentExportsPerUser = maxConcurrentExports;
+	}
+
+	/**
+	 * Set the maximum number of concurrent exports for each session.
+	 * @param maxConcurrentExports The maximum number of concurrent exports for each session, <code>0</code> for no
+	 *        limit
+	 */
+	protected void setMaxConcurrentExportsPerSession(int maxConcurrentExports) {
+		if (maxConcurrentExports < 0) {
+			throw new IllegalArgumentException(
+					"The maximum number of concurrent exports per session must be greater than or equal to 0");
+		}
+		this.maxConcurrentExportsPerSession = maxConcurrentExports;
+	}
+
+	/**
+	 * Set the maximum number of queued jobs.
+	 * @param maxQueuedExports The maximum number of queued jobs (greater than or equal to 0)
+	 */
+	protected void setMaxQueuedExports(int maxQueuedExports) {
+		if (maxQueuedExports < 0) {
+			throw new IllegalArgumentException("The maximum number of queued exports must be greater than or equal to 0");
+		}
+		this.maxQueuedExports = maxQueuedExports;
+	}
+
+	/**
+	 * Set the overall heap memory budget of the running exports.
+	 * @param memoryBudget The memory budget in bytes, <code>0</code> for no budget
+	 */
+	protected void setMemoryBudget(long memoryBudget) {
+		if (memoryBudget < 0) {
+			throw new IllegalArgumentException("The memory budget must be greater than or equal to 0");
+		}
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Set the overall temporary disk space budget of the running exports.
+	 * @param tempDiskBudget The temporary disk space budget in bytes, <code>0</code> for no budget
+	 */
+	protected void setTempDiskBudget(long tempDiskBudget) {
+		if (tempDiskBudget < 0) {
+			throw new IllegalArgumentException("The temporary disk budget must be greater than or equal to 0");
+		}
+		this.tempDiskBudget = tempDiskBudget;
+	}
+
+	/**
+	 * Set the heap memory estimate of the jobs which do not declare one.
+	 * @param defaultMemoryEstimate The default memory estimate in bytes
+	 */
+	protected void setDefaultMemoryEstimate(long defaultMemoryEstimate) {
+		this.defaultMemoryEstimate = checkEstimate(defaultMemoryEstimate);
+	}
+
+	/**
+	 * Set the temporary disk space estimate of the jobs which do not declare one.
+	 * @param defaultTempDiskEstimate The default temporary disk space estimate in bytes
+	 */
+	protected void setDefaultTempDiskEstimate(long defaultTempDiskEstimate) {
+		this.defaultTempDiskEstimate = checkEstimate(defaultTempDiskEstimate);
+	}
+
+	/**
+	 * Set the executor to use to run the exports.
+	 * @param executor The executor to set, <code>null</code> to use the default one
+	 */
+	protected void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Get the executor to use to run the exports.
+	 * @return The executor
+	 */
+	protected Executor getExecutor() {
+		return (executor != null) ? executor : AsyncExportTask.getDefaultExecutor();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#job(com.holonplatform.artisan.vaadin.flow.
+	 * export.xls.XLSExporter, java.io.OutputStream)
+	 */
+	@Override
+	public JobBuilder job(XLSExporter exporter, OutputStream outputStream) {
+		Obj.argumentNotNull(exporter, "The exporter must be not null");
+		return new DefaultJobBuilder(this, exporter::exportAsync, outputStream);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#job(com.holonplatform.artisan.vaadin.flow.
+	 * export.csv.CSVExporter, java.io.OutputStream)
+	 */
+	@Override
+	public JobBuilder job(CSVExporter exporter, OutputStream outputStream) {
+		Obj.argumentNotNull(exporter, "The exporter must be not null");
+		return new DefaultJobBuilder(this, exporter::exportAsync, outputStream);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#getJob(java.lang.String)
+	 */
+	@Override
+	public Optional<ExportJob> getJob(String id) {
+		if (id != null) {
+			for (ExportJob job : getJobs()) {
+				if (id.equals(job.getId())) {
+					return Optional.of(job);
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#getJobs()
+	 */
+	@Override
+	public List<ExportJob> getJobs() {
+		synchronized (lock) {
+			final List<ExportJob> jobs = new ArrayList<>(running.size() + queued.size());
+			jobs.addAll(running);
+			jobs.addAll(queued);
+			return Collections.unmodifiableList(jobs);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#getJobs(java.lang.String)
+	 */
+	@Override
+	public List<ExportJob> getJobs(String user) {
+		Obj.argumentNotNull(user, "The user id must be not null");
+		final List<ExportJob> jobs = new ArrayList<>();
+		for (ExportJob job : getJobs()) {
+			if (user.equals(job.getUser().orElse(null))) {
+				jobs.add(job);
+			}
+		}
+		return Collections.unmodifiableList(jobs);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#getRunningCount()
+	 */
+	@Override
+	public int getRunningCount() {
+		synchronized (lock) {
+			return running.size();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#getQueuedCount()
+	 */
+	@Override
+	public int getQueuedCount() {
+		synchronized (lock) {
+			return queued.size();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#cancel(java.lang.String)
+	 */
+	@Override
+	public boolean cancel(String id) {
+		return getJob(id).map(ExportJob::cancel).orElse(false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		final List<DefaultExportJob> jobs;
+		synchronized (lock) {
+			shutdown = true;
+			jobs = new ArrayList<>(queued);
+		}
+		for (DefaultExportJob job : jobs) {
+			job.cancel();
+		}
+	}
+
+	/**
+	 * Submit a job: the job is started immediately if it can be admitted, queued otherwise.
+	 * @param job The job to submit
+	 * @throws ExportException If the queue is full or the scheduler was shut down
+	 */
+	protected void submit(DefaultExportJob job) {
+		final List<DefaultExportJob> admitted;
+		final boolean rejected;
+		synchronized (lock) {
+			if (shutdown) {
+				throw new ExportException("The export scheduler was shut down");
+			}
+			queued.add(job);
+			update(getUser(job), 1, 0);
+			update(getSession(job), 1, 0);
+			admitted = admit();
+			rejected = job.status == ExportJob.Status.QUEUED && queued.size() > maxQueuedExports;
+			if (rejected) {
+				dequeue(job);
+			}
+		}
+		start(admitted);
+		if (rejected) {
+			throw new ExportException("The export queue is full");
+		}
+	}
+
+	/**
+	 * Admit the queued jobs which can be started, moving them to the running jobs and reserving their resources.
+	 * <p>
+	 * Must be invoked holding the scheduler lock.
+	 * </p>
+	 * @return The admitted jobs, which must be started once the lock is released
+	 */
+	private List<DefaultExportJob> admit() {
+		List<DefaultExportJob> admitted = Collections.emptyList();
+		while (running.size() < maxConcurrentExports && !queued.isEmpty()) {
+			DefaultExportJob next = null;
+			for (DefaultExportJob job : queued) {
+				if (isAdmissible(job) && (next == null || compare(job, next) < 0)) {
+					next = job;
+				}
+			}
+			if (next == null) {
+				break;
+			}
+			// the next job is not overtaken because of the budgets, but it runs alone if it exceeds them
+			if (!running.isEmpty() && !fitsBudgets(next)) {
+				break;
+			}
+			dequeue(next);
+			running.add(next);
+			admissionSequence++;
+			update(getUser(next), 0, 1);
+			update(getSession(next), 0, 1);
+			reservedMemory += next.getMemoryEstimate();
+			reservedTempDisk += next.getTempDiskEstimate();
+			next.status = ExportJob.Status.RUNNING;
+			if (admitted.isEmpty()) {
+				admitted = new ArrayList<>(2);
+			}
+			admitted.add(next);
+			LOGGER.debug("Export job [" + next.getId() + "] admitted: running [" + running.size() + "], queued ["
+					+ queued.size() + "]");
+		}
+		return admitted;
+	}
+
+	/**
+	 * Checks whether the per user and per session concurrent exports limits allow to start given job.
+	 * <p>
+	 * The limits do not apply to the jobs without a user or session id.
+	 * </p>
+	 * @param job The job
+	 * @return <code>true</code> if the job can be started
+	 */
+	private boolean isAdmissible(DefaultExportJob job) {
+		return isAdmissible(getUser(job), maxConcurrentExportsPerUser)
+				&& isAdmissible(getSession(job), maxConcurrentExportsPerSession);
+	}
+
+	private static boolean isAdmissible(Client client, int maxConcurrentExports) {
+		return client == null || maxConcurrentExports == 0 || client.running < maxConcurrentExports;
+	}
+
+	/**
+	 * Checks whether the resources reservation of given job fits the budgets.
+	 * @param job The job
+	 * @return <code>true</code> if the job fits the budgets
+	 */
+	private boolean fitsBudgets(DefaultExportJob job) {
+		return (memoryBudget == 0 || reservedMemory + job.getMemoryEstimate() <= memoryBudget)
+				&& (tempDiskBudget == 0 || reservedTempDisk + job.getTempDiskEstimate() <= tempDiskBudget);
+	}
+
+	/**
+	 * Compares two queued jobs by admission order: priority first, then the users and sessions with fewer running
+	 * exports and served less recently, then submission order. The users and sessions order is not considered when a
+	 * job has no user or session id.
+	 * @param job1 The first job
+	 * @param job2 The second job
+	 * @return A negative value if the first job comes first
+	 */
+	private int compare(DefaultExportJob job1, DefaultExportJob job2) {
+		int result = Integer.compare(job2.getPriority(), job1.getPriority());
+		if (result == 0) {
+			result = compare(getUser(job1), getUser(job2));
+		}
+		if (result == 0) {
+			result = compare(getSession(job1), getSession(job2));
+		}
+		if (result == 0) {
+			result = Long.compare(job1.sequence, job2.sequence);
+		}
+		return result;
+	}
+
+	private static int compare(Client client1, Client client2) {
+		return (client1 != null && client2 != null) ? client1.compareTo(client2) : 0;
+	}
+
+	/**
+	 * Remove a job from the queue. Must be invoked holding the scheduler lock.
+	 * @param job The job to remove
+	 */
+	private void dequeue(DefaultExportJob job) {
+		if (queued.remove(job)) {
+			update(getUser(job), -1, 0);
+			update(getSession(job), -1, 0);
+			release(job);
+		}
+	}
+
+	/**
+	 * Remove the user and session accounting of given job if no longer used. Must be invoked holding the scheduler
+	 * lock.
+	 * @param job The job
+	 */
+	private void release(DefaultExportJob job) {
+		if (job.user != null) {
+			users.computeIfPresent(job.user, (k, c) -> c.isIdle() ? null : c);
+		}
+		if (job.session != null) {
+			sessions.computeIfPresent(job.session, (k, c) -> c.isIdle() ? null : c);
+		}
+	}
+
+	/**
+	 * Get the accounting of the user of given job. Must be invoked holding the scheduler lock.
+	 * @param job The job
+	 * @return The user accounting, <code>null</code> if the job has no user id
+	 */
+	private Client getUser(DefaultExportJob job) {
+		return (job.user != null) ? users.computeIfAbsent(job.user, k -> new Client()) : null;
+	}
+
+	/**
+	 * Get the accounting of the session of given job. Must be invoked holding the scheduler lock.
+	 * @param job The job
+	 * @return The session accounting, <code>null</code> if the job has no session id
+	 */
+	private Client getSession(DefaultExportJob job) {
+		return (job.session != null) ? sessions.computeIfAbsent(job.session, k -> new Client()) : null;
+	}
+
+	/**
+	 * Update the running and queued jobs count of given user or session accounting, if not <code>null</code>. When
+	 * the running jobs count is increased, the last admission of the user or session is updated too.
+	 * @param client The user or session accounting
+	 * @param queued The queued jobs count variation
+	 * @param running The running jobs count variation
+	 */
+	private void update(Client client, int queued, int running) {
+		if (client != null) {
+			client.queued += queued;
+			client.running += running;
+			if (running > 0) {
+				client.lastAdmission = admissionSequence;
+			}
+		}
+	}
+
+	/**
+	 * Start the admitted jobs. Must be invoked without holding the scheduler lock.
+	 * @param jobs The jobs to start
+	 */
+	private void start(List<DefaultExportJob> jobs) {
+		for (DefaultExportJob job : jobs) {
+			try {
+				job.task.export(job.outputStream, job.progressCallback, getExecutor())
+						.whenComplete((result, error) -> onCompleted(job, result, error));
+			} catch (RuntimeException e) {
+				onCompleted(job, null, e);
+			}
+		}
+	}
+
+	/**
+	 * Invoked when the export of a running job is completed.
+	 * @param job The job
+	 * @param result The export result, if completed successfully
+	 * @param error The export error, if failed
+	 */
+	private void onCompleted(DefaultExportJob job, ExportResult result, Throwable error) {
+		final List<DefaultExportJob> admitted;
+		synchronized (lock) {
+			if (running.remove(job)) {
+				update(getUser(job), 0, -1);
+				update(getSession(job), 0, -1);
+				reservedMemory -= job.getMemoryEstimate();
+				reservedTempDisk -= job.getTempDiskEstimate();
+				release(job);
+			}
+			job.status = job.future.isCancelled() ? ExportJob.Status.CANCELLED
+					: (error != null) ? ExportJob.Status.FAILED : ExportJob.Status.COMPLETED;
+			admitted = admit();
+		}
+		if (error != null) {
+			job.future.completeExceptionally(
+					(error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error);
+		} else {
+			job.future.complete(result);
+		}
+		LOGGER.debug("Export job [" + job.getId() + "] completed with status [" + job.status + "]");
+		start(admitted);
+	}
+
+	/**
+	 * Invoked when a job is cancelled.
+	 * @param job The job
+	 */
+	private void onCancelled(DefaultExportJob job) {
+		final List<DefaultExportJob> admitted;
+		synchronized (lock) {
+			if (job.status == ExportJob.Status.QUEUED) {
+				dequeue(job);
+			}
+			// a running job holds its resources until the export is actually aborted
+			job.status = ExportJob.Status.CANCELLED;
+			admitted = admit();
+		}
+		start(admitted);
+	}
+
+	private static long checkEstimate(long estimate) {
+		if (estimate < 0) {
+			throw new IllegalArgumentException("The resources estimate must be greater than or equal to 0");
+		}
+		return estimate;
+	}
+
+	/**
+	 * The running and queued jobs accounting of a user or session.
+	 */
+	private static final class Client implements Comparable<Client> {
+
+		int running = 0;
+		int queued = 0;
+		long lastAdmission = 0;
+
+		boolean isIdle() {
+			return running == 0 && queued == 0;
+		}
+
+		@Override
+		public int compareTo(Client other) {
+			final int result = Integer.compare(running, other.running);
+			return (result != 0) ? result : Long.compare(lastAdmission, other.lastAdmission);
+		}
+
+	}
+
+	/**
+	 * Default {@link ExportJob} implementation.
+	 */
+	private static final class DefaultExportJob implements ExportJob {
+
+		private final String id;
+		private final long sequence;
+		private final ExportTask task;
+		private final OutputStream outputStream;
+		private final String user;
+		private final String session;
+		private final int priority;
+		private final long memoryEstimate;
+		private final long tempDiskEstimate;
+		private final AbortableProgressCallback progressCallback;
+
+		private final CompletableFuture<ExportResult> future = new CompletableFuture<>();
+
+		volatile Status status = Status.QUEUED;
+
+		DefaultExportJob(long sequence, ExportTask task, OutputStream outputStream, String user, String session,
+				int priority, long memoryEstimate, long tempDiskEstimate,
+				OperationProgressCallback progressCallback) {
+			super();
+			this.id = "export-" + sequence;
+			this.sequence = sequence;
+			this.task = task;
+			this.outputStream = outputStream;
+			this.user = user;
+			this.session = session;
+			this.priority = priority;
+			this.memoryEstimate = memoryEstimate;
+			this.tempDiskEstimate = tempDiskEstimate;
+			// the cancellation is checked at each data row, regardless of the progress notifications throttling
+			final OperationProgressCallback callback = (progressCallback != null) ? progressCallback
+					: (totalSteps, completedSteps) -> OperationProgress.PROCEED;
+			this.progressCallback = AbortableProgressCallback.create(callback, future::isCancelled);
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public Optional<String> getUser() {
+			return Optional.ofNullable(user);
+		}
+
+		@Override
+		public Optional<String> getSession() {
+			return Optional.ofNullable(session);
+		}
+
+		@Override
+		public int getPriority() {
+			return priority;
+		}
+
+		@Override
+		public long getMemoryEstimate() {
+			return memoryEstimate;
+		}
+
+		@Override
+		public long getTempDiskEstimate() {
+			return tempDiskEstimate;
+		}
+
+		@Override
+		public Status getStatus() {
+			return status;
+		}
+
+		@Override
+		public CompletableFuture<ExportResult> getResult() {
+			return future;
+		}
+
+		@Override
+		public boolean cancel() {
+			return future.cancel(true);
+		}
+
+		@Override
+		public ExportResult await() throws ExportException {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ExportException("Interrupted while waiting for the export completion", e);
+			} catch (ExecutionException e) {
+				throw new ExportException("Export failed", e.getCause());
+			}
+		}
+
+		@Override
+		public Optional<ExportResult> await(Duration timeout) throws ExportException {
+			Obj.argumentNotNull(timeout, "The timeout must be not null");
+			try {
+				return Optional.of(future.get(timeout.toNanos(), TimeUnit.NANOSECONDS));
+			} catch (TimeoutException e) {
+				return Optional.empty();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ExportException("Interrupted while waiting for the export completion", e);
+			} catch (ExecutionException e) {
+				throw new ExportException("Export failed", e.getCause());
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "ExportJob [id=" + id + ", user=" + user + ", session=" + session + ", priority=" + priority
+					+ ", status=" + status + "]";
+		}
+
+	}
+
+	/**
+	 * Default {@link JobBuilder} implementation.
+	 */
+	private static final class DefaultJobBuilder implements JobBuilder {
+
+		private final DefaultExportScheduler scheduler;
+		private final ExportTask task;
+		private final OutputStream outputStream;
+
+		private String user;
+		private String session;
+		private int priority = 0;
+		private long memoryEstimate = -1;
+		private long tempDiskEstimate = -1;
+		private OperationProgressCallback progressCallback;
+
+		DefaultJobBuilder(DefaultExportScheduler scheduler, ExportTask task, OutputStream outputStream) {
+			super();
+			Obj.argumentNotNull(outputStream, "The data output stream must be not null");
+			this.scheduler = scheduler;
+			this.task = task;
+			this.outputStream = outputStream;
+		}
+
+		@Override
+		public JobBuilder user(String user) {
+			this.user = user;
+			return this;
+		}
+
+		@Override
+		public JobBuilder session(String session) {
+			this.session = session;
+			return this;
+		}
+
+		@Override
+		public JobBuilder priority(int priority) {
+			this.priority = priority;
+			return this;
+		}
+
+		@Override
+		public JobBuilder memoryEstimate(long bytes) {
+			this.memoryEstimate = checkEstimate(bytes);
+			return this;
+		}
+
+		@Override
+		public JobBuilder tempDiskEstimate(long bytes) {
+			this.tempDiskEstimate = checkEstimate(bytes);
+			return this;
+		}
+
+		@Override
+		public JobBuilder progressCallback(OperationProgressCallback exportProgressCallback) {
+			this.progressCallback = exportProgressCallback;
+			return this;
+		}
+
+		@Override
+		public ExportJob submit() throws ExportException {
+			final DefaultExportJob job = new DefaultExportJob(scheduler.jobSequence.incrementAndGet(), task,
+					outputStream, user, session, priority,
+					(memoryEstimate < 0) ? scheduler.defaultMemoryEstimate : memoryEstimate,
+					(tempDiskEstimate < 0) ? scheduler.defaultTempDiskEstimate : tempDiskEstimate, progressCallback);
+			job.future.whenComplete((result, error) -> {
+				if (job.future.isCancelled()) {
+					scheduler.onCancelled(job);
+				}
+			});
+			scheduler.submit(job);
+			return job;
+		}
+
+	}
+
+	/**
+	 * Default {@link Builder} implementation.
+	 */
+	public static class DefaultBuilder implements Builder {
+
+		private final DefaultExportScheduler scheduler;
+
+		/**
+		 * Constructor.
+		 */
+		public DefaultBuilder() {
+			super();
+			this.scheduler = new DefaultExportScheduler();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#maxConcurrentExports(int)
+		 */
+		@Override
+		public Builder maxConcurrentExports(int maxConcurrentExports) {
+			this.scheduler.setMaxConcurrentExports(maxConcurrentExports);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#maxConcurrentExportsPerUser(int)
+		 */
+		@Override
+		public Builder maxConcurrentExportsPerUser(int maxConcurrentExports) {
+			this.scheduler.setMaxConcurrentExportsPerUser(maxConcurrentExports);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#maxConcurrentExportsPerSession(int)
+		 */
+		@Override
+		public Builder maxConcurrentExportsPerSession(int maxConcurrentExports) {
+			this.scheduler.setMaxConcurrentExportsPerSession(maxConcurrentExports);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#maxQueuedExports(int)
+		 */
+		@Override
+		public Builder maxQueuedExports(int maxQueuedExports) {
+			this.scheduler.setMaxQueuedExports(maxQueuedExports);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#memoryBudget(long)
+		 */
+		@Override
+		public Builder memoryBudget(long bytes) {
+			this.scheduler.setMemoryBudget(bytes);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#tempDiskBudget(long)
+		 */
+		@Override
+		public Builder tempDiskBudget(long bytes) {
+			this.scheduler.setTempDiskBudget(bytes);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#defaultMemoryEstimate(long)
+		 */
+		@Override
+		public Builder defaultMemoryEstimate(long bytes) {
+			this.scheduler.setDefaultMemoryEstimate(bytes);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#defaultTempDiskEstimate(long)
+		 */
+		@Override
+		public Builder defaultTempDiskEstimate(long bytes) {
+			this.scheduler.setDefaultTempDiskEstimate(bytes);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#executor(java.util.concurrent.
+		 * Executor)
+		 */
+		@Override
+		public Builder executor(Executor executor) {
+			this.scheduler.setExecutor(executor);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.ExportScheduler.Builder#build()
+		 */
+		@Override
+		public ExportScheduler build() {
+			return scheduler;
+		}
+
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.ExportMetrics;
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+
+/**
+ * Collects the {@link ExportMetrics} of a single export and notifies the {@link ExportListener}s.
+ * <p>
+ * A collector is not thread safe: a new collector must be used for each export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class ExportMetricsCollector implements ExportMetrics {
+
+	/**
+	 * Logger
+	 */
+	protected static final Logger LOGGER = LoggerFactory.getLogger(ExportListener.class);
+
+	private static final ExportPhase[] PHASES = ExportPhase.values();
+
+	private final List<ExportListener> listeners;
+	private final long startNanos;
+
+	private final long[] phaseNanos = new long[PHASES.length];
+	private final int[] phaseCounts = new int[PHASES.length];
+
+	private long rows = 0;
+	private long cells = 0;
+	private int stylesCreated = 0;
+	private int fontsCreated = 0;
+	private long bytesWritten = 0;
+	private long tempBytesWritten = 0;
+	private long elapsedNanos = -1;
+
+	/**
+	 * Constructor.
+	 * @param listeners The listeners to notify, may be empty
+	 */
+	public ExportMetricsCollector(List<ExportListener> listeners) {
+		super();
+		this.listeners = (listeners != null) ? listeners : Collections.emptyList();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Create a collector which does not notify any listener.
+	 * @return A new collector
+	 */
+	public static ExportMetricsCollector create() {
+		return new ExportMetricsCollector(Collections.emptyList());
+	}
+
+	/**
+	 * Record the completion of an export phase started at given time, notifying the listeners.
+	 * @param phase The export phase
+	 * @param phaseStartNanos The phase start time, as provided by {@link System#nanoTime()}
+	 * @param phaseRows The number of data rows involved in the phase, <code>0</code> if not applicable
+	 */
+	public void phase(ExportPhase phase, long phaseStartNanos, int phaseRows) {
+		phaseCompleted(phase, System.nanoTime() - phaseStartNanos, phaseRows);
+	}
+
+	/**
+	 * Record the completion of an export phase, notifying the listeners.
+	 * @param phase The export phase
+	 * @param durationNanos The phase duration, in nanoseconds
+	 * @param phaseRows The number of data rows involved in the phase, <code>0</code> if not applicable
+	 */
+	public void phaseCompleted(ExportPhase phase, long durationNanos, int phaseRows) {
+		phaseNanos[phase.ordinal()] += durationNanos;
+		phaseCounts[phase.ordinal()]++;
+		for (ExportListener listener : listeners) {
+			try {
+				listener.onPhase(phase, durationNanos, phaseRows);
+			} catch (RuntimeException e) {
+				LOGGER.warn("Export listener [" + listener + "] failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Add to the exported data rows and cells count.
+	 * @param exportedRows The exported data rows count
+	 * @param columns The export columns count
+	 */
+	public void addRows(int exportedRows, int columns) {
+		this.rows += exportedRows;
+		this.cells += (long) exportedRows * columns;
+	}
+
+	/**
+	 * Add to the created cell styles and fonts count.
+	 * @param styles The created cell styles count
+	 * @param fonts The created fonts count
+	 */
+	public void addStylesCreated(int styles, int fonts) {
+		this.stylesCreated += styles;
+		this.fontsCreated += fonts;
+	}
+
+	/**
+	 * Set the number of bytes written to the export output stream.
+	 * @param bytesWritten The written bytes count
+	 */
+	public void setBytesWritten(long bytesWritten) {
+		this.bytesWritten = bytesWritten;
+	}
+
+	/**
+	 * Set the number of bytes spilled to temporary files.
+	 * @param tempBytesWritten The temporary files size
+	 */
+	public void setTempBytesWritten(long tempBytesWritten) {
+		this.tempBytesWritten = tempBytesWritten;
+	}
+
+	/**
+	 * Complete the export metrics collection and notify the listeners of the export outcome.
+	 * @param error The export error, <code>null</code> if the export was successfully completed
+	 */
+	public void complete(Throwable error) {
+		this.elapsedNanos = System.nanoTime() - startNanos;
+		for (ExportListener listener : listeners) {
+			try {
+				if (error == null) {
+					listener.onCompleted(this);
+				} else {
+					listener.onFailed(error, this);
+				}
+			} catch (RuntimeException e) {
+				LOGGER.warn("Export listener [" + listener + "] failed", e);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getRows()
+	 */
+	@Override
+	public long getRows() {
+		return rows;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getCells()
+	 */
+	@Override
+	public long getCells() {
+		return cells;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getStylesCreated()
+	 */
+	@Override
+	public int getStylesCreated() {
+		return stylesCreated;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getFontsCreated()
+	 */
+	@Override
+	public int getFontsCreated() {
+		return fontsCreated;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getBytesWritten()
+	 */
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getTempBytesWritten()
+	 */
+	@Override
+	public long getTempBytesWritten() {
+		return tempBytesWritten;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getElapsedNanos()
+	 */
+	@Override
+	public long getElapsedNanos() {
+		return (elapsedNanos >= 0) ? elapsedNanos : System.nanoTime() - startNanos;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getPhaseNanos(com.holonplatform.artisan.vaadin.
+	 * flow.export.ExportPhase)
+	 */
+	@Override
+	public long getPhaseNanos(ExportPhase phase) {
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportMetrics#getPhaseCount(com.holonplatform.artisan.vaadin.
+	 * flow.export.ExportPhase)
+	 */
+	@Override
+	public int getPhaseCount(ExportPhase phase) {
+		return phaseCounts[phase.ordinal()];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder("ExportMetrics [rows=").append(rows).append(", cells=")
+				.append(cells).append(", stylesCreated=").append(stylesCreated).append(", fontsCreated=")
+				.append(fontsCreated).append(", bytesWritten=").append(bytesWritten).append(", tempBytesWritten=")
+				.append(tempBytesWritten).append(", elapsedNanos=").append(getElapsedNanos());
+		for (ExportPhase phase : PHASES) {
+			sb.append(", ").append(phase).append("=").append(phaseNanos[phase.ordinal()]);
+		}
+		return sb.append("]").toString();
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.internal;
+
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+
+/**
+ * An asynchronous export operation, matching the <code>exportAsync</code> method of the exporters.
+ *
+ * @since 3.0.2
+ */
+@FunctionalInterface
+interface ExportTask {
+
+	/**
+	 * Export the data to the provided {@link OutputStream} using given executor.
+	 * @param outputStream The output stream
+	 * @param exportProgressCallback The progress callback
+	 * @param executor The executor to use
+	 * @return The {@link CompletableFuture} which is completed with the export result
+	 */
+	CompletableFuture<ExportResult> export(OutputStream outputStream, OperationProgressCallback exportProgressCallback,
+			Executor executor);
+
+}
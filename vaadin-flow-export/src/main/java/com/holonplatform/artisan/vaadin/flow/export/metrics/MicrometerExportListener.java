@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.ExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.ExportMetrics;
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+/**
+ * An {@link ExportListener} which records the export phases and metrics using Micrometer meters.
+ * <p>
+ * The following meters are registered in the {@link MeterRegistry}, with the provided common tags:
+ * </p>
+ * <ul>
+ * <li><code>holon.export</code>: timer of the completed exports, tagged with the export <code>outcome</code>
+ * (<code>success</code> or <code>failure</code>)</li>
+ * <li><code>holon.export.phase</code>: timer of the export phases, tagged with the export <code>phase</code></li>
+ * <li><code>holon.export.fetch.rows</code>: distribution summary of the rows count of each data fetch</li>
+ * <li><code>holon.export.rows</code> and <code>holon.export.cells</code>: counters of the exported data rows and
+ * cells</li>
+ * <li><code>holon.export.styles</code> and <code>holon.export.fonts</code>: counters of the created cell styles and
+ * fonts</li>
+ * <li><code>holon.export.bytes</code> and <code>holon.export.temp.bytes</code>: counters of the bytes written to the
+ * output stream and spilled to temporary files</li>
+ * </ul>
+ * <p>
+ * This listener requires the <code>io.micrometer:micrometer-core</code> artifact, which is an optional dependency of
+ * this module.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class MicrometerExportListener implements ExportListener {
+
+	/**
+	 * Default meters name prefix
+	 */
+	public static final String DEFAULT_PREFIX = "holon.export";
+
+	private final Timer success;
+	private final Timer failure;
+	private final Map<ExportPhase, Timer> phases = new EnumMap<>(ExportPhase.class);
+	private final DistributionSummary fetchRows;
+	private final Counter rows;
+	private final Counter cells;
+	private final Counter styles;
+	private final Counter fonts;
+	private final Counter bytes;
+	private final Counter tempBytes;
+
+	/**
+	 * Constructor, using the default meters name prefix and no common tag.
+	 * @param registry The meter registry to use (not null)
+	 */
+	public MicrometerExportListener(MeterRegistry registry) {
+		this(registry, DEFAULT_PREFIX, Tags.empty());
+	}
+
+	/**
+	 * Constructor.
+	 * @param registry The meter registry to use (not null)
+	 * @param prefix The meters name prefix (not null)
+	 * @param tags The tags to add to all the meters (not null)
+	 */
+	public MicrometerExportListener(MeterRegistry registry, String prefix, Iterable<Tag> tags) {
+		super();
+		Obj.argumentNotNull(registry, "The meter registry must be not null");
+		Obj.argumentNotNull(prefix, "The meters name prefix must be not null");
+		Obj.argumentNotNull(tags, "The meters tags must be not null");
+		this.success = Timer.builder(prefix).description("The export duration").tags(tags).tag("outcome", "success")
+				.register(registry);
+		this.failure = Timer.builder(prefix).description("The export duration").tags(tags).tag("outcome", "failure")
+				.register(registry);
+		for (ExportPhase phase : ExportPhase.values()) {
+			phases.put(phase, Timer.builder(prefix + ".phase").description("The export phases duration").tags(tags)
+					.tag("phase", phase.name().toLowerCase(Locale.ROOT)).register(registry));
+		}
+		this.fetchRows = DistributionSummary.builder(prefix + ".fetch.rows")
+				.description("The rows count of each data fetch").baseUnit(BaseUnits.ROWS).tags(tags)
+				.register(registry);
+		this.rows = counter(registry, prefix + ".rows", "The exported data rows", BaseUnits.ROWS, tags);
+		this.cells = counter(registry, prefix + ".cells", "The exported data cells", null, tags);
+		this.styles = counter(registry, prefix + ".styles", "The created cell styles", null, tags);
+		this.fonts = counter(registry, prefix + ".fonts", "The created fonts", null, tags);
+		this.bytes = counter(registry, prefix + ".bytes", "The bytes written to the output stream", BaseUnits.BYTES,
+				tags);
+		this.tempBytes = counter(registry, prefix + ".temp.bytes", "The bytes spilled to temporary files",
+				BaseUnits.BYTES, tags);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportListener#onPhase(com.holonplatform.artisan.vaadin.flow.
+	 * export.ExportPhase, long, int)
+	 */
+	@Override
+	public void onPhase(ExportPhase phase, long durationNanos, int phaseRows) {
+		phases.get(phase).record(durationNanos, TimeUnit.NANOSECONDS);
+		if (phase == ExportPhase.FETCH) {
+			fetchRows.record(phaseRows);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportListener#onCompleted(com.holonplatform.artisan.vaadin.
+	 * flow.export.ExportMetrics)
+	 */
+	@Override
+	public void onCompleted(ExportMetrics metrics) {
+		success.record(metrics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+		count(metrics);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportListener#onFailed(java.lang.Throwable,
+	 * com.holonplatform.artisan.vaadin.flow.export.ExportMetrics)
+	 */
+	@Override
+	public void onFailed(Throwable error, ExportMetrics metrics) {
+		failure.record(metrics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+		count(metrics);
+	}
+
+	/**
+	 * Increment the counters using given export metrics.
+	 * @param metrics The export metrics
+	 */
+	private void count(ExportMetrics metrics) {
+		rows.increment(metrics.getRows());
+		cells.increment(metrics.getCells());
+		styles.increment(metrics.getStylesCreated());
+		fonts.increment(metrics.getFontsCreated());
+		bytes.increment(metrics.getBytesWritten());
+		tempBytes.increment(metrics.getTempBytesWritten());
+	}
+
+	private static Counter counter(MeterRegistry registry, String name, String description, String baseUnit,
+			Iterable<Tag> tags) {
+		return Counter.builder(name).description(description).baseUnit(baseUnit).tags(tags).register(registry);
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * A {@link PropertyXLSValueProvider} which provides the {@link XLSValue} representations of the property values of a
+ * whole data page at once.
+ * <p>
+ * The exporter invokes {@link #provideBatch(XLSPropertyValueContext, List, List, XLSValue[])} once for each fetched
+ * data page, so that the provider can amortize the cost of the resources needed to obtain the values: for example, a
+ * decode lookup can be performed using a single query for all the page values instead of one query for each row. The
+ * single value {@link #provide(XLSPropertyValueContext, Object)} method is used when a value is exported outside of a
+ * data page, for example the group values of the subtotal rows.
+ * </p>
+ * 
+ * @param <T> Value type
+ *
+ * @since 3.0.2
+ */
+@FunctionalInterface
+public interface PropertyXLSValueBatchProvider<T> extends PropertyXLSValueProvider<T> {
+
+	/**
+	 * Get the {@link XLSValue} representations of the property values of a data page.
+	 * <p>
+	 * The {@link XLSPropertyValueContext} instance provides no row and it is reused by the exporter, so it must not
+	 * be retained outside the method invocation. The same applies to the <code>rows</code> and <code>values</code>
+	 * lists and to the <code>output</code> array.
+	 * </p>
+	 * @param context The property export context
+	 * @param rows The data page rows
+	 * @param values The property values of the data page rows, in the same order
+	 * @param output The array into which to store the {@link XLSValue} representation of each value, in the same
+	 *        order. The array length may exceed the number of values. If an element is left <code>null</code>, the
+	 *        value is exported as a String
+	 */
+	void provideBatch(XLSPropertyValueContext<T> context, List<PropertyBox> rows, List<T> values,
+			XLSValue<?>[] output);
+
+	/**
+	 * Get the {@link XLSValue} representation for given property bound value, using a single value batch.
+	 * <p>
+	 * If the batch provider leaves the value <code>null</code>, the value is exported as a String, in the same way of
+	 * the values of a data page.
+	 * </p>
+	 * @param context The property export context
+	 * @param value The value to export
+	 * @return The {@link XLSValue} representation of the property value
+	 */
+	@Override
+	default XLSValue<?> provide(XLSPropertyValueContext<T> context, T value) {
+		final XLSValue<?>[] output = new XLSValue<?>[1];
+		provideBatch(context, Collections.singletonList(context.getRow()), Collections.singletonList(value), output);
+		if (output[0] == null) {
+			// fallback to default
+			return XLSValue.stringValue((value == null) ? null : String.valueOf(value));
+		}
+		return output[0];
+	}
+
+}
@@ -65,6 +65,23 @@ public interface PropertyXLSValueProviderRegistry {
 		register(p -> property.equals(p), provider);
 	}
 
+	/**
+	 * Bind a {@link PropertyXLSValueProvider} to the given property type. The provider will be provided when the
+	 * property type is the same as, or a subtype of, the given type.
+	 * <p>
+	 * Unlike a generic condition registered through {@link #register(Predicate, PropertyXLSValueProvider)}, a type
+	 * binding can be resolved by the registry using a type index, without evaluating any condition.
+	 * </p>
+	 * @param <T> Property base type
+	 * @param type The property type (not null)
+	 * @param provider The {@link PropertyXLSValueProvider} to register (not null)
+	 * @since 3.0.2
+	 */
+	default <T> void forPropertyType(Class<? extends T> type, PropertyXLSValueProvider<? super T> provider) {
+		ObjectUtils.argumentNotNull(type, "Property type must be not null");
+		register(p -> p.getType() != null && type.isAssignableFrom(p.getType()), provider);
+	}
+
 	/**
 	 * Bind a {@link PropertyXLSValueProvider} to the given property configuration value. The provider will be provided
 	 * when the property has the given <code>configurationProperty</code> and its value equals to given
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.CapturingXLSCellSink;
+
+/**
+ * A {@link PropertyXLSValueProvider} which writes the property value directly into a {@link XLSCellSink}, without
+ * creating an intermediate {@link XLSValue} representation.
+ * <p>
+ * When a {@link PropertyXLSValueWriter} is registered in a {@link PropertyXLSValueProviderRegistry}, the exporter
+ * uses the {@link #write(XLSPropertyValueContext, Object, XLSCellSink)} method to export the property values. The
+ * {@link XLSPropertyValueContext} instance is reused by the exporter for each cell and it must not be retained
+ * outside the method invocation.
+ * </p>
+ * 
+ * @param <T> Value type
+ *
+ * @since 3.0.2
+ */
+public interface PropertyXLSValueWriter<T> extends PropertyXLSValueProvider<T> {
+
+	/**
+	 * Write the given property bound value into the provided cell sink.
+	 * @param context The property export context
+	 * @param value The value to export
+	 * @param sink The cell sink to use to write the value
+	 */
+	void write(XLSPropertyValueContext<T> context, T value, XLSCellSink sink);
+
+	/**
+	 * Get the {@link XLSValue} representation for given property bound value, capturing the value written by the
+	 * {@link #write(XLSPropertyValueContext, Object, XLSCellSink)} method.
+	 * @param context The property export context
+	 * @param value The value to export
+	 * @return The {@link XLSValue} representation of the property value
+	 */
+	@Override
+	default XLSValue<?> provide(XLSPropertyValueContext<T> context, T value) {
+		final CapturingXLSCellSink sink = new CapturingXLSCellSink();
+		write(context, value, sink);
+		return sink.getValue();
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls;
+
+/**
+ * A write target for a single exported cell value.
+ * <p>
+ * A {@link XLSCellSink} is provided to a {@link PropertyXLSValueWriter} to write the cell value using primitive
+ * typed methods, without any intermediate {@link XLSValue} representation. Only one of the <code>write*</code>
+ * methods should be invoked for each cell: if none is invoked, the cell is left blank.
+ * </p>
+ * <p>
+ * The cell style is obtained from the export configuration and from the default data format of the export column,
+ * unless a specific data format is provided using {@link #setDataFormat(String)}.
+ * </p>
+ * <p>
+ * A sink instance is reused by the exporter for each cell and it must not be retained outside the
+ * {@link PropertyXLSValueWriter#write(XLSPropertyValueContext, Object, XLSCellSink)} method invocation.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface XLSCellSink {
+
+	/**
+	 * Leave the cell blank.
+	 */
+	void writeBlank();
+
+	/**
+	 * Write a numeric cell value.
+	 * @param value The value to write
+	 */
+	void writeNumber(double value);
+
+	/**
+	 * Write a numeric cell value, retaining the exact value to compute the column totals.
+	 * <p>
+	 * The cell value is written as a <code>double</code>, but the column totals of {@link Long}, {@link Integer} and
+	 * {@link java.math.BigDecimal} values are computed without any precision loss.
+	 * </p>
+	 * @param value The value to write, <code>null</code> to leave the cell blank
+	 */
+	void writeNumber(Number value);
+
+	/**
+	 * Write a boolean cell value, according to the boolean export mode of the export configuration.
+	 * @param value The value to write
+	 */
+	void writeBoolean(boolean value);
+
+	/**
+	 * Write a text cell value.
+	 * @param value The value to write, <code>null</code> to leave the cell blank
+	 */
+	void writeString(String value);
+
+	/**
+	 * Write a date/time cell value, expressed as a spreadsheet date serial number, i.e. the number of days since the
+	 * spreadsheet epoch, with the time of day as fractional part.
+	 * @param serial The date serial number to write
+	 */
+	void writeDateSerial(double serial);
+
+	/**
+	 * Write a formula cell value.
+	 * @param formula The formula to write, <code>null</code> to leave the cell blank
+	 */
+	void writeFormula(String formula);
+
+	/**
+	 * Write a cell value using its {@link XLSValue} representation.
+	 * @param value The value to write, <code>null</code> to leave the cell blank
+	 */
+	void writeValue(XLSValue<?> value);
+
+	/**
+	 * Set the data format to use for the cell, instead of the default data format of the export column.
+	 * @param dataFormat The data format to use
+	 */
+	void setDataFormat(String dataFormat);
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingXLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingXLSXExportEngine;
+import com.holonplatform.core.internal.utils.ObjectUtils;
+
+/**
+ * An export engine, which writes the exported data into a workbook file.
+ * <p>
+ * By default, the {@link XLSExporter} uses the Apache POI workbook model to build the workbook. A different engine can
+ * be configured using the {@link XLSExporter.Builder#engine(XLSExportEngine)} builder method: the engine obtains the
+ * export data and the cell values from the {@link XLSExportEngineContext}.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface XLSExportEngine {
+
+	/**
+	 * Get whether this engine supports given file version.
+	 * @param fileVersion The file version
+	 * @return <code>true</code> if this engine is able to write given file version
+	 */
+	boolean supports(XLSFileVersion fileVersion);
+
+	/**
+	 * Export the data provided by the given context into the given {@link OutputStream}.
+	 * <p>
+	 * The output stream must not be closed by the engine.
+	 * </p>
+	 * @param context The export context
+	 * @param outputStream The output stream to write to
+	 * @throws IOException If an I/O error occurred
+	 */
+	void export(XLSExportEngineContext context, OutputStream outputStream) throws IOException;
+
+	/**
+	 * Get the streaming {@link XLSFileVersion#XLSX} engine.
+	 * <p>
+	 * This engine writes the SpreadsheetML parts directly into a ZIP stream on the output stream, without any
+	 * intermediate workbook object model or temporary file, using a constant amount of memory.
+	 * </p>
+	 * @return The streaming XLSX export engine
+	 */
+	static XLSExportEngine streaming() {
+		return StreamingXLSXExportEngine.INSTANCE;
+	}
+
+	/**
+	 * Get the streaming engine for given file version.
+	 * <p>
+	 * For the {@link XLSFileVersion#XLS} file version, the engine writes the BIFF8 records of the workbook stream
+	 * without any intermediate workbook object model, using temporary files to hold the worksheet cells and the shared
+	 * strings table, so that the memory used by the export does not depend on the number of exported rows.
+	 * </p>
+	 * @param fileVersion The file version (not null)
+	 * @return The streaming export engine for given file version
+	 */
+	static XLSExportEngine streaming(XLSFileVersion fileVersion) {
+		ObjectUtils.argumentNotNull(fileVersion, "The file version must be not null");
+		return (XLSFileVersion.XLS == fileVersion) ? StreamingXLSExportEngine.INSTANCE
+				: StreamingXLSXExportEngine.INSTANCE;
+	}
+
+}
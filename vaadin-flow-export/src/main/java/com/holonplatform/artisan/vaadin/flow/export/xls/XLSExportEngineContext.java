@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * The context of an export performed by a {@link XLSExportEngine}.
+ * <p>
+ * The context provides the export configuration, the localized texts and the export data, and it writes the cell
+ * values into a {@link XLSCellSink}, using the {@link PropertyXLSValueWriter} of each export column. The columns are
+ * identified by a 0-based index, according to the {@link XLSExportPlan} properties order.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface XLSExportEngineContext {
+
+	/**
+	 * Get the export plan.
+	 * @return The export plan
+	 */
+	XLSExportPlan getExportPlan();
+
+	/**
+	 * Get the export configuration.
+	 * @return The export configuration
+	 */
+	default XLSConfiguration getConfiguration() {
+		return getExportPlan().getConfiguration();
+	}
+
+	/**
+	 * Get the number of export columns.
+	 * @return The number of export columns
+	 */
+	default int getColumnCount() {
+		return getExportPlan().getProperties().size();
+	}
+
+	/**
+	 * Get the localized name of the first sheet.
+	 * @return The sheet name
+	 */
+	default String getSheetName() {
+		return getSheetName(0);
+	}
+
+	/**
+	 * Get the localized name of the sheet with given index.
+	 * @param sheetIndex The sheet index, starting from 0
+	 * @return The sheet name
+	 */
+	String getSheetName(int sheetIndex);
+
+	/**
+	 * Get the maximum number of data rows to write in a sheet, before continuing the export in a new sheet.
+	 * @return The maximum number of data rows per sheet
+	 */
+	int getMaxRowsPerSheet();
+
+	/**
+	 * Get the localized export title, if available.
+	 * @return Optional export title
+	 */
+	Optional<String> getTitle();
+
+	/**
+	 * Get the header text of given column.
+	 * @param columnIndex The column index
+	 * @return The column header text
+	 */
+	String getColumnHeader(int columnIndex);
+
+	/**
+	 * Get the header cell configuration of given column.
+	 * @param columnIndex The column index
+	 * @return The header cell configuration
+	 */
+	XLSCellConfiguration getColumnHeaderConfiguration(int columnIndex);
+
+	/**
+	 * Get the data cell configuration of given column.
+	 * @param columnIndex The column index
+	 * @return The data cell configuration
+	 */
+	XLSCellConfiguration getColumnCellConfiguration(int columnIndex);
+
+	/**
+	 * Get the default data format of given column data cells.
+	 * @param columnIndex The column index
+	 * @return The default data format, <code>null</code> if none
+	 */
+	String getColumnDataFormat(int columnIndex);
+
+	/**
+	 * Get whether a total footer is required for given column.
+	 * @param columnIndex The column index
+	 * @return <code>true</code> if a total footer is required for the column
+	 */
+	boolean hasTotalFooter(int columnIndex);
+
+	/**
+	 * Get the aggregate function to use for the <em>total</em> footer of given column.
+	 * @param columnIndex The column index
+	 * @return The total function, empty if no total footer is provided for the column
+	 * @since 3.0.2
+	 */
+	Optional<XLSTotalFunction> getTotalFunction(int columnIndex);
+
+	/**
+	 * Get the text to use to export a boolean value of given column, according to the boolean export mode.
+	 * @param columnIndex The column index
+	 * @param value The boolean value
+	 * @return The boolean value text, <code>null</code> if the value has to be exported as a boolean type value
+	 */
+	String getBooleanText(int columnIndex, boolean value);
+
+	/**
+	 * Fetch the export data and pass each data row to given consumer, updating the export progress.
+	 * <p>
+	 * The {@link ExportPhase#FETCH} and {@link ExportPhase#DATA} phases are notified by this method.
+	 * </p>
+	 * @param rowConsumer The data row consumer
+	 * @return The number of data rows
+	 */
+	int forEachRow(Consumer<PropertyBox> rowConsumer);
+
+	/**
+	 * Write the value of given column for given data row into the provided sink.
+	 * <p>
+	 * If the column value provider is a {@link PropertyXLSValueBatchProvider} and the row is a row of the data page
+	 * which is currently provided by {@link #forEachRow(Consumer)}, the value obtained for the whole data page is
+	 * written.
+	 * </p>
+	 * @param columnIndex The column index
+	 * @param row The data row
+	 * @param sink The cell sink
+	 */
+	void writeValue(int columnIndex, PropertyBox row, XLSCellSink sink);
+
+	/**
+	 * Write given {@link XLSValue} of given column into the provided sink, using the typed sink methods. When the
+	 * data format of the value is not the default data format of the column, it is set using
+	 * {@link XLSCellSink#setDataFormat(String)}.
+	 * @param columnIndex The column index
+	 * @param value The value to write
+	 * @param sink The cell sink
+	 */
+	void writeValue(int columnIndex, XLSValue<?> value, XLSCellSink sink);
+
+	/**
+	 * Notify the {@link ExportListener}s of the export that an export phase was completed.
+	 * @param phase The export phase
+	 * @param durationNanos The phase duration, in nanoseconds
+	 */
+	default void phaseCompleted(ExportPhase phase, long durationNanos) {
+	}
+
+	/**
+	 * Notify the number of cell styles and fonts created by the export engine.
+	 * @param styles The created cell styles count
+	 * @param fonts The created fonts count
+	 */
+	default void stylesCreated(int styles, int fonts) {
+	}
+
+	/**
+	 * Notify the number of bytes spilled to temporary files by the export engine.
+	 * @param tempBytes The temporary files size
+	 */
+	default void tempBytesWritten(long tempBytes) {
+	}
+
+}
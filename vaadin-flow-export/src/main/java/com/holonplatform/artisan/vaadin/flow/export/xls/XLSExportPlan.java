@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls;
+
+import java.util.List;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.core.property.Property;
+
+/**
+ * A compiled XLS export plan.
+ * <p>
+ * The export plan is compiled from a {@link XLSConfiguration} and a list of properties to export and it holds, for
+ * each export column, the resolved {@link PropertyXLSValueProvider}, the effective property configuration, the default
+ * data format and the cell style definition, so that they have not to be computed again for each exported row.
+ * </p>
+ * <p>
+ * An export plan is immutable and thread-safe: the plan compiled by a {@link XLSExporter} is cached and reused by
+ * each export and it can be shared with other exporters which use the same configuration, through the
+ * {@link XLSExporter.Builder#exportPlan(XLSExportPlan)} builder method.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface XLSExportPlan {
+
+	/**
+	 * Get the export configuration from which this plan was compiled.
+	 * @return The export configuration
+	 */
+	XLSConfiguration getConfiguration();
+
+	/**
+	 * Get the properties to export, in the export columns order.
+	 * @return The export properties
+	 */
+	List<Property<?>> getProperties();
+
+}
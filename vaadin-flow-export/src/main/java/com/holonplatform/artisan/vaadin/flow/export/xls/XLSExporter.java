@@ -16,22 +16,47 @@
 package com.holonplatform.artisan.vaadin.flow.export.xls;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
 import java.util.function.Supplier;
 
 import com.holonplatform.artisan.core.exceptions.InterruptedOperationException;
 import com.holonplatform.artisan.core.operation.OperationProgress;
 import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.AbortableProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.ExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.SizeEstimationMode;
 import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AdaptiveBatchSizeStrategy;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.AsyncExportTask;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.DatastoreExportSource;
 import com.holonplatform.artisan.vaadin.flow.export.xls.internal.DefaultXLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.KeysetExportDataPager;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.PrefetchExportPageSource;
+import com.holonplatform.core.datastore.DataTarget;
+import com.holonplatform.core.datastore.Datastore;
 import com.holonplatform.core.i18n.Localizable;
 import com.holonplatform.core.i18n.LocalizationContext;
+import com.holonplatform.core.property.PathProperty;
 import com.holonplatform.core.property.Property;
 import com.holonplatform.core.property.PropertyBox;
 import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.query.QueryFilter;
+import com.holonplatform.core.query.QuerySort;
 import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.data.provider.QuerySortOrder;
 
@@ -41,6 +66,9 @@ import com.vaadin.flow.data.provider.QuerySortOrder;
  * The exporter uses a {@link PropertyBox} item type {@link DataProvider} as data source. The {@link XLSConfiguration}
  * type can be used to provide the export configuration.
  * </p>
+ * <p>
+ * A built exporter can be shared and used to perform more than one export, also concurrently from different threads.
+ * </p>
  *
  * @since 1.0.0
  */
@@ -68,6 +96,69 @@ public interface XLSExporter {
 	 */
 	void export(OutputStream outputStream, OperationProgressCallback exportProgressCallback) throws ExportException;
 
+	/**
+	 * Export the data to the provided {@link OutputStream} asynchronously, using the default executor.
+	 * <p>
+	 * The default executor runs each export in a new virtual thread when the Java runtime supports virtual threads,
+	 * or in a pooled daemon thread otherwise.
+	 * </p>
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @return The {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is
+	 *         completed
+	 * @see #exportAsync(OutputStream, OperationProgressCallback, Executor)
+	 * @since 3.0.2
+	 */
+	default CompletableFuture<ExportResult> exportAsync(OutputStream outputStream) {
+		return exportAsync(outputStream, AsyncExportTask.getDefaultExecutor());
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream} asynchronously, using given {@link Executor}.
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param executor The executor to use to perform the export (not null)
+	 * @return The {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is
+	 *         completed
+	 * @see #exportAsync(OutputStream, OperationProgressCallback, Executor)
+	 * @since 3.0.2
+	 */
+	default CompletableFuture<ExportResult> exportAsync(OutputStream outputStream, Executor executor) {
+		return exportAsync(outputStream, (total, completed) -> OperationProgress.PROCEED, executor);
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream} asynchronously, using given {@link Executor}.
+	 * <p>
+	 * The returned future is completed exceptionally with an {@link ExportException} if the export fails. The export
+	 * can be cancelled using {@link CompletableFuture#cancel(boolean)}: the export is aborted at the next exported
+	 * data row, regardless of the progress notifications throttling, and the data written to the output stream up to
+	 * that point are left as they are.
+	 * </p>
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @param executor The executor to use to perform the export (not null)
+	 * @return The {@link CompletableFuture} which is completed with the {@link ExportResult} when the export is
+	 *         completed
+	 * @since 3.0.2
+	 */
+	default CompletableFuture<ExportResult> exportAsync(OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback, Executor executor) {
+		return AsyncExportTask.submit(outputStream, exportProgressCallback, executor, (os, callback) -> {
+			export(os, callback);
+			return -1;
+		});
+	}
+
+	/**
+	 * Get the compiled {@link XLSExportPlan} used by this exporter.
+	 * <p>
+	 * The plan is compiled the first time this method is invoked (or the first time the data are exported) and then
+	 * cached and reused by any subsequent export.
+	 * </p>
+	 * @return The export plan
+	 * @since 3.0.2
+	 */
+	XLSExportPlan getExportPlan();
+
 	/**
 	 * Get a {@link XLSExporter} using given {@link DataProvider} as export data source.
 	 * @param dataSource The export data source (not null)
@@ -78,6 +169,40 @@ public interface XLSExporter {
 		return new DefaultXLSExporter.DefaultBuilder(dataSource, propertySet);
 	}
 
+	/**
+	 * Get a {@link XLSExporter} using a {@link Datastore} query as export data source.
+	 * <p>
+	 * The export data is obtained by executing a single query, whose results are streamed and written as they are
+	 * read, instead of fetching the data pages using a sequence of queries. The {@link Builder#batchSize(int)} is used
+	 * to split the results into data pages. Any keyset pagination configuration is ignored.
+	 * </p>
+	 * @param datastore The {@link Datastore} to use (not null)
+	 * @param target The query target (not null)
+	 * @param filter Optional query filter (may be null)
+	 * @param sort Optional query sort (may be null)
+	 * @param propertySet The property set to use, which is also used as query projection (not null)
+	 * @return A new {@link XLSExporter} builder
+	 * @since 3.0.2
+	 */
+	static Builder builder(Datastore datastore, DataTarget<?> target, QueryFilter filter, QuerySort sort,
+			PropertySet<?> propertySet) {
+		return new DefaultXLSExporter.DefaultBuilder(new DatastoreExportSource(datastore, target, filter, sort),
+				propertySet);
+	}
+
+	/**
+	 * Get a {@link XLSExporter} using a {@link Datastore} query as export data source.
+	 * @param datastore The {@link Datastore} to use (not null)
+	 * @param target The query target (not null)
+	 * @param propertySet The property set to use, which is also used as query projection (not null)
+	 * @return A new {@link XLSExporter} builder
+	 * @see #builder(Datastore, DataTarget, QueryFilter, QuerySort, PropertySet)
+	 * @since 3.0.2
+	 */
+	static Builder builder(Datastore datastore, DataTarget<?> target, PropertySet<?> propertySet) {
+		return builder(datastore, target, null, null, propertySet);
+	}
+
 	/**
 	 * Get a {@link XLSExporter} using given {@link DataProvider} supplier as export data source.
 	 * @param <P> Property type
@@ -141,6 +266,241 @@ public interface XLSExporter {
 		 */
 		Builder querySortsProvider(Supplier<List<QuerySortOrder>> querySortsProvider);
 
+		/**
+		 * Set the number of items to fetch from the data source for each data page.
+		 * @param batchSize The batch size (must be greater than 0)
+		 * @return this
+		 */
+		Builder batchSize(int batchSize);
+
+		/**
+		 * Adapt the number of items to fetch from the data source for each data page to the measured fetch latency
+		 * and to the estimated memory footprint of the fetched items, within given bounds.
+		 * <p>
+		 * A default target fetch time of 8 milliseconds per page and a default maximum page memory of 16 MB are used.
+		 * </p>
+		 * @param minBatchSize The minimum batch size (must be greater than 0)
+		 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+		 * @return this
+		 */
+		default Builder adaptiveBatchSize(int minBatchSize, int maxBatchSize) {
+			return adaptiveBatchSize(minBatchSize, maxBatchSize,
+					AdaptiveBatchSizeStrategy.DEFAULT_TARGET_FETCH_TIME_MILLIS,
+					AdaptiveBatchSizeStrategy.DEFAULT_MAX_PAGE_MEMORY);
+		}
+
+		/**
+		 * Adapt the number of items to fetch from the data source for each data page to the measured fetch latency
+		 * and to the estimated memory footprint of the fetched items, within given bounds.
+		 * @param minBatchSize The minimum batch size (must be greater than 0)
+		 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+		 * @param targetFetchTimeMillis The target time to spend for each data page fetch, in milliseconds
+		 * @param maxPageMemory The maximum estimated memory footprint of a data page, in bytes
+		 * @return this
+		 */
+		Builder adaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis, long maxPageMemory);
+
+		/**
+		 * Set how the number of the data rows to export is estimated, in order to compute the export progress.
+		 * <p>
+		 * By default, the data source items are counted before starting the export ({@link SizeEstimationMode#COUNT}).
+		 * When the count is costly, the {@link SizeEstimationMode#CONCURRENT_COUNT} mode can be used to count the items
+		 * in a background thread while the first data pages are fetched: the export progress is notified as
+		 * indeterminate, using <code>0</code> total steps, until the count is available. In this case the
+		 * {@link DataProvider} must support being queried from a thread other than the one which invokes the export.
+		 * The {@link SizeEstimationMode#NONE} mode skips the size estimation and the export progress is always
+		 * indeterminate.
+		 * </p>
+		 * @param mode The size estimation mode (not null)
+		 * @return this
+		 * @see #estimatedSize(IntSupplier)
+		 * @since 3.0.2
+		 */
+		Builder sizeEstimation(SizeEstimationMode mode);
+
+		/**
+		 * Use the estimated number of data rows provided by given supplier to compute the export progress, without
+		 * counting the data source items. For example, the size already known by a UI component which displays the
+		 * same data can be used.
+		 * <p>
+		 * The supplier is invoked when each export starts. A negative value means that the size is not available and
+		 * the export progress is indeterminate.
+		 * </p>
+		 * @param estimatedSize The estimated size supplier (not null)
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder estimatedSize(IntSupplier estimatedSize);
+
+		/**
+		 * Limit the progress notifications sent to the export progress callback.
+		 * <p>
+		 * By default, the progress callback is invoked after each exported data row. When the throttling is enabled, a
+		 * progress notification is sent only when at least <code>intervalMillis</code> milliseconds are elapsed since
+		 * the last one, or when the completion percentage is increased at least of <code>percentageStep</code>. The
+		 * first and the last progress steps are always notified. This is useful when each notification is costly, for
+		 * example when it updates a UI component.
+		 * </p>
+		 * <p>
+		 * When the progress callback returns {@link OperationProgress#ABORT}, the export is interrupted at the next
+		 * row, but the progress callback is only invoked for the notified steps. To check the export abort at each data
+		 * row regardless of the throttling, use an {@link AbortableProgressCallback}: its
+		 * {@link AbortableProgressCallback#isAborted()} method is invoked at each data row. The cancellation of the
+		 * asynchronous exports is checked at each data row too.
+		 * </p>
+		 * @param intervalMillis The minimum interval in milliseconds between two progress notifications,
+		 *        <code>0</code> to ignore the elapsed time
+		 * @param percentageStep The completion percentage increase which triggers a progress notification regardless
+		 *        of the elapsed time (between 0 and 100), <code>0</code> to ignore the completion percentage
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder progressThrottling(long intervalMillis, int percentageStep);
+
+		/**
+		 * Enable the background prefetch of the export data pages.
+		 * <p>
+		 * When enabled, a producer thread fetches the next data pages from the data source into a bounded queue while
+		 * the current page is written, so that the data source latency is overlapped with the cells writing. The
+		 * {@link DataProvider} must support being queried from a thread other than the one which invokes the export.
+		 * </p>
+		 * <p>
+		 * The producer threads are daemon threads.
+		 * </p>
+		 * @param queueDepth The maximum number of data pages to fetch in advance (must be greater than 0)
+		 * @return this
+		 */
+		default Builder prefetch(int queueDepth) {
+			return prefetch(queueDepth, PrefetchExportPageSource.DEFAULT_THREAD_FACTORY);
+		}
+
+		/**
+		 * Enable the background prefetch of the export data pages, using given {@link ThreadFactory} to create the
+		 * producer thread.
+		 * <p>
+		 * When enabled, a producer thread fetches the next data pages from the data source into a bounded queue while
+		 * the current page is written, so that the data source latency is overlapped with the cells writing. The
+		 * {@link DataProvider} must support being queried from a thread other than the one which invokes the export.
+		 * </p>
+		 * <p>
+		 * When the export is aborted or fails, the producer thread is interrupted and any pending data page is
+		 * discarded.
+		 * </p>
+		 * @param queueDepth The maximum number of data pages to fetch in advance (must be greater than 0)
+		 * @param threadFactory The factory to use to create the producer thread, for example a virtual threads factory
+		 *        (not null)
+		 * @return this
+		 */
+		Builder prefetch(int queueDepth, ThreadFactory threadFactory);
+
+		/**
+		 * Use the keyset (seek) pagination to fetch the export data, instead of the default offset based pagination.
+		 * <p>
+		 * The data is sorted by the given key properties in ascending order and each data page after the first one is
+		 * fetched using the filter provided by the <code>seekFilterProvider</code> function, which must select the
+		 * items which follow the given item (the last fetched one) according to the key properties order. The key
+		 * properties must uniquely identify each item and their values must be not null.
+		 * </p>
+		 * <p>
+		 * The filter type returned by the <code>seekFilterProvider</code> function must be supported by the
+		 * {@link DataProvider}. When the keyset pagination is enabled, the sorts provided by the
+		 * {@link #querySortsProvider(Supplier)} are ignored.
+		 * </p>
+		 * @param keyProperties The unique key properties which define the data order (not null, not empty)
+		 * @param seekFilterProvider The function to obtain the filter to fetch the items which follow a given item
+		 *        (not null)
+		 * @return this
+		 */
+		Builder keysetPagination(List<Property<?>> keyProperties, Function<PropertyBox, ?> seekFilterProvider);
+
+		/**
+		 * Use the keyset (seek) pagination to fetch the export data, instead of the default offset based pagination.
+		 * <p>
+		 * The data is sorted by the given key properties in ascending order and each data page after the first one is
+		 * fetched using a <code>QueryFilter</code> which selects the items whose key is <em>greater than</em> the key
+		 * of the last fetched item. The {@link DataProvider} must support <code>QueryFilter</code> type filters, as
+		 * the Holon Platform Datastore data providers do. The key properties must uniquely identify each item and
+		 * their values must be not null.
+		 * </p>
+		 * <p>
+		 * When the keyset pagination is enabled, the sorts provided by the {@link #querySortsProvider(Supplier)} are
+		 * ignored.
+		 * </p>
+		 * @param keyProperties The unique key properties which define the data order (not null, not empty)
+		 * @return this
+		 */
+		default Builder keysetPagination(PathProperty<?>... keyProperties) {
+			final List<PathProperty<?>> keys = Arrays.asList(keyProperties);
+			return keysetPagination(new ArrayList<>(keys), KeysetExportDataPager.querySeekFilter(keys));
+		}
+
+		/**
+		 * Set a pre-compiled {@link XLSExportPlan} to use, for example obtained from another exporter through the
+		 * {@link XLSExporter#getExportPlan()} method.
+		 * <p>
+		 * When an export plan is provided, the export configuration and the export properties are the ones of the
+		 * plan: the {@link #configuration(XLSConfiguration)} and {@link #registry(PropertyXLSValueProviderRegistry)}
+		 * builder settings are ignored.
+		 * </p>
+		 * @param exportPlan The export plan to use (not null)
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder exportPlan(XLSExportPlan exportPlan);
+
+		/**
+		 * Set the {@link XLSExportEngine} to use to write the export document.
+		 * <p>
+		 * By default, the document is written using an Apache POI workbook. An engine such as
+		 * {@link XLSExportEngine#streaming()} can be used to write the document directly into the output stream,
+		 * without building the workbook model in memory.
+		 * </p>
+		 * @param engine The export engine to use (not null)
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder engine(XLSExportEngine engine);
+
+		/**
+		 * Set a listener to be notified, after each {@link XLSFileVersion#XLSX} export, with the total size in bytes of
+		 * the temporary files written during the export.
+		 * <p>
+		 * The temporary files footprint can be tuned using the {@link XLSStreamingOptions} of the export
+		 * configuration.
+		 * </p>
+		 * @param listener The listener to set
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder tempBytesListener(LongConsumer listener);
+
+		/**
+		 * Set a listener to be notified, before each export writes any data, with the {@link XLSFileVersion} of the
+		 * exported file.
+		 * <p>
+		 * The notified file version may differ from the configured one when the {@link XLSEnginePolicy} action is
+		 * {@link XLSEnginePolicy.Action#SWITCH_TO_XLSX}: the listener can be used to provide the right file extension
+		 * and MIME type to the export consumer.
+		 * </p>
+		 * @param listener The listener to set
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder fileVersionListener(Consumer<XLSFileVersion> listener);
+
+		/**
+		 * Add an {@link ExportListener} to be notified with the phases of each export, with their duration, and with
+		 * the export metrics when the export is completed.
+		 * <p>
+		 * The notified metrics include the exported rows and cells, the created cell styles and fonts, the bytes written
+		 * to the output stream and the bytes spilled to temporary files. More than one listener can be added.
+		 * </p>
+		 * @param listener The listener to add (not null)
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder listener(ExportListener listener);
+
 		/**
 		 * Build the exporter.
 		 * @return The {@link XLSExporter}
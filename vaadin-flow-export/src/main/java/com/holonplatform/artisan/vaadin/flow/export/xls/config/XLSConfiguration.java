@@ -33,6 +33,12 @@ import com.holonplatform.core.property.Property;
  */
 public interface XLSConfiguration extends Serializable {
 
+	/**
+	 * Default number of data rows sampled to estimate the column widths
+	 * @since 3.0.2
+	 */
+	static final int DEFAULT_AUTO_WIDTH_SAMPLE_ROWS = 100;
+
 	/**
 	 * Get the properties to export and their order.
 	 * @return The properties to export
@@ -47,24 +53,67 @@ public interface XLSConfiguration extends Serializable {
 	Optional<XLSPropertyConfiguration> getPropertyConfiguration(Property<?> property);
 
 	/**
-	 * Get whether to provide a <em>total</em> footer for given property, with the sum of its values.
+	 * Get whether to provide a <em>total</em> footer for given property, with the aggregate of its values.
 	 * @param property The property to check
 	 * @return Whether to provide a <em>total</em> footer for given property
 	 */
 	boolean hasTotalFooter(Property<?> property);
 
 	/**
-	 * Get the properties for which to provide a <em>total</em> footer, with the sum of the values.
+	 * Get the properties for which to provide a <em>total</em> footer, with the aggregate of the values.
 	 * @return The properties for which to provide a <em>total</em> footer, empty if none
 	 */
 	Set<Property<?>> getTotalFooterProperties();
 
+	/**
+	 * Get the aggregate function to use for the <em>total</em> footer of given property.
+	 * @param property The property
+	 * @return The total function, empty if no <em>total</em> footer is provided for given property
+	 * @since 3.0.2
+	 */
+	Optional<XLSTotalFunction> getTotalFunction(Property<?> property);
+
+	/**
+	 * Get whether the <em>total</em> footer cells are written as formulas.
+	 * <p>
+	 * The totals are always computed while the data rows are written: when formulas are used, the computed total is
+	 * stored as the formula cached result, so that it is available even if the formula is not evaluated when the file
+	 * is opened. Otherwise, the total is written as a literal value.
+	 * </p>
+	 * @return <code>true</code> if the total cells are formulas (default), <code>false</code> if they are values
+	 * @since 3.0.2
+	 */
+	boolean isTotalFormulas();
+
+	/**
+	 * Get the properties by which the exported rows are grouped, from the outermost to the innermost group level.
+	 * <p>
+	 * The export data are expected to be already sorted by the group properties, for example using the exporter query
+	 * sorts: a group is closed each time the value of its property (or of the property of an outer group) changes
+	 * from a row to the next one. When a group is closed, a <em>subtotal</em> row is written for the properties with a
+	 * <em>total</em> footer, and the group rows are bound to a collapsible row outline level.
+	 * </p>
+	 * @return The group properties, empty if none
+	 * @since 3.0.2
+	 */
+	List<Property<?>> getGroupByProperties();
+
 	/**
 	 * Get the file version to use.
 	 * @return The file version
 	 */
 	XLSFileVersion getFileVersion();
 
+	/**
+	 * Get the maximum number of data rows to write in a sheet. When the threshold is reached, the export continues in a
+	 * new sheet, repeating the title and the header rows. Each sheet has its own total footer row, if configured.
+	 * @return The maximum number of data rows per sheet, <code>0</code> to use the maximum number of rows supported by
+	 *         the file version
+	 * @see XLSFileVersion#getMaxRows()
+	 * @since 3.0.2
+	 */
+	int getMaxRowsPerSheet();
+
 	/**
 	 * Get the export sheet name.
 	 * @return The export sheet name
@@ -126,6 +175,41 @@ public interface XLSConfiguration extends Serializable {
 	 */
 	XLSCellConfiguration getTotalConfiguration();
 
+	/**
+	 * Get the streaming options to use for the {@link XLSFileVersion#XLSX} export.
+	 * @return The streaming options, {@link XLSStreamingOptions#defaults()} if not configured
+	 * @since 3.0.2
+	 */
+	XLSStreamingOptions getStreamingOptions();
+
+	/**
+	 * Get the engine policy to use for the {@link XLSFileVersion#XLS} export, which is applied when the estimated heap
+	 * footprint of the in-memory workbook exceeds a heap budget.
+	 * @return The engine policy, {@link XLSEnginePolicy#none()} if not configured
+	 * @since 3.0.2
+	 */
+	XLSEnginePolicy getEnginePolicy();
+
+	/**
+	 * Get whether to size the columns according to their contents.
+	 * <p>
+	 * The column widths are estimated from the text length of the header and of the first
+	 * {@link #getAutoWidthSampleRows()} data rows, using the character widths of the default font of the file version.
+	 * The setting can be overridden for a single property using {@link XLSPropertyConfiguration#getAutoWidth()}.
+	 * </p>
+	 * @return Whether to size the columns according to their contents, <code>false</code> by default
+	 * @since 3.0.2
+	 */
+	boolean isAutoWidth();
+
+	/**
+	 * Get the number of data rows which are sampled to estimate the column widths when auto-width is enabled.
+	 * @return The number of sampled data rows, {@link #DEFAULT_AUTO_WIDTH_SAMPLE_ROWS} by default
+	 * @see #isAutoWidth()
+	 * @since 3.0.2
+	 */
+	int getAutoWidthSampleRows();
+
 	/**
 	 * Clone this configuration.
 	 * @return Cloned configuration builder
@@ -176,6 +260,37 @@ public interface XLSConfiguration extends Serializable {
 		 */
 		Builder withTotalProperty(Property<?> property);
 
+		/**
+		 * Add a property for which to provide a total footer, using given aggregate function.
+		 * @param property The property for which to provide a total footer (not null)
+		 * @param function The total function (not null)
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder withTotalProperty(Property<?> property, XLSTotalFunction function);
+
+		/**
+		 * Set whether the <em>total</em> footer cells are written as formulas, with the computed total as cached
+		 * result, or as literal values. Default is <code>true</code>.
+		 * @param totalFormulas Whether the total cells are formulas
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder totalFormulas(boolean totalFormulas);
+
+		/**
+		 * Add a property by which to group the exported rows. Each added property declares a new group level, nested
+		 * in the previously added ones.
+		 * <p>
+		 * The export data must be sorted by the group properties, in the same order.
+		 * </p>
+		 * @param property The group property (not null)
+		 * @return this
+		 * @see XLSConfiguration#getGroupByProperties()
+		 * @since 3.0.2
+		 */
+		Builder withGroupByProperty(Property<?> property);
+
 		/**
 		 * Set the export file version.
 		 * @param fileVersion the file version to set
@@ -183,6 +298,20 @@ public interface XLSConfiguration extends Serializable {
 		 */
 		Builder fileVersion(XLSFileVersion fileVersion);
 
+		/**
+		 * Set the maximum number of data rows to write in a sheet. When the threshold is reached, the export
+		 * continues in a new sheet, repeating the title and the header rows.
+		 * <p>
+		 * By default, a new sheet is started only when the maximum number of rows supported by the file version is
+		 * reached.
+		 * </p>
+		 * @param maxRowsPerSheet The maximum number of data rows per sheet, <code>0</code> to use the maximum number
+		 *        of rows supported by the file version
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder maxRowsPerSheet(int maxRowsPerSheet);
+
 		/**
 		 * Set the export sheet name.
 		 * @param sheetName the sheet name to set
@@ -296,6 +425,39 @@ public interface XLSConfiguration extends Serializable {
 		 */
 		Builder totalConfiguration(XLSCellConfiguration totalConfiguration);
 
+		/**
+		 * Set the streaming options to use for the {@link XLSFileVersion#XLSX} export.
+		 * @param streamingOptions The streaming options
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder streamingOptions(XLSStreamingOptions streamingOptions);
+
+		/**
+		 * Set the engine policy to use for the {@link XLSFileVersion#XLS} export.
+		 * @param enginePolicy The engine policy
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder enginePolicy(XLSEnginePolicy enginePolicy);
+
+		/**
+		 * Set whether to size the columns according to their contents.
+		 * @param autoWidth Whether to size the columns according to their contents
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder autoWidth(boolean autoWidth);
+
+		/**
+		 * Set the number of data rows which are sampled to estimate the column widths when auto-width is enabled.
+		 * @param autoWidthSampleRows The number of sampled data rows, <code>0</code> to use the header only
+		 * @return this
+		 * @throws IllegalArgumentException If the number of rows is negative
+		 * @since 3.0.2
+		 */
+		Builder autoWidthSampleRows(int autoWidthSampleRows);
+
 		/**
 		 * Build the {@link XLSConfiguration}.
 		 * @return The {@link XLSConfiguration} instance
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.config;
+
+import java.io.Serializable;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.config.DefaultXLSEnginePolicy;
+
+/**
+ * Policy which protects the {@link XLSFileVersion#XLS} export from exhausting the heap memory.
+ * <p>
+ * By default, a {@link XLSFileVersion#XLS} workbook is built in memory using the Apache POI HSSF workbook model, so
+ * the heap footprint of an export grows with the number of exported cells. Before the export starts, the heap
+ * footprint is estimated from the export size estimate, multiplying the number of cells by
+ * {@link #getBytesPerCell()}: when the estimate exceeds the {@link #getHeapBudget()}, the policy {@link Action} is
+ * applied.
+ * </p>
+ * <p>
+ * The policy is not applied when the export size is not known in advance, or when an {@link XLSExportEngine} is
+ * configured for the export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface XLSEnginePolicy extends Serializable {
+
+	/**
+	 * Default estimated heap bytes for each workbook cell
+	 */
+	static final int DEFAULT_BYTES_PER_CELL = 200;
+
+	/**
+	 * The action to perform when the estimated heap footprint of an export exceeds the heap budget.
+	 */
+	public enum Action {
+
+		/**
+		 * No action: the heap footprint is not checked.
+		 */
+		NONE,
+
+		/**
+		 * Log a warning and proceed with the in-memory workbook.
+		 */
+		WARN,
+
+		/**
+		 * Refuse the export, throwing an export exception before any data is fetched.
+		 */
+		REFUSE,
+
+		/**
+		 * Use the streaming {@link XLSFileVersion#XLS} export engine, which writes the workbook records using
+		 * temporary files, without building the workbook in memory.
+		 */
+		STREAM,
+
+		/**
+		 * Switch to the {@link XLSFileVersion#XLSX} file version, using the streaming XLSX export engine.
+		 */
+		SWITCH_TO_XLSX;
+
+	}
+
+	/**
+	 * Get the action to perform when the estimated heap footprint exceeds the heap budget.
+	 * @return The policy action
+	 */
+	Action getAction();
+
+	/**
+	 * Get the heap budget of a single export, in bytes.
+	 * @return The heap budget in bytes, a quarter of the maximum heap size if not configured
+	 */
+	long getHeapBudget();
+
+	/**
+	 * Get the estimated heap bytes for each workbook cell.
+	 * @return The estimated bytes per cell
+	 */
+	int getBytesPerCell();
+
+	/**
+	 * Estimate the heap footprint of a workbook with given size.
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 * @return The estimated heap footprint in bytes
+	 */
+	default long estimateHeapSize(long rows, int columns) {
+		return rows * columns * getBytesPerCell();
+	}
+
+	/**
+	 * Checks whether the estimated heap footprint of a workbook with given size exceeds the heap budget.
+	 * @param rows The number of rows
+	 * @param columns The number of columns
+	 * @return <code>true</code> if the heap budget is exceeded
+	 */
+	default boolean isExceeded(long rows, int columns) {
+		return estimateHeapSize(rows, columns) > getHeapBudget();
+	}
+
+	/**
+	 * Get the default policy, which performs no action.
+	 * @return The default engine policy
+	 */
+	static XLSEnginePolicy none() {
+		return DefaultXLSEnginePolicy.NONE;
+	}
+
+	/**
+	 * Get a builder to create a new {@link XLSEnginePolicy}.
+	 * @return A {@link XLSEnginePolicy} builder
+	 */
+	static Builder builder() {
+		return new DefaultXLSEnginePolicy.DefaultBuilder();
+	}
+
+	/**
+	 * XLSEnginePolicy builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the action to perform when the estimated heap footprint exceeds the heap budget.
+		 * @param action The policy action (not null)
+		 * @return this
+		 */
+		Builder action(Action action);
+
+		/**
+		 * Set the heap budget of a single export.
+		 * @param heapBudget The heap budget in bytes (must be greater than 0)
+		 * @return this
+		 */
+		Builder heapBudget(long heapBudget);
+
+		/**
+		 * Set the estimated heap bytes for each workbook cell.
+		 * @param bytesPerCell The estimated bytes per cell (must be greater than 0)
+		 * @return this
+		 */
+		Builder bytesPerCell(int bytesPerCell);
+
+		/**
+		 * Build the {@link XLSEnginePolicy}.
+		 * @return The {@link XLSEnginePolicy} instance
+		 */
+		XLSEnginePolicy build();
+
+	}
+
+}
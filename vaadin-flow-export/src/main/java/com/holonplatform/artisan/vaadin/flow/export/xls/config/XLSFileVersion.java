@@ -10,19 +10,30 @@ import com.holonplatform.core.i18n.Caption;
 public enum XLSFileVersion {
 
 	@Caption(value = "Excel 95/2003", messageCode = "holon.artisan.export.xls.file.version.xls")
-	XLS("xls"),
+	XLS("xls", 65536),
 
 	@Caption(value = "Excel 2007 or higher", messageCode = "holon.artisan.export.xls.file.version.xlsx")
-	XLSX("xlsx");
+	XLSX("xlsx", 1048576);
 
 	private final String extension;
+	private final int maxRows;
 
-	private XLSFileVersion(String extension) {
+	private XLSFileVersion(String extension, int maxRows) {
 		this.extension = extension;
+		this.maxRows = maxRows;
 	}
 
 	public String getExtension() {
 		return extension;
 	}
 
+	/**
+	 * Get the maximum number of rows of a sheet supported by the file version.
+	 * @return The maximum number of rows of a sheet
+	 * @since 3.0.2
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
 }
@@ -86,6 +86,14 @@ public interface XLSPropertyConfiguration extends Serializable {
 	 */
 	Optional<DecodableMode> getDecodableMode();
 
+	/**
+	 * Get whether to size the property column according to its contents, overriding the
+	 * {@link XLSConfiguration#isAutoWidth()} export setting.
+	 * @return Optional property column auto-width setting, if not present the export setting is used
+	 * @since 3.0.2
+	 */
+	Optional<Boolean> getAutoWidth();
+
 	/**
 	 * Clone this configuration.
 	 * @return Cloned configuration builder
@@ -179,6 +187,16 @@ public interface XLSPropertyConfiguration extends Serializable {
 		 */
 		Builder booleanTextForFalse(String booleanTextForFalse);
 
+		/**
+		 * Set whether to size the property column according to its contents, overriding the
+		 * {@link XLSConfiguration#isAutoWidth()} export setting.
+		 * @param autoWidth Whether to size the property column according to its contents, <code>null</code> to use
+		 *        the export setting
+		 * @return this
+		 * @since 3.0.2
+		 */
+		Builder autoWidth(Boolean autoWidth);
+
 		/**
 		 * Build the {@link XLSPropertyConfiguration}.
 		 * @return The {@link XLSPropertyConfiguration} instance
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.config;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Optional;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.config.DefaultXLSStreamingOptions;
+
+/**
+ * Streaming options for the {@link XLSFileVersion#XLSX} export.
+ * <p>
+ * The XLSX workbook is written using a streaming model: only a window of rows is kept in memory, while the rows which
+ * fall outside the window are flushed to temporary files until the workbook is written to the output stream. These
+ * options allow to tune the memory, disk and CPU footprint of an export.
+ * </p>
+ * <p>
+ * The temporary files directory and the shared strings table option are also used by the streaming
+ * {@link XLSFileVersion#XLS} export engine, see
+ * {@link com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine#streaming(XLSFileVersion)}.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface XLSStreamingOptions extends Serializable {
+
+	/**
+	 * Default row access window size
+	 */
+	static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 10;
+
+	/**
+	 * Default ZIP compression level
+	 */
+	static final int DEFAULT_COMPRESSION_LEVEL = -1;
+
+	/**
+	 * Get the number of rows which are kept in memory before being flushed to the temporary files.
+	 * @return The row access window size
+	 */
+	int getRowAccessWindowSize();
+
+	/**
+	 * Get whether the temporary files should be compressed using GZIP.
+	 * @return Whether the temporary files should be compressed
+	 */
+	boolean isCompressTempFiles();
+
+	/**
+	 * Get the directory to use for the temporary files.
+	 * @return Optional temporary files directory, if not available the system default temporary directory is used
+	 */
+	Optional<File> getTempDirectory();
+
+	/**
+	 * Get whether to use a shared strings table, which reduces the document size when the same text values are
+	 * repeated, at the cost of holding the distinct text values in memory.
+	 * @return Whether to use a shared strings table
+	 */
+	boolean isUseSharedStringsTable();
+
+	/**
+	 * Get the ZIP compression level of the document, from <code>0</code> (no compression) to <code>9</code> (best
+	 * compression).
+	 * @return The ZIP compression level, {@link #DEFAULT_COMPRESSION_LEVEL} for the default compression level
+	 */
+	int getCompressionLevel();
+
+	/**
+	 * Get the default streaming options.
+	 * @return The default streaming options
+	 */
+	static XLSStreamingOptions defaults() {
+		return DefaultXLSStreamingOptions.DEFAULTS;
+	}
+
+	/**
+	 * Get a builder to create a new {@link XLSStreamingOptions}.
+	 * @return A {@link XLSStreamingOptions} builder
+	 */
+	static Builder builder() {
+		return new DefaultXLSStreamingOptions.DefaultBuilder();
+	}
+
+	/**
+	 * XLSStreamingOptions builder.
+	 */
+	public interface Builder {
+
+		/**
+		 * Set the number of rows which are kept in memory before being flushed to the temporary files.
+		 * @param rowAccessWindowSize The row access window size (must be greater than 0)
+		 * @return this
+		 */
+		Builder rowAccessWindowSize(int rowAccessWindowSize);
+
+		/**
+		 * Set whether the temporary files should be compressed using GZIP.
+		 * @param compressTempFiles Whether the temporary files should be compressed
+		 * @return this
+		 */
+		Builder compressTempFiles(boolean compressTempFiles);
+
+		/**
+		 * Set the directory to use for the temporary files.
+		 * @param tempDirectory The temporary files directory, <code>null</code> to use the system default temporary
+		 *        directory
+		 * @return this
+		 */
+		Builder tempDirectory(File tempDirectory);
+
+		/**
+		 * Set whether to use a shared strings table.
+		 * @param useSharedStringsTable Whether to use a shared strings table
+		 * @return this
+		 */
+		Builder useSharedStringsTable(boolean useSharedStringsTable);
+
+		/**
+		 * Set the ZIP compression level of the document.
+		 * @param compressionLevel The compression level, from <code>0</code> to <code>9</code>, or
+		 *        {@link XLSStreamingOptions#DEFAULT_COMPRESSION_LEVEL} for the default compression level
+		 * @return this
+		 */
+		Builder compressionLevel(int compressionLevel);
+
+		/**
+		 * Build the {@link XLSStreamingOptions}.
+		 * @return The {@link XLSStreamingOptions} instance
+		 */
+		XLSStreamingOptions build();
+
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.config;
+
+/**
+ * Aggregate functions which can be used for the <em>total</em> footer of a numeric column.
+ *
+ * @since 3.0.2
+ */
+public enum XLSTotalFunction {
+
+	/**
+	 * Sum of the column values.
+	 */
+	SUM("SUM", 9),
+
+	/**
+	 * Average of the column values.
+	 */
+	AVERAGE("AVERAGE", 1),
+
+	/**
+	 * Minimum column value.
+	 */
+	MIN("MIN", 5),
+
+	/**
+	 * Maximum column value.
+	 */
+	MAX("MAX", 4),
+
+	/**
+	 * Number of the numeric column values.
+	 */
+	COUNT("COUNT", 2);
+
+	private final String formulaFunction;
+	private final int subtotalFunctionNumber;
+
+	private XLSTotalFunction(String formulaFunction, int subtotalFunctionNumber) {
+		this.formulaFunction = formulaFunction;
+		this.subtotalFunctionNumber = subtotalFunctionNumber;
+	}
+
+	/**
+	 * Get the spreadsheet formula function name.
+	 * @return The formula function name
+	 */
+	public String getFormulaFunction() {
+		return formulaFunction;
+	}
+
+	/**
+	 * Get the number which identifies this function as the first argument of a <code>SUBTOTAL</code> formula.
+	 * <p>
+	 * The <code>SUBTOTAL</code> formula ignores the cells of the range which contain other <code>SUBTOTAL</code>
+	 * formulas, so it is used when the rows are grouped to avoid counting the group subtotals twice.
+	 * </p>
+	 * @return The <code>SUBTOTAL</code> function number
+	 */
+	public int getSubtotalFunctionNumber() {
+		return subtotalFunctionNumber;
+	}
+
+}
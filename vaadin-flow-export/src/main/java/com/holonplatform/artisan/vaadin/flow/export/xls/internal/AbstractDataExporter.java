@@ -0,0 +1,522 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.core.exceptions.InterruptedOperationException;
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.SizeEstimationMode;
+import com.holonplatform.core.i18n.Caption;
+import com.holonplatform.core.i18n.Localizable;
+import com.holonplatform.core.i18n.LocalizationContext;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+/**
+ * Base class for the exporters which fetch the export data from a {@link DataProvider} one data page at a time.
+ * <p>
+ * Holds the data fetch configuration shared by the export formats (batch size, prefetch, keyset pagination, size
+ * estimation and progress throttling) and provides the data rows iteration, the export progress notification and the
+ * localization support.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public abstract class AbstractDataExporter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDataExporter.class);
+
+	/**
+	 * Default number of items to fetch for each data page
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 20;
+
+	private final DataProvider<PropertyBox, ?> dataSource;
+	private final PropertySet<?> propertySet;
+
+	private Function<Property<?>, Optional<String>> columnHeaderProvider;
+	private LocalizationContext localizationContext;
+
+	private Supplier<List<QuerySortOrder>> querySortsProvider;
+
+	private Supplier<BatchSizeStrategy> batchSizeStrategy = () -> BatchSizeStrategy.fixed(DEFAULT_BATCH_SIZE);
+
+	private int prefetchQueueDepth = 0;
+	private ThreadFactory prefetchThreadFactory;
+
+	private List<Property<?>> keysetProperties;
+	private Function<PropertyBox, ?> seekFilterProvider;
+
+	private long progressIntervalMillis = 0;
+	private int progressPercentageStep = 0;
+
+	private SizeEstimationMode sizeEstimationMode = SizeEstimationMode.COUNT;
+	private IntSupplier sizeEstimateSupplier;
+
+	/**
+	 * Constructor.
+	 * @param dataSource The {@link DataProvider} to use as data source, <code>null</code> if the concrete exporter
+	 *        provides the export data in another way
+	 * @param propertySet The property set to use (not null)
+	 */
+	protected AbstractDataExporter(DataProvider<PropertyBox, ?> dataSource, PropertySet<?> propertySet) {
+		super();
+		Obj.argumentNotNull(propertySet, "The PropertySet must be not null");
+		this.dataSource = dataSource;
+		this.propertySet = propertySet;
+	}
+
+	/**
+	 * Get the {@link DataProvider} to use as export data source.
+	 * @return The {@link DataProvider}, <code>null</code> if not available
+	 */
+	protected DataProvider<PropertyBox, ?> getDataProvider() {
+		return dataSource;
+	}
+
+	/**
+	 * Get the property set.
+	 * @return the property set
+	 */
+	protected PropertySet<?> getPropertySet() {
+		return propertySet;
+	}
+
+	/**
+	 * Get the column header provider.
+	 * @return the column header provider function, if available
+	 */
+	protected Optional<Function<Property<?>, Optional<String>>> getColumnHeaderProvider() {
+		return Optional.ofNullable(columnHeaderProvider);
+	}
+
+	/**
+	 * Set the column header provider.
+	 * @param columnHeaderProvider the column header provider to set
+	 */
+	protected void setColumnHeaderProvider(Function<Property<?>, Optional<String>> columnHeaderProvider) {
+		this.columnHeaderProvider = columnHeaderProvider;
+	}
+
+	/**
+	 * Get the {@link LocalizationContext} to use.
+	 * @return the localization context to use, if available
+	 */
+	protected Optional<LocalizationContext> getLocalizationContext() {
+		return Optional.ofNullable(localizationContext);
+	}
+
+	/**
+	 * Set the {@link LocalizationContext} to use.
+	 * @param localizationContext the localization context to set
+	 */
+	protected void setLocalizationContext(LocalizationContext localizationContext) {
+		this.localizationContext = localizationContext;
+	}
+
+	/**
+	 * Get the additional query sorts provider, if available
+	 * @return Optional query sorts provider
+	 */
+	protected Optional<Supplier<List<QuerySortOrder>>> getQuerySortsProvider() {
+		return Optional.ofNullable(querySortsProvider);
+	}
+
+	/**
+	 * Set the additional query sorts provider.
+	 * @param querySortsProvider the query sorts provider to set
+	 */
+	protected void setQuerySortsProvider(Supplier<List<QuerySortOrder>> querySortsProvider) {
+		this.querySortsProvider = querySortsProvider;
+	}
+
+	/**
+	 * Set the supplier of the {@link BatchSizeStrategy} to use for each export.
+	 * @param batchSizeStrategy The batch size strategy supplier (not null)
+	 */
+	protected void setBatchSizeStrategy(Supplier<BatchSizeStrategy> batchSizeStrategy) {
+		Obj.argumentNotNull(batchSizeStrategy, "The batch size strategy supplier must be not null");
+		this.batchSizeStrategy = batchSizeStrategy;
+	}
+
+	/**
+	 * Use an {@link AdaptiveBatchSizeStrategy} with given arguments for each export.
+	 * @param minBatchSize The minimum batch size (must be greater than 0)
+	 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+	 * @param targetFetchTimeMillis The target time to spend for each data page fetch, in milliseconds (must be greater
+	 *        than 0)
+	 * @param maxPageMemory The maximum estimated memory footprint of a data page, in bytes (must be greater than 0)
+	 * @throws IllegalArgumentException If an argument is not valid
+	 */
+	protected void setAdaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis,
+			long maxPageMemory) {
+		AdaptiveBatchSizeStrategy.validate(minBatchSize, maxBatchSize, targetFetchTimeMillis, maxPageMemory);
+		setBatchSizeStrategy(() -> new AdaptiveBatchSizeStrategy(minBatchSize, maxBatchSize, targetFetchTimeMillis,
+				maxPageMemory));
+	}
+
+	/**
+	 * Create the {@link BatchSizeStrategy} to use for an export.
+	 * @return A new {@link BatchSizeStrategy}
+	 */
+	protected BatchSizeStrategy createBatchSizeStrategy() {
+		return batchSizeStrategy.get();
+	}
+
+	/**
+	 * Set the export data size estimation mode.
+	 * @param sizeEstimationMode The size estimation mode to set (not null)
+	 */
+	protected void setSizeEstimationMode(SizeEstimationMode sizeEstimationMode) {
+		Obj.argumentNotNull(sizeEstimationMode, "The size estimation mode must be not null");
+		this.sizeEstimationMode = sizeEstimationMode;
+		this.sizeEstimateSupplier = null;
+	}
+
+	/**
+	 * Set the supplier of the estimated export data size, to use instead of counting the data source items.
+	 * @param sizeEstimateSupplier The estimated size supplier (not null)
+	 */
+	protected void setSizeEstimateSupplier(IntSupplier sizeEstimateSupplier) {
+		Obj.argumentNotNull(sizeEstimateSupplier, "The size estimate supplier must be not null");
+		this.sizeEstimateSupplier = sizeEstimateSupplier;
+	}
+
+	/**
+	 * Create the {@link ExportSizeEstimate} to use to compute the progress of an export, according to the size
+	 * estimation mode.
+	 * @return A new {@link ExportSizeEstimate}
+	 */
+	protected ExportSizeEstimate createSizeEstimate() {
+		if (sizeEstimateSupplier != null) {
+			return ExportSizeEstimate.of(sizeEstimateSupplier.getAsInt());
+		}
+		switch (sizeEstimationMode) {
+		case NONE:
+			return ExportSizeEstimate.unknown();
+		case CONCURRENT_COUNT:
+			return ExportSizeEstimate.concurrent(this::countDataRows, ExportSizeEstimate.DEFAULT_THREAD_FACTORY);
+		case COUNT:
+		default:
+			return ExportSizeEstimate.of(countDataRows());
+		}
+	}
+
+	/**
+	 * Count the data source items.
+	 * @return The number of data source items
+	 */
+	protected int countDataRows() {
+		return getDataProvider().size(new Query<>());
+	}
+
+	/**
+	 * Set the progress notifications throttling.
+	 * @param intervalMillis The minimum interval in milliseconds between two progress notifications (greater than or
+	 *        equal to 0)
+	 * @param percentageStep The completion percentage increase which triggers a progress notification (between 0 and
+	 *        100)
+	 */
+	protected void setProgressThrottling(long intervalMillis, int percentageStep) {
+		ThrottledProgressCallback.validate(intervalMillis, percentageStep);
+		this.progressIntervalMillis = intervalMillis;
+		this.progressPercentageStep = percentageStep;
+	}
+
+	/**
+	 * Get the progress callback to use for an export, applying the progress notifications throttling if configured.
+	 * @param exportProgressCallback The export progress callback
+	 * @return The progress callback to use
+	 */
+	protected OperationProgressCallback getProgressCallback(OperationProgressCallback exportProgressCallback) {
+		if (progressIntervalMillis > 0 || progressPercentageStep > 0) {
+			return new ThrottledProgressCallback(exportProgressCallback, progressIntervalMillis,
+					progressPercentageStep);
+		}
+		return exportProgressCallback;
+	}
+
+	/**
+	 * Enable the background prefetch of the export data pages.
+	 * @param queueDepth The maximum number of data pages to fetch in advance (must be greater than 0)
+	 * @param threadFactory The factory to use to create the producer thread (not null)
+	 */
+	protected void setPrefetch(int queueDepth, ThreadFactory threadFactory) {
+		Obj.argumentNotNull(threadFactory, "The prefetch thread factory must be not null");
+		if (queueDepth < 1) {
+			throw new IllegalArgumentException("The prefetch queue depth must be greater than 0");
+		}
+		this.prefetchQueueDepth = queueDepth;
+		this.prefetchThreadFactory = threadFactory;
+	}
+
+	/**
+	 * Get the keyset pagination key properties, if the keyset pagination is enabled.
+	 * @return Optional keyset pagination key properties
+	 */
+	protected Optional<List<Property<?>>> getKeysetProperties() {
+		return Optional.ofNullable(keysetProperties);
+	}
+
+	/**
+	 * Get the keyset pagination seek filter provider, if the keyset pagination is enabled.
+	 * @return Optional keyset pagination seek filter provider
+	 */
+	protected Optional<Function<PropertyBox, ?>> getSeekFilterProvider() {
+		return Optional.ofNullable(seekFilterProvider);
+	}
+
+	/**
+	 * Enable the keyset pagination.
+	 * @param keyProperties The unique key properties which define the data order (not null, not empty)
+	 * @param seekFilterProvider The function to obtain the filter to fetch the items which follow a given item (not
+	 *        null)
+	 */
+	protected void setKeysetPagination(List<Property<?>> keyProperties, Function<PropertyBox, ?> seekFilterProvider) {
+		Obj.argumentNotNull(keyProperties, "The key properties must be not null");
+		Obj.argumentNotNull(seekFilterProvider, "The seek filter provider must be not null");
+		if (keyProperties.isEmpty()) {
+			throw new IllegalArgumentException("At least one key property is required for keyset pagination");
+		}
+		this.keysetProperties = Collections.unmodifiableList(new ArrayList<>(keyProperties));
+		this.seekFilterProvider = seekFilterProvider;
+	}
+
+	/**
+	 * Fetch the export data from the data source and pass each data row to given consumer, updating the export
+	 * progress after each row.
+	 * @param rowConsumer The data row consumer
+	 * @param exportProgressCallback The progress callback
+	 * @param totalSteps Total export steps supplier, which provides <code>0</code> if not available
+	 * @param lastStep Last completed step
+	 * @return The number of data rows
+	 */
+	protected int forEachDataRow(Consumer<PropertyBox> rowConsumer, OperationProgressCallback exportProgressCallback,
+			IntSupplier totalSteps, int lastStep) {
+		return forEachDataRow(rowConsumer, exportProgressCallback, totalSteps, lastStep, null);
+	}
+
+	/**
+	 * Fetch the export data from the data source and pass each data row to given consumer, updating the export
+	 * progress after each row.
+	 * <p>
+	 * When a {@link PageFetchListener} is provided, it is notified with each fetched data page before the page rows
+	 * are passed to the consumer, including the final empty page which signals the end of the data.
+	 * </p>
+	 * @param rowConsumer The data row consumer
+	 * @param exportProgressCallback The progress callback
+	 * @param totalSteps Total export steps supplier, which provides <code>0</code> if not available
+	 * @param lastStep Last completed step
+	 * @param pageListener The listener to notify with the fetched data pages (may be null)
+	 * @return The number of data rows
+	 */
+	protected int forEachDataRow(Consumer<PropertyBox> rowConsumer, OperationProgressCallback exportProgressCallback,
+			IntSupplier totalSteps, int lastStep, PageFetchListener pageListener) {
+		int count = 0;
+		int progressStep = lastStep;
+		try (ExportPageSource pages = createPageSource()) {
+			List<PropertyBox> results = Collections.emptyList();
+			do {
+				final long fetchStart = System.nanoTime();
+				results = pages.nextPage();
+				if (pageListener != null) {
+					pageListener.pageFetched(results, fetchStart);
+				}
+				for (PropertyBox result : results) {
+					count++;
+					rowConsumer.accept(result);
+					final int total = totalSteps.getAsInt();
+					if (total <= 0 || (progressStep + 1) < total) {
+						progressStep++;
+					}
+					updateExportProgress(exportProgressCallback, total, progressStep);
+				}
+			} while (!results.isEmpty());
+		}
+		return count;
+	}
+
+	/**
+	 * Create the {@link ExportPageSource} to use to obtain the export data pages.
+	 * <p>
+	 * The data pages are obtained from the page source provided by {@link #createDataPageSource()}. When the prefetch
+	 * is enabled, the data pages are fetched in background using a {@link PrefetchExportPageSource}.
+	 * </p>
+	 * @return A new {@link ExportPageSource}
+	 */
+	protected ExportPageSource createPageSource() {
+		final ExportPageSource source = createDataPageSource();
+		if (prefetchQueueDepth > 0) {
+			return new PrefetchExportPageSource(source, prefetchQueueDepth, prefetchThreadFactory);
+		}
+		return source;
+	}
+
+	/**
+	 * Create the concrete {@link ExportPageSource} which fetches the export data pages from the data source.
+	 * @return A new {@link ExportPageSource}
+	 */
+	protected ExportPageSource createDataPageSource() {
+		return new DefaultExportPageSource(createDataPager(), createBatchSizeStrategy());
+	}
+
+	/**
+	 * Create the {@link ExportDataPager} to use to fetch the export data from the data source.
+	 * <p>
+	 * When the keyset pagination is enabled, a {@link KeysetExportDataPager} is returned. Otherwise, an
+	 * {@link OffsetExportDataPager} which uses the additional query sorts, if available, is returned.
+	 * </p>
+	 * @return A new {@link ExportDataPager}
+	 */
+	protected ExportDataPager createDataPager() {
+		if (keysetProperties != null) {
+			if (querySortsProvider != null) {
+				LOGGER.debug("Keyset pagination enabled: the additional query sorts will be ignored");
+			}
+			return new KeysetExportDataPager(getDataProvider(), keysetProperties, seekFilterProvider);
+		}
+		final List<QuerySortOrder> sorts = getQuerySortsProvider().map(s -> s.get()).orElse(Collections.emptyList());
+		return new OffsetExportDataPager(getDataProvider(), sorts);
+	}
+
+	/**
+	 * Update the export operation progress.
+	 * @param exportProgressCallback The callback to use
+	 * @param totalSteps Total steps
+	 * @param completedSteps Completed steps
+	 */
+	protected void updateExportProgress(OperationProgressCallback exportProgressCallback, int totalSteps,
+			int completedSteps) {
+		final OperationProgress state = exportProgressCallback.onProgress(totalSteps, completedSteps);
+		if (OperationProgress.ABORT.equals(state)) {
+			throw new InterruptedOperationException("Export interrupted by external request");
+		}
+	}
+
+	/**
+	 * Notify the export operation completion.
+	 * @param exportProgressCallback The callback to use
+	 * @param totalSteps Total export steps supplier, which provides <code>0</code> if not available
+	 */
+	protected void completeExportProgress(OperationProgressCallback exportProgressCallback, IntSupplier totalSteps) {
+		final int total = Math.max(totalSteps.getAsInt(), 1);
+		updateExportProgress(exportProgressCallback, total, total);
+	}
+
+	/**
+	 * Localize given message using the current {@link LocalizationContext}, if available.
+	 * @param message The message to localize
+	 * @return The localized message, or an empty String if the message was <code>null</code>
+	 */
+	protected String localize(Localizable message) {
+		return localize(message, "");
+	}
+
+	/**
+	 * Localize given message using the current {@link LocalizationContext}, if available.
+	 * @param message The message to localize
+	 * @param defaultText The default text to return if the message is <code>null</code>
+	 * @return The localized message, or the default text if the message was <code>null</code>
+	 */
+	protected String localize(Localizable message, String defaultText) {
+		if (message == null) {
+			return defaultText;
+		}
+		Optional<LocalizationContext> ctx = getLocalizationContext();
+		if (!ctx.isPresent()) {
+			ctx = LocalizationContext.getCurrent();
+		}
+		return ctx.map(lc -> lc.getMessage(message, true)).orElseGet(() -> {
+			if (message.getMessage() != null && !message.getMessage().trim().equals("")) {
+				return message.getMessage();
+			}
+			return defaultText;
+		});
+	}
+
+	/**
+	 * Get the text to use to export an enumeration value.
+	 * @param value The enum value
+	 * @return The localized enum caption, using the {@link Caption} annotation if available or the enum value name if
+	 *         not
+	 */
+	protected String getEnumText(Enum<?> value) {
+		return localize(getEnumCaption(value), value.name());
+	}
+
+	/**
+	 * Get given enum localizable caption value, using the {@link Caption} annotation if available.
+	 * @param value The enum value
+	 * @return The enum localizable caption, using the {@link Caption} annotation if available or the enum value name if
+	 *         not
+	 */
+	private static Localizable getEnumCaption(Enum<?> value) {
+		try {
+			final java.lang.reflect.Field field = value.getClass().getField(value.name());
+			if (field.isAnnotationPresent(Caption.class)) {
+				String captionMessage = getStringValue(field.getAnnotation(Caption.class).value());
+				return Localizable.builder().message((captionMessage != null) ? captionMessage : value.name())
+						.messageCode(getStringValue(field.getAnnotation(Caption.class).messageCode())).build();
+			}
+		} catch (@SuppressWarnings("unused") NoSuchFieldException | SecurityException e) {
+			return Localizable.of(value.name());
+		}
+		return Localizable.of(value.name());
+	}
+
+	/**
+	 * Read a string annotation value, treating empty strings as <code>null</code> values
+	 * @param annotationValue Annotation string value
+	 * @return String value, or <code>null</code> if <code>annotationValue</code> is an empty string
+	 */
+	private static String getStringValue(String annotationValue) {
+		return (annotationValue != null && !annotationValue.equals("")) ? annotationValue : null;
+	}
+
+	/**
+	 * Listener notified with the data pages fetched while iterating over the export data rows.
+	 */
+	@FunctionalInterface
+	protected interface PageFetchListener {
+
+		/**
+		 * Invoked when a data page is fetched.
+		 * @param page The fetched data page, empty when there are no more data
+		 * @param fetchStartNanos The {@link System#nanoTime()} value at the fetch start
+		 */
+		void pageFetched(List<PropertyBox> page, long fetchStartNanos);
+
+	}
+
+}
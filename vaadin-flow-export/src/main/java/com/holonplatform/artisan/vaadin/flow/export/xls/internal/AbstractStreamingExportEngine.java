@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Base {@link XLSExportEngine} which streams the worksheet rows as soon as the data rows are fetched from the data
+ * source, using a {@link StreamingSheetWriter} to write the rows and cells with a concrete file format.
+ * <p>
+ * The title, header, group subtotal and total footer rows are written in the same way of the
+ * {@link DefaultXLSExporter}, starting a new worksheet when the maximum number of rows per sheet is reached.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public abstract class AbstractStreamingExportEngine implements XLSExportEngine {
+
+	/**
+	 * Write the worksheets.
+	 * <p>
+	 * When the maximum number of data rows per sheet is reached, the current sheet is completed and the export
+	 * continues in a new sheet.
+	 * </p>
+	 * <p>
+	 * When the rows are grouped, the groups broken by each data row are closed before writing the row, writing the
+	 * group subtotal rows. The open groups are closed when a sheet is completed and when the data rows are ended.
+	 * </p>
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param writer The sheet writer to use
+	 * @return The number of written sheets
+	 * @throws IOException If an I/O error occurred
+	 */
+	protected int writeSheets(XLSExportEngineContext context, StreamingStyles styles, StreamingSheetWriter writer)
+			throws IOException {
+		final int columns = context.getColumnCount();
+		final int maxRowsPerSheet = context.getMaxRowsPerSheet();
+
+		final int[] columnStyles = new int[columns];
+		for (int i = 0; i < columns; i++) {
+			columnStyles[i] = styles.getCellStyle(context.getColumnCellConfiguration(i),
+					context.getColumnDataFormat(i));
+		}
+
+		final XLSGroups groups = writer.getGroups();
+
+		final int[] sheets = new int[] { 1 };
+		final int[] dataStartRow = new int[] { startSheet(context, styles, writer, sheets[0]) };
+		try {
+			context.forEachRow(row -> {
+				try {
+					closeGroups(context, styles, writer, groups.getBreakLevel(row));
+					if (writer.getRowNumber() - dataStartRow[0] + 1 >= maxRowsPerSheet) {
+						closeGroups(context, styles, writer, 0);
+						endSheet(context, styles, writer, dataStartRow[0]);
+						dataStartRow[0] = startSheet(context, styles, writer, ++sheets[0]);
+					}
+					groups.openGroups(writer.getRowNumber() + 1);
+					writer.startRow(groups.getDepth(), true);
+					for (int i = 0; i < columns; i++) {
+						writer.begin(i, columnStyles[i]);
+						context.writeValue(i, row, writer);
+						writer.complete();
+					}
+					writer.endRow();
+					groups.setLastRow(row);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		closeGroups(context, styles, writer, 0);
+		endSheet(context, styles, writer, dataStartRow[0]);
+		return sheets[0];
+	}
+
+	/**
+	 * Start a new worksheet, writing the title and the header rows.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param writer The sheet writer
+	 * @param sheetNumber The sheet number, starting from 1
+	 * @return The first data row number
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static int startSheet(XLSExportEngineContext context, StreamingStyles styles, StreamingSheetWriter writer,
+			int sheetNumber) throws IOException {
+		writer.startSheet(sheetNumber);
+
+		// title
+		final long titleStart = System.nanoTime();
+		final String title = context.getTitle().orElse(null);
+		if (title != null) {
+			writer.startRow();
+			writer.begin(0, styles.getTitleStyle());
+			writer.writeString(title);
+			writer.complete();
+			writer.endRow();
+			context.phaseCompleted(ExportPhase.TITLE, System.nanoTime() - titleStart);
+		}
+
+		// header
+		final long headerStart = System.nanoTime();
+		final XLSColumnWidths columnWidths = writer.getColumnWidths();
+		final boolean sampleHeader = columnWidths.isSampling();
+		writer.startRow();
+		for (int i = 0; i < context.getColumnCount(); i++) {
+			final XLSCellConfiguration headerConfiguration = context.getColumnHeaderConfiguration(i);
+			final String header = context.getColumnHeader(i);
+			writer.begin(i, styles.getCellStyle(headerConfiguration, null));
+			writer.writeString(header);
+			writer.complete();
+			if (sampleHeader) {
+				columnWidths.sampleText(i, header, headerConfiguration);
+			}
+		}
+		if (sampleHeader) {
+			columnWidths.rowSampled();
+		}
+		writer.endRow();
+		context.phaseCompleted(ExportPhase.HEADER, System.nanoTime() - headerStart);
+		return writer.getRowNumber() + 1;
+	}
+
+	/**
+	 * Complete the current worksheet, writing the total footer row if required.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param writer The sheet writer
+	 * @param dataStartRow The first data row number
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static void endSheet(XLSExportEngineContext context, StreamingStyles styles, StreamingSheetWriter writer,
+			int dataStartRow) throws IOException {
+		final int dataEndRow = writer.getRowNumber();
+		if (dataEndRow >= dataStartRow && !context.getConfiguration().getTotalFooterProperties().isEmpty()) {
+			final long totalsStart = System.nanoTime();
+			writeTotalRow(context, styles, writer, dataStartRow, dataEndRow);
+			context.phaseCompleted(ExportPhase.TOTALS, System.nanoTime() - totalsStart);
+		}
+		writer.endSheet();
+	}
+
+	/**
+	 * Write the total footer row, if required.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param writer The sheet writer
+	 * @param dataStartRow The first data row number
+	 * @param dataEndRow The last data row number
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static void writeTotalRow(XLSExportEngineContext context, StreamingStyles styles,
+			StreamingSheetWriter writer, int dataStartRow, int dataEndRow) throws IOException {
+		final XLSConfiguration configuration = context.getConfiguration();
+		if (configuration.getTotalFooterProperties().isEmpty()) {
+			return;
+		}
+		final int totalStyle = styles.getCellStyle(configuration.getTotalConfiguration(), null);
+		final XLSTotals totals = writer.getTotals();
+		final boolean subtotal = writer.getGroups().getDepth() > 0;
+		writer.startRow();
+		for (int i = 0; i < context.getColumnCount(); i++) {
+			writer.begin(i, totalStyle);
+			writeTotal(configuration, writer, totals, i, dataStartRow, dataEndRow, subtotal);
+			writer.complete();
+		}
+		writer.endRow();
+	}
+
+	/**
+	 * Close the open row groups with a level greater or equal to given level, from the innermost one, writing a
+	 * subtotal row for each closed group.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param writer The sheet writer
+	 * @param level The outermost group level to close
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static void closeGroups(XLSExportEngineContext context, StreamingStyles styles,
+			StreamingSheetWriter writer, int level) throws IOException {
+		final XLSGroups groups = writer.getGroups();
+		while (groups.getOpenLevels() > level) {
+			writeSubtotalRow(context, styles, writer, groups.closeGroup());
+		}
+	}
+
+	/**
+	 * Write the subtotal row of the group with given level, which was just closed.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param writer The sheet writer
+	 * @param level The group level
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static void writeSubtotalRow(XLSExportEngineContext context, StreamingStyles styles,
+			StreamingSheetWriter writer, int level) throws IOException {
+		final XLSConfiguration configuration = context.getConfiguration();
+		final XLSGroups groups = writer.getGroups();
+		final XLSTotals totals = groups.getTotals(level);
+		final PropertyBox groupRow = groups.getLastRow();
+		final int firstRow = groups.getFirstRow(level);
+		final int lastRow = writer.getRowNumber();
+		final int totalStyle = styles.getCellStyle(configuration.getTotalConfiguration(), null);
+		writer.startRow(level, false);
+		for (int i = 0; i < context.getColumnCount(); i++) {
+			final int columnLevel = groups.getColumnLevel(i);
+			if (columnLevel >= 0 && columnLevel <= level) {
+				// group value
+				writer.begin(i,
+						styles.getCellStyle(configuration.getTotalConfiguration(), context.getColumnDataFormat(i)));
+				context.writeValue(i, groupRow, writer);
+			} else {
+				writer.begin(i, totalStyle);
+				writeTotal(configuration, writer, totals, i, firstRow, lastRow, true);
+			}
+			writer.complete();
+		}
+		writer.endRow();
+	}
+
+	/**
+	 * Write the total of given column, if a total is provided for the column. Otherwise, a blank cell is written.
+	 * @param configuration Export configuration
+	 * @param writer The sheet writer
+	 * @param totals The totals to use
+	 * @param columnIndex The column index
+	 * @param firstRow The first row number of the total range
+	 * @param lastRow The last row number of the total range
+	 * @param subtotal Whether to use a <code>SUBTOTAL</code> formula, which ignores the group subtotals of the range
+	 */
+	private static void writeTotal(XLSConfiguration configuration, StreamingSheetWriter writer, XLSTotals totals,
+			int columnIndex, int firstRow, int lastRow, boolean subtotal) {
+		if (totals.hasTotal(columnIndex) && writer.isNumericColumn(columnIndex)) {
+			final String formula = configuration.isTotalFormulas()
+					? totals.getFormula(columnIndex, writer.getColumnNames()[columnIndex], firstRow, lastRow, subtotal)
+					: null;
+			writer.writeTotal(formula, totals.getTotal(columnIndex));
+		} else {
+			writer.writeBlank();
+		}
+	}
+
+}
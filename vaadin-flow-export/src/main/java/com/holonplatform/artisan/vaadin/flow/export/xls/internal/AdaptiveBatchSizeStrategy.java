@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.VirtualProperty;
+
+/**
+ * A {@link BatchSizeStrategy} which adapts the batch size to the measured fetch latency and to the estimated memory
+ * footprint of the fetched items.
+ * <p>
+ * After each fetch, the time spent for each item is used to compute the batch size which fills the target fetch time.
+ * The batch size can at most double or halve at each step, it is limited by the maximum page memory and it is always
+ * kept within the configured bounds.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class AdaptiveBatchSizeStrategy implements BatchSizeStrategy {
+
+	/**
+	 * Default target time to spend for each data page fetch, in milliseconds
+	 */
+	public static final long DEFAULT_TARGET_FETCH_TIME_MILLIS = 8;
+
+	/**
+	 * Default maximum estimated memory footprint of a data page, in bytes
+	 */
+	public static final long DEFAULT_MAX_PAGE_MEMORY = 16L * 1024L * 1024L;
+
+	private static final int ITEM_OVERHEAD = 64;
+	private static final int VALUE_OVERHEAD = 24;
+
+	private final int minBatchSize;
+	private final int maxBatchSize;
+	private final long targetFetchNanos;
+	private final long maxPageMemory;
+
+	private int batchSize;
+
+	/**
+	 * Constructor.
+	 * @param minBatchSize The minimum batch size (must be greater than 0)
+	 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+	 * @param targetFetchTimeMillis The target time to spend for each data page fetch, in milliseconds (must be greater
+	 *        than 0)
+	 * @param maxPageMemory The maximum estimated memory footprint of a data page, in bytes (must be greater than 0)
+	 */
+	public AdaptiveBatchSizeStrategy(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis,
+			long maxPageMemory) {
+		super();
+		validate(minBatchSize, maxBatchSize, targetFetchTimeMillis, maxPageMemory);
+		this.minBatchSize = minBatchSize;
+		this.maxBatchSize = maxBatchSize;
+		this.targetFetchNanos = targetFetchTimeMillis * 1000000L;
+		this.maxPageMemory = maxPageMemory;
+		this.batchSize = minBatchSize;
+	}
+
+	/**
+	 * Check the adaptive batch size strategy arguments.
+	 * @param minBatchSize The minimum batch size (must be greater than 0)
+	 * @param maxBatchSize The maximum batch size (must be greater or equal to the minimum batch size)
+	 * @param targetFetchTimeMillis The target time to spend for each data page fetch, in milliseconds (must be greater
+	 *        than 0)
+	 * @param maxPageMemory The maximum estimated memory footprint of a data page, in bytes (must be greater than 0)
+	 * @throws IllegalArgumentException If an argument is not valid
+	 */
+	public static void validate(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis, long maxPageMemory) {
+		if (minBatchSize < 1) {
+			throw new IllegalArgumentException("The minimum batch size must be greater than 0");
+		}
+		if (maxBatchSize < minBatchSize) {
+			throw new IllegalArgumentException("The maximum batch size must be greater or equal to the minimum one");
+		}
+		if (targetFetchTimeMillis < 1) {
+			throw new IllegalArgumentException("The target fetch time must be greater than 0");
+		}
+		if (maxPageMemory < 1) {
+			throw new IllegalArgumentException("The maximum page memory must be greater than 0");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.BatchSizeStrategy#getBatchSize()
+	 */
+	@Override
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.BatchSizeStrategy#pageFetched(java.util.List,
+	 * long)
+	 */
+	@Override
+	public void pageFetched(List<PropertyBox> page, long fetchNanos) {
+		if (page == null || page.isEmpty()) {
+			return;
+		}
+		// latency
+		final long nanosPerItem = Math.max(1L, fetchNanos / page.size());
+		long next = targetFetchNanos / nanosPerItem;
+		next = Math.max(batchSize / 2, Math.min(next, batchSize * 2L));
+		// memory
+		final long itemSize = estimateSize(page.get(0));
+		next = Math.min(next, Math.max(1L, maxPageMemory / itemSize));
+		batchSize = (int) Math.max(minBatchSize, Math.min(next, maxBatchSize));
+	}
+
+	/**
+	 * Estimate the memory footprint of given item, in bytes.
+	 * <p>
+	 * The estimation is a rough approximation, based on the item value types. Virtual property values are not
+	 * considered.
+	 * </p>
+	 * @param item The item
+	 * @return The estimated item size
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected long estimateSize(PropertyBox item) {
+		long size = ITEM_OVERHEAD;
+		for (Property property : item) {
+			size += VALUE_OVERHEAD;
+			if (!(property instanceof VirtualProperty) && item.containsValue(property)) {
+				size += estimateValueSize(item.getValue(property));
+			}
+		}
+		return size;
+	}
+
+	private static long estimateValueSize(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof CharSequence) {
+			return 40 + ((CharSequence) value).length();
+		}
+		if (value instanceof BigDecimal || value instanceof BigInteger) {
+			return 48;
+		}
+		if (value instanceof Number || value instanceof Boolean || value instanceof Enum) {
+			return 16;
+		}
+		if (value instanceof byte[]) {
+			return 16 + ((byte[]) value).length;
+		}
+		return 48;
+	}
+
+}
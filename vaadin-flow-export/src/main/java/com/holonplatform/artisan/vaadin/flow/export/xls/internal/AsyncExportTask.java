@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.AbortableProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+
+/**
+ * Runs an export asynchronously using an {@link Executor}, providing the export {@link ExportResult} through a
+ * {@link CompletableFuture}.
+ * <p>
+ * The export can be cancelled using {@link CompletableFuture#cancel(boolean)}: the cancellation is detected at the
+ * next exported data row, which aborts the export, regardless of the progress notifications throttling.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class AsyncExportTask {
+
+	/**
+	 * An export operation.
+	 */
+	@FunctionalInterface
+	public interface ExportOperation {
+
+		/**
+		 * Export the data to the provided {@link OutputStream}.
+		 * @param outputStream The output stream
+		 * @param exportProgressCallback The progress callback
+		 * @return The exported data rows count, <code>-1</code> if not available
+		 * @throws ExportException If an error occurred
+		 */
+		long export(OutputStream outputStream, OperationProgressCallback exportProgressCallback)
+				throws ExportException;
+
+	}
+
+	private AsyncExportTask() {
+	}
+
+	/**
+	 * Submit an export operation to given executor.
+	 * @param outputStream The output stream (not null)
+	 * @param exportProgressCallback The progress callback (not null)
+	 * @param executor The executor to use (not null)
+	 * @param operation The export operation (not null)
+	 * @return The {@link CompletableFuture} which is completed with the export result, or exceptionally with the
+	 *         export error
+	 */
+	public static CompletableFuture<ExportResult> submit(OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback, Executor executor, ExportOperation operation) {
+		Obj.argumentNotNull(outputStream, "The data output stream must be not null");
+		Obj.argumentNotNull(exportProgressCallback, "The export progres callback must be not null");
+		Obj.argumentNotNull(executor, "The executor must be not null");
+		Obj.argumentNotNull(operation, "The export operation must be not null");
+		final CompletableFuture<ExportResult> future = new CompletableFuture<>();
+		// abort the export when the future is cancelled
+		final OperationProgressCallback callback = AbortableProgressCallback.create(exportProgressCallback,
+				future::isCancelled);
+		try {
+			executor.execute(() -> {
+				if (future.isDone()) {
+					return;
+				}
+				final long start = System.nanoTime();
+				final CountingOutputStream os = new CountingOutputStream(outputStream);
+				try {
+					final long rows = operation.export(os, callback);
+					future.complete(
+							new DefaultExportResult(rows, os.getCount(), Duration.ofNanos(System.nanoTime() - start)));
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Get the default asynchronous export executor.
+	 * <p>
+	 * When the Java runtime supports virtual threads, the executor starts a new virtual thread for each export.
+	 * Otherwise, a cached pool of daemon platform threads is used.
+	 * </p>
+	 * @return The default executor
+	 */
+	public static Executor getDefaultExecutor() {
+		return DefaultExecutorHolder.EXECUTOR;
+	}
+
+	private static final class DefaultExecutorHolder {
+
+		static final ExecutorService EXECUTOR = createDefaultExecutor();
+
+		private static ExecutorService createDefaultExecutor() {
+			try {
+				final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) method.invoke(null);
+			} catch (Exception e) {
+				// virtual threads not supported
+				final AtomicInteger counter = new AtomicInteger();
+				final ThreadFactory threadFactory = r -> {
+					final Thread thread = new Thread(r, "export-async-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				};
+				return Executors.newCachedThreadPool(threadFactory);
+			}
+		}
+
+	}
+
+}
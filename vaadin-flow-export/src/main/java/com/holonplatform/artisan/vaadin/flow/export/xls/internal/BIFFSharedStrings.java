@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The BIFF8 shared strings table (<code>SST</code> record) of a streaming XLS export.
+ * <p>
+ * The strings are written into a temporary file as soon as they are added, splitting the table into
+ * <code>CONTINUE</code> records when the maximum record size is reached, so that only a bounded cache of the strings is
+ * held in memory. When the <code>deduplicate</code> mode is enabled, all the distinct strings are kept in memory and
+ * each string is written only once. Otherwise, a string may be written more than once in the table.
+ * </p>
+ * <p>
+ * The strings longer than {@link #MAX_STRING_LENGTH} characters, which is the max length of a cell text, are
+ * truncated.
+ * </p>
+ * <p>
+ * The <code>EXTSST</code> record, which lists the position of one string every {@link #getBucketSize()} strings, is
+ * written after the table by {@link #write(BIFFWriter)}.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class BIFFSharedStrings implements Closeable {
+
+	private static final int SST = 0x00FC;
+	private static final int CONTINUE = 0x003C;
+	private static final int EXTSST = 0x00FF;
+
+	/**
+	 * Max string length, in characters
+	 */
+	public static final int MAX_STRING_LENGTH = 32767;
+
+	/**
+	 * Max number of cached strings when the deduplicate mode is not enabled
+	 */
+	private static final int CACHE_SIZE = 1024;
+
+	/**
+	 * Max number of <code>EXTSST</code> buckets
+	 */
+	private static final int MAX_BUCKETS = 256;
+
+	private final File file;
+	private final OutputStream out;
+	private final BIFFWriter writer;
+	private final boolean deduplicate;
+
+	private final Map<String, Integer> indexes = new HashMap<>();
+
+	private int totalCount = 0;
+	private int uniqueCount = 0;
+	private boolean continued = false;
+	private boolean completed = false;
+
+	private int bucketSize = 8;
+	private int buckets = 0;
+	private final long[] bucketPositions = new long[MAX_BUCKETS];
+	private final int[] bucketOffsets = new int[MAX_BUCKETS];
+
+	/**
+	 * Constructor.
+	 * @param file The temporary file to use
+	 * @param deduplicate Whether to write each distinct string only once
+	 * @throws IOException If an I/O error occurred
+	 */
+	public BIFFSharedStrings(File file, boolean deduplicate) throws IOException {
+		super();
+		this.file = file;
+		this.out = new BufferedOutputStream(new FileOutputStream(file));
+		this.writer = new BIFFWriter(out);
+		this.deduplicate = deduplicate;
+		// total and unique strings count, updated when completed
+		writer.begin().putInt(0).putInt(0);
+	}
+
+	/**
+	 * Get the number of strings for each <code>EXTSST</code> bucket.
+	 * @return the bucket size
+	 */
+	public int getBucketSize() {
+		return bucketSize;
+	}
+
+	/**
+	 * Get the shared string index of given string, adding it to the table if not available.
+	 * <p>
+	 * The strings longer than {@link #MAX_STRING_LENGTH} characters are truncated.
+	 * </p>
+	 * @param value The string value (not null)
+	 * @return The shared string index
+	 * @throws IOException If an I/O error occurred
+	 */
+	public int add(String value) throws IOException {
+		final String text = truncate(value);
+		totalCount++;
+		final Integer index = indexes.get(text);
+		if (index != null) {
+			return index;
+		}
+		if (!deduplicate && indexes.size() >= CACHE_SIZE) {
+			indexes.clear();
+		}
+		final int newIndex = uniqueCount++;
+		writeString(newIndex, text);
+		indexes.put(text, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Get the size in bytes of the <code>SST</code>, <code>CONTINUE</code> and <code>EXTSST</code> records. No more
+	 * strings can be added after this method is invoked.
+	 * @return The records size
+	 * @throws IOException If an I/O error occurred
+	 */
+	public long getSize() throws IOException {
+		complete();
+		return writer.getPosition() + 6 + 8 * buckets;
+	}
+
+	/**
+	 * Write the <code>SST</code>, <code>CONTINUE</code> and <code>EXTSST</code> records. No more strings can be added
+	 * after this method is invoked.
+	 * @param target The writer to use
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void write(BIFFWriter target) throws IOException {
+		complete();
+		final long position = target.getPosition();
+		final byte[] buffer = new byte[8192];
+		try (InputStream is = Files.newInputStream(file.toPath())) {
+			int read;
+			while ((read = is.read(buffer)) > 0) {
+				target.writeRaw(buffer, 0, read);
+			}
+		}
+		target.begin().putShort(bucketSize);
+		for (int i = 0; i < buckets; i++) {
+			target.putInt((int) (position + bucketPositions[i])).putShort(bucketOffsets[i]).putShort(0);
+		}
+		target.end(EXTSST);
+	}
+
+	private static String truncate(String value) {
+		if (value.length() <= MAX_STRING_LENGTH) {
+			return value;
+		}
+		// do not split a surrogate pair
+		final int length = Character.isHighSurrogate(value.charAt(MAX_STRING_LENGTH - 1)) ? MAX_STRING_LENGTH - 1
+				: MAX_STRING_LENGTH;
+		return value.substring(0, length);
+	}
+
+	private void writeString(int index, String value) throws IOException {
+		final boolean highByte = BIFFWriter.hasHighByte(value);
+		final int charSize = highByte ? 2 : 1;
+		// the string header and the first character cannot be split
+		if (writer.getRecordSize() + 3 + ((value.length() > 0) ? charSize : 0) > BIFFWriter.MAX_RECORD_DATA_SIZE) {
+			nextRecord();
+		}
+		if (index % bucketSize == 0) {
+			addBucket(writer.getPosition() + 4 + writer.getRecordSize(), 4 + writer.getRecordSize());
+		}
+		writer.putShort(value.length()).putByte(highByte ? 1 : 0);
+		int start = 0;
+		while (start < value.length()) {
+			final int available = (BIFFWriter.MAX_RECORD_DATA_SIZE - writer.getRecordSize()) / charSize;
+			final int end = Math.min(value.length(), start + available);
+			writer.putChars(value, start, end, highByte);
+			start = end;
+			if (start < value.length()) {
+				// a continued string starts with the options flags
+				nextRecord();
+				writer.putByte(highByte ? 1 : 0);
+			}
+		}
+	}
+
+	private void addBucket(long position, int offset) {
+		if (buckets == MAX_BUCKETS) {
+			// keep one bucket every two buckets
+			for (int i = 0; i < MAX_BUCKETS / 2; i++) {
+				bucketPositions[i] = bucketPositions[i * 2];
+				bucketOffsets[i] = bucketOffsets[i * 2];
+			}
+			buckets = MAX_BUCKETS / 2;
+			bucketSize *= 2;
+			if ((uniqueCount - 1) % bucketSize != 0) {
+				return;
+			}
+		}
+		bucketPositions[buckets] = position;
+		bucketOffsets[buckets] = offset;
+		buckets++;
+	}
+
+	private void nextRecord() throws IOException {
+		writer.end(continued ? CONTINUE : SST);
+		writer.begin();
+		continued = true;
+	}
+
+	private void complete() throws IOException {
+		if (!completed) {
+			completed = true;
+			writer.end(continued ? CONTINUE : SST);
+			out.close();
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.seek(4);
+				raf.write(toBytes(totalCount));
+				raf.write(toBytes(uniqueCount));
+			}
+		}
+	}
+
+	private static byte[] toBytes(int value) {
+		return new byte[] { (byte) value, (byte) (value >>> 8), (byte) (value >>> 16), (byte) (value >>> 24) };
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!completed) {
+			completed = true;
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellBorder;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellRotation;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSColor;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFontSize;
+
+/**
+ * The cell styles registry of a BIFF8 workbook, used by the {@link StreamingXLSExportEngine}.
+ * <p>
+ * Each cell style is registered from a {@link XLSCellConfiguration} and an optional data format, applying the export
+ * configuration defaults in the same way of the {@link DefaultXLSExporter}. Fonts, number formats and cell formats are
+ * de-duplicated and written as <code>FONT</code>, <code>FORMAT</code>, <code>XF</code> and <code>STYLE</code> records
+ * by {@link #write(BIFFWriter)}, after the default records written by the Apache POI HSSF workbook model.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class BIFFStyles implements StreamingStyles {
+
+	private static final int FONT = 0x0031;
+	private static final int FORMAT = 0x041E;
+	private static final int XF = 0x00E0;
+	private static final int STYLE = 0x0293;
+
+	private static final String FONT_NAME = "Arial";
+	private static final int DEFAULT_FONT_HEIGHT = 200;
+	private static final int DEFAULT_FONTS = 4;
+	private static final int DEFAULT_CELL_STYLE = 15;
+	private static final int DEFAULT_CELL_STYLES = 21;
+	private static final int TITLE_FONT_SIZE = 14;
+	private static final int FIRST_CUSTOM_FORMAT_ID = 164;
+	private static final int MAX_CELL_STYLES = SpreadsheetVersion.EXCEL97.getMaxCellStyles();
+
+	private static final int AUTOMATIC_FONT_COLOR = 0x7FFF;
+	private static final int DEFAULT_BORDER_COLOR = 0x08;
+	private static final int DEFAULT_BACKGROUND_COLOR = 0x41;
+
+	private final XLSConfiguration configuration;
+
+	// font: bold, italic, underline, strikeout, height, color
+	private final Map<List<Integer>, Integer> fonts = new LinkedHashMap<>();
+	private final Map<String, Integer> formats = new LinkedHashMap<>();
+	// cell format: font, format, alignment, rotation, indent, border, border and fill colors, fill color
+	private final Map<List<Integer>, Integer> cellFormats = new LinkedHashMap<>();
+
+	private final Map<XLSStyleKey, Integer> styles = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param configuration The export configuration (not null)
+	 */
+	public BIFFStyles(XLSConfiguration configuration) {
+		super();
+		this.configuration = configuration;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getCellStyle(com.holonplatform.
+	 * artisan.vaadin.flow.export.xls.config.XLSCellConfiguration, java.lang.String)
+	 */
+	@Override
+	public int getCellStyle(XLSCellConfiguration cellConfiguration, String dataFormat) {
+		final XLSStyleKey key = new XLSStyleKey(cellConfiguration, dataFormat);
+		final Integer style = styles.get(key);
+		if (style != null) {
+			return style;
+		}
+		// when the maximum number of cell styles is reached, the default cell style is used
+		final int index = (DEFAULT_CELL_STYLES + cellFormats.size() < MAX_CELL_STYLES)
+				? registerCellStyle(cellConfiguration, dataFormat)
+				: DEFAULT_CELL_STYLE;
+		styles.put(key, index);
+		return index;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getCellStyleCount()
+	 */
+	@Override
+	public int getCellStyleCount() {
+		return cellFormats.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getFontCount()
+	 */
+	@Override
+	public int getFontCount() {
+		return fonts.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getTitleStyle()
+	 */
+	@Override
+	public int getTitleStyle() {
+		final int size = !configuration.getTitleFontSize().isAuto() ? configuration.getTitleFontSize().getPoints()
+				: TITLE_FONT_SIZE;
+		final int font = registerFont(true, false, false, false, size * 20, configuration.getTitleFontColor());
+		return registerCellFormat(font, 0, 0x20, 0, 0, (DEFAULT_BORDER_COLOR << 16) | (DEFAULT_BORDER_COLOR << 23),
+				DEFAULT_BORDER_COLOR | (DEFAULT_BORDER_COLOR << 7), XLSColor.AUTOMATIC.getIndex1());
+	}
+
+	/**
+	 * Write the <code>FONT</code>, <code>FORMAT</code>, <code>XF</code> and <code>STYLE</code> records.
+	 * @param writer The writer to use
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void write(BIFFWriter writer) throws IOException {
+		// fonts
+		for (int i = 0; i < DEFAULT_FONTS; i++) {
+			writeFont(writer, Arrays.asList(0, 0, 0, 0, DEFAULT_FONT_HEIGHT, AUTOMATIC_FONT_COLOR));
+		}
+		for (List<Integer> font : fonts.keySet()) {
+			writeFont(writer, font);
+		}
+		// formats
+		for (Entry<String, Integer> format : formats.entrySet()) {
+			writer.begin().putShort(format.getValue()).putString(format.getKey(), false).end(FORMAT);
+		}
+		// default cell formats
+		for (int i = 0; i < DEFAULT_CELL_STYLES; i++) {
+			writeDefaultCellFormat(writer, i);
+		}
+		for (List<Integer> cellFormat : cellFormats.keySet()) {
+			writer.begin().putShort(cellFormat.get(0)).putShort(cellFormat.get(1)).putShort(0x0001)
+					.putByte(cellFormat.get(2)).putByte(cellFormat.get(3)).putByte(cellFormat.get(4)).putByte(0)
+					.putInt(cellFormat.get(5)).putInt(cellFormat.get(6))
+					.putShort(cellFormat.get(7) | (DEFAULT_BACKGROUND_COLOR << 7)).end(XF);
+		}
+		// default styles
+		writeStyle(writer, 0x10, 3);
+		writeStyle(writer, 0x11, 6);
+		writeStyle(writer, 0x12, 4);
+		writeStyle(writer, 0x13, 7);
+		writeStyle(writer, 0x00, 0);
+		writeStyle(writer, 0x14, 5);
+	}
+
+	private static void writeFont(BIFFWriter writer, List<Integer> font) throws IOException {
+		final int options = (font.get(1) != 0 ? 0x02 : 0) | (font.get(3) != 0 ? 0x08 : 0);
+		writer.begin().putShort(font.get(4)).putShort(options).putShort(font.get(5))
+				.putShort(font.get(0) != 0 ? 700 : 400).putShort(0).putByte(font.get(2)).putByte(0).putByte(0)
+				.putByte(0).putString(FONT_NAME, true).end(FONT);
+	}
+
+	private static void writeDefaultCellFormat(BIFFWriter writer, int index) throws IOException {
+		int font = 0;
+		int format = 0;
+		int options = 0xFFF5;
+		int indent = 0xF400;
+		if (index == 0) {
+			indent = 0;
+		} else if (index <= 2) {
+			font = 1;
+		} else if (index <= 4) {
+			font = 2;
+		} else if (index == DEFAULT_CELL_STYLE) {
+			options = 0x0001;
+			indent = 0;
+		} else if (index > DEFAULT_CELL_STYLE) {
+			font = 1;
+			format = new int[] { 0x2B, 0x29, 0x2C, 0x2A, 0x09 }[index - DEFAULT_CELL_STYLE - 1];
+			indent = 0xF800;
+		}
+		writer.begin().putShort(font).putShort(format).putShort(options).putShort(0x20).putShort(indent).putInt(0)
+				.putInt(0).putShort(0x20C0).end(XF);
+	}
+
+	private static void writeStyle(BIFFWriter writer, int cellFormat, int builtin) throws IOException {
+		writer.begin().putShort(0x8000 | cellFormat).putByte(builtin).putByte(0xFF).end(STYLE);
+	}
+
+	private int registerCellStyle(XLSCellConfiguration cellConfiguration, String dataFormat) {
+		// font
+		final XLSFontSize size = !cellConfiguration.getFontSize().isAuto() ? cellConfiguration.getFontSize()
+				: configuration.getDefaultFontSize();
+		final int font = registerFont(cellConfiguration.isBold(), cellConfiguration.isItalic(),
+				cellConfiguration.isUnderline(), cellConfiguration.isStrikeOut(),
+				size.isAuto() ? DEFAULT_FONT_HEIGHT : size.getPoints() * 20, cellConfiguration.getFontColor());
+		// alignment
+		int alignment = DefaultXLSExporter.convert(cellConfiguration.getAlignment()).getCode();
+		if (cellConfiguration.isWrap() || configuration.isWrapByDefault()) {
+			alignment |= 0x08;
+		}
+		alignment |= DefaultXLSExporter.convert(cellConfiguration.getVerticalAlignment()).getCode() << 4;
+		int rotation = 0;
+		if (cellConfiguration.getRotation() != XLSCellRotation.NONE) {
+			final int degrees = cellConfiguration.getRotation().getDegrees();
+			rotation = (degrees < 0) ? (90 - degrees) : degrees;
+		}
+		final int indent = (cellConfiguration.isShrinkToFit() || configuration.isShrinkToFitByDefault()) ? 0x10 : 0;
+		// border
+		final int border = border(cellConfiguration.getBorderLeft()) | (border(cellConfiguration.getBorderRight()) << 4)
+				| (border(cellConfiguration.getBorderTop()) << 8) | (border(cellConfiguration.getBorderBottom()) << 12)
+				| (color(cellConfiguration.getBorderLeft(), cellConfiguration.getBorderLeftColor()) << 16)
+				| (color(cellConfiguration.getBorderRight(), cellConfiguration.getBorderRightColor()) << 23);
+		// fill
+		final boolean fill = !cellConfiguration.getBackgroundColor().isAuto();
+		final int borderFill = color(cellConfiguration.getBorderTop(), cellConfiguration.getBorderTopColor())
+				| (color(cellConfiguration.getBorderBottom(), cellConfiguration.getBorderBottomColor()) << 7)
+				| (fill ? (1 << 26) : 0);
+		final int fillColor = fill ? cellConfiguration.getBackgroundColor().getIndex1()
+				: XLSColor.AUTOMATIC.getIndex1();
+		return registerCellFormat(font, getFormatId(dataFormat), alignment, rotation, indent, border, borderFill,
+				fillColor);
+	}
+
+	private int registerCellFormat(int font, int format, int alignment, int rotation, int indent, int border,
+			int borderFill, int fillColor) {
+		return cellFormats.computeIfAbsent(
+				Arrays.asList(font, format, alignment, rotation, indent, border, borderFill, fillColor),
+				f -> DEFAULT_CELL_STYLES + cellFormats.size());
+	}
+
+	private int registerFont(boolean bold, boolean italic, boolean underline, boolean strikeout, int height,
+			XLSColor color) {
+		final int fontColor = (color != null && !color.isAuto()) ? color.getIndex1() : AUTOMATIC_FONT_COLOR;
+		// the font index 4 is not used
+		return fonts.computeIfAbsent(Arrays.asList(bold ? 1 : 0, italic ? 1 : 0, underline ? 1 : 0,
+				strikeout ? 1 : 0, height, fontColor), f -> DEFAULT_FONTS + 1 + fonts.size());
+	}
+
+	private int getFormatId(String dataFormat) {
+		if (dataFormat == null || dataFormat.trim().equals("")) {
+			return 0;
+		}
+		final int builtin = BuiltinFormats.getBuiltinFormat(dataFormat);
+		if (builtin >= 0) {
+			return builtin;
+		}
+		return formats.computeIfAbsent(dataFormat, f -> FIRST_CUSTOM_FORMAT_ID + formats.size());
+	}
+
+	private static int border(XLSCellBorder border) {
+		return DefaultXLSExporter.convert(border).getCode();
+	}
+
+	private static int color(XLSCellBorder border, XLSColor color) {
+		return (border != XLSCellBorder.NONE && color != null && !color.isAuto()) ? color.getIndex1()
+				: DEFAULT_BORDER_COLOR;
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writer of BIFF8 records, the binary records which compose the Excel 97-2003 workbook stream.
+ * <p>
+ * A record is composed using the <code>put*</code> methods after {@link #begin()}, and written into the output stream
+ * with its header by {@link #end(int)}. All values are written using the little-endian byte order.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class BIFFWriter {
+
+	/**
+	 * Max record data size
+	 */
+	public static final int MAX_RECORD_DATA_SIZE = 8224;
+
+	private final OutputStream out;
+	private final byte[] data = new byte[MAX_RECORD_DATA_SIZE + 4];
+
+	private int length;
+	private long position;
+
+	/**
+	 * Constructor.
+	 * @param out The output stream to write to
+	 */
+	public BIFFWriter(OutputStream out) {
+		super();
+		this.out = out;
+	}
+
+	/**
+	 * Get the number of bytes written into the output stream.
+	 * @return the stream position
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Get the data size of the current record.
+	 * @return the current record data size
+	 */
+	public int getRecordSize() {
+		return length;
+	}
+
+	/**
+	 * Begin a new record.
+	 * @return this
+	 */
+	public BIFFWriter begin() {
+		length = 0;
+		return this;
+	}
+
+	/**
+	 * Put a byte value into the current record.
+	 * @param value The value
+	 * @return this
+	 */
+	public BIFFWriter putByte(int value) {
+		data[length++] = (byte) value;
+		return this;
+	}
+
+	/**
+	 * Put a 2 bytes value into the current record.
+	 * @param value The value
+	 * @return this
+	 */
+	public BIFFWriter putShort(int value) {
+		data[length++] = (byte) value;
+		data[length++] = (byte) (value >>> 8);
+		return this;
+	}
+
+	/**
+	 * Put a 4 bytes value into the current record.
+	 * @param value The value
+	 * @return this
+	 */
+	public BIFFWriter putInt(int value) {
+		putShort(value);
+		putShort(value >>> 16);
+		return this;
+	}
+
+	/**
+	 * Put a IEEE 754 floating point value into the current record.
+	 * @param value The value
+	 * @return this
+	 */
+	public BIFFWriter putDouble(double value) {
+		final long bits = Double.doubleToLongBits(value);
+		putInt((int) bits);
+		putInt((int) (bits >>> 32));
+		return this;
+	}
+
+	/**
+	 * Put given bytes into the current record.
+	 * @param bytes The bytes
+	 * @param offset The bytes offset
+	 * @param count The bytes count
+	 * @return this
+	 */
+	public BIFFWriter putBytes(byte[] bytes, int offset, int count) {
+		System.arraycopy(bytes, offset, data, length, count);
+		length += count;
+		return this;
+	}
+
+	/**
+	 * Put a unicode string into the current record, using a 1 byte (<code>ShortXLUnicodeString</code>) or a 2 bytes
+	 * (<code>XLUnicodeString</code>) characters count.
+	 * @param value The string value
+	 * @param shortCount Whether to use a 1 byte characters count
+	 * @return this
+	 */
+	public BIFFWriter putString(String value, boolean shortCount) {
+		if (shortCount) {
+			putByte(value.length());
+		} else {
+			putShort(value.length());
+		}
+		final boolean highByte = hasHighByte(value);
+		putByte(highByte ? 1 : 0);
+		putChars(value, 0, value.length(), highByte);
+		return this;
+	}
+
+	/**
+	 * Put the characters of given string into the current record, without any header.
+	 * @param value The string value
+	 * @param start The first character index
+	 * @param end The last character index, exclusive
+	 * @param highByte Whether to use 2 bytes per character (UTF-16LE) or 1 byte per character (ISO-8859-1)
+	 * @return this
+	 */
+	public BIFFWriter putChars(String value, int start, int end, boolean highByte) {
+		for (int i = start; i < end; i++) {
+			final char c = value.charAt(i);
+			if (highByte) {
+				putShort(c);
+			} else {
+				putByte(c);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Write the current record, with given record type.
+	 * @param sid The record type
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void end(int sid) throws IOException {
+		out.write(sid & 0xFF);
+		out.write((sid >>> 8) & 0xFF);
+		out.write(length & 0xFF);
+		out.write((length >>> 8) & 0xFF);
+		out.write(data, 0, length);
+		position += length + 4;
+		length = 0;
+	}
+
+	/**
+	 * Write a record with given type and 2 bytes value.
+	 * @param sid The record type
+	 * @param value The record value
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeShortRecord(int sid, int value) throws IOException {
+		begin().putShort(value).end(sid);
+	}
+
+	/**
+	 * Write given bytes into the output stream, without any record header.
+	 * @param bytes The bytes to write
+	 * @param offset The bytes offset
+	 * @param count The bytes count
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeRaw(byte[] bytes, int offset, int count) throws IOException {
+		out.write(bytes, offset, count);
+		position += count;
+	}
+
+	/**
+	 * Checks whether given string contains characters which cannot be written using 1 byte per character.
+	 * @param value The string value
+	 * @return <code>true</code> if the string must be written using 2 bytes per character
+	 */
+	public static boolean hasHighByte(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) > 0xFF) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Strategy to obtain the number of items to fetch from the export data source for each data page.
+ * <p>
+ * A strategy may be stateful and it is meant to be used for a single export operation.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface BatchSizeStrategy {
+
+	/**
+	 * Get the number of items to fetch for the next data page.
+	 * @return The next data page size
+	 */
+	int getBatchSize();
+
+	/**
+	 * Notify that a data page was fetched.
+	 * @param page The fetched page items
+	 * @param fetchNanos The time spent to fetch the page, in nanoseconds
+	 */
+	default void pageFetched(List<PropertyBox> page, long fetchNanos) {
+		// noop by default
+	}
+
+	/**
+	 * Create a {@link BatchSizeStrategy} which always returns the same batch size.
+	 * @param batchSize The batch size (must be greater than 0)
+	 * @return A new {@link BatchSizeStrategy}
+	 */
+	static BatchSizeStrategy fixed(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be greater than 0");
+		}
+		return () -> batchSize;
+	}
+
+}
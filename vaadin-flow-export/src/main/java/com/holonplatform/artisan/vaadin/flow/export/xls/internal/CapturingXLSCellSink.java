@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+
+/**
+ * A {@link XLSCellSink} which captures the written value as a {@link XLSValue}, used to adapt a
+ * {@link PropertyXLSValueWriter} to the {@link XLSValue} based provider contract.
+ *
+ * @since 3.0.2
+ */
+public class CapturingXLSCellSink implements XLSCellSink {
+
+	private XLSValue<?> value;
+	private String dataFormat;
+
+	/**
+	 * Get the captured value.
+	 * @return The captured value, a <code>null</code> String value if no value was written
+	 */
+	public XLSValue<?> getValue() {
+		return (value != null) ? value : XLSValue.stringValue(null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeBlank()
+	 */
+	@Override
+	public void writeBlank() {
+		value = XLSValue.stringValue(null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeNumber(double)
+	 */
+	@Override
+	public void writeNumber(double value) {
+		this.value = XLSValue.numericValue(Double.class, value, dataFormat);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeNumber(java.lang.Number)
+	 */
+	@Override
+	public void writeNumber(Number value) {
+		this.value = (value != null) ? XLSValue.numericValue(value.getClass(), value, dataFormat)
+				: XLSValue.stringValue(null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeBoolean(boolean)
+	 */
+	@Override
+	public void writeBoolean(boolean value) {
+		this.value = XLSValue.booleanValue(value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeString(java.lang.String)
+	 */
+	@Override
+	public void writeString(String value) {
+		this.value = XLSValue.stringValue(value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeDateSerial(double)
+	 */
+	@Override
+	public void writeDateSerial(double serial) {
+		this.value = XLSValue.localDateTimeValue(DateUtil.getLocalDateTime(serial), dataFormat);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeFormula(java.lang.String)
+	 */
+	@Override
+	public void writeFormula(String formula) {
+		this.value = XLSValue.formulaValue(formula);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeValue(com.holonplatform.artisan.vaadin.flow.
+	 * export.xls.XLSValue)
+	 */
+	@Override
+	public void writeValue(XLSValue<?> value) {
+		this.value = value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#setDataFormat(java.lang.String)
+	 */
+	@Override
+	public void setDataFormat(String dataFormat) {
+		this.dataFormat = dataFormat;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} which counts the written bytes.
+ *
+ * @since 3.0.2
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+	private long count = 0;
+
+	/**
+	 * Constructor.
+	 * @param out The concrete output stream
+	 */
+	public CountingOutputStream(OutputStream out) {
+		super(out);
+	}
+
+	/**
+	 * Get the number of written bytes.
+	 * @return The written bytes count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.FilterOutputStream#write(int)
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		count++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.FilterOutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		count += len;
+	}
+
+}
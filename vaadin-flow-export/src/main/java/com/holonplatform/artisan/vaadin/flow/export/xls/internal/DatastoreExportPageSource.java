@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+
+/**
+ * An {@link ExportPageSource} which splits the results stream of a single {@link DatastoreExportSource} query into
+ * data pages, using a {@link BatchSizeStrategy} to obtain the page size.
+ * <p>
+ * The query is executed when the first page is requested and the results stream is closed when the page source is
+ * closed. The results cursor is opened and closed under the page source lock, so a page source closed before the
+ * first page is requested never executes the query and a cursor opened by another thread is always visible to
+ * {@link #close()}. Nevertheless, the page source is meant to be confined to a single thread: when the data pages are
+ * prefetched, the {@link PrefetchExportPageSource} producer thread both reads and closes it.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class DatastoreExportPageSource implements ExportPageSource {
+
+	private final DatastoreExportSource source;
+	private final PropertySet<?> propertySet;
+	private final BatchSizeStrategy batchSizeStrategy;
+
+	private Stream<PropertyBox> stream;
+	private Iterator<PropertyBox> iterator;
+	private boolean closed = false;
+
+	/**
+	 * Constructor.
+	 * @param source The Datastore export source (not null)
+	 * @param propertySet The property set to use as query projection (not null)
+	 * @param batchSizeStrategy The batch size strategy (not null)
+	 */
+	public DatastoreExportPageSource(DatastoreExportSource source, PropertySet<?> propertySet,
+			BatchSizeStrategy batchSizeStrategy) {
+		super();
+		Obj.argumentNotNull(source, "The Datastore export source must be not null");
+		Obj.argumentNotNull(propertySet, "The property set must be not null");
+		Obj.argumentNotNull(batchSizeStrategy, "The batch size strategy must be not null");
+		this.source = source;
+		this.propertySet = propertySet;
+		this.batchSizeStrategy = batchSizeStrategy;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportPageSource#nextPage()
+	 */
+	@Override
+	public List<PropertyBox> nextPage() {
+		final long fetchStart = System.nanoTime();
+		final Iterator<PropertyBox> iterator = open();
+		if (iterator == null || !iterator.hasNext()) {
+			return Collections.emptyList();
+		}
+		final int batchSize = batchSizeStrategy.getBatchSize();
+		final List<PropertyBox> page = new ArrayList<>(batchSize);
+		while (page.size() < batchSize && iterator.hasNext()) {
+			page.add(iterator.next());
+		}
+		batchSizeStrategy.pageFetched(page, System.nanoTime() - fetchStart);
+		return page;
+	}
+
+	/**
+	 * Execute the query and open the results cursor, if not already done.
+	 * @return The results iterator, <code>null</code> if the page source was closed
+	 */
+	private synchronized Iterator<PropertyBox> open() {
+		if (closed) {
+			return null;
+		}
+		if (iterator == null) {
+			stream = source.stream(propertySet);
+			iterator = stream.iterator();
+		}
+		return iterator;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportPageSource#close()
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		if (stream != null) {
+			stream.close();
+			stream = null;
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.stream.Stream;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.core.datastore.DataTarget;
+import com.holonplatform.core.datastore.Datastore;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.query.Query;
+import com.holonplatform.core.query.QueryFilter;
+import com.holonplatform.core.query.QuerySort;
+
+/**
+ * An export data source which obtains the export data from a {@link Datastore}, using a single query whose results are
+ * streamed.
+ *
+ * @since 3.0.2
+ */
+public class DatastoreExportSource {
+
+	private final Datastore datastore;
+	private final DataTarget<?> target;
+	private final QueryFilter filter;
+	private final QuerySort sort;
+
+	/**
+	 * Constructor.
+	 * @param datastore The {@link Datastore} to use (not null)
+	 * @param target The query target (not null)
+	 * @param filter Optional query filter (may be null)
+	 * @param sort Optional query sort (may be null)
+	 */
+	public DatastoreExportSource(Datastore datastore, DataTarget<?> target, QueryFilter filter, QuerySort sort) {
+		super();
+		Obj.argumentNotNull(datastore, "The Datastore must be not null");
+		Obj.argumentNotNull(target, "The data target must be not null");
+		this.datastore = datastore;
+		this.target = target;
+		this.filter = filter;
+		this.sort = sort;
+	}
+
+	/**
+	 * Count the export data rows.
+	 * @return The number of data rows
+	 */
+	public long count() {
+		return createQuery().count();
+	}
+
+	/**
+	 * Execute the export query and stream the results. The returned stream must be closed to release the query
+	 * resources.
+	 * @param propertySet The property set to use as query projection
+	 * @return The query results stream
+	 */
+	public Stream<PropertyBox> stream(PropertySet<?> propertySet) {
+		final Query query = createQuery();
+		if (sort != null) {
+			query.sort(sort);
+		}
+		return query.stream(propertySet);
+	}
+
+	/**
+	 * Create a query for the data target, using the query filter if available.
+	 * @return A new query
+	 */
+	private Query createQuery() {
+		final Query query = datastore.query(target);
+		if (filter != null) {
+			query.filter(filter);
+		}
+		return query;
+	}
+
+}
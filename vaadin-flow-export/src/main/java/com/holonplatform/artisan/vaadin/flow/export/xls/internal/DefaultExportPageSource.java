@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Default {@link ExportPageSource} implementation, which uses an {@link ExportDataPager} to fetch the data pages and a
+ * {@link BatchSizeStrategy} to obtain the page size.
+ *
+ * @since 3.0.2
+ */
+public class DefaultExportPageSource implements ExportPageSource {
+
+	private final ExportDataPager pager;
+	private final BatchSizeStrategy batchSizeStrategy;
+
+	/**
+	 * Constructor.
+	 * @param pager The data pager (not null)
+	 * @param batchSizeStrategy The batch size strategy (not null)
+	 */
+	public DefaultExportPageSource(ExportDataPager pager, BatchSizeStrategy batchSizeStrategy) {
+		super();
+		Obj.argumentNotNull(pager, "The data pager must be not null");
+		Obj.argumentNotNull(batchSizeStrategy, "The batch size strategy must be not null");
+		this.pager = pager;
+		this.batchSizeStrategy = batchSizeStrategy;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportPageSource#nextPage()
+	 */
+	@Override
+	public List<PropertyBox> nextPage() {
+		final long fetchStart = System.nanoTime();
+		final List<PropertyBox> page = pager.next(batchSizeStrategy.getBatchSize());
+		batchSizeStrategy.pageFetched(page, System.nanoTime() - fetchStart);
+		return page;
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.time.Duration;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+
+/**
+ * Default {@link ExportResult} implementation.
+ *
+ * @since 3.0.2
+ */
+public class DefaultExportResult implements ExportResult {
+
+	private final long rows;
+	private final long bytes;
+	private final Duration elapsedTime;
+
+	/**
+	 * Constructor.
+	 * @param rows The exported data rows count, <code>-1</code> if not available
+	 * @param bytes The written bytes count
+	 * @param elapsedTime The export elapsed time
+	 */
+	public DefaultExportResult(long rows, long bytes, Duration elapsedTime) {
+		super();
+		this.rows = rows;
+		this.bytes = bytes;
+		this.elapsedTime = elapsedTime;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportResult#getRows()
+	 */
+	@Override
+	public long getRows() {
+		return rows;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportResult#getBytes()
+	 */
+	@Override
+	public long getBytes() {
+		return bytes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.ExportResult#getElapsedTime()
+	 */
+	@Override
+	public Duration getElapsedTime() {
+		return elapsedTime;
+	}
+
+	@Override
+	public String toString() {
+		return "DefaultExportResult [rows=" + rows + ", bytes=" + bytes + ", elapsedTime=" + elapsedTime + "]";
+	}
+
+}
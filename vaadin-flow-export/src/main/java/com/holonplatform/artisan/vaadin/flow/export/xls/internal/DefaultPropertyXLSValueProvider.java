@@ -23,8 +23,12 @@ import java.util.Date;
 
 import jakarta.annotation.Priority;
 
+import org.apache.poi.ss.usermodel.DateUtil;
+
 import com.holonplatform.artisan.core.utils.Obj;
 import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
 import com.holonplatform.artisan.vaadin.flow.export.xls.XLSPropertyValueContext;
 import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
 import com.holonplatform.core.property.Property;
@@ -32,13 +36,73 @@ import com.holonplatform.core.temporal.TemporalType;
 
 /**
  * Default {@link PropertyXLSValueProvider}.
+ * <p>
+ * This provider is also a {@link PropertyXLSValueWriter}: boolean, numeric, date and text values are written directly
+ * into the cell sink, without creating an intermediate {@link XLSValue}.
+ * </p>
  *
  * @param <T> Property value type
  *
  * @since 1.0.0
  */
 @Priority(Integer.MAX_VALUE)
-public class DefaultPropertyXLSValueProvider<T> implements PropertyXLSValueProvider<T> {
+public class DefaultPropertyXLSValueProvider<T> implements PropertyXLSValueWriter<T> {
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter#write(com.holonplatform.artisan.
+	 * vaadin.flow.export.xls.XLSPropertyValueContext, java.lang.Object,
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink)
+	 */
+	@Override
+	public void write(XLSPropertyValueContext<T> context, T value, XLSCellSink sink) {
+
+		final Class<?> type = context.getProperty().getType();
+
+		if (Obj.isBoolean(type)) {
+			sink.writeBoolean(value != null && ((Boolean) value).booleanValue());
+			return;
+		}
+		if (Obj.isNumber(type)) {
+			if (value == null) {
+				sink.writeBlank();
+			} else {
+				sink.writeNumber((Number) value);
+			}
+			return;
+		}
+		if (Obj.isDate(type)) {
+			if (value == null) {
+				sink.writeBlank();
+			} else {
+				sink.writeDateSerial(DateUtil.getExcelDate((Date) value));
+			}
+			return;
+		}
+		if (LocalDate.class.isAssignableFrom(type)) {
+			if (value == null) {
+				sink.writeBlank();
+			} else {
+				sink.writeDateSerial(DateUtil.getExcelDate((LocalDate) value));
+			}
+			return;
+		}
+		if (LocalDateTime.class.isAssignableFrom(type)) {
+			if (value == null) {
+				sink.writeBlank();
+			} else {
+				sink.writeDateSerial(DateUtil.getExcelDate((LocalDateTime) value));
+			}
+			return;
+		}
+		if (Obj.isEnum(type) || Obj.isCalendar(type) || LocalTime.class.isAssignableFrom(type)) {
+			sink.writeValue(provide(context, value));
+			return;
+		}
+
+		// Fallback to a String
+		sink.writeString(context.getProperty().present(value));
+	}
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
@@ -15,14 +15,18 @@
  */
 package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import jakarta.annotation.Priority;
@@ -37,6 +41,12 @@ import com.holonplatform.core.property.Property;
 
 /**
  * Default {@link PropertyXLSValueProviderRegistry} implementation.
+ * <p>
+ * The provider resolved for a property is cached using the property instance identity, so that the registered
+ * conditions are evaluated only the first time a property is looked up. The cache is invalidated each time a new
+ * provider is registered. The providers registered by property type using
+ * {@link #forPropertyType(Class, PropertyXLSValueProvider)} are indexed by type and do not require a condition scan.
+ * </p>
  *
  * @since 1.0.0
  */
@@ -78,10 +88,10 @@ public class DefaultPropertyXLSValueProviderRegistry implements PropertyXLSValue
 		return DEFAULT_INSTANCES.get(classLoader);
 	}
 
-	@SuppressWarnings("rawtypes")
-	private static final Comparator<PropertyXLSValueProvider> PRIORITY_COMPARATOR = Comparator.comparingInt(
-			p -> p.getClass().isAnnotationPresent(Priority.class) ? p.getClass().getAnnotation(Priority.class).value()
-					: PropertyXLSValueProvider.DEFAULT_PRIORITY);
+	/**
+	 * Max number of cached property providers
+	 */
+	private static final int MAX_CACHE_SIZE = 1024;
 
 	/**
 	 * Providers
@@ -89,6 +99,32 @@ public class DefaultPropertyXLSValueProviderRegistry implements PropertyXLSValue
 	@SuppressWarnings("rawtypes")
 	protected final ConcurrentMap<Predicate, PropertyXLSValueProvider> providers = new ConcurrentHashMap<>(8, 0.9f, 1);
 
+	/**
+	 * Providers by property type
+	 */
+	@SuppressWarnings("rawtypes")
+	protected final ConcurrentMap<Class<?>, PropertyXLSValueProvider> typeProviders = new ConcurrentHashMap<>(8,
+			0.9f, 1);
+
+	/**
+	 * Provider priorities by provider class
+	 */
+	private final ConcurrentMap<Class<?>, Integer> priorities = new ConcurrentHashMap<>(8, 0.9f, 1);
+
+	/**
+	 * Resolved providers by property identity
+	 */
+	private final ConcurrentMap<PropertyKey, CachedProvider> cache = new ConcurrentHashMap<>(16, 0.75f, 2);
+
+	/**
+	 * Registrations generation, used to detect stale cache entries
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	@SuppressWarnings("rawtypes")
+	private final Comparator<PropertyXLSValueProvider> priorityComparator = Comparator
+			.comparingInt(p -> getPriority(p));
+
 	/**
 	 * Construct a new {@link PropertyXLSValueProviderRegistry}.
 	 * @param loadDefaults <code>true</code> to load default {@link PropertyXLSValueProvider}s from
@@ -121,9 +157,34 @@ public class DefaultPropertyXLSValueProviderRegistry implements PropertyXLSValue
 
 		PropertyXLSValueProvider<?> rp = providers.putIfAbsent(condition, provider);
 
-		if (rp == null && LOGGER.isDebugEnabled()) {
-			LOGGER.debug(
-					"Registered PropertyXLSValueProvider [" + provider + "] bound to condition [" + condition + "]");
+		if (rp == null) {
+			invalidateCache();
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Registered PropertyXLSValueProvider [" + provider + "] bound to condition [" + condition
+						+ "]");
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry#forPropertyType(java.lang.
+	 * Class, com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider)
+	 */
+	@Override
+	public <T> void forPropertyType(Class<? extends T> type, PropertyXLSValueProvider<? super T> provider) {
+		Obj.argumentNotNull(type, "Property type must be not null");
+		Obj.argumentNotNull(provider, "PropertyXLSValueProvider must be not null");
+
+		PropertyXLSValueProvider<?> rp = typeProviders.putIfAbsent(type, provider);
+
+		if (rp == null) {
+			invalidateCache();
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Registered PropertyXLSValueProvider [" + provider + "] bound to property type ["
+						+ type.getName() + "]");
+			}
 		}
 	}
 
@@ -132,12 +193,47 @@ public class DefaultPropertyXLSValueProviderRegistry implements PropertyXLSValue
 	public <T> Optional<PropertyXLSValueProvider<T>> getProvider(Property<T> property) {
 		Obj.argumentNotNull(property, "Property must be not null");
 
+		final long currentGeneration = generation.get();
+		final PropertyKey key = new PropertyKey(property);
+
+		final CachedProvider cached = cache.get(key);
+		if (cached != null && cached.generation == currentGeneration) {
+			return Optional.ofNullable(cached.provider);
+		}
+
+		final PropertyXLSValueProvider provider = resolveProvider(property);
+		if (cache.size() >= MAX_CACHE_SIZE) {
+			cache.clear();
+		}
+		cache.put(key, new CachedProvider(provider, currentGeneration));
+		return Optional.ofNullable(provider);
+	}
+
+	/**
+	 * Resolve the {@link PropertyXLSValueProvider} to use with given property, evaluating the registered conditions
+	 * and the providers registered by property type.
+	 * @param property The property
+	 * @return The provider with the highest priority among the candidates, <code>null</code> if none
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected PropertyXLSValueProvider resolveProvider(Property<?> property) {
 		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("Get PropertyXLSValueProvider for property [" + property + "]");
+			LOGGER.debug("Resolve PropertyXLSValueProvider for property [" + property + "]");
 		}
 
-		final LinkedList<PropertyXLSValueProvider> candidates = new LinkedList<>();
+		final List<PropertyXLSValueProvider> candidates = new ArrayList<>(4);
 
+		// by type
+		if (!typeProviders.isEmpty() && property.getType() != null) {
+			for (Class<?> type : getTypeHierarchy(property.getType())) {
+				final PropertyXLSValueProvider provider = typeProviders.get(type);
+				if (provider != null) {
+					candidates.add(provider);
+				}
+			}
+		}
+
+		// by condition
 		for (Entry<Predicate, PropertyXLSValueProvider> entry : providers.entrySet()) {
 			if (entry.getKey().test(property)) {
 				candidates.add(entry.getValue());
@@ -147,24 +243,112 @@ public class DefaultPropertyXLSValueProviderRegistry implements PropertyXLSValue
 		if (!candidates.isEmpty()) {
 			if (candidates.size() > 1) {
 				// sort by priority
-				candidates.sort(PRIORITY_COMPARATOR);
+				candidates.sort(priorityComparator);
 
 				LOGGER.debug("Get PropertyXLSValueProvider for property [" + property
 						+ "] - return first of candidates: [" + candidates + "]");
 			}
-			return Optional.of(candidates.getFirst());
+			return candidates.get(0);
 		}
 
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("No PropertyXLSValueProvider available for property [" + property + "]");
 		}
 
-		return Optional.empty();
+		return null;
+	}
+
+	/**
+	 * Invalidate the resolved providers cache.
+	 */
+	protected void invalidateCache() {
+		generation.incrementAndGet();
+		cache.clear();
+	}
+
+	/**
+	 * Get the priority of given provider, using the {@link Priority} annotation value of the provider class, if
+	 * available. The priority is read only once for each provider class.
+	 * @param provider The provider
+	 * @return The provider priority
+	 */
+	@SuppressWarnings("rawtypes")
+	private int getPriority(PropertyXLSValueProvider provider) {
+		return priorities.computeIfAbsent(provider.getClass(),
+				c -> c.isAnnotationPresent(Priority.class) ? c.getAnnotation(Priority.class).value()
+						: PropertyXLSValueProvider.DEFAULT_PRIORITY);
+	}
+
+	/**
+	 * Get the given type, its super classes and all its implemented interfaces, with the most specific types first.
+	 * @param type The type
+	 * @return The type hierarchy
+	 */
+	private static Set<Class<?>> getTypeHierarchy(Class<?> type) {
+		final Set<Class<?>> hierarchy = new LinkedHashSet<>();
+		Class<?> current = type;
+		while (current != null) {
+			hierarchy.add(current);
+			current = current.getSuperclass();
+		}
+		final List<Class<?>> classes = new ArrayList<>(hierarchy);
+		for (int i = 0; i < classes.size(); i++) {
+			for (Class<?> itf : classes.get(i).getInterfaces()) {
+				if (hierarchy.add(itf)) {
+					classes.add(itf);
+				}
+			}
+		}
+		return hierarchy;
 	}
 
 	@Override
 	public String toString() {
-		return "DefaultPropertyXLSValueProviderRegistry [provider=" + providers + "]";
+		return "DefaultPropertyXLSValueProviderRegistry [provider=" + providers + ", typeProviders=" + typeProviders
+				+ "]";
+	}
+
+	// ------- Support classes for caching purposes
+
+	private static final class PropertyKey {
+
+		private final Property<?> property;
+		private final int hash;
+
+		PropertyKey(Property<?> property) {
+			super();
+			this.property = property;
+			this.hash = System.identityHashCode(property);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			return property == ((PropertyKey) obj).property;
+		}
+
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final class CachedProvider {
+
+		final PropertyXLSValueProvider provider;
+		final long generation;
+
+		CachedProvider(PropertyXLSValueProvider provider, long generation) {
+			super();
+			this.provider = provider;
+			this.generation = generation;
+		}
+
 	}
 
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.Optional;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+
+/**
+ * The {@link XLSCellSink} used by the {@link DefaultXLSExporter} to write the values into the workbook cells.
+ * <p>
+ * A sink instance is reused for each exported cell: the {@link #begin(Cell, XLSExportColumn)} method binds the sink to
+ * the cell to write and the {@link #complete()} method returns the resulting cell type.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class DefaultXLSCellSink implements XLSCellSink {
+
+	private final DefaultXLSExporter exporter;
+	private final XLSConfiguration configuration;
+
+	private Cell cell;
+	private XLSExportColumn column;
+	private CellType cellType;
+	private XLSStyleKey valueStyleKey;
+	private String dataFormat;
+	private double number;
+	private Number exactNumber;
+
+	private XLSStyleKey lastDataFormatStyleKey;
+	private int lastDataFormatStyleId = -1;
+
+	/**
+	 * Constructor.
+	 * @param exporter The exporter (not null)
+	 * @param configuration The export configuration (not null)
+	 */
+	public DefaultXLSCellSink(DefaultXLSExporter exporter, XLSConfiguration configuration) {
+		super();
+		this.exporter = exporter;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Bind the sink to the given cell.
+	 * @param cell The cell to write
+	 * @param column The export column to which the cell belongs
+	 */
+	public void begin(Cell cell, XLSExportColumn column) {
+		this.cell = cell;
+		this.column = column;
+		this.cellType = null;
+		this.valueStyleKey = null;
+		this.dataFormat = null;
+		this.exactNumber = null;
+	}
+
+	/**
+	 * Complete the current cell write, leaving the cell blank if no value was written.
+	 * @return The cell type
+	 */
+	public CellType complete() {
+		if (cellType == null) {
+			cell.setBlank();
+			cellType = CellType.BLANK;
+		}
+		return cellType;
+	}
+
+	/**
+	 * Add the numeric value written in the current cell to the given column totals.
+	 * @param totals The column totals
+	 * @param columnIndex The column index
+	 */
+	public void addTo(XLSTotals totals, int columnIndex) {
+		if (cellType == CellType.NUMERIC) {
+			if (exactNumber != null) {
+				totals.add(columnIndex, exactNumber);
+			} else {
+				totals.add(columnIndex, number);
+			}
+		}
+	}
+
+	/**
+	 * Get the cell style definition to use for the current cell.
+	 * @return The cell style definition
+	 */
+	public XLSStyleKey getStyleKey() {
+		if (dataFormat != null) {
+			final XLSStyleKey last = lastDataFormatStyleKey;
+			if (last != null && last.getConfiguration() == column.getCellConfiguration()
+					&& dataFormat.equals(last.getDataFormat())) {
+				return last;
+			}
+			lastDataFormatStyleKey = new XLSStyleKey(column.getCellConfiguration(), dataFormat);
+			lastDataFormatStyleId = -1;
+			return lastDataFormatStyleKey;
+		}
+		return (valueStyleKey != null) ? valueStyleKey : column.getStyleKey();
+	}
+
+	/**
+	 * Get the id of the style definition to use for the current cell.
+	 * <p>
+	 * When the column default style definition is used, the style id assigned by the export plan is returned without
+	 * any lookup.
+	 * </p>
+	 * @param styleTable The style table to use to intern the cell style definition
+	 * @return The style id
+	 */
+	public int getStyleId(XLSStyleTable styleTable) {
+		if (dataFormat == null && (valueStyleKey == null || valueStyleKey == column.getStyleKey())) {
+			return column.getStyleId();
+		}
+		final XLSStyleKey styleKey = getStyleKey();
+		if (styleKey == lastDataFormatStyleKey) {
+			if (lastDataFormatStyleId < 0) {
+				lastDataFormatStyleId = styleTable.getStyleId(styleKey);
+			}
+			return lastDataFormatStyleId;
+		}
+		return styleTable.getStyleId(styleKey);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeBlank()
+	 */
+	@Override
+	public void writeBlank() {
+		cell.setBlank();
+		cellType = CellType.BLANK;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeNumber(double)
+	 */
+	@Override
+	public void writeNumber(double value) {
+		cell.setCellValue(value);
+		cellType = CellType.NUMERIC;
+		number = value;
+		exactNumber = null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeNumber(java.lang.Number)
+	 */
+	@Override
+	public void writeNumber(Number value) {
+		if (value == null) {
+			writeBlank();
+		} else {
+			writeNumber(value.doubleValue());
+			exactNumber = value;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeBoolean(boolean)
+	 */
+	@Override
+	public void writeBoolean(boolean value) {
+		cellType = exporter.setBooleanValue(cell, value, configuration, column.getPropertyConfiguration());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeString(java.lang.String)
+	 */
+	@Override
+	public void writeString(String value) {
+		if (value == null) {
+			writeBlank();
+		} else {
+			cell.setCellValue(value);
+			cellType = CellType.STRING;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeDateSerial(double)
+	 */
+	@Override
+	public void writeDateSerial(double serial) {
+		cell.setCellValue(serial);
+		cellType = CellType._NONE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeFormula(java.lang.String)
+	 */
+	@Override
+	public void writeFormula(String formula) {
+		if (formula == null) {
+			writeBlank();
+		} else {
+			cell.setCellFormula(formula);
+			cellType = CellType.FORMULA;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeValue(com.holonplatform.artisan.vaadin.flow.
+	 * export.xls.XLSValue)
+	 */
+	@Override
+	public void writeValue(XLSValue<?> value) {
+		if (value == null) {
+			writeBlank();
+			return;
+		}
+		cellType = exporter.setCellValue(cell, value, configuration, column.getPropertyConfiguration());
+		if (cellType == CellType.NUMERIC) {
+			final Object numericValue = value.getValue().orElse(null);
+			exactNumber = (numericValue instanceof Number) ? (Number) numericValue : null;
+		}
+		// style
+		final Optional<String> valueDataFormat = value.getDataFormat();
+		if (valueDataFormat.isPresent()) {
+			valueStyleKey = new XLSStyleKey(column.getCellConfiguration(), valueDataFormat.get());
+		} else if (column.isDefaultDataFormatFor(value)) {
+			valueStyleKey = column.getStyleKey();
+		} else {
+			valueStyleKey = new XLSStyleKey(column.getCellConfiguration(), exporter
+					.getDefaultDataFormat(column.getProperty(), value, column.getPropertyConfiguration()));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#setDataFormat(java.lang.String)
+	 */
+	@Override
+	public void setDataFormat(String dataFormat) {
+		this.dataFormat = dataFormat;
+	}
+
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.internal.ExportMetricsCollector;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Default {@link XLSExportEngineContext} implementation, backed by a {@link DefaultXLSExporter}.
+ *
+ * @since 3.0.2
+ */
+public class DefaultXLSExportEngineContext implements XLSExportEngineContext {
+
+	private static final double SECONDS_PER_DAY = 86400d;
+
+	private final DefaultXLSExporter exporter;
+	private final DefaultXLSExportPlan plan;
+	private final OperationProgressCallback exportProgressCallback;
+	private final IntSupplier totalSteps;
+	private final int lastStep;
+	private final ExportMetricsCollector metrics;
+
+	private final XLSCellConfiguration headerConfiguration;
+	private final ReusableXLSPropertyValueContext<Object> valueContext = new ReusableXLSPropertyValueContext<>();
+	private final XLSBatchValues batchValues;
+
+	private int rowCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param exporter The exporter (not null)
+	 * @param plan The export plan (not null)
+	 * @param exportProgressCallback The progress callback (not null)
+	 * @param totalSteps Total export steps supplier
+	 * @param lastStep Last completed step before the data rows export
+	 * @param metrics The export metrics collector (not null)
+	 */
+	public DefaultXLSExportEngineContext(DefaultXLSExporter exporter, DefaultXLSExportPlan plan,
+			OperationProgressCallback exportProgressCallback, IntSupplier totalSteps, int lastStep,
+			ExportMetricsCollector metrics) {
+		super();
+		this.exporter = exporter;
+		this.plan = plan;
+		this.exportProgressCallback = exportProgressCallback;
+		this.totalSteps = totalSteps;
+		this.lastStep = lastStep;
+		this.metrics = metrics;
+		this.headerConfiguration = exporter.getHeaderConfiguration(plan.getConfiguration());
+		this.batchValues = new XLSBatchValues(plan);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getExportPlan()
+	 */
+	@Override
+	public DefaultXLSExportPlan getExportPlan() {
+		return plan;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getColumnCount()
+	 */
+	@Override
+	public int getColumnCount() {
+		return plan.getColumnCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getSheetName(int)
+	 */
+	@Override
+	public String getSheetName(int sheetIndex) {
+		return exporter.getSheetName(plan.getConfiguration(), sheetIndex);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getMaxRowsPerSheet()
+	 */
+	@Override
+	public int getMaxRowsPerSheet() {
+		return exporter.getMaxRowsPerSheet(plan.getConfiguration());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getTitle()
+	 */
+	@Override
+	public Optional<String> getTitle() {
+		return exporter.getTitle(plan.getConfiguration());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getColumnHeader(int)
+	 */
+	@Override
+	public String getColumnHeader(int columnIndex) {
+		return exporter.getColumnHeader(plan.getConfiguration(), plan.getColumn(columnIndex).getProperty());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getColumnHeaderConfiguration(int)
+	 */
+	@Override
+	public XLSCellConfiguration getColumnHeaderConfiguration(int columnIndex) {
+		return plan.getConfiguration().getPropertyConfiguration(plan.getColumn(columnIndex).getProperty())
+				.map(cfg -> cfg.getHeaderConfiguration()).orElse(headerConfiguration);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getColumnCellConfiguration(int)
+	 */
+	@Override
+	public XLSCellConfiguration getColumnCellConfiguration(int columnIndex) {
+		return plan.getColumn(columnIndex).getCellConfiguration();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getColumnDataFormat(int)
+	 */
+	@Override
+	public String getColumnDataFormat(int columnIndex) {
+		return plan.getColumn(columnIndex).getDataFormat();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#hasTotalFooter(int)
+	 */
+	@Override
+	public boolean hasTotalFooter(int columnIndex) {
+		return plan.getConfiguration().hasTotalFooter(plan.getColumn(columnIndex).getProperty());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getTotalFunction(int)
+	 */
+	@Override
+	public Optional<XLSTotalFunction> getTotalFunction(int columnIndex) {
+		return plan.getConfiguration().getTotalFunction(plan.getColumn(columnIndex).getProperty());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#getBooleanText(int, boolean)
+	 */
+	@Override
+	public String getBooleanText(int columnIndex, boolean value) {
+		return exporter.getBooleanText(value, plan.getConfiguration(),
+				plan.getColumn(columnIndex).getPropertyConfiguration());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#forEachRow(java.util.function.
+	 * Consumer)
+	 */
+	@Override
+	public int forEachRow(Consumer<PropertyBox> rowConsumer) {
+		final int count = exporter.forEachDataRow(rowConsumer, exportProgressCallback, totalSteps, lastStep,
+				metrics, batchValues);
+		rowCount += count;
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#phaseCompleted(com.holonplatform.
+	 * artisan.vaadin.flow.export.ExportPhase, long)
+	 */
+	@Override
+	public void phaseCompleted(ExportPhase phase, long durationNanos) {
+		metrics.phaseCompleted(phase, durationNanos, 0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#stylesCreated(int, int)
+	 */
+	@Override
+	public void stylesCreated(int styles, int fonts) {
+		metrics.addStylesCreated(styles, fonts);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#tempBytesWritten(long)
+	 */
+	@Override
+	public void tempBytesWritten(long tempBytes) {
+		metrics.setTempBytesWritten(tempBytes);
+	}
+
+	/**
+	 * Get the number of data rows provided to the engine through {@link #forEachRow(Consumer)}.
+	 * @return The data rows count
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#writeValue(int,
+	 * com.holonplatform.core.property.PropertyBox, com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink)
+	 */
+	@Override
+	public void writeValue(int columnIndex, PropertyBox row, XLSCellSink sink) {
+		if (batchValues.write(columnIndex, row, sink)) {
+			return;
+		}
+		final XLSExportColumn column = plan.getColumn(columnIndex);
+		column.getWriter().write(valueContext.set(column.getProperty(), column.getPropertyConfiguration(), row),
+				column.getValue(row), sink);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext#writeValue(int,
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue,
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink)
+	 */
+	@Override
+	public void writeValue(int columnIndex, XLSValue<?> value, XLSCellSink sink) {
+		if (value == null || !value.getValue().isPresent()) {
+			sink.writeBlank();
+			return;
+		}
+		final XLSExportColumn column = plan.getColumn(columnIndex);
+		final Object v = value.getValue().get();
+		switch (value.getDataType()) {
+		case BOOLEAN:
+			if (Obj.isBoolean(value.getValueType())) {
+				sink.writeBoolean(((Boolean) v).booleanValue());
+			} else {
+				sink.writeString(String.valueOf(v));
+			}
+			break;
+		case NUMERIC:
+			if (Obj.isNumber(value.getValueType())) {
+				setDataFormat(column, value, sink);
+				sink.writeNumber((Number) v);
+			} else {
+				sink.writeString(String.valueOf(v));
+			}
+			break;
+		case DATE:
+			final double serial = getDateSerial(v);
+			if (serial < 0) {
+				sink.writeString(String.valueOf(v));
+			} else {
+				setDataFormat(column, value, sink);
+				sink.writeDateSerial(serial);
+			}
+			break;
+		case ENUM:
+			if (Obj.isEnum(value.getValueType())) {
+				sink.writeString(exporter.getEnumText((Enum<?>) v));
+			} else {
+				sink.writeString(String.valueOf(v));
+			}
+			break;
+		case FORMULA:
+			sink.writeFormula(String.valueOf(v));
+			break;
+		case STRING:
+		default:
+			sink.writeString(String.valueOf(v));
+			break;
+		}
+	}
+
+	/**
+	 * Set the cell data format, if the value data format is not the column default data format.
+	 * @param column The export column
+	 * @param value The value
+	 * @param sink The cell sink
+	 */
+	private void setDataFormat(XLSExportColumn column, XLSValue<?> value, XLSCellSink sink) {
+		final Optional<String> valueDataFormat = value.getDataFormat();
+		if (valueDataFormat.isPresent()) {
+			sink.setDataFormat(valueDataFormat.get());
+		} else if (!column.isDefaultDataFormatFor(value)) {
+			final String dataFormat = exporter.getDefaultDataFormat(column.getProperty(), value,
+					column.getPropertyConfiguration());
+			if (!Objects.equals(dataFormat, column.getDataFormat())) {
+				sink.setDataFormat((dataFormat != null) ? dataFormat : "General");
+			}
+		}
+	}
+
+	/**
+	 * Get the spreadsheet date serial number of given date/time value.
+	 * @param value The value
+	 * @return The date serial number, a negative number if the value is not a supported date/time value
+	 */
+	private static double getDateSerial(Object value) {
+		if (value instanceof Date) {
+			return DateUtil.getExcelDate((Date) value);
+		}
+		if (value instanceof Calendar) {
+			return DateUtil.getExcelDate((Calendar) value, false);
+		}
+		if (value instanceof LocalDate) {
+			return DateUtil.getExcelDate((LocalDate) value);
+		}
+		if (value instanceof LocalDateTime) {
+			return DateUtil.getExcelDate((LocalDateTime) value);
+		}
+		if (value instanceof LocalTime) {
+			final LocalTime time = (LocalTime) value;
+			return (time.toSecondOfDay() + time.getNano() / 1_000_000_000d) / SECONDS_PER_DAY;
+		}
+		return -1;
+	}
+
+}
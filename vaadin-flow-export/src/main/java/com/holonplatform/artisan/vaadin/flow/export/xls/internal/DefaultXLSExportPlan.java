@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.core.property.Property;
+
+/**
+ * Default {@link XLSExportPlan} implementation.
+ *
+ * @since 3.0.2
+ */
+public class DefaultXLSExportPlan implements XLSExportPlan {
+
+	private final XLSConfiguration configuration;
+	private final List<Property<?>> properties;
+	private final XLSExportColumn[] columns;
+	private final List<XLSStyleKey> styleKeys;
+
+	/**
+	 * Constructor.
+	 * @param configuration The export configuration (not null)
+	 * @param columns The compiled export columns, in the export order (not null)
+	 */
+	public DefaultXLSExportPlan(XLSConfiguration configuration, List<XLSExportColumn> columns) {
+		super();
+		Obj.argumentNotNull(configuration, "The export configuration must be not null");
+		Obj.argumentNotNull(columns, "The export columns must be not null");
+		this.configuration = configuration;
+		this.columns = columns.toArray(new XLSExportColumn[columns.size()]);
+		final List<Property<?>> ps = new ArrayList<>(columns.size());
+		final Map<XLSStyleKey, Integer> styleIds = new HashMap<>();
+		final List<XLSStyleKey> keys = new ArrayList<>();
+		for (XLSExportColumn column : columns) {
+			ps.add(column.getProperty());
+			// intern the column style definitions
+			final XLSStyleKey styleKey = column.getStyleKey();
+			Integer styleId = styleIds.get(styleKey);
+			if (styleId == null) {
+				styleId = keys.size();
+				keys.add(styleKey);
+				styleIds.put(styleKey, styleId);
+			}
+			column.setStyleId(styleId);
+		}
+		this.properties = Collections.unmodifiableList(ps);
+		this.styleKeys = Collections.unmodifiableList(keys);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan#getConfiguration()
+	 */
+	@Override
+	public XLSConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan#getProperties()
+	 */
+	@Override
+	public List<Property<?>> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Get the number of export columns.
+	 * @return The columns count
+	 */
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * Get the export column at given index.
+	 * @param index The column index
+	 * @return The export column
+	 */
+	public XLSExportColumn getColumn(int index) {
+		return columns[index];
+	}
+
+	/**
+	 * Get the distinct style definitions of the export columns, where the index of each definition is the style id
+	 * of the columns which use it.
+	 * @return The column style definitions, by style id
+	 * @see XLSExportColumn#getStyleId()
+	 */
+	public List<XLSStyleKey> getStyleKeys() {
+		return styleKeys;
+	}
+
+	@Override
+	public String toString() {
+		return "DefaultXLSExportPlan [properties=" + properties + "]";
+	}
+
+}
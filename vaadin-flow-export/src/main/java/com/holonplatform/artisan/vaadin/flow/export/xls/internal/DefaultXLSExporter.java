@@ -21,24 +21,29 @@ import java.text.DateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
@@ -49,21 +54,26 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.ss.util.DateFormatConverter;
 import org.apache.poi.ss.util.WorkbookUtil;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.holonplatform.artisan.core.exceptions.InterruptedOperationException;
-import com.holonplatform.artisan.core.operation.OperationProgress;
 import com.holonplatform.artisan.core.operation.OperationProgressCallback;
 import com.holonplatform.artisan.core.utils.Obj;
 import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.ExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.SizeEstimationMode;
 import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.internal.ExportMetricsCollector;
 import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
 import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter;
 import com.holonplatform.artisan.vaadin.flow.export.xls.XLSDataType;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
 import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
-import com.holonplatform.artisan.vaadin.flow.export.xls.XLSPropertyValueContext;
 import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellAlignment;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellBorder;
@@ -72,11 +82,11 @@ import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellRotation;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellVerticalAlignment;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSColor;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFontSize;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSNumberGroupSeparator;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
-import com.holonplatform.core.i18n.Caption;
 import com.holonplatform.core.i18n.Localizable;
 import com.holonplatform.core.i18n.LocalizationContext;
 import com.holonplatform.core.internal.utils.ConversionUtils;
@@ -84,46 +94,47 @@ import com.holonplatform.core.presentation.StringValuePresenter;
 import com.holonplatform.core.property.Property;
 import com.holonplatform.core.property.PropertyBox;
 import com.holonplatform.core.property.PropertySet;
-import com.holonplatform.core.property.PropertyValueProvider;
-import com.holonplatform.core.property.VirtualProperty;
 import com.holonplatform.core.temporal.TemporalType;
 import com.holonplatform.vaadin.flow.components.Components;
 import com.vaadin.flow.data.provider.DataProvider;
-import com.vaadin.flow.data.provider.Query;
 import com.vaadin.flow.data.provider.QuerySortOrder;
 
 /**
  * Default {@link XLSExporter} implementation.
+ * <p>
+ * The exporter is thread-safe once built: the state of each export run is held by a {@link XLSExportSession}, so the
+ * same instance can perform concurrent exports.
+ * </p>
  *
  * @since 1.0.0
  */
-public class DefaultXLSExporter implements XLSExporter {
+public class DefaultXLSExporter extends AbstractDataExporter implements XLSExporter {
 
 	protected static final Logger LOGGER = LoggerFactory.getLogger(XLSExporter.class);
 
-	private static final int DEFAULT_BATCH_SIZE = 20;
-
 	private static final XLSCellConfiguration DEFAULT_CELL_CONFIGURATION = XLSCellConfiguration.builder().build();
 	private static final XLSPropertyConfiguration DEFAULT_PROPERTY_CONFIGURATION = XLSPropertyConfiguration.builder()
 			.build();
 
+	private static final int MAX_SHEET_NAME_LENGTH = 31;
+
 	private static final String DEFAULT_DATE_FORMAT_PATTERN = "dd/MM/yyyy";
 	private static final String DEFAULT_TIME_FORMAT_PATTERN = "hh:mm";
 
-	private final DataProvider<PropertyBox, ?> dataSource;
-	private final PropertySet<?> propertySet;
-
-	private Function<Property<?>, Optional<String>> columnHeaderProvider;
+	private final DatastoreExportSource datastoreSource;
 
 	private XLSConfiguration configuration;
 	private PropertyXLSValueProviderRegistry propertyXLSValueProviderRegistry;
-	private LocalizationContext localizationContext;
 
-	private Supplier<List<QuerySortOrder>> querySortsProvider;
+	private volatile DefaultXLSExportPlan exportPlan;
+
+	private XLSExportEngine engine;
 
-	private final Map<FontConfiguration, Font> workbookFonts = new HashMap<>();
-	private final Map<StyleConfiguration, CellStyle> workbookStyles = new HashMap<>();
-	private final Map<Property<?>, CellType> cellTypes = new HashMap<>();
+	private LongConsumer tempBytesListener;
+
+	private Consumer<XLSFileVersion> fileVersionListener;
+
+	private final List<ExportListener> exportListeners = new ArrayList<>(2);
 
 	/**
 	 * Constructor.
@@ -131,27 +142,28 @@ public class DefaultXLSExporter implements XLSExporter {
 	 * @param propertySet The property set to use (not null)
 	 */
 	public DefaultXLSExporter(DataProvider<PropertyBox, ?> dataSource, PropertySet<?> propertySet) {
-		super();
-		Obj.argumentNotNull(dataSource, "The DataProvider must be not null");
-		Obj.argumentNotNull(propertySet, "The PropertySet must be not null");
-		this.dataSource = dataSource;
-		this.propertySet = propertySet;
+		super(Obj.argumentNotNull(dataSource, "The DataProvider must be not null"), propertySet);
+		this.datastoreSource = null;
 	}
 
 	/**
-	 * Set the {@link XLSConfiguration} to use
-	 * @param configuration The configuration to set
+	 * Constructor using a {@link DatastoreExportSource} as data source.
+	 * @param datastoreSource The Datastore export source (not null)
+	 * @param propertySet The property set to use (not null)
+	 * @since 3.0.2
 	 */
-	protected void setConfiguration(XLSConfiguration configuration) {
-		this.configuration = configuration;
+	public DefaultXLSExporter(DatastoreExportSource datastoreSource, PropertySet<?> propertySet) {
+		super(null, propertySet);
+		Obj.argumentNotNull(datastoreSource, "The Datastore export source must be not null");
+		this.datastoreSource = datastoreSource;
 	}
 
 	/**
-	 * Set the column header provider.
-	 * @param columnHeaderProvider the column header provider to set
+	 * Set the {@link XLSConfiguration} to use
+	 * @param configuration The configuration to set
 	 */
-	protected void setColumnHeaderProvider(Function<Property<?>, Optional<String>> columnHeaderProvider) {
-		this.columnHeaderProvider = columnHeaderProvider;
+	protected void setConfiguration(XLSConfiguration configuration) {
+		this.configuration = configuration;
 	}
 
 	/**
@@ -162,76 +174,110 @@ public class DefaultXLSExporter implements XLSExporter {
 		this.propertyXLSValueProviderRegistry = registry;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.AbstractDataExporter#countDataRows()
+	 */
+	@Override
+	protected int countDataRows() {
+		if (datastoreSource != null) {
+			return (int) Math.min(datastoreSource.count(), Integer.MAX_VALUE);
+		}
+		return super.countDataRows();
+	}
+
 	/**
-	 * Set the {@link LocalizationContext} to use.
-	 * @param localizationContext the localization context to set
+	 * Set the export plan to use.
+	 * @param exportPlan The export plan to set (not null)
 	 */
-	protected void setLocalizationContext(LocalizationContext localizationContext) {
-		this.localizationContext = localizationContext;
+	protected void setExportPlan(XLSExportPlan exportPlan) {
+		Obj.argumentNotNull(exportPlan, "The export plan must be not null");
+		if (!(exportPlan instanceof DefaultXLSExportPlan)) {
+			throw new IllegalArgumentException("Unsupported export plan type: " + exportPlan.getClass().getName());
+		}
+		this.exportPlan = (DefaultXLSExportPlan) exportPlan;
 	}
 
 	/**
-	 * Get the additional query sorts provider, if available
-	 * @return Optional query sorts provider
+	 * Get the {@link XLSExportEngine} to use to write the export document, if configured.
+	 * @return Optional export engine
 	 */
-	protected Optional<Supplier<List<QuerySortOrder>>> getQuerySortsProvider() {
-		return Optional.ofNullable(querySortsProvider);
+	protected Optional<XLSExportEngine> getEngine() {
+		return Optional.ofNullable(engine);
 	}
 
 	/**
-	 * Set the additional query sorts provider.
-	 * @param querySortsProvider the query sorts provider to set
+	 * Set the {@link XLSExportEngine} to use to write the export document.
+	 * @param engine The export engine to set (not null)
 	 */
-	protected void setQuerySortsProvider(Supplier<List<QuerySortOrder>> querySortsProvider) {
-		this.querySortsProvider = querySortsProvider;
+	protected void setEngine(XLSExportEngine engine) {
+		Obj.argumentNotNull(engine, "The export engine must be not null");
+		this.engine = engine;
 	}
 
 	/**
-	 * Get the {@link DataProvider} to use as export data source.
-	 * @return The {@link DataProvider}
+	 * Get the listener to notify with the size of the temporary files written by an export, if configured.
+	 * @return Optional temporary files size listener
 	 */
-	protected DataProvider<PropertyBox, ?> getDataProvider() {
-		return dataSource;
+	protected Optional<LongConsumer> getTempBytesListener() {
+		return Optional.ofNullable(tempBytesListener);
 	}
 
 	/**
-	 * Get the property set.
-	 * @return the property set
+	 * Set the listener to notify with the size of the temporary files written by an export.
+	 * @param tempBytesListener The listener to set
 	 */
-	protected PropertySet<?> getPropertySet() {
-		return propertySet;
+	protected void setTempBytesListener(LongConsumer tempBytesListener) {
+		this.tempBytesListener = tempBytesListener;
 	}
 
 	/**
-	 * Get the export configuration.
-	 * @return Optional export configuration
+	 * Get the listener to notify with the file version of an export, if configured.
+	 * @return Optional file version listener
 	 */
-	protected Optional<XLSConfiguration> getConfiguration() {
-		return Optional.ofNullable(configuration);
+	protected Optional<Consumer<XLSFileVersion>> getFileVersionListener() {
+		return Optional.ofNullable(fileVersionListener);
 	}
 
 	/**
-	 * Get the {@link PropertyXLSValueProviderRegistry} to use.
-	 * @return Optional registry to use
+	 * Set the listener to notify with the file version of an export.
+	 * @param fileVersionListener The listener to set
 	 */
-	protected Optional<PropertyXLSValueProviderRegistry> getPropertyXLSValueProviderRegistry() {
-		return Optional.ofNullable(propertyXLSValueProviderRegistry);
+	protected void setFileVersionListener(Consumer<XLSFileVersion> fileVersionListener) {
+		this.fileVersionListener = fileVersionListener;
+	}
+
+	/**
+	 * Get the {@link ExportListener}s to notify with the export phases and metrics.
+	 * @return The export listeners, empty if none
+	 */
+	protected List<ExportListener> getExportListeners() {
+		return Collections.unmodifiableList(exportListeners);
 	}
 
 	/**
-	 * Get the {@link LocalizationContext} to use.
-	 * @return the localization context to use, if available
+	 * Add an {@link ExportListener} to notify with the export phases and metrics.
+	 * @param listener The listener to add (not null)
 	 */
-	protected Optional<LocalizationContext> getLocalizationContext() {
-		return Optional.ofNullable(localizationContext);
+	protected void addExportListener(ExportListener listener) {
+		Obj.argumentNotNull(listener, "The export listener must be not null");
+		this.exportListeners.add(listener);
+	}
+
+	/**
+	 * Get the export configuration.
+	 * @return Optional export configuration
+	 */
+	protected Optional<XLSConfiguration> getConfiguration() {
+		return Optional.ofNullable(configuration);
 	}
 
 	/**
-	 * Get the column header provider.
-	 * @return the column header provider function, if available
+	 * Get the {@link PropertyXLSValueProviderRegistry} to use.
+	 * @return Optional registry to use
 	 */
-	protected Optional<Function<Property<?>, Optional<String>>> getColumnHeaderProvider() {
-		return Optional.ofNullable(columnHeaderProvider);
+	protected Optional<PropertyXLSValueProviderRegistry> getPropertyXLSValueProviderRegistry() {
+		return Optional.ofNullable(propertyXLSValueProviderRegistry);
 	}
 
 	/*
@@ -242,72 +288,289 @@ public class DefaultXLSExporter implements XLSExporter {
 	@Override
 	public void export(OutputStream outputStream, OperationProgressCallback exportProgressCallback)
 			throws ExportException {
+		exportData(outputStream, exportProgressCallback);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter#exportAsync(java.io.OutputStream,
+	 * com.holonplatform.artisan.core.operation.OperationProgressCallback, java.util.concurrent.Executor)
+	 */
+	@Override
+	public CompletableFuture<ExportResult> exportAsync(OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback, Executor executor) {
+		return AsyncExportTask.submit(outputStream, exportProgressCallback, executor, this::exportData);
+	}
+
+	/**
+	 * Export the data to the provided {@link OutputStream}.
+	 * @param outputStream The {@link OutputStream} to use to write the exported data (not null)
+	 * @param exportProgressCallback The callback function to invoke when the export progress changes (not null)
+	 * @return The number of exported data rows
+	 * @throws ExportException If an error occurred
+	 */
+	protected int exportData(OutputStream outputStream, OperationProgressCallback exportProgressCallback)
+			throws ExportException {
 		Obj.argumentNotNull(outputStream, "The data output stream must be not null");
 		Obj.argumentNotNull(exportProgressCallback, "The export progres callback must be not null");
 
-		workbookFonts.clear();
-		workbookStyles.clear();
-		cellTypes.clear();
+		// progress notifications throttling
+		final OperationProgressCallback progressCallback = getProgressCallback(exportProgressCallback);
 
 		LOGGER.debug("Start XLS export...");
 
-		final XLSConfiguration configuration = getConfiguration().orElseGet(() -> XLSConfiguration.builder().build());
+		final DefaultXLSExportPlan plan = getExportPlan();
+		final XLSConfiguration configuration = plan.getConfiguration();
+
+		// metrics
+		final ExportMetricsCollector metrics = new ExportMetricsCollector(getExportListeners());
+		final CountingOutputStream os = new CountingOutputStream(outputStream);
+
+		final int rows;
+		try {
+			// data size estimation
+			final long countStart = System.nanoTime();
+			try (ExportSizeEstimate sizeEstimate = createSizeEstimate()) {
+				metrics.phase(ExportPhase.COUNT, countStart, 0);
+				LOGGER.debug("XLS export estimated row count: " + sizeEstimate.getSize());
+				rows = export(plan, os, progressCallback, () -> sizeEstimate.getTotalSteps(4), sizeEstimate.getSize(),
+						metrics);
+			}
+		} catch (RuntimeException e) {
+			metrics.setBytesWritten(os.getCount());
+			metrics.complete(e);
+			throw e;
+		}
+		metrics.setBytesWritten(os.getCount());
+		metrics.complete(null);
+		LOGGER.debug("XLS export completed: " + metrics);
+		return rows;
+	}
+
+	/**
+	 * Export the data using given export plan.
+	 * @param plan The export plan
+	 * @param outputStream The output stream
+	 * @param progressCallback The progress callback
+	 * @param totalSteps Total export steps supplier, which provides <code>0</code> if not available
+	 * @param estimatedRows The estimated number of data rows, <code>-1</code> if not available
+	 * @param metrics The export metrics collector
+	 * @return The number of exported data rows
+	 * @throws ExportException If an error occurred
+	 */
+	private int export(DefaultXLSExportPlan plan, OutputStream outputStream,
+			OperationProgressCallback progressCallback, IntSupplier totalSteps, int estimatedRows,
+			ExportMetricsCollector metrics) throws ExportException {
+		final XLSConfiguration configuration = plan.getConfiguration();
 
-		final int estimatedSize = getDataProvider().size(new Query<>());
-		final int totalSteps = estimatedSize + 4;
+		updateExportProgress(progressCallback, totalSteps.getAsInt(), 0);
 
-		LOGGER.debug("XLS export estimated row count: " + estimatedSize);
+		// Export engine
+		final XLSExportEngine exportEngine = getEngine().orElse(null);
+		if (exportEngine != null) {
+			return exportWithEngine(exportEngine, plan, outputStream, progressCallback, totalSteps, metrics);
+		}
 
-		updateExportProgress(exportProgressCallback, totalSteps, 0);
+		// Engine policy
+		if (XLSFileVersion.XLS == configuration.getFileVersion() && estimatedRows >= 0) {
+			final XLSEnginePolicy policy = configuration.getEnginePolicy();
+			final int columns = plan.getProperties().size();
+			if (policy.getAction() != XLSEnginePolicy.Action.NONE && policy.isExceeded(estimatedRows, columns)) {
+				final String message = "The estimated heap footprint of the XLS export ["
+						+ policy.estimateHeapSize(estimatedRows, columns) + " bytes for " + estimatedRows
+						+ " rows] exceeds the heap budget [" + policy.getHeapBudget() + " bytes]";
+				switch (policy.getAction()) {
+				case REFUSE:
+					throw new ExportException(message + ": the export was refused");
+				case STREAM:
+					LOGGER.debug(message + ": using the streaming XLS export engine");
+					return exportWithEngine(XLSExportEngine.streaming(XLSFileVersion.XLS), plan, outputStream,
+							progressCallback, totalSteps, metrics);
+				case SWITCH_TO_XLSX:
+					LOGGER.warn(message + ": switching to the streaming XLSX export engine");
+					return exportWithEngine(XLSExportEngine.streaming(XLSFileVersion.XLSX),
+							compileExportPlan(configuration.cloneConfiguration().fileVersion(XLSFileVersion.XLSX)
+									.build(), plan.getProperties()),
+							outputStream, progressCallback, totalSteps, metrics);
+				case WARN:
+				default:
+					LOGGER.warn(message);
+					break;
+				}
+			}
+		}
 
 		// Workbook setup
+		getFileVersionListener().ifPresent(l -> l.accept(configuration.getFileVersion()));
 		try (Workbook workbook = createWorkbook(configuration)) {
 
+			// export session
+			final XLSExportSession session = new XLSExportSession(workbook, plan, metrics);
+			final int defaultStyles = workbook.getNumCellStyles();
+			final int defaultFonts = workbook.getNumberOfFonts();
+
 			// export properties
-			final List<Property<?>> properties = getExportProperties(configuration);
+			final List<Property<?>> properties = plan.getProperties();
 			if (properties.isEmpty()) {
 				throw new ExportException("No property to export");
 			}
 
-			// Sheet setup
-			final String sheetName = localize(configuration.getSheetName().orElse(DEFAULT_SHEET_NAME), "export");
-			final Sheet sheet = workbook.createSheet(WorkbookUtil.createSafeSheetName(sheetName, '_'));
-			updateExportProgress(exportProgressCallback, totalSteps, 1);
-
-			// Title
-			boolean hasTitle = createTitleRow(workbook, sheet, 0, configuration);
-			updateExportProgress(exportProgressCallback, totalSteps, 2);
-
-			// Header
-			int headerRowIndex = hasTitle ? 1 : 0;
-			createHeaderRow(workbook, sheet, headerRowIndex, configuration, properties);
-			updateExportProgress(exportProgressCallback, totalSteps, 3);
+			// Sheet setup: title and header
+			createSheet(session);
+			updateExportProgress(progressCallback, totalSteps.getAsInt(), 3);
 
 			// Data
-			int dataEndRowIndex = createDataRows(workbook, sheet, headerRowIndex, configuration, properties,
-					exportProgressCallback, totalSteps, 3);
+			final int rows = createDataRows(session, progressCallback, totalSteps, 3);
 
 			// Totals
-			if (dataEndRowIndex > headerRowIndex) {
-				int dataStartRowIndex = headerRowIndex + 1;
-				createTotalRow(workbook, sheet, dataEndRowIndex + 1, dataStartRowIndex, dataEndRowIndex, configuration,
-						properties);
-			}
+			completeSheet(session);
+
+			metrics.addStylesCreated(workbook.getNumCellStyles() - defaultStyles,
+					workbook.getNumberOfFonts() - defaultFonts);
 
 			// Write to stream
+			final long writeStart = System.nanoTime();
 			workbook.write(outputStream);
-			updateExportProgress(exportProgressCallback, totalSteps, totalSteps);
+			metrics.phase(ExportPhase.WRITE, writeStart, 0);
+			if (workbook instanceof XLSStreamingWorkbook) {
+				final long tempBytes = ((XLSStreamingWorkbook) workbook).getTempBytesWritten();
+				LOGGER.debug("XLS export temporary files size: " + tempBytes + " bytes");
+				metrics.setTempBytesWritten(tempBytes);
+				getTempBytesListener().ifPresent(l -> l.accept(tempBytes));
+			}
+			completeExportProgress(progressCallback, totalSteps);
+			return rows;
 
 		} catch (Exception e) {
 			throw new ExportException("Export failed", e);
-		} finally {
-			// clean up
-			workbookFonts.clear();
-			workbookStyles.clear();
-			cellTypes.clear();
 		}
 	}
 
+	/**
+	 * Export the data using given {@link XLSExportEngine}.
+	 * @param exportEngine The export engine
+	 * @param plan The export plan
+	 * @param outputStream The output stream
+	 * @param exportProgressCallback The progress callback
+	 * @param totalSteps Total export steps supplier
+	 * @param metrics The export metrics collector
+	 * @return The number of exported data rows
+	 * @throws ExportException If an error occurred
+	 */
+	private int exportWithEngine(XLSExportEngine exportEngine, DefaultXLSExportPlan plan, OutputStream outputStream,
+			OperationProgressCallback exportProgressCallback, IntSupplier totalSteps, ExportMetricsCollector metrics)
+			throws ExportException {
+		if (plan.getProperties().isEmpty()) {
+			throw new ExportException("No property to export");
+		}
+		final XLSFileVersion fileVersion = plan.getConfiguration().getFileVersion();
+		if (!exportEngine.supports(fileVersion)) {
+			throw new ExportException("The export engine [" + exportEngine + "] does not support the file version ["
+					+ fileVersion + "]");
+		}
+		getFileVersionListener().ifPresent(l -> l.accept(fileVersion));
+		try {
+			updateExportProgress(exportProgressCallback, totalSteps.getAsInt(), 3);
+			final DefaultXLSExportEngineContext context = new DefaultXLSExportEngineContext(this, plan,
+					exportProgressCallback, totalSteps, 3, metrics);
+			exportEngine.export(context, outputStream);
+			completeExportProgress(exportProgressCallback, totalSteps);
+			return context.getRowCount();
+		} catch (Exception e) {
+			throw new ExportException("Export failed", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter#getExportPlan()
+	 */
+	@Override
+	public DefaultXLSExportPlan getExportPlan() {
+		DefaultXLSExportPlan plan = exportPlan;
+		if (plan == null) {
+			synchronized (this) {
+				plan = exportPlan;
+				if (plan == null) {
+					final XLSConfiguration configuration = getConfiguration()
+							.orElseGet(() -> XLSConfiguration.builder().build());
+					plan = compileExportPlan(configuration, getExportProperties(configuration));
+					exportPlan = plan;
+				}
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Compile the export plan for given configuration and properties.
+	 * <p>
+	 * For each property, the {@link PropertyXLSValueProvider} is resolved using the
+	 * {@link PropertyXLSValueProviderRegistry} and the default data format is resolved for the value type which the
+	 * default {@link PropertyXLSValueProvider} would provide for the property type.
+	 * </p>
+	 * @param configuration Export configuration
+	 * @param properties Export properties
+	 * @return The compiled export plan
+	 */
+	@SuppressWarnings("unchecked")
+	protected DefaultXLSExportPlan compileExportPlan(XLSConfiguration configuration, List<Property<?>> properties) {
+		final PropertyXLSValueProviderRegistry registry = getPropertyXLSValueProviderRegistry()
+				.orElseGet(() -> PropertyXLSValueProviderRegistry.get());
+		final List<XLSExportColumn> columns = new ArrayList<>(properties.size());
+		for (int i = 0; i < properties.size(); i++) {
+			final Property<Object> property = (Property<Object>) properties.get(i);
+			// configuration
+			final Optional<XLSPropertyConfiguration> cfg = configuration.getPropertyConfiguration(property);
+			final XLSPropertyConfiguration propertyConfiguration = cfg.orElse(DEFAULT_PROPERTY_CONFIGURATION);
+			final XLSCellConfiguration cellConfiguration = cfg.map(c -> c.getCellConfiguration())
+					.orElse(DEFAULT_CELL_CONFIGURATION);
+			// value provider
+			final PropertyXLSValueProvider<Object> provider = registry.getProvider(property)
+					.orElseGet(() -> new DefaultPropertyXLSValueProvider<>());
+			// default data format
+			final XLSValue<?> prototype = getDataFormatPrototype(property);
+			final TemporalType temporalType = property.getTemporalType().orElse(TemporalType.DATE_TIME);
+			final String dataFormat = (prototype != null)
+					? getDefaultDataFormat(property, prototype, propertyConfiguration)
+					: null;
+			columns.add(new XLSExportColumn(i, property, provider, propertyConfiguration, cellConfiguration, prototype,
+					temporalType, dataFormat));
+		}
+		return new DefaultXLSExportPlan(configuration, columns);
+	}
+
+	/**
+	 * Get the value prototype to use to resolve the default data format of given property, according to the value
+	 * which the default {@link PropertyXLSValueProvider} provides for the property type.
+	 * @param property The property
+	 * @return The value prototype, <code>null</code> if the property type has not a default data format
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected XLSValue<?> getDataFormatPrototype(Property<?> property) {
+		final Class<?> type = property.getType();
+		final TemporalType temporalType = property.getTemporalType().orElse(TemporalType.DATE_TIME);
+		if (Obj.isNumber(type)) {
+			return XLSValue.numericValue((Class<? extends Number>) type, null);
+		}
+		if (Obj.isCalendar(type)) {
+			return XLSValue.calendarValue(null, temporalType);
+		}
+		if (Obj.isDate(type)) {
+			return XLSValue.dateValue(null, temporalType);
+		}
+		if (LocalDate.class.isAssignableFrom(type)) {
+			return XLSValue.localDateValue(null);
+		}
+		if (LocalDateTime.class.isAssignableFrom(type)) {
+			return XLSValue.localDateTimeValue(null);
+		}
+		if (LocalTime.class.isAssignableFrom(type)) {
+			return XLSValue.localTimeValue(null);
+		}
+		return null;
+	}
+
 	/**
 	 * Get the properties to export.
 	 * @param configuration Export configuration
@@ -332,14 +595,16 @@ public class DefaultXLSExporter implements XLSExporter {
 
 	/**
 	 * Create the title row
-	 * @param workbook Workbook reference
+	 * @param session Export session
 	 * @param sheet Sheet reference
 	 * @param rowIndex The row index into which to place the title
 	 * @param configuration Export configuration
 	 * @return Whether the title was added
 	 */
-	protected boolean createTitleRow(Workbook workbook, Sheet sheet, int rowIndex, XLSConfiguration configuration) {
-		return configuration.getTitle().flatMap(t -> isValidMessage(t)).map(title -> {
+	protected boolean createTitleRow(XLSExportSession session, Sheet sheet, int rowIndex,
+			XLSConfiguration configuration) {
+		final Workbook workbook = session.getWorkbook();
+		return getTitle(configuration).map(title -> {
 			final Row titleRow = sheet.createRow(rowIndex);
 			final Cell cell = titleRow.createCell(0, CellType.STRING);
 			// style
@@ -357,200 +622,547 @@ public class DefaultXLSExporter implements XLSExporter {
 			style.setFont(font);
 			cell.setCellStyle(style);
 			// text
-			cell.setCellValue(localize(title));
+			cell.setCellValue(title);
 			return true;
 		}).orElse(Boolean.FALSE);
 	}
 
+	/**
+	 * Get the localized export title, if available.
+	 * @param configuration Export configuration
+	 * @return Optional export title
+	 */
+	protected Optional<String> getTitle(XLSConfiguration configuration) {
+		return configuration.getTitle().flatMap(t -> isValidMessage(t)).map(title -> localize(title));
+	}
+
+	/**
+	 * Get the localized and valid sheet name.
+	 * @param configuration Export configuration
+	 * @return The sheet name
+	 */
+	protected String getSheetName(XLSConfiguration configuration) {
+		return WorkbookUtil.createSafeSheetName(
+				localize(configuration.getSheetName().orElse(DEFAULT_SHEET_NAME), "export"), '_');
+	}
+
+	/**
+	 * Get the localized and valid name of the sheet with given index.
+	 * <p>
+	 * The first sheet name is the export sheet name, while the sheet index is appended to the name of any subsequent
+	 * sheet.
+	 * </p>
+	 * @param configuration Export configuration
+	 * @param sheetIndex The sheet index
+	 * @return The sheet name
+	 */
+	protected String getSheetName(XLSConfiguration configuration, int sheetIndex) {
+		final String name = getSheetName(configuration);
+		if (sheetIndex == 0) {
+			return name;
+		}
+		final String suffix = " (" + (sheetIndex + 1) + ")";
+		if (name.length() + suffix.length() > MAX_SHEET_NAME_LENGTH) {
+			return name.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length()) + suffix;
+		}
+		return name + suffix;
+	}
+
 	/**
 	 * Create the export table header row.
-	 * @param workbook Workbook reference
+	 * @param session Export session
 	 * @param sheet Sheet reference
 	 * @param rowIndex The row index into which to place the header
 	 * @param configuration Export configuration
 	 * @param properties The properties to export
 	 */
-	protected void createHeaderRow(Workbook workbook, Sheet sheet, int rowIndex, XLSConfiguration configuration,
+	protected void createHeaderRow(XLSExportSession session, Sheet sheet, int rowIndex, XLSConfiguration configuration,
 			List<Property<?>> properties) {
 		// configuration
-		XLSCellConfiguration.Builder builder = configuration.getHeaderConfiguration().cloneConfiguration();
-		if (configuration.getHeaderConfiguration().getFontSize().isAuto()
-				&& !configuration.getDefaultFontSize().isAuto()) {
-			builder.fontSize(configuration.getDefaultFontSize());
-		}
-		if (configuration.isShrinkToFitByDefault()) {
-			builder.shrinkToFit(true);
-		}
-		final XLSCellConfiguration headerConfig = builder.build();
+		final XLSCellConfiguration headerConfig = getHeaderConfiguration(configuration);
 
 		// style
-		final CellStyle defaultHeaderStyle = workbook.createCellStyle();
-		configureCellStyle(workbook, defaultHeaderStyle, configuration, headerConfig);
+		final CellStyle defaultHeaderStyle = getOrCreateStyle(session, null, configuration,
+				new XLSStyleKey(headerConfig, null));
 
 		// cells
+		final XLSColumnWidths columnWidths = session.getColumnWidths();
+		final boolean sampleWidths = columnWidths.isSampling();
 		final Row headerRow = sheet.createRow(rowIndex);
 		for (int i = 0; i < properties.size(); i++) {
 			final Property<?> property = properties.get(i);
 			final Cell cell = headerRow.createCell(i);
 			// style
-			cell.setCellStyle(configuration.getPropertyConfiguration(property).map(cfg -> cfg.getHeaderConfiguration())
-					.filter(cfg -> !cfg.equals(headerConfig)).map(cfg -> {
-						LOGGER.debug("Create custom header style for property: " + property);
-						CellStyle headerStyle = workbook.createCellStyle();
-						configureCellStyle(workbook, headerStyle, configuration, cfg);
-						return headerStyle;
-					}).orElse(defaultHeaderStyle));
+			final XLSCellConfiguration propertyHeaderConfig = configuration.getPropertyConfiguration(property)
+					.map(cfg -> cfg.getHeaderConfiguration()).filter(cfg -> !cfg.equals(headerConfig)).orElse(null);
+			cell.setCellStyle((propertyHeaderConfig != null)
+					? getOrCreateStyle(session, property, configuration, new XLSStyleKey(propertyHeaderConfig, null))
+					: defaultHeaderStyle);
 			// value
-			final String header = getColumnHeaderProvider().flatMap(chp -> chp.apply(property))
-					.orElseGet(() -> localize(configuration.getPropertyConfiguration(property)
-							.flatMap(cfg -> cfg.getHeader()).orElse(property), property.getName()));
+			final String header = getColumnHeader(configuration, property);
 			cell.setCellValue(header);
+			if (sampleWidths) {
+				columnWidths.sampleText(i, header,
+						(propertyHeaderConfig != null) ? propertyHeaderConfig : headerConfig);
+			}
+		}
+		if (sampleWidths) {
+			columnWidths.rowSampled();
 		}
 	}
 
 	/**
-	 * Create the data rows using the data source.
-	 * @param workbook Workbook reference
-	 * @param sheet Sheet reference
-	 * @param lastRowIndex The last written row index
+	 * Get the default header cell configuration, merging the export default font size and shrink to fit settings.
 	 * @param configuration Export configuration
-	 * @param properties Export properties
+	 * @return The default header cell configuration
+	 */
+	protected XLSCellConfiguration getHeaderConfiguration(XLSConfiguration configuration) {
+		XLSCellConfiguration.Builder builder = configuration.getHeaderConfiguration().cloneConfiguration();
+		if (configuration.getHeaderConfiguration().getFontSize().isAuto()
+				&& !configuration.getDefaultFontSize().isAuto()) {
+			builder.fontSize(configuration.getDefaultFontSize());
+		}
+		if (configuration.isShrinkToFitByDefault()) {
+			builder.shrinkToFit(true);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Get the header text of given property column.
+	 * @param configuration Export configuration
+	 * @param property The property
+	 * @return The column header text
+	 */
+	protected String getColumnHeader(XLSConfiguration configuration, Property<?> property) {
+		return getColumnHeaderProvider().flatMap(chp -> chp.apply(property))
+				.orElseGet(() -> localize(configuration.getPropertyConfiguration(property)
+						.flatMap(cfg -> cfg.getHeader()).orElse(property), property.getName()));
+	}
+
+	/**
+	 * Create a new sheet, with the title and header rows, and set it as the current sheet of the export session.
+	 * @param session Export session
+	 * @return The new sheet
+	 */
+	protected Sheet createSheet(XLSExportSession session) {
+		final XLSConfiguration configuration = session.getConfiguration();
+		final Sheet sheet = session.getWorkbook().createSheet(getSheetName(configuration, session.getSheetCount()));
+		// Title
+		final long titleStart = System.nanoTime();
+		final boolean hasTitle = createTitleRow(session, sheet, 0, configuration);
+		if (hasTitle) {
+			session.getMetrics().phase(ExportPhase.TITLE, titleStart, 0);
+		}
+		// Header
+		final int headerRowIndex = hasTitle ? 1 : 0;
+		final long headerStart = System.nanoTime();
+		createHeaderRow(session, sheet, headerRowIndex, configuration, session.getPlan().getProperties());
+		session.getMetrics().phase(ExportPhase.HEADER, headerStart, 0);
+		session.startSheet(sheet, headerRowIndex);
+		return sheet;
+	}
+
+	/**
+	 * Complete the current sheet of the export session, creating the total footer row if required.
+	 * @param session Export session
+	 */
+	protected void completeSheet(XLSExportSession session) {
+		if (session.getLastRowIndex() > session.getHeaderRowIndex()
+				&& !session.getConfiguration().getTotalFooterProperties().isEmpty()) {
+			final long totalsStart = System.nanoTime();
+			createTotalRow(session, session.getSheet(), session.getLastRowIndex() + 1, session.getHeaderRowIndex() + 1,
+					session.getLastRowIndex(), session.getConfiguration(), session.getPlan().getProperties());
+			session.getMetrics().phase(ExportPhase.TOTALS, totalsStart, 0);
+		}
+		// column widths
+		final XLSColumnWidths columnWidths = session.getColumnWidths();
+		if (columnWidths.isEnabled()) {
+			for (int i = 0; i < session.getPlan().getColumnCount(); i++) {
+				final int width = columnWidths.getWidth(i);
+				if (width >= 0) {
+					session.getSheet().setColumnWidth(i, width);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the maximum number of data rows to write in a sheet, before continuing the export in a new sheet.
+	 * @param configuration Export configuration
+	 * @return The configured maximum number of data rows per sheet, limited to the rows supported by the file version
+	 *         excluding the title, header and total rows and the subtotal rows of the groups closed at the sheet end
+	 */
+	protected int getMaxRowsPerSheet(XLSConfiguration configuration) {
+		final int reservedRows = (getTitle(configuration).isPresent() ? 1 : 0) + 1
+				+ (configuration.getTotalFooterProperties().isEmpty() ? 0 : 1)
+				+ configuration.getGroupByProperties().size();
+		final int limit = configuration.getFileVersion().getMaxRows() - reservedRows;
+		final int maxRows = configuration.getMaxRowsPerSheet();
+		return (maxRows > 0 && maxRows < limit) ? maxRows : limit;
+	}
+
+	/**
+	 * Create the data rows using the data source.
+	 * <p>
+	 * When the maximum number of data rows per sheet is reached, the current sheet is completed and the export
+	 * continues in a new sheet.
+	 * </p>
+	 * <p>
+	 * When the rows are grouped, the groups broken by each data row are closed before writing the row, creating the
+	 * group subtotal rows. The open groups are closed when a sheet is completed and when the data rows are ended.
+	 * </p>
+	 * @param session Export session
 	 * @param exportProgressCallback The progress callback
-	 * @param totalSteps Total export steps
+	 * @param totalSteps Total export steps supplier
 	 * @param lastStep Last completed step
-	 * @return The last data row index
+	 * @return The number of data rows
+	 * @see #getMaxRowsPerSheet(XLSConfiguration)
 	 */
-	protected int createDataRows(Workbook workbook, Sheet sheet, int lastRowIndex, XLSConfiguration configuration,
-			List<Property<?>> properties, OperationProgressCallback exportProgressCallback, int totalSteps,
-			int lastStep) {
+	protected int createDataRows(XLSExportSession session, OperationProgressCallback exportProgressCallback,
+			IntSupplier totalSteps, int lastStep) {
+
+		final DefaultXLSCellSink sink = new DefaultXLSCellSink(this, session.getConfiguration());
+		final ReusableXLSPropertyValueContext<Object> context = new ReusableXLSPropertyValueContext<>();
+		final int maxRowsPerSheet = getMaxRowsPerSheet(session.getConfiguration());
+		final XLSGroups groups = session.getGroups();
+
+		final int count = forEachDataRow(result -> {
+			closeGroups(session, sink, context, groups.getBreakLevel(result));
+			if (session.getSheetDataRowCount() >= maxRowsPerSheet) {
+				closeGroups(session, sink, context, 0);
+				completeSheet(session);
+				createSheet(session);
+			}
+			final int rowIndex = session.nextRowIndex();
+			groups.openGroups(rowIndex);
+			final Row row = session.getSheet().createRow(rowIndex);
+			setRowOutlineLevel(session.getSheet(), row, groups.getDepth());
+			createDataRow(session, row, sink, context, result);
+			if (session.getColumnWidths().isSampling()) {
+				sampleColumnWidths(session, row);
+			}
+			groups.setLastRow(result);
+		}, exportProgressCallback, totalSteps, lastStep, session.getMetrics(), session.getBatchValues());
 
-		final PropertyXLSValueProviderRegistry registry = getPropertyXLSValueProviderRegistry()
-				.orElseGet(() -> PropertyXLSValueProviderRegistry.get());
+		closeGroups(session, sink, context, 0);
+		return count;
+	}
+
+	/**
+	 * Sample the cell values of given data row to estimate the widths of the auto-width columns, using the cell data
+	 * formats to measure the numeric and date values.
+	 * @param session Export session
+	 * @param row The data row
+	 * @see XLSConfiguration#isAutoWidth()
+	 */
+	protected void sampleColumnWidths(XLSExportSession session, Row row) {
+		final DefaultXLSExportPlan plan = session.getPlan();
+		final XLSColumnWidths columnWidths = session.getColumnWidths();
+		for (int i = 0; i < plan.getColumnCount(); i++) {
+			final Cell cell = row.getCell(i);
+			if (cell == null) {
+				continue;
+			}
+			final XLSCellConfiguration cellConfiguration = plan.getColumn(i).getPropertyConfiguration()
+					.getCellConfiguration();
+			switch (cell.getCellType()) {
+			case NUMERIC:
+				if (DateUtil.isCellDateFormatted(cell)) {
+					columnWidths.sampleDate(i, cell.getCellStyle().getDataFormatString(), cellConfiguration);
+				} else {
+					columnWidths.sampleNumber(i, cell.getNumericCellValue(), cell.getCellStyle().getDataFormatString(),
+							cellConfiguration);
+				}
+				break;
+			case STRING:
+				columnWidths.sampleText(i, cell.getStringCellValue(), cellConfiguration);
+				break;
+			case BOOLEAN:
+				columnWidths.sampleBoolean(i, cell.getBooleanCellValue(), cellConfiguration);
+				break;
+			default:
+				break;
+			}
+		}
+		columnWidths.rowSampled();
+	}
 
-		int rowIndex = lastRowIndex;
-		int progressStep = lastStep;
+	/**
+	 * Close the open row groups with a level greater or equal to given level, from the innermost one, creating a
+	 * subtotal row for each closed group.
+	 * @param session Export session
+	 * @param sink The cell sink to use
+	 * @param context The value context to use
+	 * @param level The outermost group level to close
+	 */
+	protected void closeGroups(XLSExportSession session, DefaultXLSCellSink sink,
+			ReusableXLSPropertyValueContext<Object> context, int level) {
+		final XLSGroups groups = session.getGroups();
+		while (groups.getOpenLevels() > level) {
+			createSubtotalRow(session, sink, context, groups.closeGroup());
+		}
+	}
+
+	/**
+	 * Create the subtotal row of the group with given level, which was just closed.
+	 * <p>
+	 * The subtotal row contains the values of the properties of the group and of its outer groups, taken from the
+	 * last group row, and the group subtotals of the properties with a <em>total</em> footer. The group rows are bound
+	 * to the group outline level.
+	 * </p>
+	 * @param session Export session
+	 * @param sink The cell sink to use
+	 * @param context The value context to use
+	 * @param level The group level
+	 */
+	protected void createSubtotalRow(XLSExportSession session, DefaultXLSCellSink sink,
+			ReusableXLSPropertyValueContext<Object> context, int level) {
+		final DefaultXLSExportPlan plan = session.getPlan();
+		final XLSConfiguration configuration = plan.getConfiguration();
+		final XLSGroups groups = session.getGroups();
+		final XLSTotals totals = groups.getTotals(level);
+		final PropertyBox groupRow = groups.getLastRow();
+		final Sheet sheet = session.getSheet();
+		final int firstRowIndex = groups.getFirstRow(level);
+		final int lastRowIndex = session.getLastRowIndex();
+
+		final Row row = sheet.createRow(session.nextRowIndex());
+		setRowOutlineLevel(sheet, row, level);
+		for (int i = 0; i < plan.getColumnCount(); i++) {
+			final XLSExportColumn column = plan.getColumn(i);
+			final Cell cell = row.createCell(i);
+			final int columnLevel = groups.getColumnLevel(i);
+			String dataFormat = null;
+			if (columnLevel >= 0 && columnLevel <= level) {
+				// group value
+				sink.begin(cell, column);
+				column.getWriter().write(
+						context.set(column.getProperty(), column.getPropertyConfiguration(), groupRow),
+						column.getValue(groupRow), sink);
+				sink.complete();
+				dataFormat = sink.getStyleKey().getDataFormat();
+			} else {
+				setTotalCellValue(session, cell, totals, i, firstRowIndex, lastRowIndex, true);
+			}
+			cell.setCellStyle(getOrCreateStyle(session, column.getProperty(), configuration,
+					new XLSStyleKey(configuration.getTotalConfiguration(), dataFormat)));
+		}
+		groupRows(sheet, firstRowIndex, lastRowIndex);
+	}
 
-		int offset = 0;
-		List<PropertyBox> results = Collections.emptyList();
+	/**
+	 * Set the outline level of a new row.
+	 * <p>
+	 * The outline level is set when the row is created only for a {@link SXSSFSheet}, which retains a limited window
+	 * of rows in memory. For the other sheet types, the rows are grouped when the group is closed, using
+	 * {@link #groupRows(Sheet, int, int)}.
+	 * </p>
+	 * @param sheet The sheet
+	 * @param row The new row
+	 * @param outlineLevel The row outline level
+	 */
+	protected void setRowOutlineLevel(Sheet sheet, Row row, int outlineLevel) {
+		if (outlineLevel > 0 && sheet instanceof SXSSFSheet) {
+			((SXSSFSheet) sheet).setRowOutlineLevel(row.getRowNum(), outlineLevel);
+		}
+	}
 
-		final List<QuerySortOrder> sorts = getQuerySortsProvider().map(s -> s.get()).orElse(Collections.emptyList());
+	/**
+	 * Group the given sheet rows in a new row outline level, if the sheet is not a {@link SXSSFSheet}.
+	 * @param sheet The sheet
+	 * @param firstRowIndex The first row index of the group
+	 * @param lastRowIndex The last row index of the group
+	 * @see #setRowOutlineLevel(Sheet, Row, int)
+	 */
+	protected void groupRows(Sheet sheet, int firstRowIndex, int lastRowIndex) {
+		if (!(sheet instanceof SXSSFSheet) && lastRowIndex >= firstRowIndex) {
+			sheet.groupRow(firstRowIndex, lastRowIndex);
+		}
+	}
 
-		do {
-			results = getDataProvider().fetch(new Query<>(offset, DEFAULT_BATCH_SIZE, sorts, null, null))
-					.collect(Collectors.toList());
-			for (PropertyBox result : results) {
-				rowIndex++;
-				final Row row = sheet.createRow(rowIndex);
-				createDataRow(workbook, row, configuration, properties, registry, result);
-				progressStep = ((progressStep + 1) < totalSteps) ? (progressStep + 1) : progressStep;
-				updateExportProgress(exportProgressCallback, totalSteps, progressStep);
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.AbstractDataExporter#forEachDataRow(java.util.
+	 * function.Consumer, com.holonplatform.artisan.core.operation.OperationProgressCallback,
+	 * java.util.function.IntSupplier, int)
+	 */
+	@Override
+	protected int forEachDataRow(Consumer<PropertyBox> rowConsumer, OperationProgressCallback exportProgressCallback,
+			IntSupplier totalSteps, int lastStep) {
+		return forEachDataRow(rowConsumer, exportProgressCallback, totalSteps, lastStep,
+				ExportMetricsCollector.create());
+	}
+
+	/**
+	 * Fetch the export data from the data source and pass each data row to given consumer, updating the export
+	 * progress after each row and recording the {@link ExportPhase#FETCH} and {@link ExportPhase#DATA} phases using
+	 * given metrics collector.
+	 * @param rowConsumer The data row consumer
+	 * @param exportProgressCallback The progress callback
+	 * @param totalSteps Total export steps supplier, which provides <code>0</code> if not available
+	 * @param lastStep Last completed step
+	 * @param metrics The export metrics collector
+	 * @return The number of data rows
+	 */
+	protected int forEachDataRow(Consumer<PropertyBox> rowConsumer, OperationProgressCallback exportProgressCallback,
+			IntSupplier totalSteps, int lastStep, ExportMetricsCollector metrics) {
+		return forEachDataRow(rowConsumer, exportProgressCallback, totalSteps, lastStep, metrics, null);
+	}
+
+	/**
+	 * Fetch the export data from the data source and pass each data row to given consumer, updating the export
+	 * progress after each row and recording the {@link ExportPhase#FETCH} and {@link ExportPhase#DATA} phases using
+	 * given metrics collector.
+	 * <p>
+	 * When a {@link XLSBatchValues} is provided, the batch values of each data page are loaded once the page is
+	 * fetched, before passing the page rows to the consumer.
+	 * </p>
+	 * @param rowConsumer The data row consumer
+	 * @param exportProgressCallback The progress callback
+	 * @param totalSteps Total export steps supplier, which provides <code>0</code> if not available
+	 * @param lastStep Last completed step
+	 * @param metrics The export metrics collector
+	 * @param batchValues The batch values of the export (may be null)
+	 * @return The number of data rows
+	 */
+	protected int forEachDataRow(Consumer<PropertyBox> rowConsumer, OperationProgressCallback exportProgressCallback,
+			IntSupplier totalSteps, int lastStep, ExportMetricsCollector metrics, XLSBatchValues batchValues) {
+		final boolean batch = batchValues != null && !batchValues.isEmpty();
+		final long dataStart = System.nanoTime();
+		final int columns = getExportPlan().getColumnCount();
+		final int count = forEachDataRow(batch ? row -> {
+			batchValues.next();
+			rowConsumer.accept(row);
+		} : rowConsumer, exportProgressCallback, totalSteps, lastStep, (page, fetchStart) -> {
+			// the empty page which signals the end of the data is not recorded
+			if (page.isEmpty()) {
+				return;
 			}
-			offset += DEFAULT_BATCH_SIZE;
-		} while (!results.isEmpty());
+			metrics.phase(ExportPhase.FETCH, fetchStart, page.size());
+			if (batch) {
+				batchValues.load(page);
+			}
+			metrics.addRows(page.size(), columns);
+		});
+		metrics.phase(ExportPhase.DATA, dataStart, count);
+		return count;
+	}
 
-		return rowIndex;
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.AbstractDataExporter#createDataPageSource()
+	 */
+	@Override
+	protected ExportPageSource createDataPageSource() {
+		if (datastoreSource != null) {
+			// use the results stream of a single query
+			return new DatastoreExportPageSource(datastoreSource, getPropertySet(), createBatchSizeStrategy());
+		}
+		return super.createDataPageSource();
 	}
 
 	/**
 	 * Export a single data row.
-	 * @param workbook Workbook reference
+	 * <p>
+	 * The values are written using the {@link PropertyXLSValueWriter} of each export column: the cell sink and the
+	 * value context are reused for each cell.
+	 * </p>
+	 * @param session Export session
 	 * @param row The row reference
-	 * @param configuration Export configuration
-	 * @param properties Export properties
-	 * @param registry The {@link PropertyXLSValueProviderRegistry} to use
+	 * @param sink The cell sink to use
+	 * @param context The value context to use
 	 * @param value The value to export
 	 */
-	protected void createDataRow(Workbook workbook, Row row, XLSConfiguration configuration,
-			List<Property<?>> properties, PropertyXLSValueProviderRegistry registry, PropertyBox value) {
-		for (int i = 0; i < properties.size(); i++) {
-			@SuppressWarnings("unchecked")
-			final Property<Object> property = (Property<Object>) properties.get(i);
+	protected void createDataRow(XLSExportSession session, Row row, DefaultXLSCellSink sink,
+			ReusableXLSPropertyValueContext<Object> context, PropertyBox value) {
+		final DefaultXLSExportPlan plan = session.getPlan();
+		final XLSConfiguration configuration = plan.getConfiguration();
+		final XLSTotals totals = session.getTotals();
+		final XLSGroups groups = session.getGroups();
+		final XLSBatchValues batchValues = session.getBatchValues();
+		for (int i = 0; i < plan.getColumnCount(); i++) {
+			final XLSExportColumn column = plan.getColumn(i);
 			final Cell cell = row.createCell(i);
-			// property configuration
-			final XLSPropertyConfiguration propertyConfiguration = configuration.getPropertyConfiguration(property)
-					.orElse(DEFAULT_PROPERTY_CONFIGURATION);
-			// value provider
-			PropertyXLSValueProvider<Object> provider = registry.getProvider(property)
-					.orElseGet(() -> new DefaultPropertyXLSValueProvider<>());
-			// value
-			Object propertyValue = null;
-			if (value != null && value.contains(property)) {
-				propertyValue = value.getValue(property);
-			} else {
-				if (VirtualProperty.class.isAssignableFrom(property.getClass())) {
-					final PropertyValueProvider<?> valueProvider = ((VirtualProperty<?>) property).getValueProvider();
-					if (valueProvider != null) {
-						propertyValue = valueProvider.getPropertyValue(value);
-					}
-				}
-			}
-			// get XLS value using provider
-			final XLSPropertyValueContext<Object> ctx = new DefaultXLSPropertyValueContext<>(property,
-					propertyConfiguration, value);
-			XLSValue<?> xlsv = provider.provide(ctx, propertyValue);
-			if (xlsv == null) {
-				// fallback to default
-				xlsv = XLSValue.stringValue((propertyValue == null) ? null : String.valueOf(propertyValue));
+			// write value
+			sink.begin(cell, column);
+			if (!batchValues.write(i, value, sink)) {
+				column.getWriter().write(context.set(column.getProperty(), column.getPropertyConfiguration(), value),
+						column.getValue(value), sink);
 			}
-			final XLSValue<?> xlsValue = xlsv;
-			CellType cellType = setCellValue(cell, xlsValue, configuration, propertyConfiguration);
-			if (cellType != CellType.BLANK && !cellTypes.containsKey(property)) {
-				cellTypes.put(property, cellType);
+			final CellType cellType = sink.complete();
+			if (cellType != CellType.BLANK) {
+				session.setCellType(i, cellType);
+				sink.addTo(totals, i);
+				for (int level = 0; level < groups.getDepth(); level++) {
+					sink.addTo(groups.getTotals(level), i);
+				}
 			}
 			// style
-			cell.setCellStyle(getOrCreateStyle(workbook, property, configuration,
-					configuration.getPropertyConfiguration(property).map(cfg -> cfg.getCellConfiguration())
-							.orElse(DEFAULT_CELL_CONFIGURATION),
-					xlsValue.getDataFormat()
-							.orElseGet(() -> getDefaultDataFormat(property, xlsValue, propertyConfiguration))));
+			cell.setCellStyle(getOrCreateStyle(session, column.getProperty(), configuration,
+					sink.getStyleId(session.getStyleTable())));
 		}
 	}
 
-	protected void createTotalRow(Workbook workbook, Sheet sheet, int rowIndex, int dataStartRowIndex,
+	protected void createTotalRow(XLSExportSession session, Sheet sheet, int rowIndex, int dataStartRowIndex,
 			int dataEndRowIndex, XLSConfiguration configuration, List<Property<?>> properties) {
 		if (!configuration.getTotalFooterProperties().isEmpty()) {
 			final Row footerRow = sheet.createRow(rowIndex);
 
 			// style
-			final CellStyle totalStyle = workbook.createCellStyle();
-			configureCellStyle(workbook, totalStyle, configuration, configuration.getTotalConfiguration());
+			final CellStyle totalStyle = getOrCreateStyle(session, null, configuration,
+					new XLSStyleKey(configuration.getTotalConfiguration(), null));
 
+			final XLSTotals totals = session.getTotals();
+			final boolean subtotal = session.getGroups().getDepth() > 0;
 			for (int i = 0; i < properties.size(); i++) {
-				final Property<?> property = properties.get(i);
-				if (configuration.hasTotalFooter(property) && isValidTotalProperty(property)) {
-					// set the total formula
-					final String label = CellReference.convertNumToColString(i);
-
-					StringBuilder sb = new StringBuilder();
-					sb.append("SUM(");
-					sb.append(label);
-					sb.append(dataStartRowIndex + 1);
-					sb.append(":");
-					sb.append(label);
-					sb.append(dataEndRowIndex + 1);
-					sb.append(")");
-
-					final Cell cell = footerRow.createCell(i);
-					cell.setCellFormula(sb.toString());
-					cell.setCellStyle(totalStyle);
+				final Cell cell = footerRow.createCell(i);
+				setTotalCellValue(session, cell, totals, i, dataStartRowIndex, dataEndRowIndex, subtotal);
+				cell.setCellStyle(totalStyle);
+			}
+		}
+	}
 
-				} else {
-					// empty total cell
-					final Cell cell = footerRow.createCell(i);
-					cell.setBlank();
-					cell.setCellStyle(totalStyle);
+	/**
+	 * Set the value of a total cell, if a total is provided for given column. Otherwise, the cell is left blank.
+	 * @param session Export session
+	 * @param cell The total cell
+	 * @param totals The totals to use
+	 * @param columnIndex The column index
+	 * @param firstRowIndex The index of the first row of the total range
+	 * @param lastRowIndex The index of the last row of the total range
+	 * @param subtotal Whether to use a <code>SUBTOTAL</code> formula, which ignores the group subtotals of the range
+	 */
+	private static void setTotalCellValue(XLSExportSession session, Cell cell, XLSTotals totals, int columnIndex,
+			int firstRowIndex, int lastRowIndex, boolean subtotal) {
+		if (totals.hasTotal(columnIndex) && isValidTotalColumn(session, columnIndex)) {
+			final double total = totals.getTotal(columnIndex);
+			if (session.getConfiguration().isTotalFormulas()) {
+				// set the total formula, using the computed total as cached result
+				cell.setCellFormula(totals.getFormula(columnIndex, CellReference.convertNumToColString(columnIndex),
+						firstRowIndex + 1, lastRowIndex + 1, subtotal));
+				if (Double.isFinite(total)) {
+					cell.setCellValue(total);
 				}
+			} else if (Double.isFinite(total)) {
+				cell.setCellValue(total);
+			} else {
+				cell.setBlank();
 			}
+		} else {
+			// empty total cell
+			cell.setBlank();
 		}
 	}
 
 	/**
-	 * Checks if a total footer can be provided for given property.
-	 * @param property The property
-	 * @return <code>true</code> if property cell type is numeric
+	 * Checks if a total footer can be provided for given column.
+	 * @param session Export session
+	 * @param columnIndex The column index
+	 * @return <code>true</code> if the column cell type is numeric
 	 */
-	private boolean isValidTotalProperty(Property<?> property) {
-		final CellType cellType = cellTypes.get(property);
+	private static boolean isValidTotalColumn(XLSExportSession session, int columnIndex) {
+		final CellType cellType = session.getCellType(columnIndex);
 		return (cellType != null && CellType.NUMERIC == cellType);
 	}
 
@@ -758,24 +1370,48 @@ public class DefaultXLSExporter implements XLSExporter {
 			return Optional.of(CellType.STRING);
 		}
 		final boolean booleanValue = xlsValue.getValue().map(v -> (Boolean) v).orElse(Boolean.FALSE);
+		return Optional.of(setBooleanValue(cell, booleanValue, configuration, propertyConfiguration));
+	}
+
+	/**
+	 * Set a boolean value in given cell, according to the boolean export mode.
+	 * @param cell The cell for which to set the value
+	 * @param booleanValue The value to set
+	 * @param configuration Export configuration
+	 * @param propertyConfiguration Export property configuration
+	 * @return The cell type
+	 */
+	protected CellType setBooleanValue(Cell cell, boolean booleanValue, XLSConfiguration configuration,
+			XLSPropertyConfiguration propertyConfiguration) {
+		final String text = getBooleanText(booleanValue, configuration, propertyConfiguration);
+		if (text == null) {
+			cell.setCellValue(booleanValue);
+			return CellType.BOOLEAN;
+		}
+		cell.setCellValue(text);
+		return CellType.STRING;
+	}
 
+	/**
+	 * Get the text to use to export a boolean value, according to the boolean export mode.
+	 * @param booleanValue The boolean value
+	 * @param configuration Export configuration
+	 * @param propertyConfiguration Export property configuration
+	 * @return The boolean value text, <code>null</code> if the value has to be exported as a boolean type value
+	 */
+	protected String getBooleanText(boolean booleanValue, XLSConfiguration configuration,
+			XLSPropertyConfiguration propertyConfiguration) {
 		// check configuration
 		if (propertyConfiguration.getBooleanExportMode() == BooleanExportMode.DEFAULT
 				&& configuration.getDefaultBooleanExportMode() == BooleanExportMode.DEFAULT) {
-			cell.setCellValue(booleanValue);
-			return Optional.of(CellType.BOOLEAN);
+			return null;
 		}
-
-		String text = String.valueOf(booleanValue);
 		if (booleanValue) {
-			text = propertyConfiguration.getBooleanTextForTrue().orElseGet(() -> localize(Localizable
+			return propertyConfiguration.getBooleanTextForTrue().orElseGet(() -> localize(Localizable
 					.of(BooleanExportMode.DEFAULT_TRUE_TEXT, BooleanExportMode.DEFAULT_TRUE_TEXT_MESSAGE_CODE)));
-		} else {
-			text = propertyConfiguration.getBooleanTextForFalse().orElseGet(() -> localize(Localizable
-					.of(BooleanExportMode.DEFAULT_FALSE_TEXT, BooleanExportMode.DEFAULT_FALSE_TEXT_MESSAGE_CODE)));
 		}
-		cell.setCellValue(text);
-		return Optional.of(CellType.STRING);
+		return propertyConfiguration.getBooleanTextForFalse().orElseGet(() -> localize(
+				Localizable.of(BooleanExportMode.DEFAULT_FALSE_TEXT, BooleanExportMode.DEFAULT_FALSE_TEXT_MESSAGE_CODE)));
 	}
 
 	/**
@@ -791,7 +1427,7 @@ public class DefaultXLSExporter implements XLSExporter {
 				cell.setCellValue(String.valueOf(v));
 				return CellType.STRING;
 			}
-			cell.setCellValue(ConversionUtils.convertNumberToTargetClass((Number) v, Double.class));
+			cell.setCellValue(((Number) v).doubleValue());
 			return CellType.NUMERIC;
 		});
 	}
@@ -852,8 +1488,7 @@ public class DefaultXLSExporter implements XLSExporter {
 				cell.setCellValue(String.valueOf(v));
 				return CellType.STRING;
 			}
-			Enum<?> ev = (Enum<?>) v;
-			cell.setCellValue(localize(getEnumCaption(ev), ev.name()));
+			cell.setCellValue(getEnumText((Enum<?>) v));
 			return CellType.STRING;
 		});
 	}
@@ -884,43 +1519,14 @@ public class DefaultXLSExporter implements XLSExporter {
 		});
 	}
 
-	/**
-	 * Get given enum localizable caption value, using the {@link Caption} annotation if available.
-	 * @param value The enum value
-	 * @return The enum localizable caption, using the {@link Caption} annotation if available or the enum value name if
-	 *         not
-	 */
-	private static Localizable getEnumCaption(Enum<?> value) {
-		try {
-			final java.lang.reflect.Field field = value.getClass().getField(value.name());
-			if (field.isAnnotationPresent(Caption.class)) {
-				String captionMessage = getStringValue(field.getAnnotation(Caption.class).value());
-				return Localizable.builder().message((captionMessage != null) ? captionMessage : value.name())
-						.messageCode(getStringValue(field.getAnnotation(Caption.class).messageCode())).build();
-			}
-		} catch (@SuppressWarnings("unused") NoSuchFieldException | SecurityException e) {
-			return Localizable.of(value.name());
-		}
-		return Localizable.of(value.name());
-	}
-
-	/**
-	 * Read a string annotation value, treating empty strings as <code>null</code> values
-	 * @param annotationValue Annotation string value
-	 * @return String value, or <code>null</code> if <code>annotationValue</code> is an empty string
-	 */
-	private static String getStringValue(String annotationValue) {
-		return (annotationValue != null && !annotationValue.equals("")) ? annotationValue : null;
-	}
-
 	/**
 	 * Configure the cell style according to given export configuration and cell configuration.
-	 * @param workbook Workbook reference
+	 * @param session Export session
 	 * @param style The cell style to configure
 	 * @param configuration The export configuration
 	 * @param cellConfiguration The cell configuration
 	 */
-	protected void configureCellStyle(Workbook workbook, CellStyle style, XLSConfiguration configuration,
+	protected void configureCellStyle(XLSExportSession session, CellStyle style, XLSConfiguration configuration,
 			XLSCellConfiguration cellConfiguration) {
 		// config
 		style.setWrapText(cellConfiguration.isWrap());
@@ -973,18 +1579,18 @@ public class DefaultXLSExporter implements XLSExporter {
 			style.setFillForegroundColor(cellConfiguration.getBackgroundColor().getIndex1());
 		}
 		// font
-		style.setFont(getOrCreateFont(workbook, configuration, cellConfiguration));
+		style.setFont(getOrCreateFont(session, configuration, cellConfiguration));
 	}
 
 	/**
 	 * Get the {@link Font} which corresponds to given export configuration and cell configuration, creating a new one
 	 * if not already available.
-	 * @param workbook Workbook reference
+	 * @param session Export session
 	 * @param configuration Export configuration
 	 * @param cellConfiguration Cell configuration
 	 * @return The {@link Font}
 	 */
-	protected Font getOrCreateFont(Workbook workbook, XLSConfiguration configuration,
+	protected Font getOrCreateFont(XLSExportSession session, XLSConfiguration configuration,
 			XLSCellConfiguration cellConfiguration) {
 
 		final XLSFontSize size = !cellConfiguration.getFontSize().isAuto() ? cellConfiguration.getFontSize()
@@ -994,8 +1600,8 @@ public class DefaultXLSExporter implements XLSExporter {
 				cellConfiguration.isUnderline(), cellConfiguration.isStrikeOut(), size.getPoints(),
 				cellConfiguration.getFontColor().getIndex1());
 
-		return workbookFonts.computeIfAbsent(fc, config -> {
-			Font font = workbook.createFont();
+		return session.getFonts().computeIfAbsent(fc, config -> {
+			Font font = session.getWorkbook().createFont();
 			font.setBold(cellConfiguration.isBold());
 			font.setItalic(cellConfiguration.isItalic());
 			font.setStrikeout(cellConfiguration.isStrikeOut());
@@ -1016,71 +1622,56 @@ public class DefaultXLSExporter implements XLSExporter {
 	/**
 	 * Get the {@link CellStyle} which corresponds to given export configuration and cell configuration, creating a new
 	 * one if not already available.
-	 * @param workbook Workbook reference
+	 * @param session Export session
 	 * @param property Export property
 	 * @param configuration Export configuration
-	 * @param cellConfiguration Cell configuration
-	 * @param dataFormat Optional data format to use
+	 * @param styleKey Cell style definition
 	 * @return The {@link CellStyle}
 	 */
-	protected CellStyle getOrCreateStyle(Workbook workbook, Property<?> property, XLSConfiguration configuration,
-			XLSCellConfiguration cellConfiguration, String dataFormat) {
-		final StyleConfiguration styleConfiguration = new StyleConfiguration(cellConfiguration, dataFormat);
-
-		return workbookStyles.computeIfAbsent(styleConfiguration, config -> {
-			LOGGER.debug("Create custom cell style for property: " + property);
-			CellStyle style = workbook.createCellStyle();
-			configureCellStyle(workbook, style, configuration, cellConfiguration);
-			if (dataFormat != null && !dataFormat.trim().equals("")) {
-				style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(dataFormat));
-			}
-			return style;
-		});
-	}
-
-	/**
-	 * Update the export operation progress.
-	 * @param exportProgressCallback The callback to use
-	 * @param totalSteps Total steps
-	 * @param completedSteps Completed steps
-	 */
-	protected void updateExportProgress(OperationProgressCallback exportProgressCallback, int totalSteps,
-			int completedSteps) {
-		final OperationProgress state = exportProgressCallback.onProgress(totalSteps, completedSteps);
-		if (OperationProgress.ABORT.equals(state)) {
-			throw new InterruptedOperationException("Export interrupted by external request");
-		}
-	}
-
-	/**
-	 * Localize given message using the current {@link LocalizationContext}, if available.
-	 * @param message The message to localize
-	 * @return The localized message, or an empty String if the message was <code>null</code>
-	 */
-	protected String localize(Localizable message) {
-		return localize(message, "");
+	protected CellStyle getOrCreateStyle(XLSExportSession session, Property<?> property,
+			XLSConfiguration configuration, XLSStyleKey styleKey) {
+		return getOrCreateStyle(session, property, configuration, session.getStyleTable().getStyleId(styleKey));
 	}
 
 	/**
-	 * Localize given message using the current {@link LocalizationContext}, if available.
-	 * @param message The message to localize
-	 * @param defaultText The default text to return if the message is <code>null</code>
-	 * @return The localized message, or the default text if the message was <code>null</code>
+	 * Get the {@link CellStyle} bound to given style id in the export session style table, creating a new one if not
+	 * already available.
+	 * <p>
+	 * When the maximum number of cell styles supported by the workbook is reached, no new cell style is created and
+	 * the style definition is bound to the workbook default cell style.
+	 * </p>
+	 * @param session Export session
+	 * @param property Export property
+	 * @param configuration Export configuration
+	 * @param styleId Cell style definition id
+	 * @return The {@link CellStyle}
+	 * @see XLSStyleTable
 	 */
-	protected String localize(Localizable message, String defaultText) {
-		if (message == null) {
-			return defaultText;
-		}
-		Optional<LocalizationContext> ctx = getLocalizationContext();
-		if (!ctx.isPresent()) {
-			ctx = LocalizationContext.getCurrent();
+	protected CellStyle getOrCreateStyle(XLSExportSession session, Property<?> property,
+			XLSConfiguration configuration, int styleId) {
+		final XLSStyleTable styleTable = session.getStyleTable();
+		final CellStyle cellStyle = styleTable.getStyle(styleId);
+		if (cellStyle != null) {
+			return cellStyle;
 		}
-		return ctx.map(lc -> lc.getMessage(message, true)).orElseGet(() -> {
-			if (message.getMessage() != null && !message.getMessage().trim().equals("")) {
-				return message.getMessage();
+		final Workbook workbook = session.getWorkbook();
+		final CellStyle style;
+		if (workbook.getNumCellStyles() >= workbook.getSpreadsheetVersion().getMaxCellStyles()) {
+			LOGGER.warn("The maximum number of workbook cell styles was reached: the default cell style will be used "
+					+ "for property [" + property + "]");
+			style = workbook.getCellStyleAt(0);
+		} else {
+			LOGGER.debug("Create custom cell style for property: " + property);
+			final XLSStyleKey key = styleTable.getStyleKey(styleId);
+			final String dataFormat = key.getDataFormat();
+			style = workbook.createCellStyle();
+			configureCellStyle(session, style, configuration, key.getConfiguration());
+			if (dataFormat != null && !dataFormat.trim().equals("")) {
+				style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(dataFormat));
 			}
-			return defaultText;
-		});
+		}
+		styleTable.setStyle(styleId, style);
+		return style;
 	}
 
 	/**
@@ -1102,7 +1693,7 @@ public class DefaultXLSExporter implements XLSExporter {
 	 */
 	protected Workbook createWorkbook(XLSConfiguration configuration) {
 		if (XLSFileVersion.XLSX.equals(configuration.getFileVersion())) {
-			return new SXSSFWorkbook(10);
+			return new XLSStreamingWorkbook(configuration.getStreamingOptions());
 		}
 		return new HSSFWorkbook();
 	}
@@ -1203,6 +1794,17 @@ public class DefaultXLSExporter implements XLSExporter {
 			this.exporter = new DefaultXLSExporter(dataSource, propertySet);
 		}
 
+		/**
+		 * Constructor using a {@link DatastoreExportSource} as data source.
+		 * @param datastoreSource The Datastore export source (not null)
+		 * @param propertySet The property set to use (not null)
+		 * @since 3.0.2
+		 */
+		public DefaultBuilder(DatastoreExportSource datastoreSource, PropertySet<?> propertySet) {
+			super();
+			this.exporter = new DefaultXLSExporter(datastoreSource, propertySet);
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see
@@ -1262,6 +1864,139 @@ public class DefaultXLSExporter implements XLSExporter {
 			return this;
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#batchSize(int)
+		 */
+		@Override
+		public Builder batchSize(int batchSize) {
+			final BatchSizeStrategy strategy = BatchSizeStrategy.fixed(batchSize);
+			this.exporter.setBatchSizeStrategy(() -> strategy);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#adaptiveBatchSize(int, int, long,
+		 * long)
+		 */
+		@Override
+		public Builder adaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetFetchTimeMillis,
+				long maxPageMemory) {
+			this.exporter.setAdaptiveBatchSize(minBatchSize, maxBatchSize, targetFetchTimeMillis, maxPageMemory);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#sizeEstimation(com.holonplatform.
+		 * artisan.vaadin.flow.export.SizeEstimationMode)
+		 */
+		@Override
+		public Builder sizeEstimation(SizeEstimationMode mode) {
+			this.exporter.setSizeEstimationMode(mode);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#estimatedSize(java.util.function.
+		 * IntSupplier)
+		 */
+		@Override
+		public Builder estimatedSize(IntSupplier estimatedSize) {
+			this.exporter.setSizeEstimateSupplier(estimatedSize);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#progressThrottling(long, int)
+		 */
+		@Override
+		public Builder progressThrottling(long intervalMillis, int percentageStep) {
+			this.exporter.setProgressThrottling(intervalMillis, percentageStep);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#prefetch(int,
+		 * java.util.concurrent.ThreadFactory)
+		 */
+		@Override
+		public Builder prefetch(int queueDepth, ThreadFactory threadFactory) {
+			this.exporter.setPrefetch(queueDepth, threadFactory);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#keysetPagination(java.util.List,
+		 * java.util.function.Function)
+		 */
+		@Override
+		public Builder keysetPagination(List<Property<?>> keyProperties, Function<PropertyBox, ?> seekFilterProvider) {
+			this.exporter.setKeysetPagination(keyProperties, seekFilterProvider);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#exportPlan(com.holonplatform.artisan.
+		 * vaadin.flow.export.xls.XLSExportPlan)
+		 */
+		@Override
+		public Builder exportPlan(XLSExportPlan exportPlan) {
+			this.exporter.setExportPlan(exportPlan);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#engine(com.holonplatform.artisan.
+		 * vaadin.flow.export.xls.XLSExportEngine)
+		 */
+		@Override
+		public Builder engine(XLSExportEngine engine) {
+			this.exporter.setEngine(engine);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#tempBytesListener(java.util.
+		 * function.LongConsumer)
+		 */
+		@Override
+		public Builder tempBytesListener(LongConsumer listener) {
+			this.exporter.setTempBytesListener(listener);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#fileVersionListener(java.util.
+		 * function.Consumer)
+		 */
+		@Override
+		public Builder fileVersionListener(Consumer<XLSFileVersion> listener) {
+			this.exporter.setFileVersionListener(listener);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#listener(com.holonplatform.artisan.
+		 * vaadin.flow.export.ExportListener)
+		 */
+		@Override
+		public Builder listener(ExportListener listener) {
+			this.exporter.addExportListener(listener);
+			return this;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter.Builder#build()
@@ -1275,7 +2010,7 @@ public class DefaultXLSExporter implements XLSExporter {
 
 	// ------- Support classes for caching purposes
 
-	private static class FontConfiguration implements Serializable {
+	static class FontConfiguration implements Serializable {
 
 		private static final long serialVersionUID = -6829041483209389400L;
 
@@ -1336,50 +2071,4 @@ public class DefaultXLSExporter implements XLSExporter {
 
 	}
 
-	private static class StyleConfiguration implements Serializable {
-
-		private static final long serialVersionUID = 8361794117038406663L;
-
-		private final XLSCellConfiguration configuration;
-		private final String dataFormat;
-
-		public StyleConfiguration(XLSCellConfiguration configuration, String dataFormat) {
-			super();
-			this.configuration = configuration;
-			this.dataFormat = dataFormat;
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((configuration == null) ? 0 : configuration.hashCode());
-			result = prime * result + ((dataFormat == null) ? 0 : dataFormat.hashCode());
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			StyleConfiguration other = (StyleConfiguration) obj;
-			if (configuration == null) {
-				if (other.configuration != null)
-					return false;
-			} else if (!configuration.equals(other.configuration))
-				return false;
-			if (dataFormat == null) {
-				if (other.dataFormat != null)
-					return false;
-			} else if (!dataFormat.equals(other.dataFormat))
-				return false;
-			return true;
-		}
-
-	}
-
 }
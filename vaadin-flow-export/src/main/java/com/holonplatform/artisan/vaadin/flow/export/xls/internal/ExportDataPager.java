@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Fetches the export data from the export data source in subsequent pages.
+ * <p>
+ * A pager is stateful and it is meant to be used for a single export operation.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface ExportDataPager {
+
+	/**
+	 * Fetch the next data page.
+	 * @param limit The maximum number of items to fetch
+	 * @return The next page items, an empty List if no more data is available
+	 */
+	List<PropertyBox> next(int limit);
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Provides the export data as a sequence of data pages.
+ * <p>
+ * A page source is meant to be used for a single export operation and it must be closed when the export terminates,
+ * either successfully or not.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public interface ExportPageSource extends AutoCloseable {
+
+	/**
+	 * Get the next data page.
+	 * @return The next data page items, an empty List if no more data is available
+	 */
+	List<PropertyBox> nextPage();
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	default void close() {
+		// noop by default
+	}
+
+}
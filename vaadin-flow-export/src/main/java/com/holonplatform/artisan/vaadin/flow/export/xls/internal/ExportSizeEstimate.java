@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+
+/**
+ * The estimated number of data rows of an export, used to compute the export progress.
+ * <p>
+ * The estimate may be not available, for example when it is computed concurrently with the export and the count is
+ * not completed yet: in this case the export progress is indeterminate.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public abstract class ExportSizeEstimate implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(XLSExporter.class);
+
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+	/**
+	 * Default concurrent count thread factory, which creates daemon threads.
+	 */
+	public static final ThreadFactory DEFAULT_THREAD_FACTORY = runnable -> {
+		final Thread thread = new Thread(runnable, "export-count-" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	};
+
+	/**
+	 * Get the estimated number of data rows.
+	 * @return The estimated number of data rows, <code>-1</code> if not available
+	 */
+	public abstract int getSize();
+
+	/**
+	 * Get the total export progress steps.
+	 * @param additionalSteps The export steps other than the data rows
+	 * @return The total export steps, <code>0</code> if the estimate is not available
+	 */
+	public int getTotalSteps(int additionalSteps) {
+		final int size = getSize();
+		return (size < 0) ? 0 : (size + additionalSteps);
+	}
+
+	/**
+	 * Release the estimate resources, stopping any pending count.
+	 */
+	@Override
+	public void close() {
+		// noop by default
+	}
+
+	/**
+	 * Create an estimate with a known size.
+	 * @param size The estimated number of data rows, a negative value if not available
+	 * @return A new estimate
+	 */
+	public static ExportSizeEstimate of(int size) {
+		final int value = (size < 0) ? -1 : size;
+		return new ExportSizeEstimate() {
+
+			@Override
+			public int getSize() {
+				return value;
+			}
+
+		};
+	}
+
+	/**
+	 * Create an estimate which is not available.
+	 * @return A new estimate
+	 */
+	public static ExportSizeEstimate unknown() {
+		return of(-1);
+	}
+
+	/**
+	 * Create an estimate which is computed in background using given counter.
+	 * @param counter The function which counts the data rows (not null)
+	 * @param threadFactory The factory to use to create the count thread (not null)
+	 * @return A new estimate
+	 */
+	public static ExportSizeEstimate concurrent(IntSupplier counter, ThreadFactory threadFactory) {
+		return new ConcurrentExportSizeEstimate(counter, threadFactory);
+	}
+
+	/**
+	 * An {@link ExportSizeEstimate} computed by a background thread.
+	 */
+	private static final class ConcurrentExportSizeEstimate extends ExportSizeEstimate {
+
+		private final Thread counterThread;
+
+		private volatile int size = -1;
+
+		ConcurrentExportSizeEstimate(IntSupplier counter, ThreadFactory threadFactory) {
+			super();
+			Obj.argumentNotNull(counter, "The counter must be not null");
+			Obj.argumentNotNull(threadFactory, "The thread factory must be not null");
+			this.counterThread = threadFactory.newThread(() -> {
+				try {
+					final int count = counter.getAsInt();
+					size = (count < 0) ? -1 : count;
+				} catch (Exception e) {
+					LOGGER.warn("Failed to count the export data rows", e);
+				}
+			});
+			this.counterThread.start();
+		}
+
+		@Override
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public void close() {
+			if (counterThread.isAlive()) {
+				counterThread.interrupt();
+			}
+		}
+
+	}
+
+}
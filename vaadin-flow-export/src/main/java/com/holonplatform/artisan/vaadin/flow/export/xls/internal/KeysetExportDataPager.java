@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.core.property.PathProperty;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.query.QueryFilter;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
+
+/**
+ * An {@link ExportDataPager} which uses the keyset (seek) method to fetch the next data page.
+ * <p>
+ * The data is sorted by the key properties in ascending order and each page after the first one is fetched using a
+ * filter which selects the items whose key is <em>greater than</em> the key of the last fetched item. This way the
+ * data source never has to skip the already fetched rows and concurrent inserts or deletes do not cause rows to be
+ * skipped or duplicated.
+ * </p>
+ * <p>
+ * The key of the last item of each page must be strictly greater than the key of the last item of the previous page,
+ * otherwise an {@link ExportException} is thrown: this way a data provider which ignores the seek filter or the key
+ * properties sorts does not cause an endless export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class KeysetExportDataPager implements ExportDataPager {
+
+	private final DataProvider<PropertyBox, Object> dataProvider;
+	private final List<Property<?>> keyProperties;
+	private final List<QuerySortOrder> sorts;
+	private final Function<PropertyBox, ?> seekFilterProvider;
+
+	private PropertyBox last = null;
+
+	/**
+	 * Constructor.
+	 * @param dataProvider The data provider (not null)
+	 * @param keyProperties The unique key properties which define the data order (not null, not empty)
+	 * @param seekFilterProvider The function which provides the data provider filter to obtain the items which follow
+	 *        the given item, according to the key properties order (not null)
+	 */
+	@SuppressWarnings("unchecked")
+	public KeysetExportDataPager(DataProvider<PropertyBox, ?> dataProvider, List<Property<?>> keyProperties,
+			Function<PropertyBox, ?> seekFilterProvider) {
+		super();
+		Obj.argumentNotNull(dataProvider, "The DataProvider must be not null");
+		Obj.argumentNotNull(keyProperties, "The key properties must be not null");
+		Obj.argumentNotNull(seekFilterProvider, "The seek filter provider must be not null");
+		if (keyProperties.isEmpty()) {
+			throw new IllegalArgumentException("At least one key property is required for keyset pagination");
+		}
+		this.dataProvider = (DataProvider<PropertyBox, Object>) dataProvider;
+		this.keyProperties = keyProperties;
+		this.sorts = keyProperties.stream().map(p -> new QuerySortOrder(p.getName(), SortDirection.ASCENDING))
+				.collect(Collectors.toList());
+		this.seekFilterProvider = seekFilterProvider;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportDataPager#next(int)
+	 */
+	@Override
+	public List<PropertyBox> next(int limit) {
+		final Object filter = (last != null) ? seekFilterProvider.apply(last) : null;
+		final List<PropertyBox> results = dataProvider.fetch(new Query<>(0, limit, sorts, null, filter))
+				.collect(Collectors.toList());
+		if (!results.isEmpty()) {
+			final PropertyBox next = results.get(results.size() - 1);
+			if (last != null && compareKeys(next, last) <= 0) {
+				throw new ExportException("Keyset pagination key of the last fetched item [" + next
+						+ "] is not greater than the key of the previous page last item [" + last
+						+ "]: check that the data provider supports the seek filter and the key properties sorts");
+			}
+			last = next;
+		}
+		return results;
+	}
+
+	/**
+	 * Compare the key values of given items, using the key properties order.
+	 * <p>
+	 * The key values which are not {@link Comparable} can only be checked for equality: two different values are
+	 * considered as increasing.
+	 * </p>
+	 * @param item The item to compare
+	 * @param previous The previous item
+	 * @return A negative integer, zero, or a positive integer as the key of the item is less than, equal to, or
+	 *         greater than the key of the previous item
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private int compareKeys(PropertyBox item, PropertyBox previous) {
+		for (Property<?> key : keyProperties) {
+			final Object value = item.getValue(key);
+			final Object previousValue = previous.getValue(key);
+			if (value == null || previousValue == null) {
+				throw new ExportException("Keyset pagination key property [" + key
+						+ "] value must be not null - got null value for item [" + ((value == null) ? item : previous)
+						+ "]");
+			}
+			final int result = (value instanceof Comparable && previousValue instanceof Comparable)
+					? ((Comparable) value).compareTo(previousValue)
+					: (value.equals(previousValue) ? 0 : 1);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Build a seek filter provider function which uses the given {@link PathProperty} keys to obtain a
+	 * {@link QueryFilter}.
+	 * <p>
+	 * For the keys <code>k1, k2, ... kn</code> and the last fetched item values <code>v1, v2, ... vn</code>, the
+	 * filter is <code>(k1 &gt; v1) OR (k1 = v1 AND k2 &gt; v2) OR ... (k1 = v1 AND ... AND kn &gt; vn)</code>.
+	 * </p>
+	 * @param keyProperties The key properties (not null)
+	 * @return The seek filter provider function
+	 */
+	@SuppressWarnings("unchecked")
+	public static Function<PropertyBox, QueryFilter> querySeekFilter(List<PathProperty<?>> keyProperties) {
+		return seekFilter(keyProperties, (key, value) -> ((PathProperty<Object>) key).gt(value),
+				(key, value) -> ((PathProperty<Object>) key).eq(value), QueryFilter::and, QueryFilter::or);
+	}
+
+	/**
+	 * Build a seek filter provider function which uses the given key properties to obtain a filter of any type,
+	 * composed using the given operations.
+	 * <p>
+	 * For the keys <code>k1, k2, ... kn</code> and the last fetched item values <code>v1, v2, ... vn</code>, the
+	 * filter is <code>(k1 &gt; v1) OR (k1 = v1 AND k2 &gt; v2) OR ... (k1 = v1 AND ... AND kn &gt; vn)</code>.
+	 * </p>
+	 * @param <P> Key property type
+	 * @param <F> Filter type
+	 * @param keyProperties The key properties (not null)
+	 * @param greaterThan The function to obtain the filter for the key values greater than a value (not null)
+	 * @param equalTo The function to obtain the filter for the key values equal to a value (not null)
+	 * @param and The operation to compose two filters using the AND operator (not null)
+	 * @param or The operation to compose two filters using the OR operator (not null)
+	 * @return The seek filter provider function
+	 */
+	public static <P extends Property<?>, F> Function<PropertyBox, F> seekFilter(List<P> keyProperties,
+			BiFunction<P, Object, F> greaterThan, BiFunction<P, Object, F> equalTo, BinaryOperator<F> and,
+			BinaryOperator<F> or) {
+		Obj.argumentNotNull(keyProperties, "The key properties must be not null");
+		Obj.argumentNotNull(greaterThan, "The greater than filter function must be not null");
+		Obj.argumentNotNull(equalTo, "The equal to filter function must be not null");
+		Obj.argumentNotNull(and, "The AND operation must be not null");
+		Obj.argumentNotNull(or, "The OR operation must be not null");
+		return last -> {
+			F filter = null;
+			F equalities = null;
+			for (P key : keyProperties) {
+				final Object value = last.getValue(key);
+				if (value == null) {
+					throw new ExportException("Keyset pagination key property [" + key
+							+ "] value must be not null - got null value for item [" + last + "]");
+				}
+				final F greater = (equalities != null) ? and.apply(equalities, greaterThan.apply(key, value))
+						: greaterThan.apply(key, value);
+				filter = (filter != null) ? or.apply(filter, greater) : greater;
+				equalities = (equalities != null) ? and.apply(equalities, equalTo.apply(key, value))
+						: equalTo.apply(key, value);
+			}
+			return filter;
+		};
+	}
+
+}
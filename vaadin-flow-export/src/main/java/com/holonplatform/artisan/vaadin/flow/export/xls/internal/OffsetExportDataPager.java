@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.core.property.PropertyBox;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+/**
+ * An {@link ExportDataPager} which uses the query offset to fetch the next data page.
+ *
+ * @since 3.0.2
+ */
+public class OffsetExportDataPager implements ExportDataPager {
+
+	private final DataProvider<PropertyBox, ?> dataProvider;
+	private final List<QuerySortOrder> sorts;
+
+	private int offset = 0;
+
+	/**
+	 * Constructor.
+	 * @param dataProvider The data provider (not null)
+	 * @param sorts The query sorts
+	 */
+	public OffsetExportDataPager(DataProvider<PropertyBox, ?> dataProvider, List<QuerySortOrder> sorts) {
+		super();
+		Obj.argumentNotNull(dataProvider, "The DataProvider must be not null");
+		this.dataProvider = dataProvider;
+		this.sorts = (sorts != null) ? sorts : Collections.emptyList();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportDataPager#next(int)
+	 */
+	@Override
+	public List<PropertyBox> next(int limit) {
+		final List<PropertyBox> results = dataProvider.fetch(new Query<>(offset, limit, sorts, null, null))
+				.collect(Collectors.toList());
+		offset += results.size();
+		return results;
+	}
+
+}
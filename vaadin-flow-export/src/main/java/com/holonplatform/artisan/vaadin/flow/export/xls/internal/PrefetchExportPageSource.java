@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.holonplatform.artisan.core.exceptions.InterruptedOperationException;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * An {@link ExportPageSource} which fetches the data pages in background, using a producer thread which fetches the
+ * next pages from a concrete {@link ExportPageSource} into a bounded queue while the export writer consumes the
+ * current page.
+ * <p>
+ * The concrete page source is only accessed by the producer thread, which closes it when the data fetch ends. When
+ * the page source is closed, the producer thread is interrupted, any pending page is discarded and the producer
+ * thread is joined, waiting at most {@link #CLOSE_TIMEOUT_MILLIS} milliseconds.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class PrefetchExportPageSource implements ExportPageSource {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(XLSExporter.class);
+
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+	/**
+	 * The maximum time to wait for the producer thread termination when the page source is closed, in milliseconds.
+	 */
+	public static final long CLOSE_TIMEOUT_MILLIS = 5000L;
+
+	/**
+	 * Default prefetch thread factory, which creates daemon threads.
+	 */
+	public static final ThreadFactory DEFAULT_THREAD_FACTORY = runnable -> {
+		final Thread thread = new Thread(runnable, "export-prefetch-" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	};
+
+	private final ExportPageSource source;
+	private final BlockingQueue<Object> queue;
+	private final Thread producer;
+
+	private volatile boolean closed = false;
+	private boolean completed = false;
+
+	/**
+	 * Constructor.
+	 * @param source The concrete page source (not null)
+	 * @param queueDepth The maximum number of pages to fetch in advance (must be greater than 0)
+	 * @param threadFactory The factory to use to create the producer thread (not null)
+	 */
+	public PrefetchExportPageSource(ExportPageSource source, int queueDepth, ThreadFactory threadFactory) {
+		super();
+		Obj.argumentNotNull(source, "The page source must be not null");
+		Obj.argumentNotNull(threadFactory, "The thread factory must be not null");
+		if (queueDepth < 1) {
+			throw new IllegalArgumentException("The prefetch queue depth must be greater than 0");
+		}
+		this.source = source;
+		this.queue = new ArrayBlockingQueue<>(queueDepth);
+		this.producer = threadFactory.newThread(this::produce);
+		this.producer.start();
+	}
+
+	/**
+	 * Producer thread loop. The concrete page source is closed by the producer thread itself when the loop ends, so that
+	 * it is never accessed concurrently.
+	 */
+	private void produce() {
+		try {
+			List<PropertyBox> page;
+			do {
+				page = source.nextPage();
+				if (closed) {
+					return;
+				}
+				queue.put(page);
+			} while (!page.isEmpty());
+		} catch (@SuppressWarnings("unused") InterruptedException e) {
+			Thread.currentThread().interrupt();
+			// interrupted by something other than close(): the consumer must not wait forever
+			if (!closed) {
+				queue.clear();
+				queue.offer(new PrefetchFailure(new InterruptedOperationException("Export data prefetch interrupted")));
+			}
+		} catch (Throwable e) {
+			// any error, including Errors, must be notified to the consumer to avoid it waiting forever
+			if (!closed) {
+				queue.clear();
+				queue.offer(new PrefetchFailure(e));
+			}
+		} finally {
+			closeSource();
+		}
+	}
+
+	/**
+	 * Close the concrete page source, logging any error.
+	 */
+	private void closeSource() {
+		try {
+			source.close();
+		} catch (Exception e) {
+			LOGGER.warn("Failed to close the export data page source", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportPageSource#nextPage()
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<PropertyBox> nextPage() {
+		if (completed || closed) {
+			return Collections.emptyList();
+		}
+		final Object page;
+		try {
+			page = queue.take();
+		} catch (@SuppressWarnings("unused") InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedOperationException("Export interrupted while waiting for the next data page");
+		}
+		if (page instanceof PrefetchFailure) {
+			completed = true;
+			final Throwable error = ((PrefetchFailure) page).getError();
+			if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+			if (error instanceof Error) {
+				throw (Error) error;
+			}
+			throw new ExportException("Failed to fetch the export data", error);
+		}
+		final List<PropertyBox> items = (List<PropertyBox>) page;
+		if (items.isEmpty()) {
+			completed = true;
+		}
+		return items;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.ExportPageSource#close()
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			producer.interrupt();
+			queue.clear();
+			// the concrete page source is closed by the producer thread
+			try {
+				producer.join(CLOSE_TIMEOUT_MILLIS);
+			} catch (@SuppressWarnings("unused") InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (producer.isAlive()) {
+				LOGGER.warn("Export data prefetch thread [" + producer.getName() + "] did not terminate within "
+						+ CLOSE_TIMEOUT_MILLIS + " ms: the page source will be closed when the pending fetch ends");
+			} else {
+				LOGGER.debug("Export data prefetch closed");
+			}
+		}
+	}
+
+	private static final class PrefetchFailure {
+
+		private final Throwable error;
+
+		PrefetchFailure(Throwable error) {
+			super();
+			this.error = error;
+		}
+
+		Throwable getError() {
+			return error;
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSPropertyValueContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+
+/**
+ * Adapter to use a {@link PropertyXLSValueProvider} as a {@link PropertyXLSValueWriter}.
+ * <p>
+ * The {@link XLSValue} returned by the concrete provider is written using {@link XLSCellSink#writeValue(XLSValue)}.
+ * If the provider returns <code>null</code>, the value is exported as a String.
+ * </p>
+ *
+ * @param <T> Value type
+ *
+ * @since 3.0.2
+ */
+public class PropertyXLSValueProviderWriter<T> implements PropertyXLSValueWriter<T> {
+
+	private final PropertyXLSValueProvider<T> provider;
+
+	/**
+	 * Constructor.
+	 * @param provider The concrete provider (not null)
+	 */
+	public PropertyXLSValueProviderWriter(PropertyXLSValueProvider<T> provider) {
+		super();
+		this.provider = provider;
+	}
+
+	/**
+	 * Get the concrete provider.
+	 * @return the concrete provider
+	 */
+	public PropertyXLSValueProvider<T> getProvider() {
+		return provider;
+	}
+
+	/**
+	 * Adapt given provider to the {@link PropertyXLSValueWriter} contract, if required.
+	 * @param <T> Value type
+	 * @param provider The provider to adapt (not null)
+	 * @return The provider itself if it is a {@link PropertyXLSValueWriter}, an adapter otherwise
+	 */
+	public static <T> PropertyXLSValueWriter<T> adapt(PropertyXLSValueProvider<T> provider) {
+		if (provider instanceof PropertyXLSValueWriter) {
+			return (PropertyXLSValueWriter<T>) provider;
+		}
+		return new PropertyXLSValueProviderWriter<>(provider);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter#write(com.holonplatform.artisan.
+	 * vaadin.flow.export.xls.XLSPropertyValueContext, java.lang.Object,
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink)
+	 */
+	@Override
+	public void write(XLSPropertyValueContext<T> context, T value, XLSCellSink sink) {
+		final XLSValue<?> xlsValue = provider.provide(context, value);
+		if (xlsValue == null) {
+			// fallback to default
+			sink.writeValue(XLSValue.stringValue((value == null) ? null : String.valueOf(value)));
+		} else {
+			sink.writeValue(xlsValue);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter#provide(com.holonplatform.artisan.
+	 * vaadin.flow.export.xls.XLSPropertyValueContext, java.lang.Object)
+	 */
+	@Override
+	public XLSValue<?> provide(XLSPropertyValueContext<T> context, T value) {
+		return provider.provide(context, value);
+	}
+
+	@Override
+	public String toString() {
+		return "PropertyXLSValueProviderWriter [provider=" + provider + "]";
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSPropertyValueContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * A mutable {@link XLSPropertyValueContext}, reused by the exporter for each exported cell.
+ *
+ * @param <T> Property type
+ * 
+ * @since 3.0.2
+ */
+public class ReusableXLSPropertyValueContext<T> implements XLSPropertyValueContext<T> {
+
+	private static final long serialVersionUID = -2960713342431529270L;
+
+	private Property<T> property;
+	private XLSPropertyConfiguration configuration;
+	private PropertyBox row;
+
+	/**
+	 * Set the context values.
+	 * @param property The property
+	 * @param configuration The property configuration
+	 * @param row The row to export
+	 * @return this
+	 */
+	public ReusableXLSPropertyValueContext<T> set(Property<T> property, XLSPropertyConfiguration configuration,
+			PropertyBox row) {
+		this.property = property;
+		this.configuration = configuration;
+		this.row = row;
+		return this;
+	}
+
+	@Override
+	public Property<T> getProperty() {
+		return property;
+	}
+
+	@Override
+	public XLSPropertyConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	@Override
+	public PropertyBox getRow() {
+		return row;
+	}
+
+}
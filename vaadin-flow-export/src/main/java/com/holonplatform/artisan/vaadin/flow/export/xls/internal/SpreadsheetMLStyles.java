@@ -0,0 +1,333 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellAlignment;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellBorder;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellRotation;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellVerticalAlignment;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSColor;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFontSize;
+
+/**
+ * The cell styles registry of a SpreadsheetML workbook, used by the {@link StreamingXLSXExportEngine}.
+ * <p>
+ * Each cell style is registered from a {@link XLSCellConfiguration} and an optional data format, applying the export
+ * configuration defaults in the same way of the {@link DefaultXLSExporter}. Fonts, fills, borders, number formats and
+ * cell formats are de-duplicated and written in the <code>styles.xml</code> workbook part by
+ * {@link #write(SpreadsheetMLWriter)}.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class SpreadsheetMLStyles implements StreamingStyles {
+
+	private static final int DEFAULT_FONT_SIZE = 11;
+	private static final int TITLE_FONT_SIZE = 14;
+	private static final int FIRST_CUSTOM_FORMAT_ID = 164;
+	private static final int MAX_CELL_STYLES = SpreadsheetVersion.EXCEL2007.getMaxCellStyles();
+
+	private final XLSConfiguration configuration;
+
+	private final Map<String, Integer> fonts = new LinkedHashMap<>();
+	private final Map<String, Integer> fills = new LinkedHashMap<>();
+	private final Map<String, Integer> borders = new LinkedHashMap<>();
+	private final Map<String, Integer> formats = new LinkedHashMap<>();
+	private final Map<String, Integer> cellFormats = new LinkedHashMap<>();
+
+	private final Map<XLSStyleKey, Integer> styles = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param configuration The export configuration (not null)
+	 */
+	public SpreadsheetMLStyles(XLSConfiguration configuration) {
+		super();
+		this.configuration = configuration;
+		// defaults
+		register(fonts, font(false, false, false, false, DEFAULT_FONT_SIZE, XLSColor.AUTOMATIC));
+		register(fills, "<fill><patternFill patternType=\"none\"/></fill>");
+		register(fills, "<fill><patternFill patternType=\"gray125\"/></fill>");
+		register(borders, "<border><left/><right/><top/><bottom/><diagonal/></border>");
+		register(cellFormats, "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getCellStyle(com.holonplatform.
+	 * artisan.vaadin.flow.export.xls.config.XLSCellConfiguration, java.lang.String)
+	 */
+	@Override
+	public int getCellStyle(XLSCellConfiguration cellConfiguration, String dataFormat) {
+		final XLSStyleKey key = new XLSStyleKey(cellConfiguration, dataFormat);
+		final Integer style = styles.get(key);
+		if (style != null) {
+			return style;
+		}
+		// when the maximum number of cell styles is reached, the default cell style is used
+		final int index = (cellFormats.size() < MAX_CELL_STYLES) ? registerCellStyle(cellConfiguration, dataFormat)
+				: 0;
+		styles.put(key, index);
+		return index;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getCellStyleCount()
+	 */
+	@Override
+	public int getCellStyleCount() {
+		return cellFormats.size() - 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getFontCount()
+	 */
+	@Override
+	public int getFontCount() {
+		return fonts.size() - 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.internal.StreamingStyles#getTitleStyle()
+	 */
+	@Override
+	public int getTitleStyle() {
+		final int size = !configuration.getTitleFontSize().isAuto() ? configuration.getTitleFontSize().getPoints()
+				: TITLE_FONT_SIZE;
+		final int fontId = register(fonts, font(true, false, false, false, size, configuration.getTitleFontColor()));
+		return register(cellFormats, "<xf numFmtId=\"0\" fontId=\"" + fontId
+				+ "\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>");
+	}
+
+	/**
+	 * Write the <code>styles.xml</code> workbook part.
+	 * @param writer The writer to use
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void write(SpreadsheetMLWriter writer) throws IOException {
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+		if (!formats.isEmpty()) {
+			writer.write("<numFmts count=\"" + formats.size() + "\">");
+			for (Entry<String, Integer> format : formats.entrySet()) {
+				writer.write("<numFmt numFmtId=\"" + format.getValue() + "\" formatCode=\"");
+				writer.writeEscaped(format.getKey());
+				writer.write("\"/>");
+			}
+			writer.write("</numFmts>");
+		}
+		writeElements(writer, "fonts", fonts);
+		writeElements(writer, "fills", fills);
+		writeElements(writer, "borders", borders);
+		writer.write(
+				"<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+		writeElements(writer, "cellXfs", cellFormats);
+		writer.write("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+		writer.write("</styleSheet>");
+	}
+
+	private static void writeElements(SpreadsheetMLWriter writer, String name, Map<String, Integer> elements)
+			throws IOException {
+		writer.write("<" + name + " count=\"" + elements.size() + "\">");
+		for (String element : elements.keySet()) {
+			writer.write(element);
+		}
+		writer.write("</" + name + ">");
+	}
+
+	private int registerCellStyle(XLSCellConfiguration cellConfiguration, String dataFormat) {
+		// font
+		final XLSFontSize size = !cellConfiguration.getFontSize().isAuto() ? cellConfiguration.getFontSize()
+				: configuration.getDefaultFontSize();
+		final int fontId = register(fonts,
+				font(cellConfiguration.isBold(), cellConfiguration.isItalic(), cellConfiguration.isUnderline(),
+						cellConfiguration.isStrikeOut(), size.isAuto() ? DEFAULT_FONT_SIZE : size.getPoints(),
+						cellConfiguration.getFontColor()));
+		// fill
+		int fillId = 0;
+		if (!cellConfiguration.getBackgroundColor().isAuto()) {
+			fillId = register(fills, "<fill><patternFill patternType=\"solid\"><fgColor indexed=\""
+					+ cellConfiguration.getBackgroundColor().getIndex1() + "\"/></patternFill></fill>");
+		}
+		// border
+		final StringBuilder border = new StringBuilder("<border>");
+		border(border, "left", cellConfiguration.getBorderLeft(), cellConfiguration.getBorderLeftColor());
+		border(border, "right", cellConfiguration.getBorderRight(), cellConfiguration.getBorderRightColor());
+		border(border, "top", cellConfiguration.getBorderTop(), cellConfiguration.getBorderTopColor());
+		border(border, "bottom", cellConfiguration.getBorderBottom(), cellConfiguration.getBorderBottomColor());
+		border.append("<diagonal/></border>");
+		final int borderId = register(borders, border.toString());
+		// number format
+		final int formatId = getFormatId(dataFormat);
+		// alignment
+		final StringBuilder alignment = new StringBuilder();
+		if (cellConfiguration.getAlignment() != XLSCellAlignment.DEFAULT) {
+			alignment.append(" horizontal=\"").append(convert(cellConfiguration.getAlignment())).append("\"");
+		}
+		if (cellConfiguration.getVerticalAlignment() != XLSCellVerticalAlignment.DEFAULT) {
+			alignment.append(" vertical=\"").append(convert(cellConfiguration.getVerticalAlignment())).append("\"");
+		}
+		if (cellConfiguration.getRotation() != XLSCellRotation.NONE) {
+			final int degrees = cellConfiguration.getRotation().getDegrees();
+			alignment.append(" textRotation=\"").append((degrees < 0) ? (90 - degrees) : degrees).append("\"");
+		}
+		if (cellConfiguration.isWrap() || configuration.isWrapByDefault()) {
+			alignment.append(" wrapText=\"1\"");
+		}
+		if (cellConfiguration.isShrinkToFit() || configuration.isShrinkToFitByDefault()) {
+			alignment.append(" shrinkToFit=\"1\"");
+		}
+		// cell format
+		final StringBuilder xf = new StringBuilder();
+		xf.append("<xf numFmtId=\"").append(formatId).append("\" fontId=\"").append(fontId).append("\" fillId=\"")
+				.append(fillId).append("\" borderId=\"").append(borderId).append("\" xfId=\"0\"");
+		xf.append(" applyNumberFormat=\"1\" applyFont=\"1\" applyFill=\"1\" applyBorder=\"1\"");
+		if (alignment.length() > 0) {
+			xf.append(" applyAlignment=\"1\"><alignment").append(alignment).append("/></xf>");
+		} else {
+			xf.append("/>");
+		}
+		return register(cellFormats, xf.toString());
+	}
+
+	private int getFormatId(String dataFormat) {
+		if (dataFormat == null || dataFormat.trim().equals("")) {
+			return 0;
+		}
+		final int builtin = BuiltinFormats.getBuiltinFormat(dataFormat);
+		if (builtin >= 0) {
+			return builtin;
+		}
+		return formats.computeIfAbsent(dataFormat, f -> FIRST_CUSTOM_FORMAT_ID + formats.size());
+	}
+
+	private static int register(Map<String, Integer> elements, String element) {
+		return elements.computeIfAbsent(element, e -> elements.size());
+	}
+
+	private static String font(boolean bold, boolean italic, boolean underline, boolean strikeout, int size,
+			XLSColor color) {
+		final StringBuilder sb = new StringBuilder("<font>");
+		if (bold) {
+			sb.append("<b/>");
+		}
+		if (italic) {
+			sb.append("<i/>");
+		}
+		if (strikeout) {
+			sb.append("<strike/>");
+		}
+		if (underline) {
+			sb.append("<u/>");
+		}
+		sb.append("<sz val=\"").append(size).append("\"/>");
+		if (color != null && !color.isAuto()) {
+			sb.append("<color indexed=\"").append(color.getIndex1()).append("\"/>");
+		}
+		sb.append("<name val=\"Calibri\"/><family val=\"2\"/></font>");
+		return sb.toString();
+	}
+
+	private static void border(StringBuilder sb, String side, XLSCellBorder border, XLSColor color) {
+		if (border == XLSCellBorder.NONE) {
+			sb.append("<").append(side).append("/>");
+			return;
+		}
+		sb.append("<").append(side).append(" style=\"").append(convert(border)).append("\">");
+		if (color != null && !color.isAuto()) {
+			sb.append("<color indexed=\"").append(color.getIndex1()).append("\"/>");
+		}
+		sb.append("</").append(side).append(">");
+	}
+
+	private static String convert(XLSCellAlignment alignment) {
+		switch (alignment) {
+		case CENTER:
+			return "center";
+		case FILL:
+			return "fill";
+		case JUSTIFY:
+			return "justify";
+		case LEFT:
+			return "left";
+		case RIGHT:
+			return "right";
+		case DEFAULT:
+		default:
+			return "general";
+		}
+	}
+
+	private static String convert(XLSCellVerticalAlignment alignment) {
+		switch (alignment) {
+		case CENTER:
+			return "center";
+		case JUSTIFY:
+			return "justify";
+		case TOP:
+			return "top";
+		case BOTTOM:
+		case DEFAULT:
+		default:
+			return "bottom";
+		}
+	}
+
+	private static String convert(XLSCellBorder border) {
+		switch (border) {
+		case DASHED:
+			return "dashed";
+		case DASH_DOT:
+			return "dashDot";
+		case DASH_DOT_DOT:
+			return "dashDotDot";
+		case DOTTED:
+			return "dotted";
+		case DOUBLE:
+			return "double";
+		case HAIR:
+			return "hair";
+		case MEDIUM:
+			return "medium";
+		case MEDIUM_DASHED:
+			return "mediumDashed";
+		case SLANTED_DASH_DOT:
+			return "slantDashDot";
+		case THICK:
+			return "thick";
+		case THIN:
+			return "thin";
+		case NONE:
+		default:
+			return "none";
+		}
+	}
+
+}
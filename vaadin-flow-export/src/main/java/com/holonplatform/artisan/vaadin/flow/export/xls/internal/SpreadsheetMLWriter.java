@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A buffered XML text writer for SpreadsheetML parts, which avoids intermediate String allocations when writing
+ * numbers and escaped text.
+ *
+ * @since 3.0.2
+ */
+public class SpreadsheetMLWriter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Writer writer;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position = 0;
+
+	/**
+	 * Constructor.
+	 * @param writer The concrete writer (not null)
+	 */
+	public SpreadsheetMLWriter(Writer writer) {
+		super();
+		this.writer = writer;
+	}
+
+	/**
+	 * Write given raw text.
+	 * @param text The text to write
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void write(String text) throws IOException {
+		final int length = text.length();
+		if (length > BUFFER_SIZE - position) {
+			flushBuffer();
+			if (length > BUFFER_SIZE) {
+				writer.write(text);
+				return;
+			}
+		}
+		text.getChars(0, length, buffer, position);
+		position += length;
+	}
+
+	/**
+	 * Write given character.
+	 * @param c The character to write
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void write(char c) throws IOException {
+		if (position == BUFFER_SIZE) {
+			flushBuffer();
+		}
+		buffer[position++] = c;
+	}
+
+	/**
+	 * Write given text escaping the XML markup characters and skipping the characters which are not allowed in XML.
+	 * @param text The text to write
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeEscaped(String text) throws IOException {
+		final int length = text.length();
+		for (int i = 0; i < length; i++) {
+			final char c = text.charAt(i);
+			switch (c) {
+			case '<':
+				write("&lt;");
+				break;
+			case '>':
+				write("&gt;");
+				break;
+			case '&':
+				write("&amp;");
+				break;
+			case '"':
+				write("&quot;");
+				break;
+			case '\t':
+			case '\n':
+			case '\r':
+				write(c);
+				break;
+			default:
+				if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+					write(c);
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Write given integer number.
+	 * @param value The value to write
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeInt(int value) throws IOException {
+		writeLong(value);
+	}
+
+	/**
+	 * Write given long number.
+	 * @param value The value to write
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			write(Long.toString(value));
+			return;
+		}
+		if (position > BUFFER_SIZE - 20) {
+			flushBuffer();
+		}
+		long v = value;
+		if (v < 0) {
+			buffer[position++] = '-';
+			v = -v;
+		}
+		if (v == 0) {
+			buffer[position++] = '0';
+			return;
+		}
+		int digits = 0;
+		for (long t = v; t > 0; t /= 10) {
+			digits++;
+		}
+		for (int i = position + digits - 1; i >= position; i--) {
+			buffer[i] = (char) ('0' + (v % 10));
+			v /= 10;
+		}
+		position += digits;
+	}
+
+	/**
+	 * Write given finite decimal number, using the integer representation when the value has no fractional part.
+	 * @param value The value to write
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void writeNumber(double value) throws IOException {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			writeLong((long) value);
+		} else {
+			write(Double.toString(value));
+		}
+	}
+
+	/**
+	 * Flush the buffered text to the concrete writer and flush the concrete writer.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+		writer.flush();
+	}
+
+	private void flushBuffer() throws IOException {
+		if (position > 0) {
+			writer.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+}
@@ -0,0 +1,502 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.IOException;
+
+import org.apache.poi.ss.util.CellReference;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+
+/**
+ * The {@link XLSCellSink} of a streaming export engine, which writes the worksheet rows and cells using a concrete
+ * file format.
+ * <p>
+ * The written value is buffered until {@link #complete()} is invoked, since the cell style may be changed using
+ * {@link #setDataFormat(String)} after the value was written. The column totals and the row groups are tracked while
+ * the data rows are written, and the file format specific records are written by the <code>write*</code> methods.
+ * </p>
+ * <p>
+ * When auto-width is enabled, the values of the data rows are sampled using {@link #getColumnWidths()} until the
+ * configured number of rows is reached.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public abstract class StreamingSheetWriter implements XLSCellSink {
+
+	/**
+	 * Max cell text length
+	 */
+	private static final int MAX_TEXT_LENGTH = 32767;
+
+	/**
+	 * No value
+	 */
+	protected static final int NONE = 0;
+	/**
+	 * Blank cell
+	 */
+	protected static final int BLANK = 1;
+	/**
+	 * Numeric cell
+	 */
+	protected static final int NUMBER = 2;
+	/**
+	 * Date cell, as a date serial number
+	 */
+	protected static final int DATE = 3;
+	/**
+	 * Boolean cell
+	 */
+	protected static final int BOOLEAN = 4;
+	/**
+	 * Text cell
+	 */
+	protected static final int STRING = 5;
+	/**
+	 * Formula cell
+	 */
+	protected static final int FORMULA = 6;
+	/**
+	 * Computed total cell
+	 */
+	protected static final int TOTAL = 7;
+
+	private final XLSExportEngineContext context;
+	private final StreamingStyles styles;
+	private final String[] columnNames;
+	private final int[] columnTypes;
+	private final XLSTotals totals;
+	private final XLSGroups groups;
+	private final XLSColumnWidths columnWidths;
+
+	private int rowNumber = 0;
+	private boolean dataRow;
+
+	private int column;
+	private int style;
+	private String dataFormat;
+	private int type;
+	private double number;
+	private boolean bool;
+	private String text;
+	private Number exactNumber;
+
+	/**
+	 * Constructor.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 */
+	protected StreamingSheetWriter(XLSExportEngineContext context, StreamingStyles styles) {
+		super();
+		this.context = context;
+		this.styles = styles;
+		final int columns = context.getColumnCount();
+		this.columnNames = new String[columns];
+		for (int i = 0; i < columns; i++) {
+			columnNames[i] = CellReference.convertNumToColString(i);
+		}
+		this.columnTypes = new int[columns];
+		this.totals = new XLSTotals(context.getExportPlan());
+		this.groups = new XLSGroups(context.getExportPlan());
+		this.columnWidths = new XLSColumnWidths(context.getExportPlan());
+	}
+
+	/**
+	 * Start a new worksheet.
+	 * @param sheetNumber The sheet number, starting from 1
+	 * @param outlineLevels The number of row outline levels of the sheet
+	 * @throws IOException If an I/O error occurred
+	 */
+	protected abstract void writeSheetStart(int sheetNumber, int outlineLevels) throws IOException;
+
+	/**
+	 * Complete the current worksheet.
+	 * @throws IOException If an I/O error occurred
+	 */
+	protected abstract void writeSheetEnd() throws IOException;
+
+	/**
+	 * Start a new row.
+	 * @param row The row number, starting from 1
+	 * @param outlineLevel The row outline level, <code>0</code> for none
+	 * @throws IOException If an I/O error occurred
+	 */
+	protected abstract void writeRowStart(int row, int outlineLevel) throws IOException;
+
+	/**
+	 * Complete the current row.
+	 * @throws IOException If an I/O error occurred
+	 */
+	protected abstract void writeRowEnd() throws IOException;
+
+	/**
+	 * Write a cell of the current row. The cell value is obtained using {@link #getValueType()},
+	 * {@link #getNumberValue()}, {@link #getBooleanValue()} and {@link #getTextValue()}.
+	 * @param columnIndex The column index
+	 * @param row The row number, starting from 1
+	 * @param cellStyle The cell style index
+	 * @throws IOException If an I/O error occurred
+	 */
+	protected abstract void writeCell(int columnIndex, int row, int cellStyle) throws IOException;
+
+	/**
+	 * Get the export context.
+	 * @return the export context
+	 */
+	protected XLSExportEngineContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Get the type of the current cell value.
+	 * @return the value type, one of the type constants
+	 */
+	protected int getValueType() {
+		return type;
+	}
+
+	/**
+	 * Get the numeric value of the current cell, for numeric, date, total and formula cells.
+	 * @return the numeric value, {@link Double#NaN} if not available for a formula cell
+	 */
+	protected double getNumberValue() {
+		return number;
+	}
+
+	/**
+	 * Get the boolean value of the current cell.
+	 * @return the boolean value
+	 */
+	protected boolean getBooleanValue() {
+		return bool;
+	}
+
+	/**
+	 * Get the text value of the current cell, for text and formula cells.
+	 * @return the text value or the formula
+	 */
+	protected String getTextValue() {
+		return text;
+	}
+
+	/**
+	 * Get the current row number.
+	 * @return the current row number, starting from 1, <code>0</code> if no row was written in the current sheet
+	 */
+	public int getRowNumber() {
+		return rowNumber;
+	}
+
+	/**
+	 * Start a new worksheet, resetting the row number and the column totals.
+	 * @param sheetNumber The sheet number, starting from 1
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void startSheet(int sheetNumber) throws IOException {
+		writeSheetStart(sheetNumber, groups.getDepth());
+		rowNumber = 0;
+		totals.reset();
+	}
+
+	/**
+	 * Complete the current worksheet.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void endSheet() throws IOException {
+		writeSheetEnd();
+	}
+
+	/**
+	 * Get the column totals of the current sheet.
+	 * @return the column totals
+	 */
+	public XLSTotals getTotals() {
+		return totals;
+	}
+
+	/**
+	 * Get the row groups.
+	 * @return the row groups
+	 */
+	public XLSGroups getGroups() {
+		return groups;
+	}
+
+	/**
+	 * Get the column widths estimator.
+	 * @return the column widths
+	 */
+	public XLSColumnWidths getColumnWidths() {
+		return columnWidths;
+	}
+
+	/**
+	 * Get the column names, for example <code>A</code>.
+	 * @return the column names, indexed by column
+	 */
+	public String[] getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Checks whether the first value written in given column was a numeric value.
+	 * @param columnIndex The column index
+	 * @return <code>true</code> if the column is a numeric column
+	 */
+	public boolean isNumericColumn(int columnIndex) {
+		return columnTypes[columnIndex] == NUMBER;
+	}
+
+	/**
+	 * Start a new row, which is not a data row.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void startRow() throws IOException {
+		startRow(0, false);
+	}
+
+	/**
+	 * Start a new row.
+	 * @param outlineLevel The row outline level, <code>0</code> for none
+	 * @param dataRow Whether the row is a data row, which values are added to the totals
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void startRow(int outlineLevel, boolean dataRow) throws IOException {
+		this.dataRow = dataRow;
+		rowNumber++;
+		writeRowStart(rowNumber, outlineLevel);
+	}
+
+	/**
+	 * Complete the current row.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void endRow() throws IOException {
+		if (dataRow && columnWidths.isSampling()) {
+			columnWidths.rowSampled();
+		}
+		writeRowEnd();
+	}
+
+	/**
+	 * Begin a new cell of the current row.
+	 * @param columnIndex The column index
+	 * @param cellStyle The cell style index
+	 */
+	public void begin(int columnIndex, int cellStyle) {
+		this.column = columnIndex;
+		this.style = cellStyle;
+		this.dataFormat = null;
+		this.type = NONE;
+		this.text = null;
+		this.exactNumber = null;
+	}
+
+	/**
+	 * Complete the current cell, writing the buffered value.
+	 * @throws IOException If an I/O error occurred
+	 */
+	public void complete() throws IOException {
+		if (type != NONE && type != BLANK && type != TOTAL && columnTypes[column] == NONE) {
+			columnTypes[column] = type;
+		}
+		if (type == NUMBER && dataRow) {
+			addTo(totals);
+			for (int level = 0; level < groups.getDepth(); level++) {
+				addTo(groups.getTotals(level));
+			}
+		}
+		final int cellStyle = (dataFormat != null)
+				? styles.getCellStyle(dataRow ? context.getColumnCellConfiguration(column)
+						: context.getConfiguration().getTotalConfiguration(), dataFormat)
+				: style;
+		if (dataRow && columnWidths.isSampling()) {
+			sampleWidth();
+		}
+		writeCell(column, rowNumber, cellStyle);
+	}
+
+	/**
+	 * Sample the current cell value to estimate the column width.
+	 */
+	private void sampleWidth() {
+		final XLSCellConfiguration cellConfiguration = context.getColumnCellConfiguration(column);
+		switch (type) {
+		case NUMBER:
+			columnWidths.sampleNumber(column, number,
+					(dataFormat != null) ? dataFormat : context.getColumnDataFormat(column), cellConfiguration);
+			break;
+		case DATE:
+			columnWidths.sampleDate(column, (dataFormat != null) ? dataFormat : context.getColumnDataFormat(column),
+					cellConfiguration);
+			break;
+		case BOOLEAN:
+			columnWidths.sampleBoolean(column, bool, cellConfiguration);
+			break;
+		case STRING:
+			columnWidths.sampleText(column, text, cellConfiguration);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeBlank()
+	 */
+	@Override
+	public void writeBlank() {
+		type = BLANK;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeNumber(double)
+	 */
+	@Override
+	public void writeNumber(double value) {
+		type = NUMBER;
+		number = value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeNumber(java.lang.Number)
+	 */
+	@Override
+	public void writeNumber(Number value) {
+		if (value == null) {
+			writeBlank();
+		} else {
+			writeNumber(value.doubleValue());
+			exactNumber = value;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeBoolean(boolean)
+	 */
+	@Override
+	public void writeBoolean(boolean value) {
+		final String booleanText = context.getBooleanText(column, value);
+		if (booleanText != null) {
+			writeString(booleanText);
+		} else {
+			type = BOOLEAN;
+			bool = value;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeString(java.lang.String)
+	 */
+	@Override
+	public void writeString(String value) {
+		if (value == null) {
+			writeBlank();
+			return;
+		}
+		if (value.length() > MAX_TEXT_LENGTH) {
+			throw new IllegalArgumentException(
+					"The maximum length of cell contents (text) is " + MAX_TEXT_LENGTH + " characters");
+		}
+		type = STRING;
+		text = value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeDateSerial(double)
+	 */
+	@Override
+	public void writeDateSerial(double serial) {
+		type = DATE;
+		number = serial;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeFormula(java.lang.String)
+	 */
+	@Override
+	public void writeFormula(String formula) {
+		if (formula == null) {
+			writeBlank();
+		} else {
+			type = FORMULA;
+			text = formula;
+			number = Double.NaN;
+		}
+	}
+
+	private void addTo(XLSTotals columnTotals) {
+		if (exactNumber != null) {
+			columnTotals.add(column, exactNumber);
+		} else {
+			columnTotals.add(column, number);
+		}
+	}
+
+	/**
+	 * Write a total value, using given formula if not <code>null</code>.
+	 * @param formula The total formula, <code>null</code> to write the computed total value
+	 * @param total The computed total value, used as formula cached result
+	 */
+	public void writeTotal(String formula, double total) {
+		if (formula != null) {
+			type = FORMULA;
+			text = formula;
+			number = total;
+		} else if (Double.isFinite(total)) {
+			type = TOTAL;
+			number = total;
+		} else {
+			type = BLANK;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#writeValue(com.holonplatform.artisan.vaadin.
+	 * flow.export.xls.XLSValue)
+	 */
+	@Override
+	public void writeValue(XLSValue<?> value) {
+		if (value != null && totals.hasTotal(column)) {
+			final Object numericValue = value.getValue().orElse(null);
+			exactNumber = (numericValue instanceof Number) ? (Number) numericValue : null;
+		}
+		context.writeValue(column, value, this);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink#setDataFormat(java.lang.String)
+	 */
+	@Override
+	public void setDataFormat(String dataFormat) {
+		this.dataFormat = dataFormat;
+	}
+
+}
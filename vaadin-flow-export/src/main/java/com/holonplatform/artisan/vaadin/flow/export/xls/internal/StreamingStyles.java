@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+
+/**
+ * The cell styles registry of a streaming export engine, which maps the cell configurations to the cell style indexes
+ * of the file format.
+ *
+ * @since 3.0.2
+ */
+public interface StreamingStyles {
+
+	/**
+	 * Get the cell style index which corresponds to given cell configuration and data format, registering it if not
+	 * already available.
+	 * @param cellConfiguration The cell configuration
+	 * @param dataFormat The data format, <code>null</code> for none
+	 * @return The cell style index
+	 */
+	int getCellStyle(XLSCellConfiguration cellConfiguration, String dataFormat);
+
+	/**
+	 * Get the cell style index to use for the export title.
+	 * @return The title cell style index
+	 */
+	int getTitleStyle();
+
+	/**
+	 * Get the number of cell styles registered by the export, excluding the default cell styles of the file format.
+	 * @return The created cell styles count
+	 */
+	int getCellStyleCount();
+
+	/**
+	 * Get the number of fonts registered by the export, excluding the default fonts of the file format.
+	 * @return The created fonts count
+	 */
+	int getFontCount();
+
+}
@@ -0,0 +1,570 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.formula.ptg.Ptg;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+
+/**
+ * A {@link XLSExportEngine} which streams a {@link XLSFileVersion#XLS} workbook, writing the BIFF8 records without
+ * building the Apache POI HSSF workbook object model.
+ * <p>
+ * The worksheet cell records are written into a temporary file as soon as the data rows are fetched from the data
+ * source, buffering only one block of 32 rows at a time, and the shared strings are written into a second temporary
+ * file. When the data rows are ended, the workbook globals records and the worksheets records are assembled into the
+ * <code>Workbook</code> stream, which is stored into a file backed OLE2 container and then copied into the output
+ * stream. The memory used by the export does not depend on the number of exported rows.
+ * </p>
+ * <p>
+ * The temporary files directory and the shared strings de-duplication mode are obtained from the
+ * {@link XLSConfiguration#getStreamingOptions()} configuration: when
+ * {@link XLSStreamingOptions#isUseSharedStringsTable()} is <code>false</code>, a string may be written more than once
+ * in the shared strings table.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class StreamingXLSExportEngine extends AbstractStreamingExportEngine {
+
+	/**
+	 * Shared instance
+	 */
+	public static final StreamingXLSExportEngine INSTANCE = new StreamingXLSExportEngine();
+
+	private static final String TEMP_FILE_PREFIX = "holon-export-xls";
+
+	/**
+	 * Min size of the workbook stream, which must not be stored in the OLE2 container mini stream
+	 */
+	private static final int MIN_STREAM_SIZE = 4096;
+
+	/**
+	 * Rows block size
+	 */
+	private static final int ROWS_BLOCK = 32;
+
+	private static final int BOF = 0x0809;
+	private static final int EOF = 0x000A;
+	private static final int INDEX = 0x020B;
+	private static final int DBCELL = 0x00D7;
+	private static final int ROW = 0x0208;
+	private static final int BLANK = 0x0201;
+	private static final int NUMBER = 0x0203;
+	private static final int LABELSST = 0x00FD;
+	private static final int BOOLERR = 0x0205;
+	private static final int FORMULA = 0x0006;
+	private static final int DEFCOLWIDTH = 0x0055;
+	private static final int COLINFO = 0x007D;
+	private static final int BOUNDSHEET = 0x0085;
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine#supports(com.holonplatform.artisan.vaadin.
+	 * flow.export.xls.config.XLSFileVersion)
+	 */
+	@Override
+	public boolean supports(XLSFileVersion fileVersion) {
+		return XLSFileVersion.XLS == fileVersion;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine#export(com.holonplatform.artisan.vaadin.
+	 * flow.export.xls.XLSExportEngineContext, java.io.OutputStream)
+	 */
+	@Override
+	public void export(XLSExportEngineContext context, OutputStream outputStream) throws IOException {
+		final XLSConfiguration configuration = context.getConfiguration();
+		final XLSStreamingOptions options = configuration.getStreamingOptions();
+		final File directory = options.getTempDirectory().orElse(null);
+		final BIFFStyles styles = new BIFFStyles(configuration);
+
+		final List<File> tempFiles = new ArrayList<>(4);
+		try {
+			final File cellsFile = createTempFile(tempFiles, ".cells", directory);
+			final File streamFile = createTempFile(tempFiles, ".biff", directory);
+			final File workbookFile = createTempFile(tempFiles, ".xls", directory);
+			try (BIFFSharedStrings sst = new BIFFSharedStrings(createTempFile(tempFiles, ".sst", directory),
+					options.isUseSharedStringsTable())) {
+				// worksheets cells
+				final List<BIFFSheet> sheets;
+				try (BIFFSheetWriter writer = new BIFFSheetWriter(context, styles, sst,
+						new BufferedOutputStream(new FileOutputStream(cellsFile)))) {
+					writeSheets(context, styles, writer);
+					sheets = writer.getSheets();
+				}
+				final long writeStart = System.nanoTime();
+				// workbook stream
+				try (OutputStream os = new BufferedOutputStream(new FileOutputStream(streamFile));
+						InputStream cells = new BufferedInputStream(Files.newInputStream(cellsFile.toPath()))) {
+					writeWorkbookStream(context, styles, sst, sheets, cells, os);
+				}
+				// OLE2 container
+				try (POIFSFileSystem fs = POIFSFileSystem.create(workbookFile);
+						InputStream is = new BufferedInputStream(Files.newInputStream(streamFile.toPath()))) {
+					fs.createDocument(is, "Workbook");
+					fs.writeFilesystem();
+				}
+				Files.copy(workbookFile.toPath(), outputStream);
+				context.phaseCompleted(ExportPhase.WRITE, System.nanoTime() - writeStart);
+			}
+			context.stylesCreated(styles.getCellStyleCount(), styles.getFontCount());
+			long tempBytes = 0L;
+			for (File file : tempFiles) {
+				tempBytes += file.length();
+			}
+			context.tempBytesWritten(tempBytes);
+		} finally {
+			for (File file : tempFiles) {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+	}
+
+	/**
+	 * Write the <code>Workbook</code> stream: the workbook globals records, followed by the records of each
+	 * worksheet.
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param sst Shared strings table
+	 * @param sheets The worksheets
+	 * @param cells The worksheets cell records
+	 * @param out The output stream
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static void writeWorkbookStream(XLSExportEngineContext context, BIFFStyles styles,
+			BIFFSharedStrings sst, List<BIFFSheet> sheets, InputStream cells, OutputStream out) throws IOException {
+		// compute the worksheets position
+		final long[] positions = new long[sheets.size()];
+		final BIFFWriter counter = new BIFFWriter(OutputStream.nullOutputStream());
+		writeGlobals(counter, context, styles, positions);
+		long position = counter.getPosition() + sst.getSize() + 4;
+		for (int i = 0; i < sheets.size(); i++) {
+			positions[i] = position;
+			position += sheets.get(i).render(context, position, i == 0);
+		}
+
+		final BIFFWriter writer = new BIFFWriter(out);
+		writeGlobals(writer, context, styles, positions);
+		sst.write(writer);
+		writer.begin().end(EOF);
+		final byte[] buffer = new byte[8192];
+		for (BIFFSheet sheet : sheets) {
+			writer.writeRaw(sheet.getHead(), 0, sheet.getHead().length);
+			long remaining = sheet.getCellsSize();
+			while (remaining > 0) {
+				final int read = cells.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read < 0) {
+					throw new IOException("Unexpected end of the worksheet cells stream");
+				}
+				writer.writeRaw(buffer, 0, read);
+				remaining -= read;
+			}
+			writer.writeRaw(sheet.getTail(), 0, sheet.getTail().length);
+		}
+		// a small stream would be stored in the container mini stream
+		if (writer.getPosition() < MIN_STREAM_SIZE) {
+			writer.writeRaw(new byte[MIN_STREAM_SIZE], 0, (int) (MIN_STREAM_SIZE - writer.getPosition()));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write the workbook globals records, up to the shared strings table.
+	 * @param writer The writer to use
+	 * @param context Export context
+	 * @param styles Cell styles registry
+	 * @param positions The worksheets stream position
+	 * @throws IOException If an I/O error occurred
+	 */
+	private static void writeGlobals(BIFFWriter writer, XLSExportEngineContext context, BIFFStyles styles,
+			long[] positions) throws IOException {
+		writeBOF(writer, 0x0005);
+		writer.writeShortRecord(0x00E1, 0x04B0); // INTERFACEHDR
+		writer.writeShortRecord(0x00C1, 0); // MMS
+		writer.begin().end(0x00E2); // INTERFACEEND
+		// WRITEACCESS
+		String user = System.getProperty("user.name", "");
+		final int maxLength = BIFFWriter.hasHighByte(user) ? 54 : 109;
+		if (user.length() > maxLength) {
+			user = user.substring(0, maxLength);
+		}
+		writer.begin().putString(user, false);
+		while (writer.getRecordSize() < 112) {
+			writer.putByte(' ');
+		}
+		writer.end(0x005C);
+		writer.writeShortRecord(0x0042, 0x04B0); // CODEPAGE
+		writer.writeShortRecord(0x0161, 0); // DSF
+		writer.begin(); // TABID
+		for (int i = 0; i < positions.length; i++) {
+			writer.putShort(i);
+		}
+		writer.end(0x013D);
+		writer.writeShortRecord(0x009C, 0x0E); // FNGROUPCOUNT
+		writer.writeShortRecord(0x0019, 0); // WINDOWPROTECT
+		writer.writeShortRecord(0x0012, 0); // PROTECT
+		writer.writeShortRecord(0x0013, 0); // PASSWORD
+		writer.writeShortRecord(0x01AF, 0); // PROT4REV
+		writer.writeShortRecord(0x01BC, 0); // PROT4REVPASS
+		writer.begin().putShort(0x0168).putShort(0x010E).putShort(0x3A5C).putShort(0x23BE).putShort(0x38).putShort(0)
+				.putShort(0).putShort(1).putShort(0x0258).end(0x003D); // WINDOW1
+		writer.writeShortRecord(0x0040, 0); // BACKUP
+		writer.writeShortRecord(0x008D, 0); // HIDEOBJ
+		writer.writeShortRecord(0x0022, 0); // DATEMODE
+		writer.writeShortRecord(0x000E, 1); // PRECISION
+		writer.writeShortRecord(0x01B7, 0); // REFRESHALL
+		writer.writeShortRecord(0x00DA, 0); // BOOKBOOL
+		styles.write(writer);
+		writer.writeShortRecord(0x0160, 0); // USESELFS
+		for (int i = 0; i < positions.length; i++) {
+			writer.begin().putInt((int) positions[i]).putByte(0).putByte(0).putString(context.getSheetName(i), true)
+					.end(BOUNDSHEET);
+		}
+		writer.begin().putShort(1).putShort(1).end(0x008C); // COUNTRY
+	}
+
+	private static void writeBOF(BIFFWriter writer, int type) throws IOException {
+		writer.begin().putShort(0x0600).putShort(type).putShort(0x10D3).putShort(0x07CC).putInt(0x41).putInt(0x06)
+				.end(BOF);
+	}
+
+	private static File createTempFile(List<File> tempFiles, String suffix, File directory) throws IOException {
+		final File file = File.createTempFile(TEMP_FILE_PREFIX, suffix, directory);
+		tempFiles.add(file);
+		return file;
+	}
+
+	/**
+	 * A worksheet of the workbook stream.
+	 */
+	private static final class BIFFSheet {
+
+		private final int outlineLevels;
+		private final long cellsStart;
+
+		private long cellsSize;
+		private int rows;
+		private boolean formulas;
+		private int[] dbCells = new int[16];
+		private int blocks;
+		private int[] columnWidths;
+
+		private byte[] head;
+		private byte[] tail;
+
+		BIFFSheet(int outlineLevels, long cellsStart) {
+			super();
+			this.outlineLevels = outlineLevels;
+			this.cellsStart = cellsStart;
+		}
+
+		long getCellsStart() {
+			return cellsStart;
+		}
+
+		long getCellsSize() {
+			return cellsSize;
+		}
+
+		void setCellsSize(long cellsSize) {
+			this.cellsSize = cellsSize;
+		}
+
+		void setRows(int rows) {
+			this.rows = rows;
+		}
+
+		void setFormulas() {
+			this.formulas = true;
+		}
+
+		void setColumnWidths(int[] columnWidths) {
+			this.columnWidths = columnWidths;
+		}
+
+		void addDbCell(long position) {
+			if (blocks == dbCells.length) {
+				dbCells = Arrays.copyOf(dbCells, blocks * 2);
+			}
+			dbCells[blocks++] = (int) position;
+		}
+
+		byte[] getHead() {
+			return head;
+		}
+
+		byte[] getTail() {
+			return tail;
+		}
+
+		/**
+		 * Render the worksheet records which precede and follow the cell records.
+		 * @param context Export context
+		 * @param position The worksheet stream position
+		 * @param first Whether the worksheet is the first one
+		 * @return The worksheet size
+		 * @throws IOException If an I/O error occurred
+		 */
+		long render(XLSExportEngineContext context, long position, boolean first) throws IOException {
+			final ByteArrayOutputStream settingsBytes = new ByteArrayOutputStream(256);
+			final BIFFWriter settings = new BIFFWriter(settingsBytes);
+			settings.writeShortRecord(0x000D, 1); // CALCMODE
+			settings.writeShortRecord(0x000C, 100); // CALCCOUNT
+			settings.writeShortRecord(0x000F, 1); // REFMODE
+			settings.writeShortRecord(0x0011, 0); // ITERATION
+			settings.begin().putDouble(0.001).end(0x0010); // DELTA
+			settings.writeShortRecord(0x005F, 1); // SAVERECALC
+			settings.writeShortRecord(0x002A, 0); // PRINTHEADERS
+			settings.writeShortRecord(0x002B, 0); // PRINTGRIDLINES
+			settings.writeShortRecord(0x0082, 1); // GRIDSET
+			// GUTS
+			settings.begin().putShort((outlineLevels > 0) ? (29 + 12 * (outlineLevels - 1)) : 0).putShort(0)
+					.putShort((outlineLevels > 0) ? (outlineLevels + 1) : 0).putShort(0).end(0x0080);
+			settings.begin().putShort(0).putShort(0x00FF).end(0x0225); // DEFAULTROWHEIGHT
+			settings.writeShortRecord(0x0081, 0x04C1); // WSBOOL
+			final long defColWidth = settings.getPosition();
+			settings.writeShortRecord(DEFCOLWIDTH, 8);
+			if (columnWidths != null) {
+				for (int i = 0; i < columnWidths.length; i++) {
+					if (columnWidths[i] >= 0) {
+						settings.begin().putShort(i).putShort(i).putShort(columnWidths[i]).putShort(0x000F)
+								.putShort(0x0002).putShort(0).end(COLINFO);
+					}
+				}
+			}
+			final int columns = (rows > 0) ? context.getColumnCount() : 0;
+			settings.begin().putInt(0).putInt(rows).putShort(0).putShort(columns).putShort(0).end(0x0200); // DIMENSIONS
+
+			final int headSize = 20 + (formulas ? 6 : 0);
+			final int indexSize = 20 + 4 * blocks;
+			final long cellsPosition = position + headSize + indexSize + settings.getPosition();
+
+			final ByteArrayOutputStream headBytes = new ByteArrayOutputStream(
+					(int) (headSize + indexSize + settings.getPosition()));
+			final BIFFWriter writer = new BIFFWriter(headBytes);
+			writeBOF(writer, 0x0010);
+			if (formulas) {
+				writer.writeShortRecord(0x005E, 0); // UNCALCED
+			}
+			writer.begin().putInt(0).putInt(0).putInt(rows).putInt((int) (position + headSize + indexSize + defColWidth));
+			for (int i = 0; i < blocks; i++) {
+				writer.putInt((int) (cellsPosition + dbCells[i]));
+			}
+			writer.end(INDEX);
+			headBytes.write(settingsBytes.toByteArray());
+			this.head = headBytes.toByteArray();
+
+			final ByteArrayOutputStream tailBytes = new ByteArrayOutputStream(26);
+			final BIFFWriter tailWriter = new BIFFWriter(tailBytes);
+			tailWriter.begin().putShort(first ? 0x06B6 : 0x00B6).putShort(0).putShort(0).putInt(0x40).putShort(0)
+					.putShort(0).putInt(0).end(0x023E); // WINDOW2
+			tailWriter.begin().end(EOF);
+			this.tail = tailBytes.toByteArray();
+
+			return head.length + cellsSize + tail.length;
+		}
+
+	}
+
+	/**
+	 * The {@link StreamingSheetWriter} which writes the rows and the cells as BIFF8 records into the worksheets cells
+	 * stream.
+	 * <p>
+	 * The rows are written in blocks of 32 rows: the <code>ROW</code> records of the block are followed by the cell
+	 * records of the block and by a <code>DBCELL</code> record.
+	 * </p>
+	 */
+	private static final class BIFFSheetWriter extends StreamingSheetWriter implements AutoCloseable {
+
+		private final BIFFSharedStrings sst;
+		private final OutputStream out;
+		private final BIFFWriter cells;
+
+		private final ByteArrayOutputStream blockRowsBytes = new ByteArrayOutputStream(ROWS_BLOCK * 20);
+		private final BIFFWriter blockRows = new BIFFWriter(blockRowsBytes);
+		private final ByteArrayOutputStream blockCellsBytes = new ByteArrayOutputStream(4096);
+		private final BIFFWriter blockCells = new BIFFWriter(blockCellsBytes);
+		private final int[] rowCellsSizes = new int[ROWS_BLOCK];
+		private int blockRowCount;
+
+		private final List<BIFFSheet> sheets = new ArrayList<>(1);
+		private BIFFSheet sheet;
+
+		private int rowIndex;
+		private int rowOutlineLevel;
+		private int rowColumns;
+		private long rowCellsStart;
+
+		private HSSFWorkbook formulaWorkbook;
+
+		BIFFSheetWriter(XLSExportEngineContext context, BIFFStyles styles, BIFFSharedStrings sst, OutputStream out) {
+			super(context, styles);
+			this.sst = sst;
+			this.out = out;
+			this.cells = new BIFFWriter(out);
+		}
+
+		List<BIFFSheet> getSheets() {
+			return sheets;
+		}
+
+		@Override
+		protected void writeSheetStart(int sheetNumber, int outlineLevels) throws IOException {
+			sheet = new BIFFSheet(outlineLevels, cells.getPosition());
+			sheets.add(sheet);
+		}
+
+		@Override
+		protected void writeSheetEnd() throws IOException {
+			writeBlock();
+			sheet.setCellsSize(cells.getPosition() - sheet.getCellsStart());
+			final XLSColumnWidths columnWidths = getColumnWidths();
+			if (columnWidths.isEnabled()) {
+				final int[] widths = new int[getColumnNames().length];
+				for (int i = 0; i < widths.length; i++) {
+					widths[i] = columnWidths.getWidth(i);
+				}
+				sheet.setColumnWidths(widths);
+			}
+		}
+
+		@Override
+		protected void writeRowStart(int row, int outlineLevel) throws IOException {
+			rowIndex = row - 1;
+			rowOutlineLevel = outlineLevel;
+			rowColumns = 0;
+			rowCellsStart = blockCells.getPosition();
+		}
+
+		@Override
+		protected void writeRowEnd() throws IOException {
+			blockRows.begin().putShort(rowIndex).putShort(0).putShort(rowColumns).putShort(0x00FF).putShort(0)
+					.putShort(0).putShort(0x0100 | (rowOutlineLevel & 0x07)).putShort(0x000F).end(ROW);
+			rowCellsSizes[blockRowCount++] = (int) (blockCells.getPosition() - rowCellsStart);
+			sheet.setRows(rowIndex + 1);
+			if (blockRowCount == ROWS_BLOCK) {
+				writeBlock();
+			}
+		}
+
+		@Override
+		protected void writeCell(int columnIndex, int row, int cellStyle) throws IOException {
+			rowColumns = Math.max(rowColumns, columnIndex + 1);
+			blockCells.begin().putShort(row - 1).putShort(columnIndex).putShort(cellStyle);
+			final double number = getNumberValue();
+			switch (getValueType()) {
+			case NUMBER:
+			case DATE:
+			case TOTAL:
+				if (Double.isNaN(number) || Double.isInfinite(number)) {
+					// #NUM! error
+					blockCells.putByte(0x24).putByte(1).end(BOOLERR);
+				} else {
+					blockCells.putDouble(number).end(NUMBER);
+				}
+				break;
+			case BOOLEAN:
+				blockCells.putByte(getBooleanValue() ? 1 : 0).putByte(0).end(BOOLERR);
+				break;
+			case STRING:
+				blockCells.putInt(sst.add(getTextValue())).end(LABELSST);
+				break;
+			case FORMULA:
+				final Ptg[] ptgs = HSSFFormulaParser.parse(getTextValue(), getFormulaWorkbook());
+				final byte[] tokens = new byte[Ptg.getEncodedSize(ptgs)];
+				Ptg.serializePtgs(ptgs, tokens, 0);
+				// cached result, calculated on load
+				blockCells.putDouble(Double.isFinite(number) ? number : 0d).putShort(0x0002).putInt(0)
+						.putShort(Ptg.getEncodedSizeWithoutArrayData(ptgs)).putBytes(tokens, 0, tokens.length)
+						.end(FORMULA);
+				sheet.setFormulas();
+				break;
+			case NONE:
+			case BLANK:
+			default:
+				blockCells.end(BLANK);
+				break;
+			}
+		}
+
+		/**
+		 * Write the current rows block, followed by its <code>DBCELL</code> record.
+		 * @throws IOException If an I/O error occurred
+		 */
+		private void writeBlock() throws IOException {
+			if (blockRowCount == 0) {
+				return;
+			}
+			final int rowsSize = blockRowsBytes.size();
+			final int cellsSize = blockCellsBytes.size();
+			cells.writeRaw(blockRowsBytes.toByteArray(), 0, rowsSize);
+			cells.writeRaw(blockCellsBytes.toByteArray(), 0, cellsSize);
+			sheet.addDbCell(cells.getPosition() - sheet.getCellsStart());
+			// offsets of the first cell of each row
+			cells.begin().putInt(rowsSize + cellsSize).putShort(rowsSize - 20);
+			for (int i = 1; i < blockRowCount; i++) {
+				cells.putShort(rowCellsSizes[i - 1]);
+			}
+			cells.end(DBCELL);
+			blockRowsBytes.reset();
+			blockCellsBytes.reset();
+			blockRowCount = 0;
+		}
+
+		private HSSFWorkbook getFormulaWorkbook() {
+			if (formulaWorkbook == null) {
+				formulaWorkbook = new HSSFWorkbook();
+			}
+			return formulaWorkbook;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				out.close();
+			} finally {
+				if (formulaWorkbook != null) {
+					formulaWorkbook.close();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.CharArrayWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngineContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
+
+/**
+ * A {@link XLSExportEngine} which streams a {@link XLSFileVersion#XLSX} workbook directly into the output stream.
+ * <p>
+ * The SpreadsheetML workbook parts are written into a ZIP stream on the output stream: the worksheet rows are written
+ * as soon as the data rows are fetched from the data source, starting a new worksheet when the maximum number of rows
+ * per sheet is reached, and the workbook parts which list the worksheets and the cell styles are written afterwards.
+ * Text values are written as inline strings, so that no shared strings table has to be held in memory.
+ * </p>
+ * <p>
+ * When auto-width is enabled, the column widths must precede the worksheet rows: the rows of a worksheet are buffered
+ * in memory until the configured number of rows is sampled.
+ * </p>
+ * <p>
+ * The ZIP compression level is obtained from the {@link XLSConfiguration#getStreamingOptions()} configuration.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class StreamingXLSXExportEngine extends AbstractStreamingExportEngine {
+
+	/**
+	 * Shared instance
+	 */
+	public static final StreamingXLSXExportEngine INSTANCE = new StreamingXLSXExportEngine();
+
+	private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+	private static final String CONTENT_TYPES_START = XML_HEADER
+			+ "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+			+ "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+			+ "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+			+ "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+			+ "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>";
+
+	private static final String ROOT_RELATIONSHIPS = XML_HEADER
+			+ "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+			+ "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+			+ "</Relationships>";
+
+	private static final String RELATIONSHIPS_START = XML_HEADER
+			+ "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">";
+
+	private static final String RELATIONSHIP_TYPE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+	private static final String NAMESPACES = " xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+			+ " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"";
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine#supports(com.holonplatform.artisan.vaadin.
+	 * flow.export.xls.config.XLSFileVersion)
+	 */
+	@Override
+	public boolean supports(XLSFileVersion fileVersion) {
+		return XLSFileVersion.XLSX == fileVersion;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine#export(com.holonplatform.artisan.vaadin.
+	 * flow.export.xls.XLSExportEngineContext, java.io.OutputStream)
+	 */
+	@Override
+	public void export(XLSExportEngineContext context, OutputStream outputStream) throws IOException {
+		final XLSConfiguration configuration = context.getConfiguration();
+		final SpreadsheetMLStyles styles = new SpreadsheetMLStyles(configuration);
+
+		try (ZipOutputStream zip = new ZipOutputStream(new UncloseableOutputStream(outputStream))) {
+			zip.setLevel(configuration.getStreamingOptions().getCompressionLevel());
+			final SpreadsheetMLWriter writer = new SpreadsheetMLWriter(
+					new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+
+			// worksheets: the package parts which list the sheets are written afterwards
+			final int sheets = writeSheets(context, styles, new SpreadsheetMLSheetWriter(context, styles, zip, writer));
+			final long writeStart = System.nanoTime();
+
+			// workbook
+			zip.putNextEntry(new ZipEntry("xl/workbook.xml"));
+			writer.write(XML_HEADER);
+			writer.write("<workbook" + NAMESPACES + "><sheets>");
+			for (int i = 1; i <= sheets; i++) {
+				writer.write("<sheet name=\"");
+				writer.writeEscaped(context.getSheetName(i - 1));
+				writer.write("\" sheetId=\"");
+				writer.writeInt(i);
+				writer.write("\" r:id=\"rId");
+				writer.writeInt(i);
+				writer.write("\"/>");
+			}
+			writer.write("</sheets></workbook>");
+			closeEntry(zip, writer);
+
+			zip.putNextEntry(new ZipEntry("xl/_rels/workbook.xml.rels"));
+			writer.write(RELATIONSHIPS_START);
+			for (int i = 1; i <= sheets; i++) {
+				writer.write("<Relationship Id=\"rId");
+				writer.writeInt(i);
+				writer.write("\" Type=\"" + RELATIONSHIP_TYPE + "worksheet\" Target=\"worksheets/sheet");
+				writer.writeInt(i);
+				writer.write(".xml\"/>");
+			}
+			writer.write("<Relationship Id=\"rId");
+			writer.writeInt(sheets + 1);
+			writer.write("\" Type=\"" + RELATIONSHIP_TYPE + "styles\" Target=\"styles.xml\"/></Relationships>");
+			closeEntry(zip, writer);
+
+			zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+			writer.write(CONTENT_TYPES_START);
+			for (int i = 1; i <= sheets; i++) {
+				writer.write("<Override PartName=\"/xl/worksheets/sheet");
+				writer.writeInt(i);
+				writer.write(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+			}
+			writer.write("</Types>");
+			closeEntry(zip, writer);
+
+			zip.putNextEntry(new ZipEntry("_rels/.rels"));
+			writer.write(ROOT_RELATIONSHIPS);
+			closeEntry(zip, writer);
+
+			// styles
+			zip.putNextEntry(new ZipEntry("xl/styles.xml"));
+			styles.write(writer);
+			closeEntry(zip, writer);
+
+			zip.finish();
+			context.phaseCompleted(ExportPhase.WRITE, System.nanoTime() - writeStart);
+			context.stylesCreated(styles.getCellStyleCount(), styles.getFontCount());
+		}
+	}
+
+	private static void closeEntry(ZipOutputStream zip, SpreadsheetMLWriter writer) throws IOException {
+		writer.flush();
+		zip.closeEntry();
+	}
+
+	/**
+	 * The {@link StreamingSheetWriter} which writes each worksheet as a ZIP entry, writing the rows and the cells as
+	 * SpreadsheetML <code>row</code> and <code>c</code> elements.
+	 */
+	private static final class SpreadsheetMLSheetWriter extends StreamingSheetWriter {
+
+		private final ZipOutputStream zip;
+		private final SpreadsheetMLWriter out;
+
+		private SpreadsheetMLWriter writer;
+		private CharArrayWriter sampleRows;
+		private int outlineLevels;
+
+		SpreadsheetMLSheetWriter(XLSExportEngineContext context, SpreadsheetMLStyles styles, ZipOutputStream zip,
+				SpreadsheetMLWriter writer) {
+			super(context, styles);
+			this.zip = zip;
+			this.out = writer;
+			this.writer = writer;
+		}
+
+		@Override
+		protected void writeSheetStart(int sheetNumber, int outlineLevels) throws IOException {
+			zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNumber + ".xml"));
+			this.outlineLevels = outlineLevels;
+			if (getColumnWidths().isSampling()) {
+				// buffer the rows until the column widths are available
+				sampleRows = new CharArrayWriter(4096);
+				writer = new SpreadsheetMLWriter(sampleRows);
+			} else {
+				writeSheetHead();
+			}
+		}
+
+		@Override
+		protected void writeSheetEnd() throws IOException {
+			if (sampleRows != null) {
+				writeSampleRows();
+			}
+			writer.write("</sheetData></worksheet>");
+			closeEntry(zip, writer);
+		}
+
+		/**
+		 * Write the worksheet elements which precede the rows, including the column widths.
+		 * @throws IOException If an I/O error occurred
+		 */
+		private void writeSheetHead() throws IOException {
+			out.write(XML_HEADER);
+			out.write("<worksheet" + NAMESPACES + ">");
+			if (outlineLevels > 0) {
+				out.write("<sheetFormatPr defaultRowHeight=\"15\" outlineLevelRow=\"");
+				out.writeInt(outlineLevels);
+				out.write("\"/>");
+			}
+			final XLSColumnWidths columnWidths = getColumnWidths();
+			if (columnWidths.isEnabled()) {
+				out.write("<cols>");
+				for (int i = 0; i < getColumnNames().length; i++) {
+					final int width = columnWidths.getWidth(i);
+					if (width >= 0) {
+						out.write("<col min=\"");
+						out.writeInt(i + 1);
+						out.write("\" max=\"");
+						out.writeInt(i + 1);
+						out.write("\" width=\"");
+						out.writeNumber(width / 256d);
+						out.write("\" customWidth=\"1\"/>");
+					}
+				}
+				out.write("</cols>");
+			}
+			out.write("<sheetData>");
+		}
+
+		/**
+		 * Write the worksheet head followed by the buffered rows, and continue writing the rows directly.
+		 * @throws IOException If an I/O error occurred
+		 */
+		private void writeSampleRows() throws IOException {
+			writer.flush();
+			writeSheetHead();
+			out.write(sampleRows.toString());
+			writer = out;
+			sampleRows = null;
+		}
+
+		@Override
+		protected void writeRowStart(int row, int outlineLevel) throws IOException {
+			writer.write("<row r=\"");
+			writer.writeInt(row);
+			if (outlineLevel > 0) {
+				writer.write("\" outlineLevel=\"");
+				writer.writeInt(outlineLevel);
+			}
+			writer.write("\">");
+		}
+
+		@Override
+		protected void writeRowEnd() throws IOException {
+			writer.write("</row>");
+			if (sampleRows != null && !getColumnWidths().isSampling()) {
+				writeSampleRows();
+			}
+		}
+
+		@Override
+		protected void writeCell(int columnIndex, int row, int cellStyle) throws IOException {
+			writer.write("<c r=\"");
+			writer.write(getColumnNames()[columnIndex]);
+			writer.writeInt(row);
+			writer.write('"');
+			if (cellStyle > 0) {
+				writer.write(" s=\"");
+				writer.writeInt(cellStyle);
+				writer.write('"');
+			}
+			final double number = getNumberValue();
+			switch (getValueType()) {
+			case NUMBER:
+			case DATE:
+			case TOTAL:
+				if (Double.isNaN(number) || Double.isInfinite(number)) {
+					writer.write(" t=\"e\"><v>#NUM!</v></c>");
+				} else {
+					writer.write("><v>");
+					writer.writeNumber(number);
+					writer.write("</v></c>");
+				}
+				break;
+			case BOOLEAN:
+				writer.write(getBooleanValue() ? " t=\"b\"><v>1</v></c>" : " t=\"b\"><v>0</v></c>");
+				break;
+			case STRING:
+				writer.write(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+				writer.writeEscaped(getTextValue());
+				writer.write("</t></is></c>");
+				break;
+			case FORMULA:
+				writer.write("><f>");
+				writer.writeEscaped(getTextValue());
+				if (Double.isFinite(number)) {
+					// cached result
+					writer.write("</f><v>");
+					writer.writeNumber(number);
+					writer.write("</v></c>");
+				} else {
+					writer.write("</f></c>");
+				}
+				break;
+			case NONE:
+			case BLANK:
+			default:
+				writer.write("/>");
+				break;
+			}
+		}
+
+	}
+
+	/**
+	 * An {@link OutputStream} wrapper which does not close the concrete output stream.
+	 */
+	private static final class UncloseableOutputStream extends FilterOutputStream {
+
+		UncloseableOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.flush();
+		}
+
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.AbortableProgressCallback;
+
+/**
+ * An {@link OperationProgressCallback} which limits the progress notifications forwarded to a concrete callback.
+ * <p>
+ * A progress notification is forwarded when at least the given interval is elapsed since the last forwarded one, or
+ * when the completion percentage is increased at least of the given percentage step. The first and the last steps
+ * are always forwarded.
+ * </p>
+ * <p>
+ * A total steps count less than or equal to <code>0</code> denotes an indeterminate progress: in this case only the
+ * interval rule applies. The first determinate step after an indeterminate one is always forwarded, so that the
+ * concrete callback is notified as soon as the total steps count is available.
+ * </p>
+ * <p>
+ * The abort is checked at each progress step, regardless of the throttling: if the concrete callback is an
+ * {@link AbortableProgressCallback}, its {@link AbortableProgressCallback#isAborted()} check is invoked at each step.
+ * Once the abort is requested, or the concrete callback returns {@link OperationProgress#ABORT}, the abort request is
+ * retained, so that each subsequent step is aborted without invoking the concrete callback.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class ThrottledProgressCallback implements AbortableProgressCallback {
+
+	private final OperationProgressCallback callback;
+	private final long intervalNanos;
+	private final int percentageStep;
+
+	private volatile boolean aborted = false;
+
+	private long lastNotificationTime;
+	private int lastNotifiedSteps = -1;
+	private int lastNotifiedTotal = 0;
+
+	/**
+	 * Constructor.
+	 * @param callback The concrete callback (not null)
+	 * @param intervalMillis The minimum interval in milliseconds between two progress notifications, <code>0</code>
+	 *        to ignore the elapsed time
+	 * @param percentageStep The completion percentage increase which triggers a progress notification regardless of
+	 *        the elapsed time, <code>0</code> to ignore the completion percentage
+	 */
+	public ThrottledProgressCallback(OperationProgressCallback callback, long intervalMillis, int percentageStep) {
+		super();
+		Obj.argumentNotNull(callback, "The progress callback must be not null");
+		validate(intervalMillis, percentageStep);
+		this.callback = callback;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.percentageStep = percentageStep;
+	}
+
+	/**
+	 * Check the throttling parameters.
+	 * @param intervalMillis The minimum interval in milliseconds between two progress notifications
+	 * @param percentageStep The completion percentage increase which triggers a progress notification
+	 * @throws IllegalArgumentException If a parameter is not valid
+	 */
+	public static void validate(long intervalMillis, int percentageStep) {
+		if (intervalMillis < 0) {
+			throw new IllegalArgumentException("The progress interval must be greater than or equal to 0");
+		}
+		if (percentageStep < 0 || percentageStep > 100) {
+			throw new IllegalArgumentException("The progress percentage step must be between 0 and 100");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.AbortableProgressCallback#isAborted()
+	 */
+	@Override
+	public boolean isAborted() {
+		if (!aborted && AbortableProgressCallback.isAborted(callback)) {
+			aborted = true;
+		}
+		return aborted;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.core.operation.OperationProgressCallback#onProgress(int, int)
+	 */
+	@Override
+	public OperationProgress onProgress(int totalSteps, int completedSteps) {
+		// not throttled
+		if (isAborted()) {
+			return OperationProgress.ABORT;
+		}
+		if (shouldNotify(totalSteps, completedSteps)) {
+			lastNotifiedSteps = completedSteps;
+			lastNotifiedTotal = totalSteps;
+			if (intervalNanos > 0) {
+				lastNotificationTime = System.nanoTime();
+			}
+			if (OperationProgress.ABORT.equals(callback.onProgress(totalSteps, completedSteps))) {
+				aborted = true;
+				return OperationProgress.ABORT;
+			}
+		}
+		return OperationProgress.PROCEED;
+	}
+
+	/**
+	 * Checks whether the given progress step has to be forwarded to the concrete callback.
+	 * @param totalSteps Total steps count
+	 * @param completedSteps Completed steps count
+	 * @return <code>true</code> if the progress step has to be forwarded
+	 */
+	private boolean shouldNotify(int totalSteps, int completedSteps) {
+		if (lastNotifiedSteps < 0) {
+			return true;
+		}
+		if (totalSteps > 0 && (completedSteps >= totalSteps || lastNotifiedTotal <= 0)) {
+			// last step or switch from indeterminate to determinate progress
+			return true;
+		}
+		if (completedSteps == lastNotifiedSteps) {
+			return false;
+		}
+		if (percentageStep > 0 && totalSteps > 0
+				&& ((long) (completedSteps - lastNotifiedSteps) * 100) >= ((long) percentageStep * totalSteps)) {
+			return true;
+		}
+		return intervalNanos > 0 && (System.nanoTime() - lastNotificationTime) >= intervalNanos;
+	}
+
+}
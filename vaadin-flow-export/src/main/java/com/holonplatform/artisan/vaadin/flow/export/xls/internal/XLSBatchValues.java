@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueBatchProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSCellSink;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * The values of the columns of an export which use a {@link PropertyXLSValueBatchProvider}, obtained once for each
+ * data page.
+ * <p>
+ * When a data page is fetched, {@link #load(List)} invokes the batch provider of each batch column with the page
+ * values. Then {@link #next()} is invoked before each page row is exported, and the batch values of the current row
+ * are obtained using {@link #get(int, PropertyBox)} or written using {@link #write(int, PropertyBox, XLSCellSink)}.
+ * </p>
+ * <p>
+ * The export columns are described by {@link Columns}, so that the batch values can be used by any exporter which
+ * uses the {@link PropertyXLSValueProvider}s to obtain the exported values.
+ * </p>
+ * <p>
+ * A new instance is created for each export, and it must be used only by the thread which performs the export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class XLSBatchValues {
+
+	private final Columns columns;
+	private final PropertyXLSValueBatchProvider<Object>[] providers;
+	private final XLSValue<?>[][] values;
+	private final boolean empty;
+
+	private final ReusableXLSPropertyValueContext<Object> context = new ReusableXLSPropertyValueContext<>();
+	private final List<Object> pageValues = new ArrayList<>();
+
+	private List<PropertyBox> page;
+	private int position;
+
+	/**
+	 * Constructor.
+	 * @param plan The export plan
+	 */
+	public XLSBatchValues(DefaultXLSExportPlan plan) {
+		this(new Columns() {
+
+			@Override
+			public int getColumnCount() {
+				return plan.getColumnCount();
+			}
+
+			@Override
+			public Property<Object> getProperty(int columnIndex) {
+				return plan.getColumn(columnIndex).getProperty();
+			}
+
+			@Override
+			public XLSPropertyConfiguration getPropertyConfiguration(int columnIndex) {
+				return plan.getColumn(columnIndex).getPropertyConfiguration();
+			}
+
+			@Override
+			public PropertyXLSValueProvider<Object> getProvider(int columnIndex) {
+				return plan.getColumn(columnIndex).getProvider();
+			}
+
+			@Override
+			public Object getValue(int columnIndex, PropertyBox row) {
+				return plan.getColumn(columnIndex).getValue(row);
+			}
+
+		});
+	}
+
+	/**
+	 * Constructor.
+	 * @param columns The export columns
+	 */
+	@SuppressWarnings("unchecked")
+	public XLSBatchValues(Columns columns) {
+		super();
+		this.columns = columns;
+		final int count = columns.getColumnCount();
+		this.providers = new PropertyXLSValueBatchProvider[count];
+		this.values = new XLSValue<?>[count][];
+		boolean any = false;
+		for (int i = 0; i < count; i++) {
+			if (columns.getProvider(i) instanceof PropertyXLSValueBatchProvider) {
+				providers[i] = (PropertyXLSValueBatchProvider<Object>) columns.getProvider(i);
+				values[i] = new XLSValue<?>[0];
+				any = true;
+			}
+		}
+		this.empty = !any;
+	}
+
+	/**
+	 * Get whether no export column uses a batch provider.
+	 * @return <code>true</code> if there are no batch columns
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Load the batch values of a data page, invoking the batch provider of each batch column once.
+	 * @param rows The data page rows
+	 */
+	public void load(List<PropertyBox> rows) {
+		this.page = rows;
+		this.position = -1;
+		final int size = rows.size();
+		if (empty || size == 0) {
+			return;
+		}
+		for (int i = 0; i < providers.length; i++) {
+			if (providers[i] != null) {
+				pageValues.clear();
+				for (PropertyBox row : rows) {
+					pageValues.add(columns.getValue(i, row));
+				}
+				if (values[i].length < size) {
+					values[i] = new XLSValue<?>[size];
+				} else {
+					Arrays.fill(values[i], 0, size, null);
+				}
+				providers[i].provideBatch(
+						context.set(columns.getProperty(i), columns.getPropertyConfiguration(i), null), rows,
+						pageValues, values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Move to the next row of the current data page.
+	 */
+	public void next() {
+		position++;
+	}
+
+	/**
+	 * Get the batch value of given column for given row, if the column is a batch column and the row is the current
+	 * row of the data page.
+	 * <p>
+	 * If the batch provider left the value <code>null</code>, the value is exported as a String.
+	 * </p>
+	 * @param columnIndex The column index
+	 * @param row The row to export
+	 * @return The batch value, <code>null</code> if the value must be obtained using the column value provider
+	 */
+	public XLSValue<?> get(int columnIndex, PropertyBox row) {
+		if (providers[columnIndex] == null || page == null || position < 0 || position >= page.size()
+				|| page.get(position) != row) {
+			return null;
+		}
+		final XLSValue<?> value = values[columnIndex][position];
+		if (value == null) {
+			// fallback to default
+			final Object v = columns.getValue(columnIndex, row);
+			return XLSValue.stringValue((v == null) ? null : String.valueOf(v));
+		}
+		return value;
+	}
+
+	/**
+	 * Write the batch value of given column for given row, if the column is a batch column and the row is the current
+	 * row of the data page.
+	 * @param columnIndex The column index
+	 * @param row The row to export
+	 * @param sink The cell sink to use
+	 * @return <code>true</code> if the value was written, <code>false</code> if the value must be obtained using the
+	 *         column value writer
+	 */
+	public boolean write(int columnIndex, PropertyBox row, XLSCellSink sink) {
+		final XLSValue<?> value = get(columnIndex, row);
+		if (value == null) {
+			return false;
+		}
+		sink.writeValue(value);
+		return true;
+	}
+
+	/**
+	 * The export columns which the batch values are obtained for.
+	 */
+	public interface Columns {
+
+		/**
+		 * Get the number of export columns.
+		 * @return The columns count
+		 */
+		int getColumnCount();
+
+		/**
+		 * Get the property of given column.
+		 * @param columnIndex The column index
+		 * @return The column property
+		 */
+		Property<Object> getProperty(int columnIndex);
+
+		/**
+		 * Get the property configuration of given column.
+		 * @param columnIndex The column index
+		 * @return The column property configuration
+		 */
+		XLSPropertyConfiguration getPropertyConfiguration(int columnIndex);
+
+		/**
+		 * Get the value provider of given column.
+		 * @param columnIndex The column index
+		 * @return The column value provider
+		 */
+		PropertyXLSValueProvider<Object> getProvider(int columnIndex);
+
+		/**
+		 * Get the value of given column for given row.
+		 * @param columnIndex The column index
+		 * @param row The row
+		 * @return The column value, <code>null</code> if not available
+		 */
+		Object getValue(int columnIndex, PropertyBox row);
+
+	}
+
+}
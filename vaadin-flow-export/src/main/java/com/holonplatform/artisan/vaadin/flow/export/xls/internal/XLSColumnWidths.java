@@ -0,0 +1,409 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFontSize;
+import com.holonplatform.core.property.Property;
+
+/**
+ * Estimates the width of the auto-width columns of an export, indexed by column.
+ * <p>
+ * The widths are estimated from the text of the header row and of the first
+ * {@link XLSConfiguration#getAutoWidthSampleRows()} data rows, as they are written, using a precomputed character
+ * widths table of the default font of the file version (<em>Arial</em> for {@link XLSFileVersion#XLS} and
+ * <em>Calibri</em> for {@link XLSFileVersion#XLSX}). Numeric and date values are measured according to their data
+ * format. No font rendering is involved and the data rows are not read again.
+ * </p>
+ * <p>
+ * The widths are expressed in units of 1/256th of the width of a digit of the default font, which is the column width
+ * unit of the spreadsheet formats.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class XLSColumnWidths {
+
+	/**
+	 * Width of a digit
+	 */
+	private static final int DIGIT = 256;
+
+	/**
+	 * Cell padding width
+	 */
+	private static final int PADDING = 256;
+
+	/**
+	 * Max estimated column width: 80 digits
+	 */
+	private static final int MAX_WIDTH = 80 * DIGIT;
+
+	/**
+	 * Width increment percentage of the bold font
+	 */
+	private static final int BOLD_PERCENT = 110;
+
+	/**
+	 * Average width of the month and day names
+	 */
+	private static final int NAME_LENGTH = 9;
+
+	/**
+	 * Arial character widths from <code>' '</code> to <code>'~'</code>, in 1/1000 em
+	 */
+	private static final int[] ARIAL = widths(556, new int[] { 278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389,
+			584, 278, 333, 278, 278, 556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 584, 584, 584, 556,
+			1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 500, 667, 556, 833, 722, 778, 667, 778, 722, 667, 611,
+			722, 667, 944, 667, 667, 611, 278, 278, 278, 469, 556, 333, 556, 556, 500, 556, 556, 278, 556, 556, 222,
+			222, 500, 222, 833, 556, 556, 556, 556, 333, 500, 278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584 });
+
+	/**
+	 * Calibri character widths from <code>' '</code> to <code>'~'</code>, in 1/1000 em
+	 */
+	private static final int[] CALIBRI = widths(507, new int[] { 226, 326, 401, 498, 507, 715, 682, 221, 303, 303, 498,
+			498, 250, 306, 252, 386, 507, 507, 507, 507, 507, 507, 507, 507, 507, 507, 268, 268, 498, 498, 498, 463,
+			894, 579, 544, 533, 615, 488, 459, 631, 623, 252, 319, 520, 420, 855, 646, 662, 517, 673, 543, 459, 487,
+			642, 567, 890, 519, 487, 468, 307, 386, 307, 498, 498, 291, 479, 525, 423, 525, 498, 305, 471, 525, 230,
+			239, 455, 230, 799, 525, 527, 525, 525, 349, 391, 335, 525, 452, 715, 433, 453, 395, 314, 460, 314, 498 });
+
+	private final int[] charWidths;
+	private final int letterWidth;
+	private final int fontSize;
+	private final XLSFontSize defaultFontSize;
+	private final int sampleRows;
+	private final boolean[] autoWidth;
+	private final int[] widths;
+	private final boolean enabled;
+
+	private int sampledRows = 0;
+
+	/**
+	 * Constructor.
+	 * @param plan The export plan
+	 */
+	public XLSColumnWidths(XLSExportPlan plan) {
+		super();
+		final XLSConfiguration configuration = plan.getConfiguration();
+		final boolean xls = XLSFileVersion.XLS == configuration.getFileVersion();
+		this.charWidths = xls ? ARIAL : CALIBRI;
+		this.letterWidth = charWidths['n' - ' '];
+		this.fontSize = xls ? 10 : 11;
+		this.defaultFontSize = configuration.getDefaultFontSize();
+		this.sampleRows = configuration.getAutoWidthSampleRows();
+		final List<Property<?>> properties = plan.getProperties();
+		final int columns = properties.size();
+		this.autoWidth = new boolean[columns];
+		this.widths = new int[columns];
+		boolean any = false;
+		for (int i = 0; i < columns; i++) {
+			autoWidth[i] = configuration.getPropertyConfiguration(properties.get(i)).flatMap(c -> c.getAutoWidth())
+					.orElse(configuration.isAutoWidth());
+			any |= autoWidth[i];
+		}
+		this.enabled = any;
+	}
+
+	/**
+	 * Get whether the width of at least one column is estimated.
+	 * @return <code>true</code> if at least one column is an auto-width column
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get whether the rows are still being sampled: the header row is sampled first, followed by the configured number
+	 * of data rows.
+	 * @return <code>true</code> if the next row is sampled
+	 */
+	public boolean isSampling() {
+		return enabled && sampledRows <= sampleRows;
+	}
+
+	/**
+	 * Mark the current row as sampled.
+	 */
+	public void rowSampled() {
+		sampledRows++;
+	}
+
+	/**
+	 * Get the estimated width of given column.
+	 * @param columnIndex The column index
+	 * @return The column width, including the cell padding, or <code>-1</code> if the column is not an auto-width
+	 *         column
+	 */
+	public int getWidth(int columnIndex) {
+		return autoWidth[columnIndex] ? Math.min(widths[columnIndex] + PADDING, MAX_WIDTH) : -1;
+	}
+
+	/**
+	 * Sample a text value, using the width of its longest line.
+	 * @param columnIndex The column index
+	 * @param text The text value
+	 * @param cellConfiguration The cell configuration, used to obtain the font size and style
+	 */
+	public void sampleText(int columnIndex, String text, XLSCellConfiguration cellConfiguration) {
+		if (!autoWidth[columnIndex] || text == null) {
+			return;
+		}
+		int max = 0;
+		int line = 0;
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c == '\n') {
+				max = Math.max(max, line);
+				line = 0;
+			} else {
+				line += charWidth(c);
+			}
+		}
+		sample(columnIndex, Math.max(max, line), cellConfiguration);
+	}
+
+	/**
+	 * Sample a boolean value.
+	 * @param columnIndex The column index
+	 * @param value The boolean value
+	 * @param cellConfiguration The cell configuration, used to obtain the font size and style
+	 */
+	public void sampleBoolean(int columnIndex, boolean value, XLSCellConfiguration cellConfiguration) {
+		sampleText(columnIndex, value ? "TRUE" : "FALSE", cellConfiguration);
+	}
+
+	/**
+	 * Sample a numeric value, displayed using given data format.
+	 * @param columnIndex The column index
+	 * @param value The numeric value
+	 * @param dataFormat The data format, <code>null</code> for the general format
+	 * @param cellConfiguration The cell configuration, used to obtain the font size and style
+	 */
+	public void sampleNumber(int columnIndex, double value, String dataFormat,
+			XLSCellConfiguration cellConfiguration) {
+		if (autoWidth[columnIndex]) {
+			sample(columnIndex, numberWidth(value, dataFormat), cellConfiguration);
+		}
+	}
+
+	/**
+	 * Sample a date value, displayed using given data format.
+	 * @param columnIndex The column index
+	 * @param dataFormat The date data format, <code>null</code> if not available
+	 * @param cellConfiguration The cell configuration, used to obtain the font size and style
+	 */
+	public void sampleDate(int columnIndex, String dataFormat, XLSCellConfiguration cellConfiguration) {
+		if (autoWidth[columnIndex]) {
+			sample(columnIndex, dateWidth(dataFormat), cellConfiguration);
+		}
+	}
+
+	private void sample(int columnIndex, int width, XLSCellConfiguration cellConfiguration) {
+		int points = fontSize;
+		boolean bold = false;
+		if (cellConfiguration != null) {
+			final XLSFontSize size = cellConfiguration.getFontSize().isAuto() ? defaultFontSize
+					: cellConfiguration.getFontSize();
+			points = size.isAuto() ? fontSize : size.getPoints();
+			bold = cellConfiguration.isBold();
+		} else if (!defaultFontSize.isAuto()) {
+			points = defaultFontSize.getPoints();
+		}
+		final long scaled = ((long) width) * points * (bold ? BOLD_PERCENT : 100) / (fontSize * 100);
+		if (scaled > widths[columnIndex]) {
+			widths[columnIndex] = (int) Math.min(scaled, MAX_WIDTH);
+		}
+	}
+
+	/**
+	 * Get the width of given character.
+	 * @param c The character
+	 * @return The character width
+	 */
+	private int charWidth(char c) {
+		if (c >= ' ' && c <= '~') {
+			return charWidths[c - ' '];
+		}
+		if (c < ' ') {
+			return 0;
+		}
+		// east asian wide characters
+		return (c >= 0x2E80 && c <= 0xFFDC) ? 2 * DIGIT : letterWidth;
+	}
+
+	/**
+	 * Estimate the width of a numeric value displayed using given data format. The first section of the data format is
+	 * used, and the literal text of the format is measured as is.
+	 * @param value The numeric value
+	 * @param dataFormat The data format, <code>null</code> for the general format
+	 * @return The estimated width
+	 */
+	private int numberWidth(double value, String dataFormat) {
+		if (!Double.isFinite(value)) {
+			return textWidth("#NUM!");
+		}
+		final int sign = (value < 0) ? charWidth('-') : 0;
+		final double abs = Math.abs(value);
+		if (dataFormat == null || dataFormat.isEmpty() || "General".equalsIgnoreCase(dataFormat)) {
+			// general format: up to 11 characters
+			if (abs == Math.rint(abs) && abs < 1e11) {
+				return sign + integerDigits(abs) * DIGIT;
+			}
+			return sign + Math.min(Double.toString(abs).length(), 11) * DIGIT;
+		}
+		int integerPlaceholders = 0;
+		int decimals = 0;
+		boolean decimal = false;
+		boolean grouping = false;
+		boolean percent = false;
+		int literal = 0;
+		for (int i = 0; i < dataFormat.length(); i++) {
+			final char c = dataFormat.charAt(i);
+			if (c == ';') {
+				break;
+			}
+			switch (c) {
+			case '0':
+			case '#':
+			case '?':
+				if (decimal) {
+					decimals++;
+				} else if (c == '0') {
+					integerPlaceholders++;
+				}
+				break;
+			case '.':
+				decimal = true;
+				break;
+			case ',':
+				grouping |= !decimal;
+				break;
+			case '%':
+				percent = true;
+				literal += charWidth(c);
+				break;
+			case '"':
+				for (i++; i < dataFormat.length() && dataFormat.charAt(i) != '"'; i++) {
+					literal += charWidth(dataFormat.charAt(i));
+				}
+				break;
+			case '[':
+				while (i < dataFormat.length() && dataFormat.charAt(i) != ']') {
+					i++;
+				}
+				break;
+			case '\\':
+			case '_':
+				if (++i < dataFormat.length()) {
+					literal += charWidth(dataFormat.charAt(i));
+				}
+				break;
+			case '*':
+				i++;
+				break;
+			default:
+				literal += charWidth(c);
+				break;
+			}
+		}
+		final int digits = Math.max(integerDigits(percent ? abs * 100 : abs), integerPlaceholders);
+		return sign + literal + digits * DIGIT + (grouping ? ((digits - 1) / 3) * charWidth(',') : 0)
+				+ ((decimals > 0) ? charWidth('.') + decimals * DIGIT : 0);
+	}
+
+	/**
+	 * Estimate the width of a date value displayed using given data format: the numeric date and time parts are
+	 * measured as digits, and the month and day names using an average name length.
+	 * @param dataFormat The date data format, <code>null</code> if not available
+	 * @return The estimated width
+	 */
+	private int dateWidth(String dataFormat) {
+		if (dataFormat == null || dataFormat.isEmpty()) {
+			return 10 * DIGIT;
+		}
+		int width = 0;
+		for (int i = 0; i < dataFormat.length(); i++) {
+			final char c = dataFormat.charAt(i);
+			final char lc = Character.toLowerCase(c);
+			if (lc == 'y' || lc == 'm' || lc == 'd' || lc == 'h' || lc == 's') {
+				int length = 1;
+				while (i + 1 < dataFormat.length() && Character.toLowerCase(dataFormat.charAt(i + 1)) == lc) {
+					length++;
+					i++;
+				}
+				if ((lc == 'm' || lc == 'd') && length >= 3) {
+					width += ((length == 3) ? 3 : NAME_LENGTH) * letterWidth;
+				} else {
+					width += Math.max(length, 2) * DIGIT;
+				}
+			} else if (lc == 'a') {
+				// AM/PM
+				final int end = dataFormat.indexOf(' ', i);
+				i = (end < 0) ? dataFormat.length() : end - 1;
+				width += 2 * letterWidth;
+			} else if (c == '"') {
+				for (i++; i < dataFormat.length() && dataFormat.charAt(i) != '"'; i++) {
+					width += charWidth(dataFormat.charAt(i));
+				}
+			} else if (c == '[') {
+				while (i < dataFormat.length() && dataFormat.charAt(i) != ']') {
+					i++;
+				}
+			} else if (c == '\\') {
+				if (++i < dataFormat.length()) {
+					width += charWidth(dataFormat.charAt(i));
+				}
+			} else if (c == ';') {
+				break;
+			} else {
+				width += charWidth(c);
+			}
+		}
+		return width;
+	}
+
+	private int textWidth(String text) {
+		int width = 0;
+		for (int i = 0; i < text.length(); i++) {
+			width += charWidth(text.charAt(i));
+		}
+		return width;
+	}
+
+	private static int integerDigits(double value) {
+		return (value < 10) ? 1 : (int) Math.floor(Math.log10(value)) + 1;
+	}
+
+	/**
+	 * Convert the font character widths into units of 1/256th of the digit width.
+	 * @param digit The digit width
+	 * @param widths The character widths
+	 * @return The converted character widths
+	 */
+	private static int[] widths(int digit, int[] widths) {
+		final int[] converted = new int[widths.length];
+		for (int i = 0; i < widths.length; i++) {
+			converted[i] = (widths[i] * DIGIT + digit / 2) / digit;
+		}
+		return converted;
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertyValueProvider;
+import com.holonplatform.core.property.VirtualProperty;
+import com.holonplatform.core.temporal.TemporalType;
+
+/**
+ * A compiled export column, part of a {@link DefaultXLSExportPlan}.
+ *
+ * @since 3.0.2
+ */
+public final class XLSExportColumn {
+
+	private final int index;
+	private final Property<Object> property;
+	private final PropertyValueProvider<?> virtualValueProvider;
+	private final PropertyXLSValueProvider<Object> provider;
+	private final PropertyXLSValueWriter<Object> writer;
+	private final XLSPropertyConfiguration propertyConfiguration;
+	private final XLSCellConfiguration cellConfiguration;
+
+	private final Class<?> dataFormatValueType;
+	private final TemporalType dataFormatTemporalType;
+	private final String dataFormat;
+	private final XLSStyleKey styleKey;
+	private int styleId = -1;
+
+	/**
+	 * Constructor.
+	 * @param index The column index
+	 * @param property The column property
+	 * @param provider The resolved value provider
+	 * @param propertyConfiguration The effective property configuration
+	 * @param cellConfiguration The effective cell configuration
+	 * @param dataFormatValue The value prototype for which the default data format was resolved, if any
+	 * @param dataFormatTemporalType The temporal type for which the default data format was resolved, if any
+	 * @param dataFormat The resolved default data format, if any
+	 */
+	public XLSExportColumn(int index, Property<Object> property, PropertyXLSValueProvider<Object> provider,
+			XLSPropertyConfiguration propertyConfiguration, XLSCellConfiguration cellConfiguration,
+			XLSValue<?> dataFormatValue, TemporalType dataFormatTemporalType, String dataFormat) {
+		super();
+		this.index = index;
+		this.property = property;
+		this.virtualValueProvider = (property instanceof VirtualProperty)
+				? ((VirtualProperty<?>) property).getValueProvider()
+				: null;
+		this.provider = provider;
+		this.writer = PropertyXLSValueProviderWriter.adapt(provider);
+		this.propertyConfiguration = propertyConfiguration;
+		this.cellConfiguration = cellConfiguration;
+		this.dataFormatValueType = (dataFormatValue != null) ? dataFormatValue.getValueType() : null;
+		this.dataFormatTemporalType = dataFormatTemporalType;
+		this.dataFormat = dataFormat;
+		this.styleKey = new XLSStyleKey(cellConfiguration, dataFormat);
+	}
+
+	/**
+	 * Get the column index.
+	 * @return the column index
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Get the column property.
+	 * @return the column property
+	 */
+	public Property<Object> getProperty() {
+		return property;
+	}
+
+	/**
+	 * Get the column value provider.
+	 * @return the value provider
+	 */
+	public PropertyXLSValueProvider<Object> getProvider() {
+		return provider;
+	}
+
+	/**
+	 * Get the column value writer, which adapts the value provider if it is not a {@link PropertyXLSValueWriter}.
+	 * @return the value writer
+	 */
+	public PropertyXLSValueWriter<Object> getWriter() {
+		return writer;
+	}
+
+	/**
+	 * Get the effective property configuration.
+	 * @return the property configuration
+	 */
+	public XLSPropertyConfiguration getPropertyConfiguration() {
+		return propertyConfiguration;
+	}
+
+	/**
+	 * Get the effective cell configuration.
+	 * @return the cell configuration
+	 */
+	public XLSCellConfiguration getCellConfiguration() {
+		return cellConfiguration;
+	}
+
+	/**
+	 * Get the default data format resolved at plan compilation time.
+	 * @return the default data format, <code>null</code> if none
+	 */
+	public String getDataFormat() {
+		return dataFormat;
+	}
+
+	/**
+	 * Get the cell style definition which corresponds to the default data format.
+	 * @return the default style key
+	 */
+	public XLSStyleKey getStyleKey() {
+		return styleKey;
+	}
+
+	/**
+	 * Get the id of the default style definition, assigned by the export plan to which the column belongs.
+	 * @return the default style id
+	 * @see DefaultXLSExportPlan#getStyleKeys()
+	 */
+	public int getStyleId() {
+		return styleId;
+	}
+
+	/**
+	 * Set the id of the default style definition.
+	 * @param styleId the style id to set
+	 */
+	void setStyleId(int styleId) {
+		this.styleId = styleId;
+	}
+
+	/**
+	 * Get the column property value from given row.
+	 * @param row The row (may be null)
+	 * @return The property value, <code>null</code> if not available
+	 */
+	public Object getValue(PropertyBox row) {
+		if (row != null && row.contains(property)) {
+			return row.getValue(property);
+		}
+		if (virtualValueProvider != null) {
+			return virtualValueProvider.getPropertyValue(row);
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether the default data format resolved at plan compilation time can be used for given value.
+	 * @param xlsValue The value to check
+	 * @return <code>true</code> if the value type (and the temporal type for date and calendar values) is the same of
+	 *         the value prototype used to resolve the default data format
+	 */
+	public boolean isDefaultDataFormatFor(XLSValue<?> xlsValue) {
+		if (dataFormatValueType == null || xlsValue.getValueType() != dataFormatValueType) {
+			return false;
+		}
+		if (Date.class.isAssignableFrom(dataFormatValueType) || Calendar.class.isAssignableFrom(dataFormatValueType)) {
+			final TemporalType tt = xlsValue.getTemporalType()
+					.orElseGet(() -> property.getTemporalType().orElse(TemporalType.DATE_TIME));
+			return tt == dataFormatTemporalType;
+		}
+		return true;
+	}
+
+}
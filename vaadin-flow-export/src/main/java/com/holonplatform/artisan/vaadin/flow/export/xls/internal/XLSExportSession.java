@@ -0,0 +1,248 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import com.holonplatform.artisan.vaadin.flow.export.internal.ExportMetricsCollector;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+
+/**
+ * Holds the state of a single XLS export run: the workbook, the export plan, the fonts and cell styles created in the
+ * workbook, the cell type detected for each export column and the sheet into which the rows are currently written.
+ * <p>
+ * A new session is created for each export, so that the same {@link DefaultXLSExporter} instance can be used to
+ * perform concurrent exports. A session is not thread-safe and it must be used only by the thread which performs the
+ * export.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class XLSExportSession {
+
+	private final Workbook workbook;
+	private final DefaultXLSExportPlan plan;
+	private final ExportMetricsCollector metrics;
+
+	private final Map<DefaultXLSExporter.FontConfiguration, Font> fonts = new HashMap<>();
+	private final XLSStyleTable styleTable;
+	private final CellType[] cellTypes;
+	private final XLSTotals totals;
+	private final XLSGroups groups;
+	private final XLSColumnWidths columnWidths;
+	private final XLSBatchValues batchValues;
+
+	private Sheet sheet;
+	private int sheetCount = 0;
+	private int headerRowIndex;
+	private int lastRowIndex;
+
+	/**
+	 * Constructor.
+	 * @param workbook The workbook to which the data are exported (not null)
+	 * @param plan The export plan (not null)
+	 */
+	public XLSExportSession(Workbook workbook, DefaultXLSExportPlan plan) {
+		this(workbook, plan, ExportMetricsCollector.create());
+	}
+
+	/**
+	 * Constructor.
+	 * @param workbook The workbook to which the data are exported (not null)
+	 * @param plan The export plan (not null)
+	 * @param metrics The export metrics collector (not null)
+	 */
+	public XLSExportSession(Workbook workbook, DefaultXLSExportPlan plan, ExportMetricsCollector metrics) {
+		super();
+		this.workbook = workbook;
+		this.plan = plan;
+		this.metrics = metrics;
+		this.styleTable = new XLSStyleTable(plan);
+		this.cellTypes = new CellType[plan.getColumnCount()];
+		this.totals = new XLSTotals(plan);
+		this.groups = new XLSGroups(plan);
+		this.columnWidths = new XLSColumnWidths(plan);
+		this.batchValues = new XLSBatchValues(plan);
+	}
+
+	/**
+	 * Get the workbook to which the data are exported.
+	 * @return the workbook
+	 */
+	public Workbook getWorkbook() {
+		return workbook;
+	}
+
+	/**
+	 * Get the export plan.
+	 * @return the export plan
+	 */
+	public DefaultXLSExportPlan getPlan() {
+		return plan;
+	}
+
+	/**
+	 * Get the export metrics collector.
+	 * @return the export metrics collector
+	 */
+	public ExportMetricsCollector getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Get the export configuration.
+	 * @return the export configuration
+	 */
+	public XLSConfiguration getConfiguration() {
+		return plan.getConfiguration();
+	}
+
+	/**
+	 * Get the style table which binds the style definitions of the export to the cell styles created in the workbook.
+	 * @return the style table
+	 */
+	public XLSStyleTable getStyleTable() {
+		return styleTable;
+	}
+
+	/**
+	 * Get the fonts created in the workbook, by font definition.
+	 * @return the fonts map
+	 */
+	Map<DefaultXLSExporter.FontConfiguration, Font> getFonts() {
+		return fonts;
+	}
+
+	/**
+	 * Get the cell type detected for given column.
+	 * @param columnIndex The column index
+	 * @return The cell type of the first non blank cell of the column, <code>null</code> if none
+	 */
+	public CellType getCellType(int columnIndex) {
+		return (columnIndex >= 0 && columnIndex < cellTypes.length) ? cellTypes[columnIndex] : null;
+	}
+
+	/**
+	 * Set the cell type for given column, if not already detected.
+	 * @param columnIndex The column index
+	 * @param cellType The cell type
+	 */
+	public void setCellType(int columnIndex, CellType cellType) {
+		if (cellTypes[columnIndex] == null) {
+			cellTypes[columnIndex] = cellType;
+		}
+	}
+
+	/**
+	 * Get the sheet into which the rows are currently written.
+	 * @return The current sheet, <code>null</code> if no sheet was started
+	 */
+	public Sheet getSheet() {
+		return sheet;
+	}
+
+	/**
+	 * Get the number of sheets started in this session.
+	 * @return the sheets count
+	 */
+	public int getSheetCount() {
+		return sheetCount;
+	}
+
+	/**
+	 * Set given sheet as the sheet into which the rows are written.
+	 * @param sheet The sheet (not null)
+	 * @param headerRowIndex The index of the sheet header row
+	 */
+	public void startSheet(Sheet sheet, int headerRowIndex) {
+		this.sheet = sheet;
+		this.sheetCount++;
+		this.headerRowIndex = headerRowIndex;
+		this.lastRowIndex = headerRowIndex;
+		this.totals.reset();
+	}
+
+	/**
+	 * Get the <em>total</em> footer accumulators of the current sheet.
+	 * @return the column totals
+	 */
+	public XLSTotals getTotals() {
+		return totals;
+	}
+
+	/**
+	 * Get the row groups of the export.
+	 * @return the row groups
+	 */
+	public XLSGroups getGroups() {
+		return groups;
+	}
+
+	/**
+	 * Get the column widths estimator of the export.
+	 * @return the column widths
+	 */
+	public XLSColumnWidths getColumnWidths() {
+		return columnWidths;
+	}
+
+	/**
+	 * Get the values of the export columns which use a batch value provider.
+	 * @return the batch values
+	 */
+	public XLSBatchValues getBatchValues() {
+		return batchValues;
+	}
+
+	/**
+	 * Get the header row index of the current sheet.
+	 * @return the header row index
+	 */
+	public int getHeaderRowIndex() {
+		return headerRowIndex;
+	}
+
+	/**
+	 * Get the index of the last row written in the current sheet.
+	 * @return the last row index
+	 */
+	public int getLastRowIndex() {
+		return lastRowIndex;
+	}
+
+	/**
+	 * Get the number of data rows written in the current sheet.
+	 * @return the number of data rows of the current sheet
+	 */
+	public int getSheetDataRowCount() {
+		return lastRowIndex - headerRowIndex;
+	}
+
+	/**
+	 * Get the index of the next row of the current sheet and mark it as the last written row.
+	 * @return the next row index
+	 */
+	public int nextRowIndex() {
+		return ++lastRowIndex;
+	}
+
+}
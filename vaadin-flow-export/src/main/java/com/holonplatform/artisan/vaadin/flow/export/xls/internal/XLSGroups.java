@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
+import com.holonplatform.core.property.Property;
+import com.holonplatform.core.property.PropertyBox;
+
+/**
+ * Tracks the row groups of an export, declared using the configuration group properties.
+ * <p>
+ * The export data are expected to be sorted by the group properties: the groups are detected comparing the group
+ * property values of each data row with the ones of the previous row, so only the previous row, the first row of each
+ * open group and a set of <em>subtotal</em> accumulators for each group level are retained.
+ * </p>
+ * <p>
+ * The group levels are 0-based, from the outermost to the innermost group.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class XLSGroups {
+
+	private final Property<?>[] properties;
+	private final int[] columnLevels;
+	private final XLSTotals[] totals;
+	private final int[] firstRows;
+
+	private int openLevels = 0;
+	private PropertyBox lastRow;
+
+	/**
+	 * Constructor.
+	 * @param plan The export plan
+	 */
+	public XLSGroups(XLSExportPlan plan) {
+		super();
+		final List<Property<?>> groupProperties = plan.getConfiguration().getGroupByProperties();
+		final List<Property<?>> columns = plan.getProperties();
+		final int depth = groupProperties.size();
+		this.properties = groupProperties.toArray(new Property<?>[depth]);
+		this.columnLevels = new int[columns.size()];
+		for (int i = 0; i < columnLevels.length; i++) {
+			columnLevels[i] = groupProperties.indexOf(columns.get(i));
+		}
+		this.totals = new XLSTotals[depth];
+		for (int i = 0; i < depth; i++) {
+			totals[i] = new XLSTotals(plan);
+		}
+		this.firstRows = new int[depth];
+	}
+
+	/**
+	 * Get the number of group levels.
+	 * @return The group levels count, <code>0</code> if the rows are not grouped
+	 */
+	public int getDepth() {
+		return properties.length;
+	}
+
+	/**
+	 * Get the number of currently open group levels.
+	 * @return The open group levels count
+	 */
+	public int getOpenLevels() {
+		return openLevels;
+	}
+
+	/**
+	 * Get the group level of given column.
+	 * @param columnIndex The column index
+	 * @return The level of the group bound to the column property, <code>-1</code> if none
+	 */
+	public int getColumnLevel(int columnIndex) {
+		return columnLevels[columnIndex];
+	}
+
+	/**
+	 * Get the outermost group level which is broken by given data row, i.e. the outermost level for which the group
+	 * property value of the row is not the same of the previous row.
+	 * @param row The data row
+	 * @return The outermost broken level, or the number of open levels if no open group is broken
+	 */
+	public int getBreakLevel(PropertyBox row) {
+		for (int i = 0; i < openLevels; i++) {
+			if (!Objects.equals(getValue(lastRow, properties[i]), getValue(row, properties[i]))) {
+				return i;
+			}
+		}
+		return openLevels;
+	}
+
+	/**
+	 * Open all the group levels which are not currently open.
+	 * @param firstRow The first row of the new groups
+	 */
+	public void openGroups(int firstRow) {
+		for (int i = openLevels; i < properties.length; i++) {
+			firstRows[i] = firstRow;
+			totals[i].reset();
+		}
+		openLevels = properties.length;
+	}
+
+	/**
+	 * Close the innermost open group level.
+	 * @return The closed level
+	 * @throws IllegalStateException If no group is open
+	 */
+	public int closeGroup() {
+		if (openLevels == 0) {
+			throw new IllegalStateException("No open group");
+		}
+		return --openLevels;
+	}
+
+	/**
+	 * Get the first row of the open group with given level.
+	 * @param level The group level
+	 * @return The group first row
+	 */
+	public int getFirstRow(int level) {
+		return firstRows[level];
+	}
+
+	/**
+	 * Get the <em>subtotal</em> accumulators of the open group with given level.
+	 * @param level The group level
+	 * @return The group totals
+	 */
+	public XLSTotals getTotals(int level) {
+		return totals[level];
+	}
+
+	/**
+	 * Get the last data row added to the open groups.
+	 * @return The last data row, <code>null</code> if none
+	 */
+	public PropertyBox getLastRow() {
+		return lastRow;
+	}
+
+	/**
+	 * Set the last data row added to the open groups.
+	 * @param row The data row
+	 */
+	public void setLastRow(PropertyBox row) {
+		this.lastRow = row;
+	}
+
+	private static Object getValue(PropertyBox row, Property<?> property) {
+		return (row != null && row.contains(property)) ? row.getValue(property) : null;
+	}
+
+}
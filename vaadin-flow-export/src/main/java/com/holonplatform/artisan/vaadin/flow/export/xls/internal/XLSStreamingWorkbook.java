@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.streaming.GZIPSheetDataWriter;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+
+/**
+ * A {@link SXSSFWorkbook} configured using a {@link XLSStreamingOptions} definition.
+ * <p>
+ * Besides the standard streaming settings, this workbook supports a custom temporary files directory and ZIP
+ * compression level, and keeps track of the temporary files it creates to report the temporary storage footprint of
+ * an export through {@link #getTempBytesWritten()}.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public class XLSStreamingWorkbook extends SXSSFWorkbook {
+
+	private static final String TEMP_FILE_PREFIX = "poi-sxssf-sheet";
+
+	private final XLSStreamingOptions options;
+
+	private final List<File> tempFiles = new ArrayList<>(1);
+
+	/**
+	 * Constructor.
+	 * @param options The streaming options (not null)
+	 */
+	public XLSStreamingWorkbook(XLSStreamingOptions options) {
+		super(null, checkOptions(options).getRowAccessWindowSize(), options.isCompressTempFiles(),
+				options.isUseSharedStringsTable());
+		this.options = options;
+	}
+
+	private static XLSStreamingOptions checkOptions(XLSStreamingOptions options) {
+		Obj.argumentNotNull(options, "The streaming options must be not null");
+		return options;
+	}
+
+	/**
+	 * Get the streaming options.
+	 * @return the streaming options
+	 */
+	public XLSStreamingOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Get the total size in bytes of the temporary files written by this workbook.
+	 * <p>
+	 * The temporary files are completed when the workbook is written, and deleted when the workbook is closed or
+	 * disposed, so this method should be invoked after the workbook has been written and before it is closed.
+	 * </p>
+	 * @return The temporary files size in bytes
+	 */
+	public long getTempBytesWritten() {
+		long bytes = 0L;
+		for (File file : tempFiles) {
+			bytes += file.length();
+		}
+		return bytes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.poi.xssf.streaming.SXSSFWorkbook#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		// make sure the temporary files are deleted
+		try {
+			dispose();
+		} finally {
+			super.close();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.poi.xssf.streaming.SXSSFWorkbook#createSheetDataWriter()
+	 */
+	@Override
+	protected SheetDataWriter createSheetDataWriter() throws IOException {
+		final SharedStringsTable sharedStrings = options.isUseSharedStringsTable()
+				? getXSSFWorkbook().getSharedStringSource()
+				: null;
+		if (options.isCompressTempFiles()) {
+			return new GZIPSheetDataWriter(sharedStrings) {
+
+				@Override
+				public File createTempFile() throws IOException {
+					return createSheetTempFile(".xml.gz");
+				}
+
+			};
+		}
+		return new SheetDataWriter(sharedStrings) {
+
+			@Override
+			public File createTempFile() throws IOException {
+				return createSheetTempFile(".xml");
+			}
+
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.apache.poi.xssf.streaming.SXSSFWorkbook#createArchiveOutputStream(java.io.OutputStream)
+	 */
+	@Override
+	protected ZipArchiveOutputStream createArchiveOutputStream(OutputStream out) throws IOException {
+		final ZipArchiveOutputStream zos = super.createArchiveOutputStream(out);
+		zos.setLevel(options.getCompressionLevel());
+		return zos;
+	}
+
+	/**
+	 * Create a sheet data temporary file, using the configured temporary directory, if any.
+	 * @param suffix The file name suffix
+	 * @return The temporary file
+	 * @throws IOException If an I/O error occurred
+	 */
+	private File createSheetTempFile(String suffix) throws IOException {
+		final File file = File.createTempFile(TEMP_FILE_PREFIX, suffix, options.getTempDirectory().orElse(null));
+		tempFiles.add(file);
+		return file;
+	}
+
+}
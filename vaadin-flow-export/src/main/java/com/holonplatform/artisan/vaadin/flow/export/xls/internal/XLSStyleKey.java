@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
+
+/**
+ * A workbook cell style definition, given by a cell configuration and an optional data format.
+ * <p>
+ * The key hash code is computed only once, at construction time.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class XLSStyleKey implements Serializable {
+
+	private static final long serialVersionUID = 8361794117038406663L;
+
+	private final XLSCellConfiguration configuration;
+	private final String dataFormat;
+	private final int hash;
+
+	/**
+	 * Constructor.
+	 * @param configuration The cell configuration
+	 * @param dataFormat The data format (may be null)
+	 */
+	public XLSStyleKey(XLSCellConfiguration configuration, String dataFormat) {
+		super();
+		this.configuration = configuration;
+		this.dataFormat = dataFormat;
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((configuration == null) ? 0 : configuration.hashCode());
+		result = prime * result + ((dataFormat == null) ? 0 : dataFormat.hashCode());
+		this.hash = result;
+	}
+
+	/**
+	 * Get the cell configuration.
+	 * @return the cell configuration
+	 */
+	public XLSCellConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Get the data format.
+	 * @return the data format, <code>null</code> if none
+	 */
+	public String getDataFormat() {
+		return dataFormat;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		XLSStyleKey other = (XLSStyleKey) obj;
+		return hash == other.hash && Objects.equals(dataFormat, other.dataFormat)
+				&& Objects.equals(configuration, other.configuration);
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+
+/**
+ * Interns the cell style definitions of an export into compact integer style ids, and binds each style id to the
+ * workbook {@link CellStyle} created for it.
+ * <p>
+ * Each distinct style definition is registered only once, so that a single workbook cell style is created for it. The
+ * style ids of the export plan columns are registered at construction time, in the same order, so that the column
+ * style ids assigned by the plan can be used to obtain the workbook cell style using an array index.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class XLSStyleTable {
+
+	private final Map<XLSStyleKey, Integer> ids = new HashMap<>();
+	private final List<XLSStyleKey> keys = new ArrayList<>();
+	private CellStyle[] styles;
+
+	/**
+	 * Constructor.
+	 * @param plan The export plan, whose style definitions are registered using the plan style ids
+	 */
+	public XLSStyleTable(DefaultXLSExportPlan plan) {
+		super();
+		final List<XLSStyleKey> planKeys = plan.getStyleKeys();
+		for (XLSStyleKey key : planKeys) {
+			getStyleId(key);
+		}
+		this.styles = new CellStyle[Math.max(16, planKeys.size() * 2)];
+	}
+
+	/**
+	 * Get the id of given style definition, registering it if not already available.
+	 * @param styleKey The style definition (not null)
+	 * @return The style id
+	 */
+	public int getStyleId(XLSStyleKey styleKey) {
+		final Integer id = ids.get(styleKey);
+		if (id != null) {
+			return id;
+		}
+		final int newId = keys.size();
+		keys.add(styleKey);
+		ids.put(styleKey, newId);
+		return newId;
+	}
+
+	/**
+	 * Get the style definition with given id.
+	 * @param styleId The style id
+	 * @return The style definition
+	 */
+	public XLSStyleKey getStyleKey(int styleId) {
+		return keys.get(styleId);
+	}
+
+	/**
+	 * Get the workbook cell style bound to given style id.
+	 * @param styleId The style id
+	 * @return The cell style, <code>null</code> if not created yet
+	 */
+	public CellStyle getStyle(int styleId) {
+		return (styleId < styles.length) ? styles[styleId] : null;
+	}
+
+	/**
+	 * Bind a workbook cell style to given style id.
+	 * @param styleId The style id
+	 * @param style The cell style
+	 */
+	public void setStyle(int styleId, CellStyle style) {
+		if (styleId >= styles.length) {
+			styles = Arrays.copyOf(styles, Math.max(styleId + 1, styles.length * 2));
+		}
+		styles[styleId] = style;
+	}
+
+	/**
+	 * Get the number of registered style definitions.
+	 * @return The style definitions count
+	 */
+	public int size() {
+		return keys.size();
+	}
+
+}
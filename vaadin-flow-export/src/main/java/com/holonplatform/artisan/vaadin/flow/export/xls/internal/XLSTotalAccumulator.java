@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction;
+
+/**
+ * Accumulates the numeric values of an export column, in order to compute the column <em>total</em> in a single pass.
+ * <p>
+ * Integral values are summed using a <code>long</code> accumulator and floating point values using a compensated
+ * <code>double</code> accumulator. A {@link BigDecimal} accumulator is used for {@link BigDecimal} and
+ * {@link BigInteger} values and when the <code>long</code> accumulator overflows.
+ * </p>
+ *
+ * @since 3.0.2
+ */
+public final class XLSTotalAccumulator {
+
+	private long count;
+
+	private long longSum;
+	private double doubleSum;
+	private double doubleCompensation;
+	private BigDecimal decimalSum;
+
+	private double min;
+	private double max;
+
+	/**
+	 * Constructor.
+	 */
+	public XLSTotalAccumulator() {
+		super();
+		reset();
+	}
+
+	/**
+	 * Reset the accumulator.
+	 */
+	public void reset() {
+		count = 0;
+		longSum = 0;
+		doubleSum = 0d;
+		doubleCompensation = 0d;
+		decimalSum = null;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Get the number of accumulated values.
+	 * @return The values count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Add a value.
+	 * @param value The value to add
+	 */
+	public void add(double value) {
+		count++;
+		addDouble(value);
+		updateRange(value);
+	}
+
+	/**
+	 * Add a value, using the most precise accumulator for the value type.
+	 * @param value The value to add (not null)
+	 */
+	public void add(Number value) {
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			final long longValue = value.longValue();
+			count++;
+			final long sum = longSum + longValue;
+			if (((longSum ^ sum) & (longValue ^ sum)) < 0) {
+				// overflow
+				addDecimal(BigDecimal.valueOf(longSum));
+				longSum = longValue;
+			} else {
+				longSum = sum;
+			}
+			updateRange(longValue);
+		} else if (value instanceof BigDecimal) {
+			count++;
+			addDecimal((BigDecimal) value);
+			updateRange(value.doubleValue());
+		} else if (value instanceof BigInteger) {
+			count++;
+			addDecimal(new BigDecimal((BigInteger) value));
+			updateRange(value.doubleValue());
+		} else {
+			add(value.doubleValue());
+		}
+	}
+
+	/**
+	 * Get the total value for given function.
+	 * @param function The total function
+	 * @return The total value, {@link Double#NaN} if not available
+	 */
+	public double getTotal(XLSTotalFunction function) {
+		switch (function) {
+		case COUNT:
+			return count;
+		case MIN:
+			return (count > 0) ? min : Double.NaN;
+		case MAX:
+			return (count > 0) ? max : Double.NaN;
+		case AVERAGE:
+			if (count == 0) {
+				return Double.NaN;
+			}
+			if (isDecimalSum()) {
+				return getDecimalSum().divide(BigDecimal.valueOf(count), MathContext.DECIMAL64)
+						.doubleValue();
+			}
+			return getSum() / count;
+		case SUM:
+		default:
+			return isDecimalSum() ? getDecimalSum().doubleValue() : getSum();
+		}
+	}
+
+	private boolean isDecimalSum() {
+		return decimalSum != null && Double.isFinite(doubleSum) && Double.isFinite(doubleCompensation);
+	}
+
+	private double getSum() {
+		final double sum = (doubleSum + doubleCompensation) + longSum;
+		return (decimalSum != null) ? (sum + decimalSum.doubleValue()) : sum;
+	}
+
+	private BigDecimal getDecimalSum() {
+		return decimalSum.add(BigDecimal.valueOf(longSum)).add(BigDecimal.valueOf(doubleSum))
+				.add(BigDecimal.valueOf(doubleCompensation));
+	}
+
+	private void addDouble(double value) {
+		// Kahan-Babuska summation
+		final double sum = doubleSum + value;
+		if (Math.abs(doubleSum) >= Math.abs(value)) {
+			doubleCompensation += (doubleSum - sum) + value;
+		} else {
+			doubleCompensation += (value - sum) + doubleSum;
+		}
+		doubleSum = sum;
+	}
+
+	private void addDecimal(BigDecimal value) {
+		decimalSum = (decimalSum != null) ? decimalSum.add(value) : value;
+	}
+
+	private void updateRange(double value) {
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+}
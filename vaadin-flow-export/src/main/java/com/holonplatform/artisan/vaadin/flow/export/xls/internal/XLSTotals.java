@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal;
+
+import java.util.List;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction;
+import com.holonplatform.core.property.Property;
+
+/**
+ * The <em>total</em> footer accumulators of the columns of an export, indexed by column.
+ *
+ * @since 3.0.2
+ */
+public final class XLSTotals {
+
+	private final XLSTotalFunction[] functions;
+	private final XLSTotalAccumulator[] accumulators;
+
+	/**
+	 * Constructor.
+	 * @param plan The export plan
+	 */
+	public XLSTotals(XLSExportPlan plan) {
+		super();
+		final XLSConfiguration configuration = plan.getConfiguration();
+		final List<Property<?>> properties = plan.getProperties();
+		final int columns = properties.size();
+		this.functions = new XLSTotalFunction[columns];
+		this.accumulators = new XLSTotalAccumulator[columns];
+		for (int i = 0; i < columns; i++) {
+			functions[i] = configuration.getTotalFunction(properties.get(i)).orElse(null);
+			if (functions[i] != null) {
+				accumulators[i] = new XLSTotalAccumulator();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a <em>total</em> footer is provided for given column.
+	 * @param columnIndex The column index
+	 * @return <code>true</code> if a total footer is provided for the column
+	 */
+	public boolean hasTotal(int columnIndex) {
+		return accumulators[columnIndex] != null;
+	}
+
+	/**
+	 * Get the total function of given column.
+	 * @param columnIndex The column index
+	 * @return The total function, <code>null</code> if no total footer is provided for the column
+	 */
+	public XLSTotalFunction getFunction(int columnIndex) {
+		return functions[columnIndex];
+	}
+
+	/**
+	 * Get the total value of given column.
+	 * @param columnIndex The column index
+	 * @return The total value, {@link Double#NaN} if not available
+	 */
+	public double getTotal(int columnIndex) {
+		return (accumulators[columnIndex] != null) ? accumulators[columnIndex].getTotal(functions[columnIndex])
+				: Double.NaN;
+	}
+
+	/**
+	 * Get the formula which computes the total of given column.
+	 * @param columnIndex The column index
+	 * @param columnName The column name, for example <code>A</code>
+	 * @param firstRowNumber The first row number of the range, starting from 1
+	 * @param lastRowNumber The last row number of the range, starting from 1
+	 * @param subtotal Whether to use a <code>SUBTOTAL</code> formula, which ignores the nested subtotals of the range
+	 * @return The total formula, <code>null</code> if no total footer is provided for the column
+	 */
+	public String getFormula(int columnIndex, String columnName, int firstRowNumber, int lastRowNumber,
+			boolean subtotal) {
+		final XLSTotalFunction function = functions[columnIndex];
+		if (function == null) {
+			return null;
+		}
+		final StringBuilder sb = new StringBuilder(24);
+		if (subtotal) {
+			sb.append("SUBTOTAL(");
+			sb.append(function.getSubtotalFunctionNumber());
+			sb.append(",");
+		} else {
+			sb.append(function.getFormulaFunction());
+			sb.append("(");
+		}
+		sb.append(columnName);
+		sb.append(firstRowNumber);
+		sb.append(":");
+		sb.append(columnName);
+		sb.append(lastRowNumber);
+		sb.append(")");
+		return sb.toString();
+	}
+
+	/**
+	 * Add a value to the total of given column, if a total footer is provided for the column.
+	 * @param columnIndex The column index
+	 * @param value The value to add
+	 */
+	public void add(int columnIndex, double value) {
+		final XLSTotalAccumulator accumulator = accumulators[columnIndex];
+		if (accumulator != null) {
+			accumulator.add(value);
+		}
+	}
+
+	/**
+	 * Add a value to the total of given column, if a total footer is provided for the column.
+	 * @param columnIndex The column index
+	 * @param value The value to add (not null)
+	 */
+	public void add(int columnIndex, Number value) {
+		final XLSTotalAccumulator accumulator = accumulators[columnIndex];
+		if (accumulator != null) {
+			accumulator.add(value);
+		}
+	}
+
+	/**
+	 * Reset all the column totals, for example when a new sheet is started.
+	 */
+	public void reset() {
+		for (XLSTotalAccumulator accumulator : accumulators) {
+			if (accumulator != null) {
+				accumulator.reset();
+			}
+		}
+	}
+
+}
@@ -59,6 +59,11 @@ public class DefaultXLSCellConfiguration implements XLSCellConfiguration {
 	private XLSColor borderBottomColor = XLSColor.AUTOMATIC;
 	private XLSColor borderLeftColor = XLSColor.AUTOMATIC;
 
+	/**
+	 * Cached hash code, <code>0</code> if not computed yet
+	 */
+	private transient int hash;
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration#isBold()
@@ -241,82 +246,102 @@ public class DefaultXLSCellConfiguration implements XLSCellConfiguration {
 
 	public void setBold(boolean bold) {
 		this.bold = bold;
+		this.hash = 0;
 	}
 
 	public void setItalic(boolean italic) {
 		this.italic = italic;
+		this.hash = 0;
 	}
 
 	public void setUnderline(boolean underline) {
 		this.underline = underline;
+		this.hash = 0;
 	}
 
 	public void setStrikeOut(boolean strikeOut) {
 		this.strikeOut = strikeOut;
+		this.hash = 0;
 	}
 
 	public void setWrap(boolean wrap) {
 		this.wrap = wrap;
+		this.hash = 0;
 	}
 
 	public void setShrinkToFit(boolean shrinkToFit) {
 		this.shrinkToFit = shrinkToFit;
+		this.hash = 0;
 	}
 
 	public void setFontSize(XLSFontSize fontSize) {
 		this.fontSize = (fontSize != null) ? fontSize : XLSFontSize.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	public void setFontColor(XLSColor fontColor) {
 		this.fontColor = (fontColor != null) ? fontColor : XLSColor.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	public void setBackgroundColor(XLSColor backgroundColor) {
 		this.backgroundColor = (backgroundColor != null) ? backgroundColor : XLSColor.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	public void setAlignment(XLSCellAlignment alignment) {
 		this.alignment = (alignment != null) ? alignment : XLSCellAlignment.DEFAULT;
+		this.hash = 0;
 	}
 
 	public void setVerticalAlignment(XLSCellVerticalAlignment verticalAlignment) {
 		this.verticalAlignment = (verticalAlignment != null) ? verticalAlignment : XLSCellVerticalAlignment.DEFAULT;
+		this.hash = 0;
 	}
 
 	public void setRotation(XLSCellRotation rotation) {
 		this.rotation = (rotation != null) ? rotation : XLSCellRotation.NONE;
+		this.hash = 0;
 	}
 
 	public void setBorderTop(XLSCellBorder borderTop) {
 		this.borderTop = (borderTop != null) ? borderTop : XLSCellBorder.NONE;
+		this.hash = 0;
 	}
 
 	public void setBorderRight(XLSCellBorder borderRight) {
 		this.borderRight = (borderRight != null) ? borderRight : XLSCellBorder.NONE;
+		this.hash = 0;
 	}
 
 	public void setBorderBottom(XLSCellBorder borderBottom) {
 		this.borderBottom = (borderBottom != null) ? borderBottom : XLSCellBorder.NONE;
+		this.hash = 0;
 	}
 
 	public void setBorderLeft(XLSCellBorder borderLeft) {
 		this.borderLeft = (borderLeft != null) ? borderLeft : XLSCellBorder.NONE;
+		this.hash = 0;
 	}
 
 	public void setBorderTopColor(XLSColor borderTopColor) {
 		this.borderTopColor = (borderTopColor != null) ? borderTopColor : XLSColor.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	public void setBorderRightColor(XLSColor borderRightColor) {
 		this.borderRightColor = (borderRightColor != null) ? borderRightColor : XLSColor.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	public void setBorderBottomColor(XLSColor borderBottomColor) {
 		this.borderBottomColor = (borderBottomColor != null) ? borderBottomColor : XLSColor.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	public void setBorderLeftColor(XLSColor borderLeftColor) {
 		this.borderLeftColor = (borderLeftColor != null) ? borderLeftColor : XLSColor.AUTOMATIC;
+		this.hash = 0;
 	}
 
 	/*
@@ -590,6 +615,19 @@ public class DefaultXLSCellConfiguration implements XLSCellConfiguration {
 	 */
 	@Override
 	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = computeHashCode();
+			hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * Compute the hash code of this configuration.
+	 * @return The hash code
+	 */
+	private int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((alignment == null) ? 0 : alignment.hashCode());
@@ -628,6 +666,8 @@ public class DefaultXLSCellConfiguration implements XLSCellConfiguration {
 		if (getClass() != obj.getClass())
 			return false;
 		DefaultXLSCellConfiguration other = (DefaultXLSCellConfiguration) obj;
+		if (hash != 0 && other.hash != 0 && hash != other.hash)
+			return false;
 		if (alignment != other.alignment)
 			return false;
 		if (backgroundColor != other.backgroundColor)
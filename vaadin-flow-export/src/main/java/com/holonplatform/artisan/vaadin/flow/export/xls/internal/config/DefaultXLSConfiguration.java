@@ -15,9 +15,10 @@
  */
 package com.holonplatform.artisan.vaadin.flow.export.xls.internal.config;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,9 +29,12 @@ import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSColor;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFontSize;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction;
 import com.holonplatform.core.i18n.Localizable;
 import com.holonplatform.core.property.Property;
 
@@ -43,10 +47,19 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 
 	private static final long serialVersionUID = -1540021139154788221L;
 
+	/**
+	 * Maximum number of group levels: the data rows of the innermost group are bound to the deepest row outline
+	 * level, and up to 7 outline levels are supported by the spreadsheet formats.
+	 */
+	private static final int MAX_GROUP_LEVELS = 7;
+
 	private List<Property<?>> properties = Collections.emptyList();
 	private final Map<Property<?>, XLSPropertyConfiguration> propertyConfigurations = new HashMap<>();
-	private Set<Property<?>> totalProperties = new HashSet<>();
+	private Map<Property<?>, XLSTotalFunction> totalProperties = new LinkedHashMap<>();
+	private boolean totalFormulas = true;
+	private final List<Property<?>> groupByProperties = new ArrayList<>(2);
 	private XLSFileVersion fileVersion = XLSFileVersion.XLSX;
+	private int maxRowsPerSheet = 0;
 	private Localizable sheetName;
 	private Localizable title;
 	private XLSFontSize titleFontSize = XLSFontSize.AUTOMATIC;
@@ -58,6 +71,11 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 	private XLSCellConfiguration headerConfiguration = DefaultXLSCellConfiguration.DEFAULT_HEADER_CONFIGURATION;
 	private XLSCellConfiguration totalConfiguration = DefaultXLSCellConfiguration.DEFAULT_TOTAL_CONFIGURATION;
 
+	private XLSStreamingOptions streamingOptions = DefaultXLSStreamingOptions.DEFAULTS;
+	private XLSEnginePolicy enginePolicy = DefaultXLSEnginePolicy.NONE;
+	private boolean autoWidth = false;
+	private int autoWidthSampleRows = DEFAULT_AUTO_WIDTH_SAMPLE_ROWS;
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getProperties()
@@ -78,6 +96,14 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		return Optional.ofNullable(propertyConfigurations.get(property));
 	}
 
+	/**
+	 * Get the properties for which a {@link XLSPropertyConfiguration} is available.
+	 * @return The configured properties, an empty set if none
+	 */
+	public Set<Property<?>> getConfiguredProperties() {
+		return Collections.unmodifiableSet(propertyConfigurations.keySet());
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -87,7 +113,7 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 	@Override
 	public boolean hasTotalFooter(Property<?> property) {
 		Obj.argumentNotNull(property, "Property must be not null");
-		return totalProperties.contains(property);
+		return totalProperties.containsKey(property);
 	}
 
 	/*
@@ -96,7 +122,37 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 	 */
 	@Override
 	public Set<Property<?>> getTotalFooterProperties() {
-		return Collections.unmodifiableSet(totalProperties);
+		return Collections.unmodifiableSet(totalProperties.keySet());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getTotalFunction(com.holonplatform.core.
+	 * property.Property)
+	 */
+	@Override
+	public Optional<XLSTotalFunction> getTotalFunction(Property<?> property) {
+		Obj.argumentNotNull(property, "Property must be not null");
+		return Optional.ofNullable(totalProperties.get(property));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#isTotalFormulas()
+	 */
+	@Override
+	public boolean isTotalFormulas() {
+		return totalFormulas;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getGroupByProperties()
+	 */
+	@Override
+	public List<Property<?>> getGroupByProperties() {
+		return Collections.unmodifiableList(groupByProperties);
 	}
 
 	/*
@@ -108,6 +164,15 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		return fileVersion;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getMaxRowsPerSheet()
+	 */
+	@Override
+	public int getMaxRowsPerSheet() {
+		return maxRowsPerSheet;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getSheetName()
@@ -198,6 +263,42 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		return totalConfiguration;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getStreamingOptions()
+	 */
+	@Override
+	public XLSStreamingOptions getStreamingOptions() {
+		return streamingOptions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getEnginePolicy()
+	 */
+	@Override
+	public XLSEnginePolicy getEnginePolicy() {
+		return enginePolicy;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#isAutoWidth()
+	 */
+	@Override
+	public boolean isAutoWidth() {
+		return autoWidth;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#getAutoWidthSampleRows()
+	 */
+	@Override
+	public int getAutoWidthSampleRows() {
+		return autoWidthSampleRows;
+	}
+
 	/**
 	 * Set the properties to export and their order.
 	 * @param properties the properties to set
@@ -219,10 +320,36 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 	/**
 	 * Add a property for which to provide a total footer.
 	 * @param property The property for which to provide a total footer (not null)
+	 * @param function The total function (not null)
+	 */
+	protected void addTotalProperty(Property<?> property, XLSTotalFunction function) {
+		Obj.argumentNotNull(property, "Property must be not null");
+		Obj.argumentNotNull(function, "Total function must be not null");
+		this.totalProperties.put(property, function);
+	}
+
+	/**
+	 * Set whether the total footer cells are written as formulas.
+	 * @param totalFormulas Whether the total cells are formulas
+	 */
+	protected void setTotalFormulas(boolean totalFormulas) {
+		this.totalFormulas = totalFormulas;
+	}
+
+	/**
+	 * Add a property by which to group the exported rows.
+	 * @param property The group property (not null)
 	 */
-	protected void addTotalProperty(Property<?> property) {
+	protected void addGroupByProperty(Property<?> property) {
 		Obj.argumentNotNull(property, "Property must be not null");
-		this.totalProperties.add(property);
+		if (!this.groupByProperties.contains(property)) {
+			if (this.groupByProperties.size() >= MAX_GROUP_LEVELS) {
+				throw new IllegalArgumentException(
+						"The maximum number of group properties is " + MAX_GROUP_LEVELS + ": the group property ["
+								+ property + "] cannot be added");
+			}
+			this.groupByProperties.add(property);
+		}
 	}
 
 	/**
@@ -233,6 +360,17 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		this.fileVersion = (fileVersion != null) ? fileVersion : XLSFileVersion.XLSX;
 	}
 
+	/**
+	 * Set the maximum number of data rows per sheet.
+	 * @param maxRowsPerSheet the maximum number of data rows per sheet, <code>0</code> for the file version limit
+	 */
+	protected void setMaxRowsPerSheet(int maxRowsPerSheet) {
+		if (maxRowsPerSheet < 0) {
+			throw new IllegalArgumentException("The maximum number of rows per sheet must be greater or equal to 0");
+		}
+		this.maxRowsPerSheet = maxRowsPerSheet;
+	}
+
 	/**
 	 * Set the export sheet name.
 	 * @param sheetName the sheet name to set
@@ -317,6 +455,42 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 				: DefaultXLSCellConfiguration.DEFAULT_TOTAL_CONFIGURATION;
 	}
 
+	/**
+	 * Set the XLSX streaming options.
+	 * @param streamingOptions the streaming options to set
+	 */
+	protected void setStreamingOptions(XLSStreamingOptions streamingOptions) {
+		this.streamingOptions = (streamingOptions != null) ? streamingOptions : DefaultXLSStreamingOptions.DEFAULTS;
+	}
+
+	/**
+	 * Set the XLS engine policy.
+	 * @param enginePolicy the engine policy to set
+	 */
+	protected void setEnginePolicy(XLSEnginePolicy enginePolicy) {
+		this.enginePolicy = (enginePolicy != null) ? enginePolicy : DefaultXLSEnginePolicy.NONE;
+	}
+
+	/**
+	 * Set whether to size the columns according to their contents.
+	 * @param autoWidth Whether to size the columns according to their contents
+	 */
+	protected void setAutoWidth(boolean autoWidth) {
+		this.autoWidth = autoWidth;
+	}
+
+	/**
+	 * Set the number of data rows which are sampled to estimate the column widths.
+	 * @param autoWidthSampleRows the number of sampled data rows to set
+	 * @throws IllegalArgumentException If the number of rows is negative
+	 */
+	protected void setAutoWidthSampleRows(int autoWidthSampleRows) {
+		if (autoWidthSampleRows < 0) {
+			throw new IllegalArgumentException("The number of sampled rows must be greater or equal to zero");
+		}
+		this.autoWidthSampleRows = autoWidthSampleRows;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration#cloneConfiguration()
@@ -328,8 +502,11 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		this.propertyConfigurations.entrySet().forEach(e -> {
 			builder.propertyConfiguration(e.getKey(), e.getValue());
 		});
-		this.totalProperties.forEach(p -> builder.withTotalProperty(p));
+		this.totalProperties.forEach((p, f) -> builder.withTotalProperty(p, f));
+		builder.totalFormulas(isTotalFormulas());
+		this.groupByProperties.forEach(p -> builder.withGroupByProperty(p));
 		builder.fileVersion(getFileVersion());
+		builder.maxRowsPerSheet(getMaxRowsPerSheet());
 		getSheetName().ifPresent(n -> builder.sheetName(n));
 		getTitle().ifPresent(t -> builder.title(t));
 		builder.titleFontSize(getTitleFontSize());
@@ -340,6 +517,10 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		builder.defaultBooleanExportMode(getDefaultBooleanExportMode());
 		builder.headerConfiguration(getHeaderConfiguration());
 		builder.totalConfiguration(getTotalConfiguration());
+		builder.streamingOptions(getStreamingOptions());
+		builder.enginePolicy(getEnginePolicy());
+		builder.autoWidth(isAutoWidth());
+		builder.autoWidthSampleRows(getAutoWidthSampleRows());
 		return builder;
 	}
 
@@ -378,7 +559,40 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 		 */
 		@Override
 		public Builder withTotalProperty(Property<?> property) {
-			this.configuration.addTotalProperty(property);
+			this.configuration.addTotalProperty(property, XLSTotalFunction.SUM);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#withTotalProperty(com.
+		 * holonplatform.core.property.Property, com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction)
+		 */
+		@Override
+		public Builder withTotalProperty(Property<?> property, XLSTotalFunction function) {
+			this.configuration.addTotalProperty(property, function);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#totalFormulas(boolean)
+		 */
+		@Override
+		public Builder totalFormulas(boolean totalFormulas) {
+			this.configuration.setTotalFormulas(totalFormulas);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#withGroupByProperty(
+		 * com.
+		 * holonplatform.core.property.Property)
+		 */
+		@Override
+		public Builder withGroupByProperty(Property<?> property) {
+			this.configuration.addGroupByProperty(property);
 			return this;
 		}
 
@@ -393,6 +607,16 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 			return this;
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#maxRowsPerSheet(int)
+		 */
+		@Override
+		public Builder maxRowsPerSheet(int maxRowsPerSheet) {
+			this.configuration.setMaxRowsPerSheet(maxRowsPerSheet);
+			return this;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see
@@ -506,6 +730,49 @@ public class DefaultXLSConfiguration implements XLSConfiguration {
 			return this;
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#streamingOptions(com.
+		 * holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions)
+		 */
+		@Override
+		public Builder streamingOptions(XLSStreamingOptions streamingOptions) {
+			this.configuration.setStreamingOptions(streamingOptions);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#enginePolicy(com.
+		 * holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy)
+		 */
+		@Override
+		public Builder enginePolicy(XLSEnginePolicy enginePolicy) {
+			this.configuration.setEnginePolicy(enginePolicy);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#autoWidth(boolean)
+		 */
+		@Override
+		public Builder autoWidth(boolean autoWidth) {
+			this.configuration.setAutoWidth(autoWidth);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#autoWidthSampleRows(
+		 * int)
+		 */
+		@Override
+		public Builder autoWidthSampleRows(int autoWidthSampleRows) {
+			this.configuration.setAutoWidthSampleRows(autoWidthSampleRows);
+			return this;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration.Builder#build()
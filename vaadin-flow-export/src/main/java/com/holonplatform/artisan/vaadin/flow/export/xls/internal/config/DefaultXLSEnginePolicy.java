@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal.config;
+
+import com.holonplatform.artisan.core.utils.Obj;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy;
+
+/**
+ * Default {@link XLSEnginePolicy} implementation.
+ *
+ * @since 3.0.2
+ */
+public class DefaultXLSEnginePolicy implements XLSEnginePolicy {
+
+	private static final long serialVersionUID = -2851365010473384147L;
+
+	/**
+	 * Default policy
+	 */
+	public static final XLSEnginePolicy NONE = new DefaultXLSEnginePolicy();
+
+	private Action action = Action.NONE;
+	private long heapBudget = -1L;
+	private int bytesPerCell = DEFAULT_BYTES_PER_CELL;
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy#getAction()
+	 */
+	@Override
+	public Action getAction() {
+		return action;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy#getHeapBudget()
+	 */
+	@Override
+	public long getHeapBudget() {
+		return (heapBudget > 0) ? heapBudget : Runtime.getRuntime().maxMemory() / 4;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy#getBytesPerCell()
+	 */
+	@Override
+	public int getBytesPerCell() {
+		return bytesPerCell;
+	}
+
+	/**
+	 * Set the policy action.
+	 * @param action the action to set (not null)
+	 */
+	protected void setAction(Action action) {
+		Obj.argumentNotNull(action, "The policy action must be not null");
+		this.action = action;
+	}
+
+	/**
+	 * Set the heap budget.
+	 * @param heapBudget the heap budget to set (must be greater than 0)
+	 */
+	protected void setHeapBudget(long heapBudget) {
+		if (heapBudget < 1) {
+			throw new IllegalArgumentException("The heap budget must be greater than 0");
+		}
+		this.heapBudget = heapBudget;
+	}
+
+	/**
+	 * Set the estimated bytes per cell.
+	 * @param bytesPerCell the bytes per cell to set (must be greater than 0)
+	 */
+	protected void setBytesPerCell(int bytesPerCell) {
+		if (bytesPerCell < 1) {
+			throw new IllegalArgumentException("The bytes per cell must be greater than 0");
+		}
+		this.bytesPerCell = bytesPerCell;
+	}
+
+	public static class DefaultBuilder implements Builder {
+
+		private final DefaultXLSEnginePolicy policy = new DefaultXLSEnginePolicy();
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy.Builder#action(com.
+		 * holonplatform.
+		 * artisan.vaadin.flow.export.xls.config.XLSEnginePolicy.Action)
+		 */
+		@Override
+		public Builder action(Action action) {
+			this.policy.setAction(action);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy.Builder#heapBudget(long)
+		 */
+		@Override
+		public Builder heapBudget(long heapBudget) {
+			this.policy.setHeapBudget(heapBudget);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy.Builder#bytesPerCell(int)
+		 */
+		@Override
+		public Builder bytesPerCell(int bytesPerCell) {
+			this.policy.setBytesPerCell(bytesPerCell);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy.Builder#build()
+		 */
+		@Override
+		public XLSEnginePolicy build() {
+			return policy;
+		}
+
+	}
+
+}
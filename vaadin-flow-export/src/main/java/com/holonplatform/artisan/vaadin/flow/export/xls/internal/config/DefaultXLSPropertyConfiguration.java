@@ -42,6 +42,7 @@ public class DefaultXLSPropertyConfiguration implements XLSPropertyConfiguration
 	private BooleanExportMode booleanExportMode = BooleanExportMode.DEFAULT;
 	private String booleanTextForTrue = null;
 	private String booleanTextForFalse = null;
+	private Boolean autoWidth = null;
 
 	/*
 	 * (non-Javadoc)
@@ -124,6 +125,15 @@ public class DefaultXLSPropertyConfiguration implements XLSPropertyConfiguration
 		return Optional.ofNullable(booleanTextForFalse);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration#getAutoWidth()
+	 */
+	@Override
+	public Optional<Boolean> getAutoWidth() {
+		return Optional.ofNullable(autoWidth);
+	}
+
 	protected void setHeader(Localizable header) {
 		this.header = header;
 	}
@@ -163,6 +173,10 @@ public class DefaultXLSPropertyConfiguration implements XLSPropertyConfiguration
 		this.booleanTextForFalse = booleanTextForFalse;
 	}
 
+	protected void setAutoWidth(Boolean autoWidth) {
+		this.autoWidth = autoWidth;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration#cloneConfiguration()
@@ -179,6 +193,7 @@ public class DefaultXLSPropertyConfiguration implements XLSPropertyConfiguration
 		builder.booleanExportMode(getBooleanExportMode());
 		getBooleanTextForTrue().ifPresent(t -> builder.booleanTextForTrue(t));
 		getBooleanTextForFalse().ifPresent(t -> builder.booleanTextForFalse(t));
+		getAutoWidth().ifPresent(a -> builder.autoWidth(a));
 		return builder;
 	}
 
@@ -293,6 +308,18 @@ public class DefaultXLSPropertyConfiguration implements XLSPropertyConfiguration
 			return this;
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration.Builder#autoWidth(java.lang.
+		 * Boolean)
+		 */
+		@Override
+		public Builder autoWidth(Boolean autoWidth) {
+			instance.setAutoWidth(autoWidth);
+			return this;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration.Builder#build()
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.xls.internal.config;
+
+import java.io.File;
+import java.util.Optional;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+
+/**
+ * Default {@link XLSStreamingOptions} implementation.
+ *
+ * @since 3.0.2
+ */
+public class DefaultXLSStreamingOptions implements XLSStreamingOptions {
+
+	private static final long serialVersionUID = 3482870193218541726L;
+
+	/**
+	 * Default options
+	 */
+	public static final XLSStreamingOptions DEFAULTS = new DefaultXLSStreamingOptions();
+
+	private int rowAccessWindowSize = DEFAULT_ROW_ACCESS_WINDOW_SIZE;
+	private boolean compressTempFiles = false;
+	private File tempDirectory;
+	private boolean useSharedStringsTable = false;
+	private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions#getRowAccessWindowSize()
+	 */
+	@Override
+	public int getRowAccessWindowSize() {
+		return rowAccessWindowSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions#isCompressTempFiles()
+	 */
+	@Override
+	public boolean isCompressTempFiles() {
+		return compressTempFiles;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions#getTempDirectory()
+	 */
+	@Override
+	public Optional<File> getTempDirectory() {
+		return Optional.ofNullable(tempDirectory);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions#isUseSharedStringsTable()
+	 */
+	@Override
+	public boolean isUseSharedStringsTable() {
+		return useSharedStringsTable;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions#getCompressionLevel()
+	 */
+	@Override
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	/**
+	 * Set the row access window size.
+	 * @param rowAccessWindowSize the row access window size to set (must be greater than 0)
+	 */
+	protected void setRowAccessWindowSize(int rowAccessWindowSize) {
+		if (rowAccessWindowSize < 1) {
+			throw new IllegalArgumentException("The row access window size must be greater than 0");
+		}
+		this.rowAccessWindowSize = rowAccessWindowSize;
+	}
+
+	/**
+	 * Set whether to compress the temporary files.
+	 * @param compressTempFiles Whether to compress the temporary files
+	 */
+	protected void setCompressTempFiles(boolean compressTempFiles) {
+		this.compressTempFiles = compressTempFiles;
+	}
+
+	/**
+	 * Set the temporary files directory.
+	 * @param tempDirectory the temporary files directory to set
+	 */
+	protected void setTempDirectory(File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	/**
+	 * Set whether to use a shared strings table.
+	 * @param useSharedStringsTable Whether to use a shared strings table
+	 */
+	protected void setUseSharedStringsTable(boolean useSharedStringsTable) {
+		this.useSharedStringsTable = useSharedStringsTable;
+	}
+
+	/**
+	 * Set the ZIP compression level.
+	 * @param compressionLevel the compression level to set
+	 */
+	protected void setCompressionLevel(int compressionLevel) {
+		if (compressionLevel < DEFAULT_COMPRESSION_LEVEL || compressionLevel > 9) {
+			throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+		}
+		this.compressionLevel = compressionLevel;
+	}
+
+	public static class DefaultBuilder implements Builder {
+
+		private final DefaultXLSStreamingOptions options = new DefaultXLSStreamingOptions();
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions.Builder#rowAccessWindowSize(int)
+		 */
+		@Override
+		public Builder rowAccessWindowSize(int rowAccessWindowSize) {
+			this.options.setRowAccessWindowSize(rowAccessWindowSize);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions.Builder#compressTempFiles(boolean)
+		 */
+		@Override
+		public Builder compressTempFiles(boolean compressTempFiles) {
+			this.options.setCompressTempFiles(compressTempFiles);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions.Builder#tempDirectory(java.io.File)
+		 */
+		@Override
+		public Builder tempDirectory(File tempDirectory) {
+			this.options.setTempDirectory(tempDirectory);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions.Builder#
+		 * useSharedStringsTable(boolean)
+		 */
+		@Override
+		public Builder useSharedStringsTable(boolean useSharedStringsTable) {
+			this.options.setUseSharedStringsTable(useSharedStringsTable);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see
+		 * com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions.Builder#compressionLevel(int)
+		 */
+		@Override
+		public Builder compressionLevel(int compressionLevel) {
+			this.options.setCompressionLevel(compressionLevel);
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions.Builder#build()
+		 */
+		@Override
+		public XLSStreamingOptions build() {
+			return options;
+		}
+
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.csv.config.CSVQuoteMode;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueBatchProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.core.i18n.Caption;
+import com.holonplatform.core.property.BooleanProperty;
+import com.holonplatform.core.property.NumericProperty;
+import com.holonplatform.core.property.PathProperty;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.property.StringProperty;
+import com.holonplatform.core.property.TemporalProperty;
+import com.vaadin.flow.data.provider.DataProvider;
+
+public class TestCSVExporter {
+
+	private static final NumericProperty<Long> ID = NumericProperty.longType("id").message("The ID");
+	private static final StringProperty TEXT = StringProperty.create("text");
+	private static final NumericProperty<Double> DBLV = NumericProperty.doubleType("dblv");
+	private static final BooleanProperty BOOL = BooleanProperty.create("bool");
+	private static final TemporalProperty<LocalDate> LDATE = TemporalProperty.localDate("ldate");
+	private static final TemporalProperty<LocalDateTime> LDATETIME = TemporalProperty.localDateTime("ldatetime");
+
+	private static final PropertySet<?> SET = PropertySet.builderOf(ID, TEXT, DBLV, BOOL, LDATE, LDATETIME)
+			.withIdentifier(ID).build();
+
+	private enum TestEnum {
+
+		@Caption("The One")
+		ONE, TWO;
+
+	}
+
+	private static final PathProperty<TestEnum> ENMV = PathProperty.create("enmv", TestEnum.class);
+
+	private static final DataProvider<PropertyBox, ?> DATASOURCE = DataProvider.ofItems(new PropertyBox[] {
+			PropertyBox.builder(SET).set(ID, 1L).set(TEXT, "text1").set(DBLV, 123456.78d).set(BOOL, true)
+					.set(LDATE, LocalDate.of(2019, 3, 1)).set(LDATETIME, LocalDateTime.of(2019, 3, 1, 10, 30))
+					.build(),
+			PropertyBox.builder(SET).set(ID, 2L).set(TEXT, "a \"quoted\", text").set(BOOL, false).build(),
+			PropertyBox.builder(SET).set(ID, 3L).set(TEXT, "multi\nline").set(DBLV, 0.5d).build() });
+
+	@Test
+	public void testExport() {
+
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).build();
+
+		assertEquals("The ID,text,dblv,bool,ldate,ldatetime\r\n"
+				+ "1,text1,123456.78,true,2019-03-01,2019-03-01T10:30:00\r\n"
+				+ "2,\"a \"\"quoted\"\", text\",,false,,\r\n" + "3,\"multi\nline\",0.5,,,\r\n", export(exporter));
+	}
+
+	@Test
+	public void testConfiguration() {
+
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(true);
+		registry.forProperty(TEXT, (ctx, v) -> XLSValue.stringValue("[" + v + "]"));
+
+		final CSVConfiguration configuration = CSVConfiguration.builder().properties(ID, TEXT, DBLV, BOOL, LDATE)
+				.delimiter('\t').quoteMode(CSVQuoteMode.NON_NUMERIC).lineSeparator("\n").decimalSeparator(',')
+				.datePattern("dd/MM/yyyy").booleanExportMode(BooleanExportMode.TEXT).includeHeader(false).build();
+
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(registry).batchSize(1).build();
+
+		assertEquals("1\t\"[text1]\"\t123456,78\t\"Yes\"\t\"01/03/2019\"\n"
+				+ "2\t\"[a \"\"quoted\"\", text]\"\t\t\"No\"\t\n" + "3\t\"[multi\nline]\"\t0,5\t\t\n",
+				export(exporter));
+	}
+
+	@Test
+	public void testBatchValueProvider() {
+
+		final AtomicInteger batches = new AtomicInteger();
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(true);
+		registry.forProperty(TEXT, (PropertyXLSValueBatchProvider<String>) (ctx, rows, values, output) -> {
+			batches.incrementAndGet();
+			assertEquals(rows.size(), values.size());
+			for (int i = 0; i < values.size(); i++) {
+				if (rows.get(i).getValue(ID) == 1L) {
+					output[i] = XLSValue.stringValue("#" + values.get(i));
+				}
+			}
+		});
+
+		final CSVConfiguration configuration = CSVConfiguration.builder().properties(ID, TEXT).build();
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(registry).batchSize(2).build();
+
+		// the values left null by the batch provider are exported as a String
+		assertEquals("The ID,text\r\n1,#text1\r\n2,\"a \"\"quoted\"\", text\"\r\n3,\"multi\nline\"\r\n",
+				export(exporter));
+		// one invocation for each data page
+		assertEquals(2, batches.get());
+	}
+
+	@Test
+	public void testEnumCaption() {
+
+		final PropertySet<?> set = PropertySet.builderOf(ID, ENMV).withIdentifier(ID).build();
+		final CSVExporter exporter = CSVExporter.builder(DataProvider.ofItems(
+				PropertyBox.builder(set).set(ID, 1L).set(ENMV, TestEnum.ONE).build(),
+				PropertyBox.builder(set).set(ID, 2L).set(ENMV, TestEnum.TWO).build()), set).build();
+
+		assertEquals("The ID,enmv\r\n1,The One\r\n2,TWO\r\n", export(exporter));
+	}
+
+	@Test
+	public void testEscapeFormulas() {
+
+		final PropertySet<?> set = PropertySet.builderOf(ID, TEXT).withIdentifier(ID).build();
+		final DataProvider<PropertyBox, ?> dataSource = DataProvider.ofItems(
+				PropertyBox.builder(set).set(ID, 1L).set(TEXT, "=cmd|' /C calc'!A0").build(),
+				PropertyBox.builder(set).set(ID, -2L).set(TEXT, "@SUM(1+1)").build(),
+				PropertyBox.builder(set).set(ID, 3L).set(TEXT, "+1").build());
+
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(true);
+		registry.forProperty(ID, (ctx, v) -> XLSValue.formulaValue("A" + v));
+
+		assertEquals("The ID,text\r\n1,'=cmd|' /C calc'!A0\r\n-2,'@SUM(1+1)\r\n3,'+1\r\n",
+				export(CSVExporter.builder(dataSource, set).build()));
+
+		final CSVConfiguration raw = CSVConfiguration.builder().includeHeader(false).escapeFormulas(false).build();
+		assertEquals("1,=cmd|' /C calc'!A0\r\n-2,@SUM(1+1)\r\n3,+1\r\n",
+				export(CSVExporter.builder(dataSource, set).configuration(raw).build()));
+
+		final CSVConfiguration noHeader = CSVConfiguration.builder().includeHeader(false).build();
+		assertEquals("'=A1,'=cmd|' /C calc'!A0\r\n'=A-2,'@SUM(1+1)\r\n'=A3,'+1\r\n",
+				export(CSVExporter.builder(dataSource, set).configuration(noHeader).registry(registry).build()));
+	}
+
+	@Test
+	public void testAbort() {
+
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET).build();
+		assertThrows(ExportException.class, () -> exporter.export(new ByteArrayOutputStream(),
+				(total, completed) -> (completed > 2) ? OperationProgress.ABORT : OperationProgress.PROCEED));
+	}
+
+	@Test
+	public void testExportAsync() throws Exception {
+
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET).build();
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final ExportResult result = exporter.exportAsync(os, Runnable::run).get();
+		assertEquals(3, result.getRows());
+		assertEquals(os.size(), result.getBytes());
+		assertFalse(result.getElapsedTime().isNegative());
+
+		final CompletableFuture<ExportResult> failed = exporter.exportAsync(new ByteArrayOutputStream(),
+				(total, completed) -> OperationProgress.ABORT, Runnable::run);
+		assertTrue(failed.isCompletedExceptionally());
+		final ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get());
+		assertTrue(e.getCause() instanceof ExportException);
+	}
+
+	private static String export(CSVExporter exporter) {
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		exporter.export(os);
+		return new String(os.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.holonplatform.artisan.vaadin.flow.export.ExportCache;
+import com.holonplatform.artisan.vaadin.flow.export.ExportCacheKey;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.core.config.ConfigProperty;
+import com.holonplatform.core.property.NumericProperty;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.property.StringProperty;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+
+public class TestExportCache {
+
+	private static final NumericProperty<Long> ID = NumericProperty.longType("id");
+	private static final StringProperty TEXT = StringProperty.create("text");
+
+	private static final PropertySet<?> SET = PropertySet.builderOf(ID, TEXT).withIdentifier(ID).build();
+
+	private static final DataProvider<PropertyBox, ?> DATASOURCE = DataProvider.ofItems(new PropertyBox[] {
+			PropertyBox.builder(SET).set(ID, 1L).set(TEXT, "text1").build(),
+			PropertyBox.builder(SET).set(ID, 2L).set(TEXT, "text2").build(),
+			PropertyBox.builder(SET).set(ID, 3L).set(TEXT, "text3").build() });
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void testKey() {
+
+		final ExportCacheKey key = ExportCacheKey.builder().properties(Arrays.asList(ID, TEXT))
+				.configuration(XLSConfiguration.builder().withTotalProperty(ID).build())
+				.sorts(Collections.singletonList(QuerySortOrder.asc("id").build().get(0))).filter("f")
+				.locale(Locale.ITALY).version("v1").build();
+
+		assertEquals(64, key.getFingerprint().length());
+
+		// components order is not relevant
+		assertEquals(key, ExportCacheKey.builder().version("v1").locale(Locale.ITALY).filter("f")
+				.sorts(Collections.singletonList(QuerySortOrder.asc("id").build().get(0)))
+				.configuration(XLSConfiguration.builder().withTotalProperty(ID).build()).properties(Arrays.asList(ID, TEXT))
+				.build());
+
+		assertNotEquals(key, ExportCacheKey.builder().properties(Arrays.asList(ID, TEXT))
+				.configuration(XLSConfiguration.builder().withTotalProperty(ID).build())
+				.sorts(Collections.singletonList(QuerySortOrder.asc("id").build().get(0))).filter("f")
+				.locale(Locale.ITALY).version("v2").build());
+
+		assertNotEquals(key, ExportCacheKey.builder().properties(Arrays.asList(ID, TEXT))
+				.configuration(XLSConfiguration.builder().build())
+				.sorts(Collections.singletonList(QuerySortOrder.asc("id").build().get(0))).filter("f")
+				.locale(Locale.ITALY).version("v1").build());
+
+		final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).build();
+		assertEquals(ExportCacheKey.builder(exporter).version("v1").build(),
+				ExportCacheKey.builder(exporter).version("v1").build());
+
+		assertThrows(IllegalArgumentException.class,
+				() -> ExportCacheKey.builder().with("filter", new Object()).build());
+
+		// the property configurations order is not relevant
+		final XLSPropertyConfiguration decimals = XLSPropertyConfiguration.builder().numberDecimals(2).build();
+		final XLSPropertyConfiguration noAutoWidth = XLSPropertyConfiguration.builder().autoWidth(false).build();
+		final XLSConfiguration ordered = XLSConfiguration.builder().propertyConfiguration(ID, decimals)
+				.propertyConfiguration(TEXT, noAutoWidth).build();
+		final XLSConfiguration reversed = XLSConfiguration.builder().propertyConfiguration(TEXT, noAutoWidth)
+				.propertyConfiguration(ID, decimals).build();
+		final XLSConfiguration changed = XLSConfiguration.builder()
+				.propertyConfiguration(ID, XLSPropertyConfiguration.builder().numberDecimals(3).build())
+				.propertyConfiguration(TEXT, noAutoWidth).build();
+		assertEquals(ExportCacheKey.builder().configuration(ordered).build(),
+				ExportCacheKey.builder().configuration(reversed).build());
+		assertNotEquals(ExportCacheKey.builder().configuration(ordered).build(),
+				ExportCacheKey.builder().configuration(changed).build());
+
+		// properties are described by name, type and caption
+		final StringProperty configured = StringProperty.create("text")
+				.withConfiguration(ConfigProperty.create("converter", Object.class), new Object());
+		assertEquals(ExportCacheKey.builder().properties(Arrays.asList(ID, TEXT)).build(),
+				ExportCacheKey.builder().properties(Arrays.asList(ID, configured)).build());
+		assertNotEquals(ExportCacheKey.builder().properties(Arrays.asList(ID, TEXT)).build(),
+				ExportCacheKey.builder().properties(Arrays.asList(ID, StringProperty.create("text").message("Text")))
+						.build());
+	}
+
+	@Test
+	public void testCache() throws IOException {
+
+		final ExportCache cache = ExportCache.builder(directory).build();
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET).build();
+		final ExportCacheKey key = ExportCacheKey.builder().properties(Arrays.asList(ID, TEXT)).version("v1").build();
+
+		final ByteArrayOutputStream os1 = new ByteArrayOutputStream();
+		final ExportResult result1 = cache.export(key, exporter, os1);
+		assertEquals(3, result1.getRows());
+		assertEquals(os1.size(), result1.getBytes());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(os1.size(), cache.getSize());
+
+		final ByteArrayOutputStream os2 = new ByteArrayOutputStream();
+		final ExportResult result2 = cache.export(key, exporter, os2);
+		assertEquals(3, result2.getRows());
+		assertArrayEquals(os1.toByteArray(), os2.toByteArray());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		final Optional<InputStream> is = cache.open(key);
+		assertTrue(is.isPresent());
+		try (InputStream in = is.get()) {
+			assertArrayEquals(os1.toByteArray(), in.readAllBytes());
+		}
+
+		// restored from the spool directory
+		final ExportCache restored = ExportCache.builder(directory).build();
+		assertEquals(1, restored.getEntryCount());
+		assertEquals(3, restored.export(key, exporter, new ByteArrayOutputStream()).getRows());
+		assertEquals(1, restored.getHitCount());
+
+		assertTrue(cache.invalidate(key));
+		assertFalse(cache.open(key).isPresent());
+		assertEquals(0, cache.getSize());
+		cache.export(key, exporter, new ByteArrayOutputStream());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testEviction() throws InterruptedException {
+
+		final CSVExporter exporter = CSVExporter.builder(DATASOURCE, SET).build();
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		exporter.export(os);
+
+		final ExportCache cache = ExportCache.builder(directory).maxSize(os.size() * 2L).timeToLive(null).build();
+		final ExportCacheKey key1 = ExportCacheKey.builder().version("1").build();
+		final ExportCacheKey key2 = ExportCacheKey.builder().version("2").build();
+		final ExportCacheKey key3 = ExportCacheKey.builder().version("3").build();
+
+		cache.export(key1, exporter, new ByteArrayOutputStream());
+		cache.export(key2, exporter, new ByteArrayOutputStream());
+		// key1 becomes the most recently used
+		cache.export(key1, exporter, new ByteArrayOutputStream());
+		cache.export(key3, exporter, new ByteArrayOutputStream());
+
+		assertEquals(2, cache.getEntryCount());
+		assertTrue(cache.open(key1).isPresent());
+		assertFalse(cache.open(key2).isPresent());
+
+		final ExportCache expiring = ExportCache.builder(directory.resolve("ttl")).timeToLive(Duration.ofMillis(1))
+				.build();
+		expiring.export(key1, exporter, new ByteArrayOutputStream());
+		Thread.sleep(20);
+		assertFalse(expiring.open(key1).isPresent());
+		assertEquals(0, expiring.getEntryCount());
+	}
+
+}
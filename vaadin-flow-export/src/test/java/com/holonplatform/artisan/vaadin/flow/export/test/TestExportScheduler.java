@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.ExportJob;
+import com.holonplatform.artisan.vaadin.flow.export.ExportScheduler;
+import com.holonplatform.artisan.vaadin.flow.export.csv.CSVExporter;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.core.property.NumericProperty;
+import com.holonplatform.core.property.PropertyBox;
+import com.holonplatform.core.property.PropertySet;
+import com.holonplatform.core.property.StringProperty;
+import com.vaadin.flow.data.provider.DataProvider;
+
+public class TestExportScheduler {
+
+	private static final NumericProperty<Long> ID = NumericProperty.longType("id");
+	private static final StringProperty TEXT = StringProperty.create("text");
+
+	private static final PropertySet<?> SET = PropertySet.builderOf(ID, TEXT).withIdentifier(ID).build();
+
+	private static final CSVExporter EXPORTER = CSVExporter.builder(DataProvider.ofItems(new PropertyBox[] {
+			PropertyBox.builder(SET).set(ID, 1L).set(TEXT, "text1").build(),
+			PropertyBox.builder(SET).set(ID, 2L).set(TEXT, "text2").build() }), SET).build();
+
+	private final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+	private final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void before() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	public void after() throws InterruptedException {
+		gates.values().forEach(CountDownLatch::countDown);
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testAdmissionOrder() throws InterruptedException {
+
+		final ExportScheduler scheduler = ExportScheduler.builder().maxConcurrentExports(1).executor(executor)
+				.build();
+
+		final ExportJob a1 = submit(scheduler, "a1", "A", 0);
+		assertEquals("a1", next());
+		assertEquals(ExportJob.Status.RUNNING, a1.getStatus());
+
+		final ExportJob a2 = submit(scheduler, "a2", "A", 0);
+		submit(scheduler, "a3", "A", 0);
+		submit(scheduler, "b1", "B", 0);
+		submit(scheduler, "c1", "C", 10);
+
+		assertEquals(ExportJob.Status.QUEUED, a2.getStatus());
+		assertEquals(1, scheduler.getRunningCount());
+		assertEquals(4, scheduler.getQueuedCount());
+		assertEquals(3, scheduler.getJobs("A").size());
+
+		// priority first, then the users served less recently
+		release("a1");
+		assertEquals("c1", next());
+		release("c1");
+		assertEquals("b1", next());
+		release("b1");
+		assertEquals("a2", next());
+		release("a2");
+		assertEquals("a3", next());
+		release("a3");
+
+		assertEquals(2, a1.await().getRows());
+		assertEquals(ExportJob.Status.COMPLETED, a1.getStatus());
+		assertEquals(2, a2.await().getRows());
+	}
+
+	@Test
+	public void testClientLimits() throws InterruptedException {
+
+		final ExportScheduler scheduler = ExportScheduler.builder().maxConcurrentExports(3)
+				.maxConcurrentExportsPerUser(1).maxConcurrentExportsPerSession(1).executor(executor).build();
+
+		final ExportJob a1 = submit(scheduler, "a1", "A", 0);
+		assertEquals("a1", next());
+		final ExportJob a2 = submit(scheduler, "a2", "A", 0);
+		assertEquals(ExportJob.Status.QUEUED, a2.getStatus());
+
+		// the jobs without user and session ids are not accounted as the same client
+		final ExportJob n1 = scheduler.job(EXPORTER, new ByteArrayOutputStream()).progressCallback(gate("n1"))
+				.submit();
+		final ExportJob n2 = scheduler.job(EXPORTER, new ByteArrayOutputStream()).progressCallback(gate("n2"))
+				.submit();
+		final HashSet<String> next = new HashSet<>();
+		next.add(next());
+		next.add(next());
+		assertTrue(next.contains("n1") && next.contains("n2"));
+		assertEquals(3, scheduler.getRunningCount());
+		assertEquals(ExportJob.Status.QUEUED, a2.getStatus());
+
+		release("a1");
+		release("n1");
+		assertEquals("a2", next());
+		release("a2");
+		release("n2");
+		a1.await();
+		a2.await();
+		n1.await();
+		n2.await();
+	}
+
+	@Test
+	public void testBudgets() throws InterruptedException {
+
+		final ExportScheduler scheduler = ExportScheduler.builder().maxConcurrentExports(4).memoryBudget(100)
+				.tempDiskBudget(1000).executor(executor).build();
+
+		final ExportJob j1 = scheduler.job(EXPORTER, new ByteArrayOutputStream()).memoryEstimate(60)
+				.tempDiskEstimate(0).progressCallback(gate("j1")).submit();
+		assertEquals("j1", next());
+
+		final ExportJob j2 = scheduler.job(EXPORTER, new ByteArrayOutputStream()).memoryEstimate(60)
+				.tempDiskEstimate(0).progressCallback(gate("j2")).submit();
+		// smaller jobs do not overtake the first queued job
+		final ExportJob j3 = scheduler.job(EXPORTER, new ByteArrayOutputStream()).memoryEstimate(10)
+				.tempDiskEstimate(0).progressCallback(gate("j3")).submit();
+		assertEquals(ExportJob.Status.QUEUED, j2.getStatus());
+		assertEquals(ExportJob.Status.QUEUED, j3.getStatus());
+		assertNull(started.poll(100, TimeUnit.MILLISECONDS));
+
+		release("j1");
+		final HashSet<String> next = new HashSet<>();
+		next.add(next());
+		next.add(next());
+		assertTrue(next.contains("j2") && next.contains("j3"));
+
+		release("j2");
+		release("j3");
+		j1.await();
+		j2.await();
+		j3.await();
+		assertEquals(0, scheduler.getRunningCount());
+	}
+
+	@Test
+	public void testCancelAndReject() throws InterruptedException {
+
+		final ExportScheduler scheduler = ExportScheduler.builder().maxConcurrentExports(1).maxQueuedExports(1)
+				.executor(executor).build();
+
+		final ExportJob j1 = submit(scheduler, "j1", "A", 0);
+		assertEquals("j1", next());
+		final ExportJob j2 = submit(scheduler, "j2", "A", 0);
+		assertThrows(ExportException.class, () -> submit(scheduler, "j3", "A", 0));
+
+		assertTrue(scheduler.cancel(j2.getId()));
+		assertEquals(ExportJob.Status.CANCELLED, j2.getStatus());
+		assertEquals(0, scheduler.getQueuedCount());
+		assertThrows(CancellationException.class, () -> j2.await());
+
+		assertTrue(j1.cancel());
+		release("j1");
+		assertThrows(CancellationException.class, () -> j1.await());
+		for (int i = 0; i < 100 && scheduler.getRunningCount() > 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(0, scheduler.getRunningCount());
+		assertEquals(ExportJob.Status.CANCELLED, j1.getStatus());
+
+		scheduler.shutdown();
+		assertThrows(ExportException.class, () -> submit(scheduler, "j4", "A", 0));
+	}
+
+	private ExportJob submit(ExportScheduler scheduler, String name, String user, int priority) {
+		return scheduler.job(EXPORTER, new ByteArrayOutputStream()).user(user).session(user + "-session")
+				.priority(priority).progressCallback(gate(name)).submit();
+	}
+
+	private OperationProgressCallback gate(String name) {
+		final CountDownLatch gate = gates.computeIfAbsent(name, n -> new CountDownLatch(1));
+		return (totalSteps, completedSteps) -> {
+			if (gate.getCount() > 0) {
+				started.add(name);
+				try {
+					gate.await(30, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return OperationProgress.PROCEED;
+		};
+	}
+
+	private void release(String name) {
+		gates.get(name).countDown();
+	}
+
+	private String next() throws InterruptedException {
+		return started.poll(30, TimeUnit.SECONDS);
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2019 Axioma srl.
+ * 
+ * Licensed under the Commercial Holon Platform Module License Version 1 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * https://docs.holon-platform.com/license/chpml_v1.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.holonplatform.artisan.vaadin.flow.export.test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import jakarta.annotation.Priority;
+
+import org.junit.jupiter.api.Test;
+
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProvider;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSPropertyValueContext;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.core.property.NumericProperty;
+import com.holonplatform.core.property.StringProperty;
+
+public class TestPropertyXLSValueProviderRegistry {
+
+	private static final NumericProperty<Integer> INTV = NumericProperty.integerType("intv");
+	private static final StringProperty TEXT = StringProperty.create("text");
+
+	private static final PropertyXLSValueProvider<Object> NUMBER_PROVIDER = (ctx, v) -> XLSValue.stringValue("n");
+	private static final PropertyXLSValueProvider<Object> TEXT_PROVIDER = (ctx, v) -> XLSValue.stringValue("t");
+
+	@Priority(10)
+	private static class HighPriorityProvider implements PropertyXLSValueProvider<Object> {
+
+		@Override
+		public XLSValue<?> provide(XLSPropertyValueContext<Object> context, Object value) {
+			return XLSValue.stringValue("h");
+		}
+
+	}
+
+	@Test
+	public void testTypeProviders() {
+
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(false);
+		assertFalse(registry.getProvider(INTV).isPresent());
+
+		registry.forPropertyType(Number.class, NUMBER_PROVIDER);
+		assertSame(NUMBER_PROVIDER, registry.getProvider(INTV).orElse(null));
+		assertFalse(registry.getProvider(TEXT).isPresent());
+
+		registry.forPropertyType(String.class, TEXT_PROVIDER);
+		assertSame(TEXT_PROVIDER, registry.getProvider(TEXT).orElse(null));
+		assertSame(NUMBER_PROVIDER, registry.getProvider(INTV).orElse(null));
+	}
+
+	@Test
+	public void testCacheInvalidation() {
+
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(false);
+		registry.forProperty(INTV, NUMBER_PROVIDER);
+		assertSame(NUMBER_PROVIDER, registry.getProvider(INTV).orElse(null));
+		assertSame(NUMBER_PROVIDER, registry.getProvider(INTV).orElse(null));
+
+		final HighPriorityProvider high = new HighPriorityProvider();
+		registry.register(p -> Integer.class == p.getType(), high);
+		assertSame(high, registry.getProvider(INTV).orElse(null));
+		assertFalse(registry.getProvider(TEXT).isPresent());
+	}
+
+}
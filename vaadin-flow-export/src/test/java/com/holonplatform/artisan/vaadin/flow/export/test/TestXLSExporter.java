@@ -15,34 +15,114 @@
  */
 package com.holonplatform.artisan.vaadin.flow.export.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.LittleEndian;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 
+import com.holonplatform.artisan.core.exceptions.InterruptedOperationException;
+import com.holonplatform.artisan.core.operation.OperationProgress;
+import com.holonplatform.artisan.core.operation.OperationProgressCallback;
+import com.holonplatform.artisan.vaadin.flow.export.AbortableProgressCallback;
 import com.holonplatform.artisan.vaadin.flow.export.BooleanExportMode;
+import com.holonplatform.artisan.vaadin.flow.export.ExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.ExportMetrics;
+import com.holonplatform.artisan.vaadin.flow.export.ExportPhase;
+import com.holonplatform.artisan.vaadin.flow.export.ExportResult;
+import com.holonplatform.artisan.vaadin.flow.export.SizeEstimationMode;
+import com.holonplatform.artisan.vaadin.flow.export.exceptions.ExportException;
+import com.holonplatform.artisan.vaadin.flow.export.metrics.MicrometerExportListener;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueBatchProvider;
 import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueProviderRegistry;
+import com.holonplatform.artisan.vaadin.flow.export.xls.PropertyXLSValueWriter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportEngine;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExportPlan;
 import com.holonplatform.artisan.vaadin.flow.export.xls.XLSExporter;
+import com.holonplatform.artisan.vaadin.flow.export.xls.XLSValue;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSCellConfiguration;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSEnginePolicy;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSFileVersion;
 import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSPropertyConfiguration;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSStreamingOptions;
+import com.holonplatform.artisan.vaadin.flow.export.xls.config.XLSTotalFunction;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.KeysetExportDataPager;
+import com.holonplatform.artisan.vaadin.flow.export.xls.internal.PrefetchExportPageSource;
+import com.holonplatform.core.datastore.DataTarget;
+import com.holonplatform.core.datastore.Datastore;
 import com.holonplatform.core.i18n.Caption;
 import com.holonplatform.core.i18n.LocalizationContext;
 import com.holonplatform.core.presentation.StringValuePresenter;
 import com.holonplatform.core.property.BooleanProperty;
 import com.holonplatform.core.property.NumericProperty;
 import com.holonplatform.core.property.PathProperty;
+import com.holonplatform.core.property.Property;
 import com.holonplatform.core.property.PropertyBox;
 import com.holonplatform.core.property.PropertySet;
 import com.holonplatform.core.property.StringProperty;
 import com.holonplatform.core.property.TemporalProperty;
 import com.holonplatform.core.temporal.TemporalType;
 import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
+import com.vaadin.flow.function.SerializablePredicate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public class TestXLSExporter {
 
@@ -108,6 +188,1111 @@ public class TestXLSExporter {
 		export(exporter, "test_xls_exporter_2");
 	}
 
+	@Test
+	public void testKeysetPagination() throws IOException {
+
+		// duplicate leading key values, so that each page boundary splits a group
+		final NumericProperty<Integer> grp = NumericProperty.integerType("grp");
+		final PropertySet<?> set = PropertySet.builderOf(grp, ID, TEXT).withIdentifier(ID).build();
+		final List<PropertyBox> items = new ArrayList<>();
+		for (long id : new long[] { 7, 3, 5, 1, 6, 2, 4 }) {
+			items.add(PropertyBox.builder(set).set(grp, (int) (id % 3)).set(ID, id).set(TEXT, "text" + id).build());
+		}
+		final Map<String, Property<?>> keys = new HashMap<>();
+		keys.put(grp.getName(), grp);
+		keys.put(ID.getName(), ID);
+		final List<Integer> fetches = new ArrayList<>();
+
+		// applies the query filter and sorts
+		final DataProvider<PropertyBox, SerializablePredicate<PropertyBox>> dataProvider = DataProvider
+				.fromFilteringCallbacks(query -> {
+					final Stream<PropertyBox> stream = items.stream()
+							.filter(item -> query.getFilter().map(f -> f.test(item)).orElse(true))
+							.sorted((item1, item2) -> {
+								for (QuerySortOrder sort : query.getSortOrders()) {
+									final Property<?> property = keys.get(sort.getSorted());
+									final int result = compare(item1.getValue(property), item2.getValue(property));
+									if (result != 0) {
+										return (sort.getDirection() == SortDirection.ASCENDING) ? result : -result;
+									}
+								}
+								return 0;
+							}).skip(query.getOffset()).limit(query.getLimit());
+					fetches.add(query.getOffset());
+					return stream;
+				}, query -> (int) items.stream()
+						.filter(item -> query.getFilter().map(f -> f.test(item)).orElse(true)).count());
+
+		final Function<PropertyBox, SerializablePredicate<PropertyBox>> seekFilter = KeysetExportDataPager
+				.<Property<?>, SerializablePredicate<PropertyBox>> seekFilter(Arrays.asList(grp, ID),
+						(key, value) -> item -> compare(item.getValue(key), value) > 0,
+						(key, value) -> item -> compare(item.getValue(key), value) == 0,
+						(f1, f2) -> item -> f1.test(item) && f2.test(item),
+						(f1, f2) -> item -> f1.test(item) || f2.test(item));
+
+		final XLSExporter exporter = XLSExporter.builder(dataProvider, set)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2)
+				.keysetPagination(Arrays.asList(grp, ID), seekFilter).build();
+
+		try (Workbook workbook = exportAndRead(exporter)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(7, sheet.getLastRowNum());
+			// ordered by grp, then by id
+			final long[] expected = new long[] { 3, 6, 1, 4, 7, 2, 5 };
+			for (int i = 1; i <= 7; i++) {
+				assertEquals(expected[i - 1] % 3, (long) sheet.getRow(i).getCell(0).getNumericCellValue());
+				assertEquals(expected[i - 1], (long) sheet.getRow(i).getCell(1).getNumericCellValue());
+			}
+		}
+		// the data source never skips the already fetched rows
+		assertFalse(fetches.isEmpty());
+		assertTrue(fetches.stream().allMatch(offset -> offset == 0));
+
+		// ignores the query filter and sorts: the same page would be fetched endlessly
+		final DataProvider<PropertyBox, SerializablePredicate<PropertyBox>> ignoring = DataProvider
+				.fromFilteringCallbacks(query -> items.stream().skip(query.getOffset()).limit(query.getLimit()),
+						query -> items.size());
+		final XLSExporter ignoringExporter = XLSExporter.builder(ignoring, set)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2)
+				.keysetPagination(Arrays.asList(grp, ID), seekFilter).build();
+		assertTimeoutPreemptively(Duration.ofSeconds(30),
+				() -> assertThrows(ExportException.class, () -> ignoringExporter.export(new ByteArrayOutputStream())));
+
+		// key values must be not null
+		assertThrows(ExportException.class, () -> KeysetExportDataPager.querySeekFilter(Arrays.asList(grp, ID))
+				.apply(PropertyBox.builder(set).set(ID, 4L).build()));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compare(Object value1, Object value2) {
+		return ((Comparable) value1).compareTo(value2);
+	}
+
+	@Test
+	public void testBatchSize() throws IOException {
+
+		XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+		}
+
+		exporter = XLSExporter.builder(DATASOURCE, SET).registry(PropertyXLSValueProviderRegistry.create(true))
+				.adaptiveBatchSize(1, 3).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+		}
+	}
+
+	@Test
+	public void testPrefetch() throws IOException {
+
+		XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2).prefetch(1).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(5, sheet.getLastRowNum());
+			for (int i = 1; i <= 5; i++) {
+				assertEquals(i, (long) sheet.getRow(i).getCell(0).getNumericCellValue());
+			}
+		}
+
+		final XLSExporter aborting = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(1).prefetch(2).build();
+		assertThrows(ExportException.class, () -> aborting.export(new ByteArrayOutputStream(),
+				(total, completed) -> (completed > 4) ? OperationProgress.ABORT : OperationProgress.PROCEED));
+
+		// errors thrown by the producer thread must reach the consumer
+		final XLSExporter failing = XLSExporter.builder(DataProvider.<PropertyBox, Void>fromCallbacks(q -> {
+			throw new StackOverflowError("test");
+		}, q -> 5), SET).registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2).prefetch(1).build();
+		assertTimeoutPreemptively(Duration.ofSeconds(10),
+				() -> assertThrows(StackOverflowError.class, () -> failing.export(new ByteArrayOutputStream())));
+
+		// the producer thread interruption must reach the consumer
+		final List<PropertyBox> page = Collections.singletonList(DATASOURCE.fetch(new Query<>()).findFirst().get());
+		final AtomicReference<Thread> producer = new AtomicReference<>();
+		try (PrefetchExportPageSource source = new PrefetchExportPageSource(() -> page, 1, runnable -> {
+			final Thread thread = PrefetchExportPageSource.DEFAULT_THREAD_FACTORY.newThread(runnable);
+			producer.set(thread);
+			return thread;
+		})) {
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				// wait for the producer to be blocked on the full queue
+				while (producer.get().getState() != Thread.State.WAITING) {
+					Thread.sleep(10);
+				}
+				producer.get().interrupt();
+				assertThrows(InterruptedOperationException.class, () -> {
+					while (true) {
+						source.nextPage();
+					}
+				});
+			});
+		}
+	}
+
+	@Test
+	public void testProgressThrottling() throws IOException {
+
+		final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).progressThrottling(60000L, 50).build();
+
+		final List<Integer> steps = new ArrayList<>();
+		final int[] totalSteps = new int[1];
+		exporter.export(new ByteArrayOutputStream(), (total, completed) -> {
+			totalSteps[0] = total;
+			steps.add(completed);
+			return OperationProgress.PROCEED;
+		});
+		assertEquals(3, steps.size());
+		assertEquals(0, steps.get(0).intValue());
+		assertEquals(totalSteps[0], steps.get(2).intValue());
+
+		final AtomicLong notifications = new AtomicLong();
+		assertThrows(ExportException.class, () -> exporter.export(new ByteArrayOutputStream(), (total, completed) -> {
+			notifications.incrementAndGet();
+			return (completed > 0) ? OperationProgress.ABORT : OperationProgress.PROCEED;
+		}));
+		assertEquals(2, notifications.get());
+
+		assertThrows(IllegalArgumentException.class,
+				() -> XLSExporter.builder(DATASOURCE, SET).progressThrottling(-1L, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> XLSExporter.builder(DATASOURCE, SET).progressThrottling(0L, 101));
+	}
+
+	@Test
+	public void testAbortThrottledProgress() throws Exception {
+
+		final List<PropertyBox> items = DATASOURCE.fetch(new Query<>()).collect(Collectors.toList());
+
+		// abort check, with an indeterminate progress and a long notification interval
+		final AtomicBoolean abort = new AtomicBoolean(false);
+		final AtomicInteger fetches = new AtomicInteger();
+		final DataProvider<PropertyBox, Void> aborting = DataProvider.fromCallbacks(q -> {
+			fetches.incrementAndGet();
+			if (q.getOffset() >= 2) {
+				abort.set(true);
+			}
+			return items.stream().skip(q.getOffset()).limit(q.getLimit());
+		}, q -> items.size());
+
+		final XLSExporter exporter = XLSExporter.builder(aborting, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).sizeEstimation(SizeEstimationMode.NONE)
+				.batchSize(2).progressThrottling(60000L, 0).build();
+
+		final AtomicInteger notifications = new AtomicInteger();
+		assertThrows(ExportException.class, () -> exporter.export(new ByteArrayOutputStream(),
+				AbortableProgressCallback.create((total, completed) -> {
+					notifications.incrementAndGet();
+					return OperationProgress.PROCEED;
+				}, abort::get)));
+		assertEquals(1, notifications.get());
+		assertEquals(2, fetches.get());
+
+		// async cancellation, with an indeterminate progress and a long notification interval
+		final AtomicReference<CompletableFuture<ExportResult>> future = new AtomicReference<>();
+		final CountDownLatch submitted = new CountDownLatch(1);
+		final DataProvider<PropertyBox, Void> cancelling = DataProvider.fromCallbacks(q -> {
+			if (q.getOffset() >= 2) {
+				awaitQuietly(submitted::await);
+				future.get().cancel(true);
+			}
+			return items.stream().skip(q.getOffset()).limit(q.getLimit());
+		}, q -> items.size());
+
+		final CountDownLatch failed = new CountDownLatch(1);
+		final XLSExporter asyncExporter = XLSExporter.builder(cancelling, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).sizeEstimation(SizeEstimationMode.NONE)
+				.batchSize(2).progressThrottling(60000L, 0).listener(new ExportListener() {
+
+					@Override
+					public void onFailed(Throwable error, ExportMetrics metrics) {
+						failed.countDown();
+					}
+
+				}).build();
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			future.set(asyncExporter.exportAsync(new ByteArrayOutputStream(), executor));
+			submitted.countDown();
+			assertTrue(failed.await(30, TimeUnit.SECONDS));
+			assertTrue(future.get().isCancelled());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSizeEstimation() throws IOException {
+
+		final List<int[]> steps = new ArrayList<>();
+		final OperationProgressCallback callback = (total, completed) -> {
+			steps.add(new int[] { total, completed });
+			return OperationProgress.PROCEED;
+		};
+
+		XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).sizeEstimation(SizeEstimationMode.NONE)
+				.build();
+		exporter.export(new ByteArrayOutputStream(), callback);
+		for (int i = 0; i < steps.size() - 1; i++) {
+			assertEquals(0, steps.get(i)[0]);
+		}
+		assertEquals(8, steps.get(steps.size() - 2)[1]);
+		assertEquals(1, steps.get(steps.size() - 1)[0]);
+		assertEquals(1, steps.get(steps.size() - 1)[1]);
+
+		steps.clear();
+		exporter = XLSExporter.builder(DATASOURCE, SET).registry(PropertyXLSValueProviderRegistry.create(true))
+				.estimatedSize(() -> 100).build();
+		exporter.export(new ByteArrayOutputStream(), callback);
+		assertEquals(104, steps.get(0)[0]);
+		assertEquals(104, steps.get(steps.size() - 1)[1]);
+
+		steps.clear();
+		exporter = XLSExporter.builder(DATASOURCE, SET).registry(PropertyXLSValueProviderRegistry.create(true))
+				.sizeEstimation(SizeEstimationMode.CONCURRENT_COUNT).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+		}
+		exporter.export(new ByteArrayOutputStream(), callback);
+		final int[] last = steps.get(steps.size() - 1);
+		assertEquals(last[0], last[1]);
+
+		// indeterminate progress is throttled using the interval only
+		steps.clear();
+		exporter = XLSExporter.builder(DATASOURCE, SET).registry(PropertyXLSValueProviderRegistry.create(true))
+				.sizeEstimation(SizeEstimationMode.NONE).progressThrottling(60000L, 50).build();
+		exporter.export(new ByteArrayOutputStream(), callback);
+		assertEquals(2, steps.size());
+		assertEquals(0, steps.get(0)[0]);
+		assertEquals(1, steps.get(1)[0]);
+		assertEquals(1, steps.get(1)[1]);
+
+		// concurrent count: the progress switches from indeterminate to determinate when the count is available
+		final List<PropertyBox> items = DATASOURCE.fetch(new Query<>()).collect(Collectors.toList());
+		final CountDownLatch counting = new CountDownLatch(1);
+		final CountDownLatch fetched = new CountDownLatch(1);
+		final Thread[] countThread = new Thread[1];
+		final DataProvider<PropertyBox, Void> slowCount = DataProvider.fromCallbacks(q -> {
+			if (q.getOffset() >= 4) {
+				// wait for the count completion before fetching the last page
+				awaitQuietly(() -> {
+					counting.await();
+					countThread[0].join();
+				});
+			}
+			fetched.countDown();
+			return items.stream().skip(q.getOffset()).limit(q.getLimit());
+		}, q -> {
+			countThread[0] = Thread.currentThread();
+			counting.countDown();
+			awaitQuietly(fetched::await);
+			return items.size();
+		});
+		steps.clear();
+		exporter = XLSExporter.builder(slowCount, SET).registry(PropertyXLSValueProviderRegistry.create(true))
+				.sizeEstimation(SizeEstimationMode.CONCURRENT_COUNT).batchSize(2).progressThrottling(60000L, 50)
+				.build();
+		exporter.export(new ByteArrayOutputStream(), callback);
+		assertEquals(0, steps.get(0)[0]);
+		assertTrue(steps.stream().anyMatch(step -> step[0] == 9 && step[1] < 9));
+		assertEquals(9, steps.get(steps.size() - 1)[0]);
+		assertEquals(9, steps.get(steps.size() - 1)[1]);
+	}
+
+	@Test
+	public void testDatastoreSource() throws IOException {
+
+		final List<PropertyBox> items = DATASOURCE.fetch(new Query<>()).collect(Collectors.toList());
+		final AtomicInteger queries = new AtomicInteger();
+		final AtomicInteger closed = new AtomicInteger();
+		final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+		final com.holonplatform.core.query.Query query = (com.holonplatform.core.query.Query) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] { com.holonplatform.core.query.Query.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "count":
+						return Long.valueOf(items.size());
+					case "stream":
+						queries.incrementAndGet();
+						threads.add(Thread.currentThread());
+						return items.stream().onClose(() -> {
+							closed.incrementAndGet();
+							threads.add(Thread.currentThread());
+						});
+					default:
+						return proxy;
+					}
+				});
+		final Datastore datastore = (Datastore) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Datastore.class }, (proxy, method, args) -> query);
+
+		final XLSExporter exporter = XLSExporter
+				.builder(datastore, DataTarget.named("test"), ID.gt(0L), ID.asc(), SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(5, sheet.getLastRowNum());
+			for (int i = 1; i <= 5; i++) {
+				assertEquals(i, (long) sheet.getRow(i).getCell(0).getNumericCellValue());
+			}
+		}
+		assertEquals(1, queries.get());
+		assertEquals(1, closed.get());
+
+		// with prefetch, the results cursor is opened and closed by the producer thread
+		queries.set(0);
+		closed.set(0);
+		threads.clear();
+		final XLSExporter prefetching = XLSExporter.builder(datastore, DataTarget.named("test"), SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2).prefetch(1).build();
+		try (Workbook workbook = exportAndRead(prefetching)) {
+			assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+		}
+		assertEquals(1, queries.get());
+		assertEquals(1, closed.get());
+		assertEquals(2, threads.size());
+		assertNotEquals(Thread.currentThread(), threads.get(0));
+		assertSame(threads.get(0), threads.get(1));
+	}
+
+	@Test
+	public void testExportAsync() throws Exception {
+
+		final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).build();
+		final XLSExporter streaming = XLSExporter.builder(DATASOURCE, SET)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).engine(XLSExportEngine.streaming()).build();
+
+		for (XLSExporter e : new XLSExporter[] { exporter, streaming }) {
+			final ByteArrayOutputStream os = new ByteArrayOutputStream();
+			final ExportResult result = e.exportAsync(os).get(30, TimeUnit.SECONDS);
+			assertEquals(5, result.getRows());
+			assertEquals(os.size(), result.getBytes());
+			assertFalse(result.getElapsedTime().isNegative());
+			try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(os.toByteArray()))) {
+				assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+			}
+		}
+
+		// cancellation
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final CountDownLatch started = new CountDownLatch(1);
+			final CountDownLatch cancelled = new CountDownLatch(1);
+			final AtomicInteger calls = new AtomicInteger();
+			final CompletableFuture<ExportResult> future = exporter.exportAsync(new ByteArrayOutputStream(),
+					(total, completed) -> {
+						calls.incrementAndGet();
+						started.countDown();
+						try {
+							cancelled.await(30, TimeUnit.SECONDS);
+						} catch (InterruptedException ie) {
+							Thread.currentThread().interrupt();
+						}
+						return OperationProgress.PROCEED;
+					}, executor);
+			assertTrue(started.await(30, TimeUnit.SECONDS));
+			assertTrue(future.cancel(true));
+			cancelled.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+			assertTrue(future.isCancelled());
+			assertEquals(1, calls.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testExportPlan() throws IOException {
+
+		XLSConfiguration configuration = XLSConfiguration.builder().withTotalProperty(DBLV).build();
+		XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).build();
+
+		final XLSExportPlan plan = exporter.getExportPlan();
+		assertNotNull(plan);
+		assertSame(configuration, plan.getConfiguration());
+		assertEquals(12, plan.getProperties().size());
+		assertSame(plan, exporter.getExportPlan());
+
+		try (Workbook workbook = exportAndRead(exporter)) {
+			assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+		}
+		assertSame(plan, exporter.getExportPlan());
+
+		final XLSExporter shared = XLSExporter.builder(DATASOURCE, SET).exportPlan(plan).build();
+		assertSame(plan, shared.getExportPlan());
+		try (Workbook workbook = exportAndRead(shared)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(6, sheet.getLastRowNum());
+			assertEquals("SUM(D2:D6)", sheet.getRow(6).getCell(3).getCellFormula());
+		}
+	}
+
+	@Test
+	public void testValueWriter() throws IOException {
+
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(true);
+		registry.forProperty(DBLV, (PropertyXLSValueWriter<Double>) (ctx, v, sink) -> {
+			if (v == null) {
+				sink.writeBlank();
+			} else {
+				sink.setDataFormat("0.000");
+				sink.writeNumber(v * 2);
+			}
+		});
+		registry.forProperty(TEXT, (PropertyXLSValueWriter<String>) (ctx, v, sink) -> sink.writeString(
+				ctx.getRow().getValue(ID) + ":" + v));
+
+		XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).registry(registry).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(5, sheet.getLastRowNum());
+			assertEquals(246913.56d, sheet.getRow(1).getCell(3).getNumericCellValue(), 0.001d);
+			assertEquals("0.000", sheet.getRow(1).getCell(3).getCellStyle().getDataFormatString());
+			assertEquals(CellType.BLANK, sheet.getRow(4).getCell(3).getCellType());
+			assertEquals("1:text1", sheet.getRow(1).getCell(1).getStringCellValue());
+			assertEquals(123, (int) sheet.getRow(1).getCell(2).getNumericCellValue());
+			assertTrue(DateUtil.isCellDateFormatted(sheet.getRow(1).getCell(7)));
+			assertTrue(sheet.getRow(1).getCell(5).getBooleanCellValue());
+		}
+	}
+
+	@Test
+	public void testBatchValueProvider() throws IOException {
+
+		final AtomicInteger batches = new AtomicInteger();
+		final PropertyXLSValueProviderRegistry registry = PropertyXLSValueProviderRegistry.create(true);
+		registry.forProperty(TEXT, (PropertyXLSValueBatchProvider<String>) (ctx, rows, values, output) -> {
+			batches.incrementAndGet();
+			assertEquals(rows.size(), values.size());
+			for (int i = 0; i < values.size(); i++) {
+				if (values.get(i) != null) {
+					output[i] = XLSValue.stringValue(rows.get(i).getValue(ID) + ":" + values.get(i));
+				}
+			}
+		});
+
+		final XLSExporter workbookExporter = XLSExporter.builder(DATASOURCE, SET).registry(registry).batchSize(2)
+				.build();
+		final XLSExporter streamingExporter = XLSExporter.builder(DATASOURCE, SET).registry(registry).batchSize(2)
+				.engine(XLSExportEngine.streaming()).build();
+
+		for (XLSExporter exporter : new XLSExporter[] { workbookExporter, streamingExporter }) {
+			batches.set(0);
+			try (Workbook workbook = exportAndRead(exporter)) {
+				final Sheet sheet = workbook.getSheetAt(0);
+				assertEquals(5, sheet.getLastRowNum());
+				assertEquals("1:text1", sheet.getRow(1).getCell(1).getStringCellValue());
+				assertEquals(CellType.BLANK, sheet.getRow(2).getCell(1).getCellType());
+				assertEquals("5:text5", sheet.getRow(5).getCell(1).getStringCellValue());
+			}
+			// one invocation for each data page
+			assertEquals(3, batches.get());
+		}
+	}
+
+	@Test
+	public void testStreamingEngine() throws IOException {
+
+		final XLSConfiguration configuration = XLSConfiguration.builder().title("Streaming & test")
+				.withTotalProperty(DBLV)
+				.propertyConfiguration(DBLV, XLSPropertyConfiguration.builder().numberDecimals(3).build()).build();
+		final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).engine(XLSExportEngine.streaming()).build();
+
+		try (Workbook workbook = exportAndRead(exporter)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(7, sheet.getLastRowNum());
+			assertEquals("Streaming & test", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("The ID", sheet.getRow(1).getCell(0).getStringCellValue());
+			for (int i = 1; i <= 5; i++) {
+				assertEquals(i, (long) sheet.getRow(i + 1).getCell(0).getNumericCellValue());
+			}
+			assertEquals("text1", sheet.getRow(2).getCell(1).getStringCellValue());
+			assertEquals(123456.78d, sheet.getRow(2).getCell(3).getNumericCellValue(), 0.0001d);
+			assertEquals("0.000", sheet.getRow(2).getCell(3).getCellStyle().getDataFormatString());
+			assertTrue(sheet.getRow(2).getCell(5).getBooleanCellValue());
+			assertTrue(DateUtil.isCellDateFormatted(sheet.getRow(2).getCell(7)));
+			assertEquals(LocalDate.now(), sheet.getRow(3).getCell(9).getLocalDateTimeCellValue().toLocalDate());
+			assertEquals(CellType.BLANK, sheet.getRow(4).getCell(2).getCellType());
+			assertEquals("SUM(D3:D7)", sheet.getRow(7).getCell(3).getCellFormula());
+		}
+
+		final XLSExporter unsupported = XLSExporter.builder(DATASOURCE, SET)
+				.configuration(XLSConfiguration.builder().fileVersion(XLSFileVersion.XLS).build())
+				.engine(XLSExportEngine.streaming()).build();
+		assertThrows(ExportException.class, () -> unsupported.export(new ByteArrayOutputStream()));
+	}
+
+	@Test
+	public void testStreamingXLSEngine() throws IOException {
+
+		final Path tempDirectory = Files.createTempDirectory("xls_streaming");
+		final XLSConfiguration configuration = XLSConfiguration.builder().fileVersion(XLSFileVersion.XLS)
+				.title("Streaming & test").withTotalProperty(DBLV)
+				.propertyConfiguration(DBLV, XLSPropertyConfiguration.builder().numberDecimals(3).build())
+				.streamingOptions(XLSStreamingOptions.builder().tempDirectory(tempDirectory.toFile()).build()).build();
+		final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(PropertyXLSValueProviderRegistry.create(true))
+				.engine(XLSExportEngine.streaming(XLSFileVersion.XLS)).build();
+
+		try (Workbook workbook = exportAndRead(exporter)) {
+			assertTrue(workbook instanceof HSSFWorkbook);
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(7, sheet.getLastRowNum());
+			assertEquals("Streaming & test", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("The ID", sheet.getRow(1).getCell(0).getStringCellValue());
+			for (int i = 1; i <= 5; i++) {
+				assertEquals(i, (long) sheet.getRow(i + 1).getCell(0).getNumericCellValue());
+			}
+			assertEquals("text1", sheet.getRow(2).getCell(1).getStringCellValue());
+			assertEquals(123456.78d, sheet.getRow(2).getCell(3).getNumericCellValue(), 0.0001d);
+			assertEquals("0.000", sheet.getRow(2).getCell(3).getCellStyle().getDataFormatString());
+			assertTrue(sheet.getRow(2).getCell(5).getBooleanCellValue());
+			assertTrue(DateUtil.isCellDateFormatted(sheet.getRow(2).getCell(7)));
+			assertEquals(LocalDate.now(), sheet.getRow(3).getCell(9).getLocalDateTimeCellValue().toLocalDate());
+			assertEquals(CellType.BLANK, sheet.getRow(4).getCell(2).getCellType());
+			assertEquals("SUM(D3:D7)", sheet.getRow(7).getCell(3).getCellFormula());
+		}
+		try (Stream<Path> files = Files.list(tempDirectory)) {
+			assertEquals(0, files.count());
+		}
+
+		// engine policy
+		final XLSEnginePolicy refuse = XLSEnginePolicy.builder().action(XLSEnginePolicy.Action.REFUSE)
+				.heapBudget(1000L).build();
+		final XLSExporter refused = XLSExporter.builder(DATASOURCE, SET)
+				.configuration(XLSConfiguration.builder().fileVersion(XLSFileVersion.XLS).enginePolicy(refuse).build())
+				.estimatedSize(() -> 100).build();
+		assertThrows(ExportException.class, () -> refused.export(new ByteArrayOutputStream()));
+
+		final XLSExporter unknownSize = XLSExporter.builder(DATASOURCE, SET)
+				.configuration(XLSConfiguration.builder().fileVersion(XLSFileVersion.XLS).enginePolicy(refuse).build())
+				.sizeEstimation(SizeEstimationMode.NONE).build();
+		try (Workbook workbook = exportAndRead(unknownSize)) {
+			assertTrue(workbook instanceof HSSFWorkbook);
+		}
+
+		for (XLSEnginePolicy.Action action : new XLSEnginePolicy.Action[] { XLSEnginePolicy.Action.WARN,
+				XLSEnginePolicy.Action.STREAM, XLSEnginePolicy.Action.SWITCH_TO_XLSX }) {
+			final AtomicReference<XLSFileVersion> fileVersion = new AtomicReference<>();
+			final XLSExporter policyExporter = XLSExporter.builder(DATASOURCE, SET)
+					.configuration(XLSConfiguration.builder().fileVersion(XLSFileVersion.XLS)
+							.enginePolicy(XLSEnginePolicy.builder().action(action).heapBudget(1000L).build()).build())
+					.estimatedSize(() -> 100).fileVersionListener(fileVersion::set).build();
+			try (Workbook workbook = exportAndRead(policyExporter)) {
+				if (action == XLSEnginePolicy.Action.SWITCH_TO_XLSX) {
+					assertTrue(workbook instanceof XSSFWorkbook);
+					assertEquals(XLSFileVersion.XLSX, fileVersion.get());
+				} else {
+					assertTrue(workbook instanceof HSSFWorkbook);
+					assertEquals(XLSFileVersion.XLS, fileVersion.get());
+				}
+				assertEquals(5, workbook.getSheetAt(0).getLastRowNum());
+				assertEquals("text5", workbook.getSheetAt(0).getRow(5).getCell(1).getStringCellValue());
+			}
+		}
+
+		assertEquals(XLSEnginePolicy.Action.NONE, XLSConfiguration.builder().build().getEnginePolicy().getAction());
+		assertThrows(IllegalArgumentException.class, () -> XLSEnginePolicy.builder().heapBudget(0L));
+		assertThrows(IllegalArgumentException.class, () -> XLSEnginePolicy.builder().bytesPerCell(0));
+	}
+
+	@Test
+	public void testStreamingXLSEngineRecords() throws IOException {
+
+		final PropertySet<?> set = PropertySet.builderOf(ID, TEXT).withIdentifier(ID).build();
+		final List<PropertyBox> items = new ArrayList<>();
+		for (long i = 1; i <= 2500; i++) {
+			items.add(PropertyBox.builder(set).set(ID, i).set(TEXT, streamingText(i)).build());
+		}
+
+		for (boolean deduplicate : new boolean[] { true, false }) {
+			final XLSConfiguration configuration = XLSConfiguration.builder().fileVersion(XLSFileVersion.XLS)
+					.maxRowsPerSheet(1000)
+					.streamingOptions(XLSStreamingOptions.builder().useSharedStringsTable(deduplicate).build())
+					.build();
+			final XLSExporter exporter = XLSExporter.builder(DataProvider.ofCollection(items), set)
+					.configuration(configuration).engine(XLSExportEngine.streaming(XLSFileVersion.XLS)).build();
+			final ByteArrayOutputStream os = new ByteArrayOutputStream();
+			exporter.export(os);
+
+			// BIFF records of the workbook stream
+			final byte[] stream;
+			try (POIFSFileSystem fs = new POIFSFileSystem(new ByteArrayInputStream(os.toByteArray()));
+					InputStream is = fs.createDocumentInputStream("Workbook")) {
+				stream = IOUtils.toByteArray(is);
+			}
+			int dbCells = 0;
+			int continues = 0;
+			int bucketSize = -1;
+			int position = 0;
+			while (position < stream.length) {
+				final int sid = LittleEndian.getUShort(stream, position);
+				final int size = LittleEndian.getUShort(stream, position + 2);
+				if (sid == 0x00D7) {
+					dbCells++;
+				} else if (sid == 0x003C) {
+					continues++;
+				} else if (sid == 0x00FF) {
+					bucketSize = LittleEndian.getUShort(stream, position + 4);
+				}
+				position += 4 + size;
+			}
+			// 1001, 1001 and 501 rows, in blocks of 32 rows
+			assertEquals(32 + 32 + 16, dbCells);
+			assertTrue(continues > 0);
+			// more than 256 buckets of 8 strings
+			assertEquals(16, bucketSize);
+
+			try (Workbook workbook = new HSSFWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+				assertEquals(3, workbook.getNumberOfSheets());
+				long id = 1;
+				for (int s = 0; s < 3; s++) {
+					final Sheet sheet = workbook.getSheetAt(s);
+					assertEquals("text", sheet.getRow(0).getCell(1).getStringCellValue());
+					assertEquals((s < 2) ? 1000 : 500, sheet.getLastRowNum());
+					for (int i = 1; i <= sheet.getLastRowNum(); i++, id++) {
+						assertEquals(id, (long) sheet.getRow(i).getCell(0).getNumericCellValue());
+						final String expected = streamingText(id);
+						assertEquals(expected.substring(0, Math.min(expected.length(), 32767)),
+								sheet.getRow(i).getCell(1).getStringCellValue());
+					}
+				}
+				assertEquals(32767, workbook.getSheetAt(2).getRow(500).getCell(1).getStringCellValue().length());
+			}
+		}
+	}
+
+
+	@Test
+	public void testAutoWidth() throws IOException {
+
+		for (XLSFileVersion version : XLSFileVersion.values()) {
+			final XLSConfiguration configuration = XLSConfiguration.builder().fileVersion(version).autoWidth(true)
+					.autoWidthSampleRows(3)
+					.propertyConfiguration(TEXT, XLSPropertyConfiguration.builder().autoWidth(false).build())
+					.propertyConfiguration(DBLV, XLSPropertyConfiguration.builder().numberDecimals(3).build()).build();
+			assertTrue(configuration.cloneConfiguration().build().isAutoWidth());
+			final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration).build();
+			final XLSExporter streaming = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+					.engine(XLSExportEngine.streaming(version)).build();
+
+			int idWidth = -1;
+			for (XLSExporter e : new XLSExporter[] { exporter, streaming }) {
+				try (Workbook workbook = exportAndRead(e)) {
+					final Sheet sheet = workbook.getSheetAt(0);
+					// not an auto-width column
+					assertEquals(8 * 256, sheet.getColumnWidth(1));
+					// "The ID" bold header
+					assertTrue(sheet.getColumnWidth(0) > 4 * 256);
+					assertTrue(sheet.getColumnWidth(0) < 8 * 256);
+					// "123,456.780"
+					assertTrue(sheet.getColumnWidth(3) > 10 * 256);
+					if (idWidth < 0) {
+						idWidth = sheet.getColumnWidth(0);
+					} else {
+						assertEquals(idWidth, sheet.getColumnWidth(0));
+					}
+				}
+			}
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> XLSConfiguration.builder().autoWidthSampleRows(-1));
+	}
+	@Test
+	public void testStreamingOptions() throws IOException {
+
+		final Path tempDirectory = Files.createTempDirectory("xls_streaming");
+		final XLSConfiguration configuration = XLSConfiguration.builder()
+				.streamingOptions(XLSStreamingOptions.builder().rowAccessWindowSize(2).compressTempFiles(true)
+						.tempDirectory(tempDirectory.toFile()).useSharedStringsTable(true).compressionLevel(1).build())
+				.build();
+
+		final AtomicLong tempBytes = new AtomicLong(-1);
+		final XLSExporter exporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).tempBytesListener(tempBytes::set).build();
+		try (Workbook workbook = exportAndRead(exporter)) {
+			final Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(5, sheet.getLastRowNum());
+			assertEquals("text5", sheet.getRow(5).getCell(1).getStringCellValue());
+		}
+		assertTrue(tempBytes.get() > 0);
+		try (Stream<Path> files = Files.list(tempDirectory)) {
+			assertEquals(0, files.count());
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> XLSStreamingOptions.builder().rowAccessWindowSize(0));
+		assertThrows(IllegalArgumentException.class, () -> XLSStreamingOptions.builder().compressionLevel(10));
+	}
+
+	@Test
+	public void testTotalFunctions() throws IOException {
+
+		final XLSConfiguration configuration = XLSConfiguration.builder()
+				.withTotalProperty(ID, XLSTotalFunction.COUNT).withTotalProperty(INTV, XLSTotalFunction.AVERAGE)
+				.withTotalProperty(DBLV).build();
+		for (boolean streaming : new boolean[] { false, true }) {
+			final XLSExporter.Builder builder = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+					.registry(PropertyXLSValueProviderRegistry.create(true));
+			if (streaming) {
+				builder.engine(XLSExportEngine.streaming());
+			}
+			try (Workbook workbook = exportAndRead(builder.build())) {
+				final Row total = workbook.getSheetAt(0).getRow(6);
+				assertEquals("COUNT(A2:A6)", total.getCell(0).getCellFormula());
+				assertEquals(5d, total.getCell(0).getNumericCellValue(), 0d);
+				assertEquals("AVERAGE(C2:C6)", total.getCell(2).getCellFormula());
+				assertEquals(30956.25d, total.getCell(2).getNumericCellValue(), 0.000001d);
+				assertEquals("SUM(D2:D6)", total.getCell(3).getCellFormula());
+				assertEquals(493827.12567d, total.getCell(3).getNumericCellValue(), 0.000001d);
+			}
+		}
+
+		final XLSConfiguration literals = XLSConfiguration.builder().withTotalProperty(ID, XLSTotalFunction.MAX)
+				.withTotalProperty(INTV, XLSTotalFunction.MIN).totalFormulas(false).build();
+		for (boolean streaming : new boolean[] { false, true }) {
+			final XLSExporter.Builder builder = XLSExporter.builder(DATASOURCE, SET).configuration(literals)
+					.registry(PropertyXLSValueProviderRegistry.create(true));
+			if (streaming) {
+				builder.engine(XLSExportEngine.streaming());
+			}
+			try (Workbook workbook = exportAndRead(builder.build())) {
+				final Row total = workbook.getSheetAt(0).getRow(6);
+				assertEquals(CellType.NUMERIC, total.getCell(0).getCellType());
+				assertEquals(5d, total.getCell(0).getNumericCellValue(), 0d);
+				assertEquals(CellType.NUMERIC, total.getCell(2).getCellType());
+				assertEquals(123d, total.getCell(2).getNumericCellValue(), 0d);
+			}
+		}
+	}
+
+	@Test
+	public void testExactTotals() throws IOException {
+
+		// values which are not exactly representable as double
+		final NumericProperty<Long> lng = NumericProperty.longType("lng");
+		final NumericProperty<BigDecimal> dec = NumericProperty.create("dec", BigDecimal.class);
+		final PropertySet<?> set = PropertySet.of(lng, dec);
+		final List<PropertyBox> items = Arrays.asList(
+				PropertyBox.builder(set).set(lng, 9007199254740993L).set(dec, new BigDecimal("100000000000000001"))
+						.build(),
+				PropertyBox.builder(set).set(lng, -9007199254740992L).set(dec, new BigDecimal("-100000000000000000"))
+						.build());
+
+		final XLSConfiguration configuration = XLSConfiguration.builder().withTotalProperty(lng)
+				.withTotalProperty(dec).totalFormulas(false).build();
+		for (boolean streaming : new boolean[] { false, true }) {
+			final XLSExporter.Builder builder = XLSExporter.builder(DataProvider.ofCollection(items), set)
+					.configuration(configuration);
+			if (streaming) {
+				builder.engine(XLSExportEngine.streaming());
+			}
+			try (Workbook workbook = exportAndRead(builder.build())) {
+				final Row total = workbook.getSheetAt(0).getRow(3);
+				assertEquals(1d, total.getCell(0).getNumericCellValue(), 0d);
+				assertEquals(1d, total.getCell(1).getNumericCellValue(), 0d);
+			}
+		}
+	}
+
+	@Test
+	public void testGroupSubtotals() throws IOException {
+
+		final List<PropertyBox> items = new ArrayList<>();
+		items.add(PropertyBox.builder(SET).set(ID, 1L).set(TEXT, "a").set(INTV, 1).set(DBLV, 1d).build());
+		items.add(PropertyBox.builder(SET).set(ID, 2L).set(TEXT, "a").set(INTV, 1).set(DBLV, 2d).build());
+		items.add(PropertyBox.builder(SET).set(ID, 3L).set(TEXT, "a").set(INTV, 2).set(DBLV, 4d).build());
+		items.add(PropertyBox.builder(SET).set(ID, 4L).set(TEXT, "b").set(INTV, 1).set(DBLV, 8d).build());
+
+		final XLSConfiguration xlsx = XLSConfiguration.builder().withGroupByProperty(TEXT).withGroupByProperty(INTV)
+				.withTotalProperty(DBLV).build();
+		final XLSConfiguration xls = xlsx.cloneConfiguration().fileVersion(XLSFileVersion.XLS).build();
+		assertEquals(2, xls.getGroupByProperties().size());
+
+		final List<XLSExporter> exporters = new ArrayList<>();
+		exporters.add(XLSExporter.builder(DataProvider.ofCollection(items), SET).configuration(xlsx).build());
+		exporters.add(XLSExporter.builder(DataProvider.ofCollection(items), SET).configuration(xls).build());
+		exporters.add(XLSExporter.builder(DataProvider.ofCollection(items), SET).configuration(xlsx)
+				.engine(XLSExportEngine.streaming()).build());
+		exporters.add(XLSExporter.builder(DataProvider.ofCollection(items), SET).configuration(xls)
+				.engine(XLSExportEngine.streaming(XLSFileVersion.XLS)).build());
+
+		for (XLSExporter exporter : exporters) {
+			try (Workbook workbook = exportAndRead(exporter)) {
+				final Sheet sheet = workbook.getSheetAt(0);
+				assertEquals(10, sheet.getLastRowNum());
+				// data rows
+				for (int r : new int[] { 1, 2, 4, 7 }) {
+					assertEquals(2, sheet.getRow(r).getOutlineLevel());
+				}
+				assertEquals(1L, (long) sheet.getRow(1).getCell(0).getNumericCellValue());
+				assertEquals(4L, (long) sheet.getRow(7).getCell(0).getNumericCellValue());
+				// subtotals
+				assertSubtotal(sheet.getRow(3), 1, "a", 1, "SUBTOTAL(9,D2:D3)", 3d);
+				assertSubtotal(sheet.getRow(5), 1, "a", 2, "SUBTOTAL(9,D5:D5)", 4d);
+				assertSubtotal(sheet.getRow(6), 0, "a", null, "SUBTOTAL(9,D2:D6)", 7d);
+				assertSubtotal(sheet.getRow(8), 1, "b", 1, "SUBTOTAL(9,D8:D8)", 8d);
+				assertSubtotal(sheet.getRow(9), 0, "b", null, "SUBTOTAL(9,D8:D9)", 8d);
+				// total
+				assertEquals(0, sheet.getRow(10).getOutlineLevel());
+				assertEquals("SUBTOTAL(9,D2:D10)", sheet.getRow(10).getCell(3).getCellFormula());
+				assertEquals(15d, sheet.getRow(10).getCell(3).getNumericCellValue(), 0d);
+			}
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> XLSConfiguration.builder().withGroupByProperty(null));
+	}
+
+	private static void assertSubtotal(Row row, int outlineLevel, String text, Integer intValue, String formula,
+			double subtotal) {
+		assertEquals(outlineLevel, row.getOutlineLevel());
+		assertEquals(CellType.BLANK, row.getCell(0).getCellType());
+		assertEquals(text, row.getCell(1).getStringCellValue());
+		if (intValue != null) {
+			assertEquals(intValue.intValue(), (int) row.getCell(2).getNumericCellValue());
+		} else {
+			assertEquals(CellType.BLANK, row.getCell(2).getCellType());
+		}
+		assertEquals(formula, row.getCell(3).getCellFormula());
+		assertEquals(subtotal, row.getCell(3).getNumericCellValue(), 0d);
+	}
+
+	@Test
+	public void testStyleInterning() throws IOException {
+
+		final XLSCellConfiguration.Builder builder = XLSCellConfiguration.builder().bold(true);
+		final XLSCellConfiguration cfg = builder.build();
+		final int hash = cfg.hashCode();
+		assertEquals(hash, cfg.hashCode());
+		assertEquals(cfg, XLSCellConfiguration.builder().bold(true).build());
+		assertEquals(hash, XLSCellConfiguration.builder().bold(true).build().hashCode());
+		builder.italic(true);
+		assertEquals(XLSCellConfiguration.builder().bold(true).italic(true).build().hashCode(), cfg.hashCode());
+		assertNotEquals(XLSCellConfiguration.builder().bold(true).build(), cfg);
+
+		final XLSConfiguration single = XLSConfiguration.builder().withTotalProperty(DBLV).build();
+		final XLSConfiguration partitioned = XLSConfiguration.builder().withTotalProperty(DBLV).maxRowsPerSheet(1)
+				.build();
+		for (XLSFileVersion version : XLSFileVersion.values()) {
+			final int styles;
+			try (Workbook workbook = exportAndRead(XLSExporter.builder(DATASOURCE, SET)
+					.configuration(single.cloneConfiguration().fileVersion(version).build()).build())) {
+				styles = workbook.getNumCellStyles();
+			}
+			try (Workbook workbook = exportAndRead(XLSExporter.builder(DATASOURCE, SET)
+					.configuration(partitioned.cloneConfiguration().fileVersion(version).build()).build())) {
+				assertEquals(5, workbook.getNumberOfSheets());
+				assertEquals(styles, workbook.getNumCellStyles());
+			}
+		}
+	}
+
+	@Test
+	public void testSheetPartitioning() throws IOException {
+
+		final XLSConfiguration configuration = XLSConfiguration.builder().title("Partitioned").sheetName("Data")
+				.withTotalProperty(DBLV).maxRowsPerSheet(2).build();
+
+		final XLSExporter workbookExporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).build();
+		final XLSExporter streamingExporter = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+				.registry(PropertyXLSValueProviderRegistry.create(true)).engine(XLSExportEngine.streaming()).build();
+
+		for (XLSExporter exporter : new XLSExporter[] { workbookExporter, streamingExporter }) {
+			try (Workbook workbook = exportAndRead(exporter)) {
+				assertEquals(3, workbook.getNumberOfSheets());
+				assertEquals("Data", workbook.getSheetName(0));
+				assertEquals("Data (2)", workbook.getSheetName(1));
+				assertEquals("Data (3)", workbook.getSheetName(2));
+				long id = 1;
+				for (int s = 0; s < 3; s++) {
+					final Sheet sheet = workbook.getSheetAt(s);
+					final int dataRows = (s < 2) ? 2 : 1;
+					assertEquals("Partitioned", sheet.getRow(0).getCell(0).getStringCellValue());
+					assertEquals("The ID", sheet.getRow(1).getCell(0).getStringCellValue());
+					for (int i = 0; i < dataRows; i++) {
+						assertEquals(id++, (long) sheet.getRow(i + 2).getCell(0).getNumericCellValue());
+					}
+					assertEquals(dataRows + 2, sheet.getLastRowNum());
+					assertEquals("SUM(D3:D" + (dataRows + 2) + ")",
+							sheet.getRow(dataRows + 2).getCell(3).getCellFormula());
+				}
+			}
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> XLSConfiguration.builder().maxRowsPerSheet(-1));
+	}
+
+	@Test
+	public void testExportListener() throws IOException {
+
+		final XLSConfiguration configuration = XLSConfiguration.builder().title("Metrics").withTotalProperty(DBLV)
+				.build();
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+		for (XLSExportEngine engine : new XLSExportEngine[] { null, XLSExportEngine.streaming() }) {
+			final Map<ExportPhase, Integer> phases = new EnumMap<>(ExportPhase.class);
+			final AtomicLong fetchedRows = new AtomicLong();
+			final List<ExportMetrics> completed = new ArrayList<>();
+
+			final XLSExporter.Builder builder = XLSExporter.builder(DATASOURCE, SET).configuration(configuration)
+					.registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(2)
+					.listener(new ExportListener() {
+
+						@Override
+						public void onPhase(ExportPhase phase, long durationNanos, int rows) {
+							phases.merge(phase, 1, Integer::sum);
+							if (phase == ExportPhase.FETCH) {
+								fetchedRows.addAndGet(rows);
+							}
+						}
+
+						@Override
+						public void onCompleted(ExportMetrics metrics) {
+							completed.add(metrics);
+						}
+
+					}).listener(new ExportListener() {
+
+						@Override
+						public void onPhase(ExportPhase phase, long durationNanos, int rows) {
+							throw new IllegalStateException("Listener failure must be ignored");
+						}
+
+					}).listener(new MicrometerExportListener(registry));
+			if (engine != null) {
+				builder.engine(engine);
+			}
+
+			final ByteArrayOutputStream os = new ByteArrayOutputStream();
+			builder.build().export(os);
+
+			assertEquals(1, phases.get(ExportPhase.COUNT));
+			assertEquals(1, phases.get(ExportPhase.TITLE));
+			assertEquals(1, phases.get(ExportPhase.HEADER));
+			// 2 + 2 + 1 rows, the final empty page is not recorded
+			assertEquals(3, phases.get(ExportPhase.FETCH));
+			assertEquals(1, phases.get(ExportPhase.DATA));
+			assertEquals(1, phases.get(ExportPhase.TOTALS));
+			assertEquals(1, phases.get(ExportPhase.WRITE));
+			assertEquals(5, fetchedRows.get());
+
+			assertEquals(1, completed.size());
+			final ExportMetrics metrics = completed.get(0);
+			assertEquals(5, metrics.getRows());
+			assertEquals(60, metrics.getCells());
+			assertTrue(metrics.getStylesCreated() > 0);
+			assertTrue(metrics.getFontsCreated() > 0);
+			assertEquals(os.size(), metrics.getBytesWritten());
+			assertTrue(metrics.getElapsedNanos() >= metrics.getPhaseNanos(ExportPhase.DATA));
+			assertEquals(phases.get(ExportPhase.FETCH).intValue(), metrics.getPhaseCount(ExportPhase.FETCH));
+		}
+
+		assertEquals(2, registry.get("holon.export").tag("outcome", "success").timer().count());
+		assertEquals(2, registry.get("holon.export.phase").tag("phase", "write").timer().count());
+		assertEquals(10d, registry.get("holon.export.rows").counter().count(), 0d);
+	}
+
+	@Test
+	public void testConcurrentExports() throws Exception {
+
+		final int rows = 300;
+		final List<PropertyBox> items = new ArrayList<>(rows);
+		for (int i = 1; i <= rows; i++) {
+			items.add(PropertyBox.builder(SET).set(ID, (long) i).set(TEXT, "text" + i).set(DBLV, i * 1.5d)
+					.set(BOOL, i % 2 == 0).set(LDATE, LocalDate.of(2019, 1, 1).plusDays(i)).build());
+		}
+
+		final XLSConfiguration configuration = XLSConfiguration.builder().withTotalProperty(DBLV)
+				.propertyConfiguration(DBLV, XLSPropertyConfiguration.builder().numberDecimals(3).build()).build();
+		final XLSExporter exporter = XLSExporter.builder(DataProvider.ofCollection(items), SET)
+				.configuration(configuration).registry(PropertyXLSValueProviderRegistry.create(true)).batchSize(17)
+				.build();
+
+		final int threads = 8;
+		final int exportsPerThread = 4;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			final List<Future<Void>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					for (int e = 0; e < exportsPerThread; e++) {
+						try (Workbook workbook = exportAndRead(exporter)) {
+							final Sheet sheet = workbook.getSheetAt(0);
+							assertEquals(rows + 1, sheet.getLastRowNum());
+							for (int i = 1; i <= rows; i++) {
+								final Row row = sheet.getRow(i);
+								assertEquals(i, (long) row.getCell(0).getNumericCellValue());
+								assertEquals("text" + i, row.getCell(1).getStringCellValue());
+								assertEquals(i * 1.5d, row.getCell(3).getNumericCellValue(), 0.0001d);
+								assertEquals("0.000", row.getCell(3).getCellStyle().getDataFormatString());
+								assertEquals(i % 2 == 0, row.getCell(5).getBooleanCellValue());
+								assertEquals(LocalDate.of(2019, 1, 1).plusDays(i),
+										row.getCell(9).getLocalDateTimeCellValue().toLocalDate());
+							}
+							assertEquals("SUM(D2:D" + (rows + 1) + ")",
+									sheet.getRow(rows + 1).getCell(3).getCellFormula());
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<Void> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static String streamingText(long id) {
+		// strings longer than a BIFF record, split across CONTINUE records
+		if (id == 500) {
+			return "long" + String.join("", Collections.nCopies(2500, "abcd"));
+		}
+		if (id == 1500) {
+			return "wide" + String.join("", Collections.nCopies(2500, "\u00e8\u4e2d"));
+		}
+		if (id == 2500) {
+			return "huge" + String.join("", Collections.nCopies(10000, "abcd"));
+		}
+		return "text" + id;
+	}
+
+	private static Workbook exportAndRead(XLSExporter exporter) throws IOException {
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		exporter.export(os);
+		return WorkbookFactory.create(new ByteArrayInputStream(os.toByteArray()));
+	}
+
+	private static void awaitQuietly(Interruptible operation) {
+		try {
+			operation.run();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Interruptible {
+
+		void run() throws InterruptedException;
+
+	}
+
 	private static void export(XLSExporter exporter, String fileName) throws IOException {
 		File file = File.createTempFile(fileName + "_" + System.currentTimeMillis(), ".xlsx");
 		try (OutputStream os = new FileOutputStream(file)) {